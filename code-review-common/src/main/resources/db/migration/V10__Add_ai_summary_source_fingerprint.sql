@@ -0,0 +1,5 @@
+-- 智能汇总复用
+-- source_fingerprint 为生成时问题集合（数量、最后修改时间）与生成选项的哈希，指纹不变时直接复用已生成的汇总
+ALTER TABLE ai_summaries ADD COLUMN source_fingerprint VARCHAR(64) NULL DEFAULT NULL COMMENT '问题集合与生成选项指纹';
+
+CREATE INDEX idx_ai_summaries_fingerprint ON ai_summaries(source_fingerprint);
@@ -0,0 +1,8 @@
+-- 问题解决时间
+-- resolved_at 在问题首次进入已解决或已关闭状态时写入，之后的编辑不会改变它；解决耗时统计按此时间归入日期
+ALTER TABLE issues ADD COLUMN resolved_at TIMESTAMP NULL DEFAULT NULL COMMENT '解决时间';
+
+-- 已解决的历史问题没有更准确的时间，以最后修改时间近似
+UPDATE issues SET resolved_at = updated_at WHERE status IN ('RESOLVED', 'CLOSED') AND resolved_at IS NULL;
+
+CREATE INDEX idx_issues_resolved_at ON issues(resolved_at);
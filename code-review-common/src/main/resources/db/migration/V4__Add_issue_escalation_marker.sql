@@ -0,0 +1,6 @@
+-- 问题超时升级标记
+-- escalated_at 非空表示该问题已被自动升级过，定时任务不会重复升级
+ALTER TABLE issues ADD COLUMN escalated_at TIMESTAMP NULL DEFAULT NULL COMMENT '超时自动升级时间';
+
+-- 超时升级扫描按 (status, escalated_at, created_at) 过滤，按 id 做游标分页
+CREATE INDEX idx_issues_escalation ON issues(status, escalated_at, created_at, id);
@@ -0,0 +1,32 @@
+-- 整改工作流事件表（只追加）
+-- 每个问题一条事件流，sequence_no 从 1 开始连续递增，唯一键保证并发写入时不会出现分叉
+CREATE TABLE fix_workflow_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    issue_id BIGINT NOT NULL COMMENT '问题ID',
+    sequence_no BIGINT NOT NULL COMMENT '事件序号',
+    event_type VARCHAR(20) NOT NULL COMMENT '事件类型',
+    action VARCHAR(30) COMMENT '工作流动作',
+    from_stage VARCHAR(30) COMMENT '原阶段',
+    to_stage VARCHAR(30) NOT NULL COMMENT '新阶段',
+    assignee_id BIGINT COMMENT '处理人ID',
+    deadline TIMESTAMP NULL DEFAULT NULL COMMENT '整改截止时间',
+    occurred_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '发生时间',
+    UNIQUE KEY uk_issue_sequence (issue_id, sequence_no),
+    INDEX idx_sequence_occurred (sequence_no, occurred_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='整改工作流事件表';
+
+-- 整改工作流快照表
+-- 每隔固定数量的事件保存一次，读取当前状态时只需回放快照之后的少量事件
+CREATE TABLE fix_workflow_snapshots (
+    issue_id BIGINT PRIMARY KEY COMMENT '问题ID',
+    last_sequence_no BIGINT NOT NULL COMMENT '快照对应的最后事件序号',
+    current_stage VARCHAR(30) NOT NULL COMMENT '当前阶段',
+    assignee_id BIGINT COMMENT '处理人ID',
+    start_time TIMESTAMP NULL DEFAULT NULL COMMENT '开始时间',
+    end_time TIMESTAMP NULL DEFAULT NULL COMMENT '结束时间',
+    last_action_time TIMESTAMP NULL DEFAULT NULL COMMENT '最后操作时间',
+    deadline TIMESTAMP NULL DEFAULT NULL COMMENT '整改截止时间',
+    completed BOOLEAN NOT NULL DEFAULT FALSE COMMENT '是否结束',
+    overdue BOOLEAN NOT NULL DEFAULT FALSE COMMENT '是否超时',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='整改工作流快照表';
@@ -0,0 +1,11 @@
+-- 团队每日耗时分位数草图
+-- sketch 为对数-线性直方图的编码，按日期范围查询时合并各天草图计算中位数、P90、P99
+CREATE TABLE issue_time_sketches (
+    team_id BIGINT NOT NULL COMMENT '团队ID',
+    stat_date DATE NOT NULL COMMENT '统计日期',
+    metric VARCHAR(30) NOT NULL COMMENT '指标：RESOLUTION 解决耗时，FIRST_FIX 首次整改耗时',
+    sample_count BIGINT NOT NULL DEFAULT 0 COMMENT '样本数',
+    sketch TEXT NOT NULL COMMENT '直方图编码（分钟）',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (team_id, metric, stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='团队每日耗时分位数草图';
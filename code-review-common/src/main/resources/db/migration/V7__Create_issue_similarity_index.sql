@@ -0,0 +1,19 @@
+-- 问题文本 MinHash 签名
+-- signature 为 64 个哈希最小值的 Base64 编码，两个签名相同位置相等的比例近似文本的 Jaccard 相似度
+CREATE TABLE issue_similarity_signatures (
+    issue_id BIGINT NOT NULL COMMENT '问题ID',
+    team_id BIGINT NOT NULL COMMENT '团队ID',
+    signature VARCHAR(512) NOT NULL COMMENT 'MinHash 签名（Base64）',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (issue_id),
+    INDEX idx_similarity_signatures_team (team_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='问题文本 MinHash 签名';
+
+-- 问题相似度 LSH 分桶：签名每段哈希为一个桶键，与查询签名有相同桶键的问题即为候选
+CREATE TABLE issue_similarity_bands (
+    team_id BIGINT NOT NULL COMMENT '团队ID',
+    band_key BIGINT NOT NULL COMMENT '分段桶键',
+    issue_id BIGINT NOT NULL COMMENT '问题ID',
+    PRIMARY KEY (team_id, band_key, issue_id),
+    INDEX idx_similarity_bands_issue (issue_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='问题相似度 LSH 分桶';
@@ -0,0 +1,11 @@
+-- 团队每周问题分析中间结果
+-- 已结束的周计算一次后保存，任意日期范围的分析合并各周结果，只有未结束的周和范围两端不满一周的日期从原始问题计算。
+-- fingerprint 记录计算时该周问题的数量、最后修改时间和模式规则版本，不一致时重新计算
+CREATE TABLE issue_analysis_partials (
+    team_id BIGINT NOT NULL COMMENT '团队ID',
+    week_start DATE NOT NULL COMMENT '周一日期',
+    fingerprint VARCHAR(100) NOT NULL COMMENT '计算时的问题数量、最后修改时间和规则版本',
+    payload MEDIUMTEXT NOT NULL COMMENT '分析中间结果（JSON）',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (team_id, week_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='团队每周问题分析中间结果';
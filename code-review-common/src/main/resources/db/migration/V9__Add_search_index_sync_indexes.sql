@@ -0,0 +1,5 @@
+-- 全文检索索引增量同步
+-- 检索服务按 (updated_at, id) 游标拉取最近修改的问题和评审记录（含已逻辑删除的行）
+CREATE INDEX idx_issues_updated_at ON issues(updated_at, id);
+
+CREATE INDEX idx_review_records_updated_at ON review_records(updated_at, id);
@@ -0,0 +1,191 @@
+package com.company.codereview.user.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Aho–Corasick 多模式匹配自动机
+ *
+ * 所有模式编译为一棵带失败链接的前缀树，对文本做一次线性扫描即可找出全部命中的模式，
+ * 耗时与模式数量无关。匹配不区分大小写；构建后不可变，可被多个线程共享。
+ */
+public class AhoCorasickMatcher {
+
+    private static final int ROOT = 0;
+
+    private final String[] patterns;
+
+    /**
+     * 每个节点的出边字符（升序）和对应的子节点
+     */
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+
+    private final int[] fail;
+
+    /**
+     * 以该节点结尾的模式编号，没有则为 -1
+     */
+    private final int[] output;
+
+    /**
+     * 沿失败链接最近的一个有输出的节点，没有则为 -1
+     */
+    private final int[] outputLink;
+
+    /**
+     * @param patterns 互不相同的非空模式，编号为其在列表中的下标
+     */
+    public AhoCorasickMatcher(List<String> patterns) {
+        this.patterns = new String[patterns.size()];
+
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        outputs.add(-1);
+
+        Set<String> distinct = new HashSet<>();
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id).toLowerCase();
+            if (pattern.isEmpty() || !distinct.add(pattern)) {
+                throw new IllegalArgumentException("模式为空或重复: " + patterns.get(id));
+            }
+            this.patterns[id] = pattern;
+
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer child = trie.get(node).get(pattern.charAt(i));
+                if (child == null) {
+                    child = trie.size();
+                    trie.get(node).put(pattern.charAt(i), child);
+                    trie.add(new TreeMap<>());
+                    outputs.add(-1);
+                }
+                node = child;
+            }
+            outputs.set(node, id);
+        }
+
+        int size = trie.size();
+        this.edgeChars = new char[size][];
+        this.edgeTargets = new int[size][];
+        this.output = new int[size];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> edges = trie.get(node);
+            edgeChars[node] = new char[edges.size()];
+            edgeTargets[node] = new int[edges.size()];
+            int index = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][index] = edge.getKey();
+                edgeTargets[node][index] = edge.getValue();
+                index++;
+            }
+            output[node] = outputs.get(node);
+        }
+
+        this.fail = new int[size];
+        this.outputLink = new int[size];
+        buildFailureLinks();
+    }
+
+    /**
+     * 模式数量
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * 按编号获取模式（小写形式）
+     */
+    public String getPattern(int id) {
+        return patterns[id];
+    }
+
+    /**
+     * 扫描文本，每个命中的模式按首次命中的顺序回调一次
+     */
+    public void forEachDistinctMatch(CharSequence text, IntConsumer consumer) {
+        if (text == null || patterns.length == 0) {
+            return;
+        }
+
+        boolean[] reported = new boolean[patterns.length];
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, Character.toLowerCase(text.charAt(i)));
+            for (int node = output[state] >= 0 ? state : outputLink[state]; node > ROOT; node = outputLink[node]) {
+                int id = output[node];
+                if (!reported[id]) {
+                    reported[id] = true;
+                    consumer.accept(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * 文本中命中的模式编号（去重，按首次命中的顺序）
+     */
+    public int[] findDistinct(CharSequence text) {
+        int[] buffer = new int[patterns.length];
+        int[] count = {0};
+        forEachDistinctMatch(text, id -> buffer[count[0]++] = id);
+        return Arrays.copyOf(buffer, count[0]);
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int target = edge(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    private int edge(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    private void buildFailureLinks() {
+        Deque<Integer> queue = new ArrayDeque<>();
+        fail[ROOT] = ROOT;
+        outputLink[ROOT] = -1;
+        for (int child : edgeTargets[ROOT]) {
+            fail[child] = ROOT;
+            outputLink[child] = -1;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+
+                int fallback = fail[node];
+                while (fallback != ROOT && edge(fallback, c) < 0) {
+                    fallback = fail[fallback];
+                }
+                int target = edge(fallback, c);
+                fail[child] = target >= 0 ? target : ROOT;
+                outputLink[child] = output[fail[child]] >= 0 ? fail[child] : outputLink[fail[child]];
+
+                queue.add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.company.codereview.user.algorithm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel for keyed deadlines
+ *
+ * Level 0 has {@code wheelSize} slots of one tick each; every higher level has
+ * {@code wheelSize} slots each spanning the whole range of the level below.
+ * Higher levels are created lazily, so any deadline can be held. When a slot of a
+ * higher level comes due its entries are cascaded into the lower levels, and an
+ * entry fires when the clock reaches the tick containing its deadline (deadlines
+ * are rounded up to the next tick, so entries never fire early).
+ *
+ * Insert and cancel are O(1): every key maps to a node of an intrusive
+ * doubly linked slot list. The wheel is thread-safe; expired keys are returned
+ * from {@link #advanceClock(long)} and never handed to callbacks under the lock.
+ *
+ * @param <K> key type, e.g. issue ID
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long originMillis;
+    private final List<Level<K>> levels = new ArrayList<>();
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+
+    /**
+     * Current time in ticks since {@link #originMillis}
+     */
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (wheelSize < 2) {
+            throw new IllegalArgumentException("wheelSize must be at least 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.originMillis = startMillis;
+        this.currentTick = 0L;
+        this.levels.add(new Level<>(1L, wheelSize));
+    }
+
+    /**
+     * Schedule (or reschedule) a key
+     *
+     * @return true if the deadline is already due; the key is then not stored and
+     *         the caller is expected to handle it right away
+     */
+    public synchronized boolean schedule(K key, long deadlineMillis) {
+        removeEntry(key);
+
+        long expirationTick = toTick(deadlineMillis);
+        if (expirationTick <= currentTick) {
+            return true;
+        }
+
+        Entry<K> entry = new Entry<>(key, expirationTick);
+        entries.put(key, entry);
+        place(entry);
+        return false;
+    }
+
+    /**
+     * Cancel a key
+     *
+     * @return true if the key was scheduled
+     */
+    public synchronized boolean cancel(K key) {
+        return removeEntry(key);
+    }
+
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advance the wheel to the given wall-clock time
+     *
+     * @return keys whose deadlines have been reached, in firing order
+     */
+    public synchronized List<K> advanceClock(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - originMillis, tickMillis);
+        if (targetTick <= currentTick) {
+            return new ArrayList<>(0);
+        }
+
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            if (entries.isEmpty()) {
+                // Nothing to cascade; jump straight to the target
+                currentTick = targetTick;
+                break;
+            }
+            // Cascade from the highest level down so re-placed entries land in
+            // lower slots that are flushed later in this same step
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                Level<K> level = levels.get(i);
+                if (currentTick % level.tickSpan == 0) {
+                    flush(level, expired);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void flush(Level<K> level, List<K> expired) {
+        Slot<K> slot = level.slotFor(currentTick);
+        Entry<K> entry = slot.head;
+        slot.head = null;
+        while (entry != null) {
+            Entry<K> next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            entry.slot = null;
+            if (entry.expirationTick <= currentTick) {
+                entries.remove(entry.key);
+                expired.add(entry.key);
+            } else {
+                place(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        int index = 0;
+        while (true) {
+            Level<K> level = levelAt(index);
+            long levelStart = currentTick - (currentTick % level.tickSpan);
+            if (entry.expirationTick < levelStart + level.tickSpan * wheelSize) {
+                level.slotFor(entry.expirationTick).add(entry);
+                return;
+            }
+            index++;
+        }
+    }
+
+    private Level<K> levelAt(int index) {
+        while (levels.size() <= index) {
+            Level<K> top = levels.get(levels.size() - 1);
+            levels.add(new Level<>(top.tickSpan * wheelSize, wheelSize));
+        }
+        return levels.get(index);
+    }
+
+    private boolean removeEntry(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.slot != null) {
+            entry.slot.remove(entry);
+        }
+        return true;
+    }
+
+    private long toTick(long millis) {
+        // Round up so that an entry never fires before its deadline
+        return -Math.floorDiv(-(millis - originMillis), tickMillis);
+    }
+
+    private static final class Level<K> {
+        private final long tickSpan;
+        private final Slot<K>[] slots;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickSpan, int wheelSize) {
+            this.tickSpan = tickSpan;
+            this.slots = new Slot[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                slots[i] = new Slot<>();
+            }
+        }
+
+        private Slot<K> slotFor(long tick) {
+            return slots[(int) ((tick / tickSpan) % slots.length)];
+        }
+    }
+
+    private static final class Slot<K> {
+        private Entry<K> head;
+
+        private void add(Entry<K> entry) {
+            entry.slot = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        private void remove(Entry<K> entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.slot = null;
+        }
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long expirationTick;
+        private Slot<K> slot;
+        private Entry<K> prev;
+        private Entry<K> next;
+
+        private Entry(K key, long expirationTick) {
+            this.key = key;
+            this.expirationTick = expirationTick;
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.company.codereview.user.algorithm;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 带分面的内存倒排索引
+ *
+ * 文档按内部序号顺序追加，每个词的倒排表是按序号递增的（序号、词频）数组，每个文档另带固定数量的
+ * long 型分面值（如类型、严重级别、团队）。更新文档时旧序号标记删除并追加新序号，
+ * 已删除序号多于存活文档时整体压缩重排。查询各词取交集（从最短的倒排表开始，其余倒排表倍增跳跃查找），
+ * 按 BM25 打分，同时按分面过滤并统计命中文档的分面计数，只用有界堆保留请求页之前的结果。
+ * 读写由读写锁保护，查询之间互不阻塞；整个索引可以写出为快照并重新加载。
+ */
+public class InvertedIndex {
+
+    /**
+     * 分面过滤值：不限
+     */
+    public static final long ANY = Long.MIN_VALUE;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * 已删除序号达到该数量且多于存活文档时压缩
+     */
+    private static final int COMPACT_MIN_DELETED = 1024;
+
+    private final int facetCount;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private BitSet deleted = new BitSet();
+    private long[] docIds = new long[16];
+    private int[] docLengths = new int[16];
+    private long[][] facets;
+    private int ordinalCount;
+    private int deletedCount;
+    private long totalLength;
+
+    public InvertedIndex(int facetCount) {
+        if (facetCount < 0) {
+            throw new IllegalArgumentException("分面数量不能为负数: " + facetCount);
+        }
+        this.facetCount = facetCount;
+        this.facets = new long[facetCount][16];
+    }
+
+    /**
+     * 写入或替换文档
+     *
+     * @param docId       文档ID
+     * @param tokens      分词结果，重复出现的词计入词频
+     * @param facetValues 分面值，数量必须等于分面数量
+     */
+    public void put(long docId, List<String> tokens, long[] facetValues) {
+        if (facetValues.length != facetCount) {
+            throw new IllegalArgumentException("分面值数量应为 " + facetCount + ": " + facetValues.length);
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(docId);
+            int ordinal = ordinalCount++;
+            ensureCapacity(ordinalCount);
+            docIds[ordinal] = docId;
+            docLengths[ordinal] = tokens.size();
+            for (int f = 0; f < facetCount; f++) {
+                facets[f][ordinal] = facetValues[f];
+            }
+            ordinals.put(docId, ordinal);
+            totalLength += tokens.size();
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(ordinal, entry.getValue());
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @return 文档是否存在
+     */
+    public boolean remove(long docId) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = removeLocked(docId);
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 存活文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 是否包含文档
+     */
+    public boolean contains(long docId) {
+        lock.readLock().lock();
+        try {
+            return ordinals.containsKey(docId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询
+     *
+     * 所有查询词都出现的文档才命中，按 BM25 分值从高到低排序，分值相同时文档ID大的在前；
+     * 查询词为空时命中全部满足过滤条件的文档，按文档ID从大到小排序。
+     *
+     * @param terms   查询词
+     * @param filters 分面过滤值，null 或 {@link #ANY} 表示不限
+     * @param offset  跳过的结果数量
+     * @param limit   返回的结果数量
+     */
+    public Hits search(Collection<String> terms, long[] filters, int offset, int limit) {
+        if (filters != null && filters.length != facetCount) {
+            throw new IllegalArgumentException("分面过滤值数量应为 " + facetCount + ": " + filters.length);
+        }
+        int keep = (int) Math.min(Integer.MAX_VALUE, Math.max(0L, (long) offset + Math.max(0, limit)));
+
+        lock.readLock().lock();
+        try {
+            Collector collector = new Collector(keep);
+            List<String> distinctTerms = new ArrayList<>(new LinkedHashSet<>(terms));
+            if (distinctTerms.isEmpty()) {
+                for (int ordinal = deleted.nextClearBit(0); ordinal < ordinalCount; ordinal = deleted.nextClearBit(ordinal + 1)) {
+                    if (matches(ordinal, filters)) {
+                        collector.collect(ordinal, 0.0);
+                    }
+                }
+            } else {
+                searchTerms(distinctTerms, filters, collector);
+            }
+            return collector.toHits(Math.max(0, offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void searchTerms(List<String> terms, long[] filters, Collector collector) {
+        Postings[] lists = new Postings[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(terms.get(i));
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        int liveCount = Math.max(1, ordinals.size());
+        double averageLength = Math.max(1.0, (double) totalLength / liveCount);
+        double[] idf = new double[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            double documentFrequency = Math.min(lists[i].size, liveCount);
+            idf[i] = Math.log(1.0 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+
+        int[] cursors = new int[lists.length];
+        int[] frequencies = new int[lists.length];
+        Postings shortest = lists[0];
+        candidates:
+        for (int p = 0; p < shortest.size; p++) {
+            int ordinal = shortest.ordinals[p];
+            if (deleted.get(ordinal) || !matches(ordinal, filters)) {
+                continue;
+            }
+            frequencies[0] = shortest.frequencies[p];
+            for (int i = 1; i < lists.length; i++) {
+                int index = lists[i].seek(ordinal, cursors[i]);
+                if (index >= lists[i].size) {
+                    break candidates;
+                }
+                cursors[i] = index;
+                if (lists[i].ordinals[index] != ordinal) {
+                    continue candidates;
+                }
+                frequencies[i] = lists[i].frequencies[index];
+            }
+
+            double lengthNorm = K1 * (1 - B + B * docLengths[ordinal] / averageLength);
+            double score = 0.0;
+            for (int i = 0; i < lists.length; i++) {
+                score += idf[i] * frequencies[i] * (K1 + 1) / (frequencies[i] + lengthNorm);
+            }
+            collector.collect(ordinal, score);
+        }
+    }
+
+    private boolean matches(int ordinal, long[] filters) {
+        if (filters == null) {
+            return true;
+        }
+        for (int f = 0; f < facetCount; f++) {
+            if (filters[f] != ANY && facets[f][ordinal] != filters[f]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean removeLocked(long docId) {
+        Integer ordinal = ordinals.remove(docId);
+        if (ordinal == null) {
+            return false;
+        }
+        deleted.set(ordinal);
+        deletedCount++;
+        totalLength -= docLengths[ordinal];
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount >= COMPACT_MIN_DELETED && deletedCount > ordinals.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * 去掉已删除的序号，存活文档按原顺序重新编号
+     */
+    private void compact() {
+        if (deletedCount == 0) {
+            return;
+        }
+        int[] remap = new int[ordinalCount];
+        int next = 0;
+        for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+            if (deleted.get(ordinal)) {
+                remap[ordinal] = -1;
+                continue;
+            }
+            remap[ordinal] = next;
+            docIds[next] = docIds[ordinal];
+            docLengths[next] = docLengths[ordinal];
+            for (int f = 0; f < facetCount; f++) {
+                facets[f][next] = facets[f][ordinal];
+            }
+            ordinals.put(docIds[next], next);
+            next++;
+        }
+
+        postings.values().removeIf(list -> {
+            int size = 0;
+            for (int p = 0; p < list.size; p++) {
+                int mapped = remap[list.ordinals[p]];
+                if (mapped >= 0) {
+                    list.ordinals[size] = mapped;
+                    list.frequencies[size] = list.frequencies[p];
+                    size++;
+                }
+            }
+            list.size = size;
+            return size == 0;
+        });
+
+        ordinalCount = next;
+        deletedCount = 0;
+        deleted = new BitSet();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= docIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, docIds.length * 2);
+        docIds = Arrays.copyOf(docIds, newCapacity);
+        docLengths = Arrays.copyOf(docLengths, newCapacity);
+        for (int f = 0; f < facetCount; f++) {
+            facets[f] = Arrays.copyOf(facets[f], newCapacity);
+        }
+    }
+
+    /**
+     * 写出快照（先压缩，写出期间只阻塞写入）
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        lock.writeLock().lock();
+        try {
+            compact();
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(facetCount);
+            out.writeInt(ordinalCount);
+            for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+                out.writeLong(docIds[ordinal]);
+                out.writeInt(docLengths[ordinal]);
+                for (int f = 0; f < facetCount; f++) {
+                    out.writeLong(facets[f][ordinal]);
+                }
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings list = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(list.size);
+                int previous = 0;
+                for (int p = 0; p < list.size; p++) {
+                    out.writeInt(list.ordinals[p] - previous);
+                    out.writeInt(list.frequencies[p]);
+                    previous = list.ordinals[p];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取快照
+     *
+     * @throws IOException 格式版本或分面数量不一致、数据损坏时抛出
+     */
+    public static InvertedIndex readFrom(DataInput in, int facetCount) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("不支持的索引快照版本: " + version);
+        }
+        int storedFacetCount = in.readInt();
+        if (storedFacetCount != facetCount) {
+            throw new IOException("索引快照分面数量不一致: " + storedFacetCount + " != " + facetCount);
+        }
+
+        InvertedIndex index = new InvertedIndex(facetCount);
+        int documentCount = in.readInt();
+        if (documentCount < 0) {
+            throw new IOException("索引快照已损坏: documentCount=" + documentCount);
+        }
+        index.ensureCapacity(documentCount);
+        for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+            index.docIds[ordinal] = in.readLong();
+            index.docLengths[ordinal] = in.readInt();
+            for (int f = 0; f < facetCount; f++) {
+                index.facets[f][ordinal] = in.readLong();
+            }
+            index.ordinals.put(index.docIds[ordinal], ordinal);
+            index.totalLength += index.docLengths[ordinal];
+        }
+        index.ordinalCount = documentCount;
+
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String term = in.readUTF();
+            int size = in.readInt();
+            Postings list = new Postings(Math.max(1, size));
+            int ordinal = 0;
+            for (int p = 0; p < size; p++) {
+                ordinal += in.readInt();
+                if (ordinal < 0 || ordinal >= documentCount) {
+                    throw new IOException("索引快照已损坏: term=" + term + ", ordinal=" + ordinal);
+                }
+                list.add(ordinal, in.readInt());
+            }
+            index.postings.put(term, list);
+        }
+        return index;
+    }
+
+    /**
+     * 查询结果
+     */
+    public static final class Hits {
+
+        private final int total;
+        private final long[] docIds;
+        private final double[] scores;
+        private final List<Map<Long, Long>> facetCounts;
+
+        Hits(int total, long[] docIds, double[] scores, List<Map<Long, Long>> facetCounts) {
+            this.total = total;
+            this.docIds = docIds;
+            this.scores = scores;
+            this.facetCounts = facetCounts;
+        }
+
+        /**
+         * 命中文档总数
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * 当前页的文档ID，按排序
+         */
+        public long[] getDocIds() {
+            return docIds;
+        }
+
+        public double[] getScores() {
+            return scores;
+        }
+
+        /**
+         * 全部命中文档的分面计数，下标为分面序号，键为分面值
+         */
+        public List<Map<Long, Long>> getFacetCounts() {
+            return facetCounts;
+        }
+    }
+
+    /**
+     * 统计命中总数和分面计数，用有界小顶堆保留排名最前的结果
+     */
+    private final class Collector {
+
+        private final int keep;
+        private final PriorityQueue<double[]> heap;
+        private final List<Map<Long, Long>> facetCounts = new ArrayList<>();
+        private int total;
+
+        Collector(int keep) {
+            this.keep = keep;
+            // 元素为 {分值, 序号}，堆顶为排名最后的结果（分值最低，同分时文档ID最小）
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(keep, 1024)),
+                    Comparator.<double[]>comparingDouble(entry -> entry[0]).thenComparingDouble(entry -> docIds[(int) entry[1]]));
+            for (int f = 0; f < facetCount; f++) {
+                facetCounts.add(new HashMap<>());
+            }
+        }
+
+        void collect(int ordinal, double score) {
+            total++;
+            for (int f = 0; f < facetCount; f++) {
+                facetCounts.get(f).merge(facets[f][ordinal], 1L, Long::sum);
+            }
+            if (keep == 0) {
+                return;
+            }
+            if (heap.size() < keep) {
+                heap.offer(new double[]{score, ordinal});
+            } else if (heap.comparator().compare(new double[]{score, ordinal}, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(new double[]{score, ordinal});
+            }
+        }
+
+        Hits toHits(int offset) {
+            int ranked = heap.size();
+            double[][] entries = new double[ranked][];
+            for (int i = ranked - 1; i >= 0; i--) {
+                entries[i] = heap.poll();
+            }
+            int count = Math.max(0, ranked - offset);
+            long[] pageDocIds = new long[count];
+            double[] pageScores = new double[count];
+            for (int i = 0; i < count; i++) {
+                pageDocIds[i] = docIds[(int) entries[offset + i][1]];
+                pageScores[i] = entries[offset + i][0];
+            }
+            return new Hits(total, pageDocIds, pageScores, facetCounts);
+        }
+    }
+
+    /**
+     * 单个词的倒排表
+     */
+    private static final class Postings {
+
+        private int[] ordinals;
+        private int[] frequencies;
+        private int size;
+
+        Postings() {
+            this(4);
+        }
+
+        Postings(int capacity) {
+            this.ordinals = new int[capacity];
+            this.frequencies = new int[capacity];
+        }
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /**
+         * 从 from 开始倍增跳跃再二分，返回第一个序号不小于 target 的位置，不存在时返回 size
+         */
+        int seek(int target, int from) {
+            if (from >= size || ordinals[from] >= target) {
+                return from;
+            }
+            int low = from;
+            int step = 1;
+            int high = from + step;
+            while (high < size && ordinals[high] < target) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            high = Math.min(high, size);
+            // ordinals[low] < target，所求位置在 (low, high] 内
+            int left = low + 1;
+            int right = high;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (ordinals[mid] < target) {
+                    left = mid + 1;
+                } else {
+                    right = mid;
+                }
+            }
+            return left;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.company.codereview.user.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * K-medoids 聚类
+ *
+ * 1. 初始中心按 k-means++ 方式选取，每个点到已选中心的最小距离增量维护；
+ * 2. 分配步骤把每个点分到相似度最高的中心（相同时取编号小的），点数较多时在 ForkJoin 公共池中并行；
+ * 3. 中心更新采用 PAM 方式：簇内点数不超过采样数时在全簇内选使平均相似度最高的点，
+ *    否则按 CLARA 方式只在随机样本内挑选和评估，每次迭代的代价与簇大小无关；
+ * 4. 中心不再变化，或者新中心下所有点到所属中心的相似度总和不再提高时停止（后者保留上一轮结果），
+ *    避免采样带来的中心来回摆动；
+ * 5. 所有随机数由种子和簇编号派生，相同输入和种子的结果完全确定，与线程调度无关。
+ */
+public class KMedoidsClustering {
+
+    /**
+     * 点数达到该值时分配和中心更新并行执行
+     */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * 两点之间的相似度（0-1之间，越大越相似）
+     */
+    @FunctionalInterface
+    public interface Similarity {
+        double between(int i, int j);
+    }
+
+    private final int k;
+    private final long seed;
+    private final int maxIterations;
+    private final int sampleSize;
+
+    /**
+     * 使用默认迭代次数（100）和 CLARA 建议的采样数（40 + 2k）
+     */
+    public KMedoidsClustering(int k, long seed) {
+        this(k, seed, 100, 40 + 2 * k);
+    }
+
+    public KMedoidsClustering(int k, long seed, int maxIterations, int sampleSize) {
+        if (k <= 0 || maxIterations <= 0 || sampleSize <= 0) {
+            throw new IllegalArgumentException("聚类参数必须为正数: k=" + k
+                    + ", maxIterations=" + maxIterations + ", sampleSize=" + sampleSize);
+        }
+        this.k = k;
+        this.seed = seed;
+        this.maxIterations = maxIterations;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * 对 n 个点聚类，点数必须大于 k
+     */
+    public Result cluster(int n, Similarity similarity) {
+        if (n <= k) {
+            throw new IllegalArgumentException("点数必须大于聚类数量: n=" + n + ", k=" + k);
+        }
+
+        int[] medoids = selectInitialMedoids(n, similarity);
+        int[] assignments = new int[n];
+        int[] newAssignments = new int[n];
+        double[] nearestSimilarity = new double[n];
+        double totalSimilarity = assign(n, similarity, medoids, assignments, nearestSimilarity);
+        int iteration = 0;
+
+        while (iteration < maxIterations) {
+            int[] newMedoids = updateMedoids(n, similarity, medoids, members(n, assignments));
+            iteration++;
+            if (Arrays.equals(medoids, newMedoids)) {
+                break;
+            }
+
+            double newTotalSimilarity = assign(n, similarity, newMedoids, newAssignments, nearestSimilarity);
+            if (newTotalSimilarity <= totalSimilarity) {
+                // 采样选出的中心没有改善整体代价，保留上一轮的中心和分配
+                break;
+            }
+            medoids = newMedoids;
+            int[] swap = assignments;
+            assignments = newAssignments;
+            newAssignments = swap;
+            totalSimilarity = newTotalSimilarity;
+        }
+
+        return new Result(medoids, assignments, iteration);
+    }
+
+    private int[] selectInitialMedoids(int n, Similarity similarity) {
+        Random random = new Random(seed);
+        int[] medoids = new int[k];
+        boolean[] chosen = new boolean[n];
+        medoids[0] = random.nextInt(n);
+        chosen[medoids[0]] = true;
+
+        double[] distances = new double[n];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        for (int c = 1; c < k; c++) {
+            int lastMedoid = medoids[c - 1];
+            range(n).forEach(i -> distances[i] = Math.min(distances[i], 1.0 - similarity.between(i, lastMedoid)));
+
+            // 按距离加权随机选择下一个中心，求和按固定顺序进行以保证结果确定
+            double totalDistance = 0.0;
+            for (int i = 0; i < n; i++) {
+                totalDistance += distances[i];
+            }
+            double randomValue = random.nextDouble() * totalDistance;
+            double cumulativeDistance = 0.0;
+            int next = -1;
+            for (int i = 0; i < n && next < 0; i++) {
+                cumulativeDistance += distances[i];
+                if (distances[i] > 0 && cumulativeDistance >= randomValue) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                // 剩余点与已选中心完全相同，取第一个未选中的点
+                next = 0;
+                while (chosen[next]) {
+                    next++;
+                }
+            }
+            medoids[c] = next;
+            chosen[next] = true;
+        }
+        return medoids;
+    }
+
+    /**
+     * 把每个点分到最相似的中心，返回所有点到所属中心的相似度总和（按固定顺序求和）
+     */
+    private double assign(int n, Similarity similarity, int[] medoids, int[] assignments, double[] nearestSimilarity) {
+        range(n).forEach(i -> {
+            int nearest = 0;
+            double maxSimilarity = -1.0;
+            for (int c = 0; c < medoids.length; c++) {
+                double value = similarity.between(i, medoids[c]);
+                if (value > maxSimilarity) {
+                    maxSimilarity = value;
+                    nearest = c;
+                }
+            }
+            assignments[i] = nearest;
+            nearestSimilarity[i] = maxSimilarity;
+        });
+
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            total += nearestSimilarity[i];
+        }
+        return total;
+    }
+
+    private int[][] members(int n, int[] assignments) {
+        int[] sizes = new int[k];
+        for (int assignment : assignments) {
+            sizes[assignment]++;
+        }
+        int[][] members = new int[sizes.length][];
+        for (int c = 0; c < sizes.length; c++) {
+            members[c] = new int[sizes[c]];
+        }
+        int[] filled = new int[sizes.length];
+        for (int i = 0; i < n; i++) {
+            members[assignments[i]][filled[assignments[i]]++] = i;
+        }
+        return members;
+    }
+
+    private int[] updateMedoids(int n, Similarity similarity, int[] medoids, int[][] members) {
+        int[] newMedoids = medoids.clone();
+        IntStream clusters = IntStream.range(0, k);
+        (n >= PARALLEL_THRESHOLD ? clusters.parallel() : clusters).forEach(c -> {
+            if (members[c].length > 0) {
+                newMedoids[c] = selectMedoid(similarity, medoids[c], members[c], new Random(clusterSeed(c)));
+            }
+        });
+        return newMedoids;
+    }
+
+    /**
+     * 在候选点中选出与评估点平均相似度最高的点，当前中心仍然最优时保持不变
+     */
+    private int selectMedoid(Similarity similarity, int currentMedoid, int[] clusterMembers, Random random) {
+        int[] sample = clusterMembers.length <= sampleSize ? clusterMembers : sample(clusterMembers, random);
+
+        List<Integer> candidates = new ArrayList<>(sample.length + 1);
+        candidates.add(currentMedoid);
+        for (int member : sample) {
+            if (member != currentMedoid) {
+                candidates.add(member);
+            }
+        }
+
+        int best = currentMedoid;
+        double bestAverage = -1.0;
+        for (int candidate : candidates) {
+            double total = 0.0;
+            int others = 0;
+            for (int member : sample) {
+                if (member != candidate) {
+                    total += similarity.between(candidate, member);
+                    others++;
+                }
+            }
+            double average = others > 0 ? total / others : 1.0;
+            if (average > bestAverage) {
+                bestAverage = average;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private int[] sample(int[] clusterMembers, Random random) {
+        int[] shuffled = clusterMembers.clone();
+        for (int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(shuffled.length - i);
+            int swap = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = swap;
+        }
+        return Arrays.copyOf(shuffled, sampleSize);
+    }
+
+    /**
+     * 每个簇在各轮迭代中使用同一个种子，簇成员不变时样本也不变
+     */
+    private long clusterSeed(int cluster) {
+        return seed ^ (cluster + 1L) * 0x9e3779b97f4a7c15L;
+    }
+
+    private static IntStream range(int n) {
+        IntStream range = IntStream.range(0, n);
+        return n >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
+    /**
+     * 聚类结果
+     */
+    public static final class Result {
+        private final int[] medoids;
+        private final int[] assignments;
+        private final int iterations;
+
+        private Result(int[] medoids, int[] assignments, int iterations) {
+            this.medoids = medoids;
+            this.assignments = assignments;
+            this.iterations = iterations;
+        }
+
+        /**
+         * 各簇中心点的编号
+         */
+        public int[] getMedoids() {
+            return medoids;
+        }
+
+        /**
+         * 每个点所属的簇（0 到 k-1）
+         */
+        public int[] getAssignments() {
+            return assignments;
+        }
+
+        /**
+         * 实际迭代次数
+         */
+        public int getIterations() {
+            return iterations;
+        }
+    }
+}
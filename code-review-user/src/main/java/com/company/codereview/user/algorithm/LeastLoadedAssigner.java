@@ -0,0 +1,51 @@
+package com.company.codereview.user.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 按当前负载分配任务的最小堆分配器
+ *
+ * 每次把任务分给负载最小的成员（负载相同时按成员ID），分配后该成员负载加一。
+ * 分配 m 个任务给 n 个成员的复杂度为 O(n + m log n)。
+ */
+public final class LeastLoadedAssigner {
+    
+    private LeastLoadedAssigner() {
+    }
+    
+    /**
+     * 计算分配方案
+     *
+     * @param itemIds      待分配任务ID，按优先级排序，优先级高的任务先分配
+     * @param currentLoads 成员ID -> 当前负载
+     * @return 成员ID -> 分配到的任务ID，只包含分配到任务的成员
+     */
+    public static Map<Long, List<Long>> assign(List<Long> itemIds, Map<Long, Integer> currentLoads) {
+        if (itemIds.isEmpty() || currentLoads.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        PriorityQueue<long[]> heap = new PriorityQueue<>(currentLoads.size(), (a, b) -> {
+            int byLoad = Long.compare(a[0], b[0]);
+            return byLoad != 0 ? byLoad : Long.compare(a[1], b[1]);
+        });
+        for (Map.Entry<Long, Integer> entry : currentLoads.entrySet()) {
+            heap.add(new long[]{entry.getValue(), entry.getKey()});
+        }
+        
+        Map<Long, List<Long>> plan = new LinkedHashMap<>();
+        for (Long itemId : itemIds) {
+            long[] member = heap.poll();
+            plan.computeIfAbsent(member[1], key -> new ArrayList<>()).add(itemId);
+            member[0]++;
+            heap.add(member);
+        }
+        
+        return plan;
+    }
+}
@@ -0,0 +1,179 @@
+package com.company.codereview.user.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * 可合并的对数-线性直方图（HdrHistogram 风格的分位数草图）
+ *
+ * 小于 128 的值精确计数；更大的值按 2 的幂分段，每段再线性划分为 64 个桶，
+ * 相对误差不超过 1/64。两个直方图逐桶相加即可合并，合并结果与直接记录全部值一致，
+ * 因此可以按团队、按天保存草图，查询任意日期范围时合并即可。
+ */
+public class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private long[] counts = new long[SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * 记录一个非负值，负值按 0 处理
+     */
+    public void record(long value) {
+        long normalized = Math.max(0L, value);
+        int index = bucketIndex(normalized);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        totalCount++;
+        sum += normalized;
+        min = Math.min(min, normalized);
+        max = Math.max(max, normalized);
+    }
+
+    /**
+     * 合并另一个直方图
+     */
+    public void merge(LogLinearHistogram other) {
+        if (other.totalCount == 0) {
+            return;
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 计算分位数（最近秩法），返回所在桶的中间值并限制在 [min, max] 内
+     *
+     * @param quantile 0 到 1 之间
+     */
+    public long quantile(double quantile) {
+        if (totalCount == 0) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long lower = lowestValueInBucket(i);
+                long upper = highestValueInBucket(i);
+                long middle = lower + (upper - lower) / 2;
+                return Math.max(min, Math.min(max, middle));
+            }
+        }
+        return max;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : (double) sum / totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0L : min;
+    }
+
+    public long getMax() {
+        return totalCount == 0 ? 0L : max;
+    }
+
+    /**
+     * 编码为紧凑字符串：totalCount;sum;min;max;桶下标:计数,...（只保存非空桶）
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(totalCount).append(';').append(sum).append(';')
+                .append(getMin()).append(';').append(getMax()).append(';');
+        boolean first = true;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (!first) {
+                builder.append(',');
+            }
+            builder.append(i).append(':').append(counts[i]);
+            first = false;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 从 {@link #encode()} 的结果还原
+     */
+    public static LogLinearHistogram decode(String encoded) {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        if (encoded == null || encoded.isEmpty()) {
+            return histogram;
+        }
+
+        String[] parts = encoded.split(";", -1);
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("无效的直方图编码: " + encoded);
+        }
+
+        histogram.totalCount = Long.parseLong(parts[0]);
+        histogram.sum = Long.parseLong(parts[1]);
+        if (histogram.totalCount > 0) {
+            histogram.min = Long.parseLong(parts[2]);
+            histogram.max = Long.parseLong(parts[3]);
+        }
+        if (!parts[4].isEmpty()) {
+            for (String bucket : parts[4].split(",")) {
+                int separator = bucket.indexOf(':');
+                int index = Integer.parseInt(bucket.substring(0, separator));
+                if (index >= histogram.counts.length) {
+                    histogram.counts = Arrays.copyOf(histogram.counts, index + 1);
+                }
+                histogram.counts[index] = Long.parseLong(bucket.substring(separator + 1));
+            }
+        }
+        return histogram;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - (SUB_BUCKET_BITS - 1);
+        int mantissa = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (mantissa - HALF_SUB_BUCKET_COUNT);
+    }
+
+    static long lowestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long mantissa = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return mantissa << shift;
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        return lowestValueInBucket(index) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,167 @@
+package com.company.codereview.user.algorithm;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * MinHash 签名与 LSH 分桶
+ *
+ * 对词集合的每个哈希函数取最小值组成签名，两个签名相同位置相等的比例是 Jaccard 相似度的无偏估计，
+ * 比较耗时只与签名长度有关。签名按固定行数分段（band），每段哈希为一个桶键，
+ * 相似度越高的两个集合落入同一桶的概率越大，用桶键做等值查询即可召回候选。
+ * 签名会被持久化，种子和签名长度一经使用不能修改。
+ */
+public class MinHash {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] seeds;
+    private final int bands;
+    private final int rowsPerBand;
+
+    /**
+     * @param numHashes 签名长度，必须能被 bands 整除
+     * @param bands     LSH 分段数
+     * @param seed      哈希函数种子
+     */
+    public MinHash(int numHashes, int bands, long seed) {
+        if (numHashes <= 0 || bands <= 0 || numHashes % bands != 0) {
+            throw new IllegalArgumentException("签名长度必须是分段数的正整数倍: numHashes=" + numHashes + ", bands=" + bands);
+        }
+        this.seeds = new long[numHashes];
+        Random random = new Random(seed);
+        for (int i = 0; i < numHashes; i++) {
+            seeds[i] = random.nextLong();
+        }
+        this.bands = bands;
+        this.rowsPerBand = numHashes / bands;
+    }
+
+    public int getNumHashes() {
+        return seeds.length;
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    /**
+     * 计算词集合的签名；空集合的签名各位置均为 {@link Integer#MAX_VALUE}
+     */
+    public int[] signature(Collection<String> tokens) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String token : tokens) {
+            long hash = hashToken(token);
+            for (int i = 0; i < seeds.length; i++) {
+                int value = (int) (mix(hash ^ seeds[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 估算两个签名对应集合的 Jaccard 相似度
+     */
+    public static double similarity(int[] signature1, int[] signature2) {
+        if (signature1 == null || signature2 == null || signature1.length != signature2.length) {
+            return 0.0;
+        }
+        int equal = 0;
+        for (int i = 0; i < signature1.length; i++) {
+            if (signature1[i] == signature2[i]) {
+                equal++;
+            }
+        }
+        return signature1.length == 0 ? 0.0 : (double) equal / signature1.length;
+    }
+
+    /**
+     * 计算签名各分段的桶键（分段序号参与哈希，不同分段的桶键互不冲突）；空集合没有桶键
+     */
+    public long[] bandKeys(int[] signature) {
+        if (isEmpty(signature)) {
+            return new long[0];
+        }
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = mix(band + 1L);
+            for (int row = band * rowsPerBand; row < (band + 1) * rowsPerBand; row++) {
+                key = mix(key ^ (signature[row] & 0xffffffffL));
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * 签名是否对应空集合
+     */
+    public static boolean isEmpty(int[] signature) {
+        for (int value : signature) {
+            if (value != Integer.MAX_VALUE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 编码为 Base64 字符串（便于存储）
+     */
+    public static String encode(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        for (int value : signature) {
+            buffer.putInt(value);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * 从 {@link #encode(int[])} 的结果解码
+     */
+    public static int[] decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        int[] signature = new int[buffer.remaining() / Integer.BYTES];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+
+    /**
+     * 词集合的 64 位哈希，与元素顺序无关；调用方保证集合内没有重复的词
+     */
+    public static long hashSet(Collection<String> tokens) {
+        long sum = 0L;
+        for (String token : tokens) {
+            sum += mix(hashToken(token));
+        }
+        return mix(sum);
+    }
+
+    private static long hashToken(String token) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * SplitMix64 终结函数
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,93 @@
+package com.company.codereview.user.algorithm;
+
+/**
+ * 令牌桶
+ *
+ * 桶容量为 capacity，令牌在 refillPeriodNanos 内匀速补满，即平均速率为 capacity / 周期，
+ * 空闲后允许最多 capacity 次突发。时间由调用方以单调纳秒（如 System.nanoTime()）传入，
+ * 不读取系统时钟；非线程安全，多个桶需要原子地一起扣减时由调用方加锁。
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long refillPeriodNanos;
+
+    /**
+     * 剩余额度，以 1/refillPeriodNanos 个令牌为单位，整数运算避免浮点误差累积：
+     * 每经过 1 纳秒增加 capacity，一个令牌等于 refillPeriodNanos
+     */
+    private long credit;
+    private long lastRefillNanos;
+
+    /**
+     * 创建满桶
+     */
+    public TokenBucket(long capacity, long refillPeriodNanos, long nowNanos) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (refillPeriodNanos <= 0) {
+            throw new IllegalArgumentException("refillPeriodNanos must be positive");
+        }
+        try {
+            this.credit = Math.multiplyExact(capacity, refillPeriodNanos);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("capacity * refillPeriodNanos overflows", e);
+        }
+        this.capacity = capacity;
+        this.refillPeriodNanos = refillPeriodNanos;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 令牌足够时扣减并返回 true，否则不扣减
+     */
+    public boolean tryAcquire(long permits, long nowNanos) {
+        if (permits > capacity) {
+            return false;
+        }
+        refill(nowNanos);
+        long required = permits * refillPeriodNanos;
+        if (credit < required) {
+            return false;
+        }
+        credit -= required;
+        return true;
+    }
+
+    /**
+     * 距离令牌足够还需等待的纳秒数，已足够时返回 0
+     *
+     * @throws IllegalArgumentException permits 超过桶容量，永远无法满足
+     */
+    public long nanosUntilAvailable(long permits, long nowNanos) {
+        if (permits > capacity) {
+            throw new IllegalArgumentException("permits " + permits + " exceed capacity " + capacity);
+        }
+        refill(nowNanos);
+        long missing = permits * refillPeriodNanos - credit;
+        return missing <= 0 ? 0L : (missing + capacity - 1) / capacity;
+    }
+
+    /**
+     * 当前可用的令牌数（向下取整）
+     */
+    public long available(long nowNanos) {
+        refill(nowNanos);
+        return credit / refillPeriodNanos;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            // 超过一个周期时桶必然已满，先截断避免乘法溢出
+            long room = capacity * refillPeriodNanos - credit;
+            credit += elapsed >= refillPeriodNanos ? room : Math.min(room, elapsed * capacity);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -37,6 +37,16 @@ public class AIServiceConfig {
      */
     private int timeout = 30;
     
+    /**
+     * 流式调用超时时间（秒），从提交到执行器时开始计算，覆盖整个流式输出过程
+     */
+    private int streamTimeout = 120;
+    
+    /**
+     * 交互式生成汇总等待AI回复的时限（毫秒），超时先返回降级报告，AI回复到达后再替换
+     */
+    private long summarySloMillis = 8000;
+    
     /**
      * 最大重试次数
      */
@@ -57,13 +67,43 @@ public class AIServiceConfig {
      */
     private RateLimitConfig rateLimit = new RateLimitConfig();
     
+    /**
+     * 调用执行器配置
+     */
+    private ExecutorConfig executor = new ExecutorConfig();
+    
+    /**
+     * 回复缓存配置
+     */
+    private ResponseCacheConfig responseCache = new ResponseCacheConfig();
+    
+    /**
+     * 提示词预算配置
+     */
+    private PromptConfig prompt = new PromptConfig();
+    
     @Data
     public static class CircuitBreakerConfig {
+        /**
+         * 是否启用熔断器
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 滑动窗口大小（最近的调用次数），失败率和延迟分位数按窗口内的调用计算
+         */
+        private int slidingWindowSize = 50;
+        
         /**
          * 失败率阈值（百分比）
          */
         private double failureRateThreshold = 50.0;
         
+        /**
+         * P95 延迟阈值（毫秒），窗口内调用的 P95 延迟达到该值时同样熔断
+         */
+        private long slowCallP95ThresholdMillis = 20000;
+        
         /**
          * 最小请求数
          */
@@ -80,6 +120,60 @@ public class AIServiceConfig {
         private int permittedNumberOfCallsInHalfOpenState = 3;
     }
     
+    @Data
+    public static class ExecutorConfig {
+        /**
+         * 最大并发调用数（执行线程数）
+         */
+        private int maxConcurrentCalls = 8;
+        
+        /**
+         * 等待执行的调用队列容量，队列满时拒绝新调用
+         */
+        private int queueCapacity = 100;
+    }
+    
+    @Data
+    public static class ResponseCacheConfig {
+        /**
+         * 是否缓存AI回复（按提示词内容哈希）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 是否使用 Redis 作为共享的二级缓存
+         */
+        private boolean redisEnabled = true;
+        
+        /**
+         * 缓存有效期（秒）
+         */
+        private long ttlSeconds = 86400;
+        
+        /**
+         * 本地缓存最大条目数
+         */
+        private int localCapacity = 256;
+    }
+    
+    @Data
+    public static class PromptConfig {
+        /**
+         * 单次请求提示词的最大 token 数（估算值），超出时按优先级省略问题证据
+         */
+        private int maxPromptTokens = 3000;
+        
+        /**
+         * 单条问题证据的最大字符数，超出部分截断
+         */
+        private int maxEvidenceChars = 300;
+        
+        /**
+         * 描述相似度（Jaccard 估计值）达到该值的证据视为重复并合并
+         */
+        private double dedupeSimilarity = 0.8;
+    }
+    
     @Data
     public static class RateLimitConfig {
         /**
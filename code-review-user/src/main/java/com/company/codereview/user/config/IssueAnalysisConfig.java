@@ -1,9 +1,17 @@
 package com.company.codereview.user.config;
 
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.user.util.KeywordTokenizer;
+import com.company.codereview.user.util.PatternRuleEngine;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * 问题分析配置类
  */
@@ -37,6 +45,24 @@ public class IssueAnalysisConfig {
      */
     private CacheConfig cache = new CacheConfig();
     
+    /**
+     * 关键词分词器，同时设置为全局共享实例供静态工具类使用
+     */
+    @Bean
+    public KeywordTokenizer keywordTokenizer() {
+        KeywordTokenizer tokenizer = KeywordTokenizer.fromConfig(frequentIssue);
+        KeywordTokenizer.setShared(tokenizer);
+        return tokenizer;
+    }
+    
+    /**
+     * 按模式识别配置编译的模式规则引擎
+     */
+    @Bean
+    public PatternRuleEngine patternRuleEngine() {
+        return PatternRuleEngine.fromConfig(pattern);
+    }
+    
     @Data
     public static class FrequentIssueConfig {
         /**
@@ -55,11 +81,32 @@ public class IssueAnalysisConfig {
         private int minKeywordLength = 2;
         
         /**
-         * 停用词列表
+         * 英文和数字关键词最小长度
+         */
+        private int minLatinKeywordLength = 3;
+        
+        /**
+         * 停用词列表（单个汉字的停用词在分词时视为分隔符）
          */
         private String[] stopWords = {
             "的", "是", "在", "有", "和", "或", "但", "如果", "因为", "所以",
-            "the", "is", "in", "and", "or", "but", "if", "because", "so"
+            "了", "与", "及", "对", "把", "被", "将", "这", "那", "但是", "而且", "以及",
+            "可以", "需要", "进行", "没有", "一个", "这个", "那个", "问题", "导致", "存在", "使用",
+            "the", "is", "in", "and", "or", "but", "if", "because", "so",
+            "a", "an", "to", "of", "for", "with", "on", "at", "by", "from", "as", "be",
+            "have", "has", "had", "do", "does", "did", "will", "would", "could", "should",
+            "may", "might", "can", "this", "that", "these", "those"
+        };
+        
+        /**
+         * 中文分词词典（前向最大匹配，未命中的片段按二元组切分）
+         */
+        private String[] dictionary = {
+            "空指针", "异常", "异常处理", "性能", "内存", "内存泄漏", "超时", "缓慢", "卡顿", "耗时",
+            "安全", "漏洞", "注入", "越权", "权限", "认证", "加密", "命名", "注释", "格式", "规范", "风格",
+            "数据库", "查询", "慢查询", "索引", "事务", "并发", "线程", "线程安全", "死锁", "缓存", "日志",
+            "参数", "校验", "参数校验", "接口", "配置", "硬编码", "魔法值", "重复代码", "边界", "边界条件",
+            "资源", "资源释放", "连接", "连接池", "循环", "递归", "代码", "设计", "耦合", "单元测试", "测试"
         };
     }
     
@@ -132,15 +179,22 @@ public class IssueAnalysisConfig {
         private long minFrequency = 2;
         
         /**
-         * 模式置信度阈值
+         * 模式置信度阈值，低于该值的规则不参与匹配
          */
         private double confidenceThreshold = 0.7;
         
         /**
-         * 关键词匹配配置
+         * 模式规则（最多 64 条），配置后整体替换默认规则；新增模式只需增加一条规则
          */
+        private List<PatternRule> rules = defaultRules();
+        
+        /**
+         * 关键词匹配配置（已由 rules 取代，其中的中文关键词已并入默认规则）
+         */
+        @Deprecated
         private KeywordMatchConfig keywordMatch = new KeywordMatchConfig();
         
+        @Deprecated
         @Data
         public static class KeywordMatchConfig {
             /**
@@ -163,6 +217,106 @@ public class IssueAnalysisConfig {
              */
             private String[] standardKeywords = {"命名", "格式", "注释", "规范", "风格", "style"};
         }
+        
+        @Data
+        public static class PatternRule {
+            /**
+             * 模式ID
+             */
+            private String id;
+            
+            /**
+             * 模式名称
+             */
+            private String name;
+            
+            /**
+             * 模式描述
+             */
+            private String description;
+            
+            /**
+             * 模式涉及的问题类型
+             */
+            private List<IssueType> matchedTypes = new ArrayList<>();
+            
+            /**
+             * 该类型的问题直接命中模式，为空时只按关键词匹配
+             */
+            private IssueType triggerType;
+            
+            /**
+             * 关键词是否同时匹配标题（默认只匹配描述）
+             */
+            private boolean matchTitle;
+            
+            /**
+             * 置信度
+             */
+            private double confidence;
+            
+            /**
+             * 关键词（不区分大小写，包含即命中）
+             */
+            private List<String> keywords = new ArrayList<>();
+            
+            /**
+             * 预防建议
+             */
+            private String preventionSuggestion;
+            
+            /**
+             * 影响范围
+             */
+            private List<String> affectedAreas = new ArrayList<>();
+        }
+        
+        private static List<PatternRule> defaultRules() {
+            List<PatternRule> rules = new ArrayList<>();
+            rules.add(rule("NULL_POINTER_PATTERN", "Null Pointer Exception Pattern",
+                "Code contains potential null pointer exception risks",
+                Arrays.asList(IssueType.FUNCTIONAL_DEFECT, IssueType.CODE_STANDARD), null, true, 0.85,
+                Arrays.asList("null", "nullpointer", "npe", "pointer", "空指针"),
+                "Recommend using Optional class or adding null checks",
+                Arrays.asList("Business Logic Layer", "Data Access Layer")));
+            rules.add(rule("PERFORMANCE_PATTERN", "Performance Issue Pattern",
+                "Code contains performance bottlenecks or improper resource usage",
+                Arrays.asList(IssueType.PERFORMANCE_ISSUE), IssueType.PERFORMANCE_ISSUE, false, 0.90,
+                Arrays.asList("performance", "slow", "timeout", "memory", "cpu", "lag", "性能", "慢", "超时", "内存"),
+                "Recommend performance testing and code optimization",
+                Arrays.asList("Database Queries", "Algorithm Implementation", "Cache Usage")));
+            rules.add(rule("SECURITY_PATTERN", "Security Vulnerability Pattern",
+                "Code contains security risks or vulnerabilities",
+                Arrays.asList(IssueType.SECURITY_VULNERABILITY), IssueType.SECURITY_VULNERABILITY, false, 0.95,
+                Arrays.asList("security", "injection", "xss", "csrf", "auth", "encrypt",
+                    "安全", "注入", "权限", "认证", "加密"),
+                "Recommend security review and vulnerability scanning",
+                Arrays.asList("User Input Validation", "Access Control", "Data Transmission")));
+            rules.add(rule("CODE_STANDARD_PATTERN", "Code Standard Pattern",
+                "Code does not conform to team standards or best practices",
+                Arrays.asList(IssueType.CODE_STANDARD), IssueType.CODE_STANDARD, false, 0.80,
+                Arrays.asList("naming", "format", "comment", "standard", "style", "命名", "格式", "注释", "规范", "风格"),
+                "Recommend using code formatting tools and static analysis",
+                Arrays.asList("Naming Convention", "Code Format", "Comment Standard")));
+            return rules;
+        }
+        
+        private static PatternRule rule(String id, String name, String description, List<IssueType> matchedTypes,
+                                        IssueType triggerType, boolean matchTitle, double confidence,
+                                        List<String> keywords, String preventionSuggestion, List<String> affectedAreas) {
+            PatternRule rule = new PatternRule();
+            rule.setId(id);
+            rule.setName(name);
+            rule.setDescription(description);
+            rule.setMatchedTypes(new ArrayList<>(matchedTypes));
+            rule.setTriggerType(triggerType);
+            rule.setMatchTitle(matchTitle);
+            rule.setConfidence(confidence);
+            rule.setKeywords(new ArrayList<>(keywords));
+            rule.setPreventionSuggestion(preventionSuggestion);
+            rule.setAffectedAreas(new ArrayList<>(affectedAreas));
+            return rule;
+        }
     }
     
     @Data
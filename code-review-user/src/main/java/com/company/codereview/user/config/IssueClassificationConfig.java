@@ -0,0 +1,98 @@
+package com.company.codereview.user.config;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 问题分类关键词配置
+ *
+ * 各类别的关键词编译为一个多模式匹配自动机。配置了外部关键词文件时会定期检查文件修改时间，
+ * 文件变更后重新编译，无需重启服务。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "issue.classification")
+public class IssueClassificationConfig {
+
+    /**
+     * 问题类型关键词
+     */
+    private Map<IssueType, List<String>> typeKeywords = defaultTypeKeywords();
+
+    /**
+     * 严重级别关键词（命中 CRITICAL 直接判定为严重，MAJOR/MINOR 在类型基础级别上调整）
+     */
+    private Map<Severity, List<String>> severityKeywords = defaultSeverityKeywords();
+
+    /**
+     * 标签关键词（标签名 -> 关键词）
+     */
+    private Map<String, List<String>> tagKeywords = defaultTagKeywords();
+
+    /**
+     * 外部关键词文件路径（properties 格式，UTF-8），为空时只使用上面的配置。
+     * 键为 type.{问题类型}、severity.{严重级别} 或 tag.{标签名}，值为逗号分隔的关键词，覆盖同名类别
+     */
+    private String keywordsFile;
+
+    /**
+     * 外部关键词文件检查间隔（毫秒）
+     */
+    private long reloadIntervalMillis = 30000;
+
+    private static Map<IssueType, List<String>> defaultTypeKeywords() {
+        Map<IssueType, List<String>> keywords = new LinkedHashMap<>();
+        keywords.put(IssueType.FUNCTIONAL_DEFECT, Arrays.asList(
+                "空指针", "nullpointer", "npe", "异常", "exception", "错误", "error",
+                "崩溃", "crash", "失败", "fail", "bug", "缺陷", "defect", "资源泄露",
+                "内存泄露", "死锁", "deadlock", "数组越界", "索引", "index"));
+        keywords.put(IssueType.PERFORMANCE_ISSUE, Arrays.asList(
+                "性能", "performance", "慢", "slow", "超时", "timeout", "延迟", "delay",
+                "响应时间", "response time", "吞吐量", "throughput", "内存", "memory",
+                "cpu", "循环", "loop", "查询", "query", "n+1", "缓存", "cache"));
+        keywords.put(IssueType.SECURITY_VULNERABILITY, Arrays.asList(
+                "安全", "security", "漏洞", "vulnerability", "注入", "injection",
+                "xss", "csrf", "sql注入", "权限", "permission", "认证", "authentication",
+                "授权", "authorization", "密码", "password", "加密", "encryption"));
+        keywords.put(IssueType.CODE_STANDARD, Arrays.asList(
+                "命名", "naming", "注释", "comment", "格式", "format", "缩进", "indent",
+                "规范", "standard", "风格", "style", "可读性", "readability", "文档", "document"));
+        keywords.put(IssueType.DESIGN_ISSUE, Arrays.asList(
+                "设计", "design", "架构", "architecture", "耦合", "coupling", "内聚", "cohesion",
+                "单一职责", "srp", "开闭原则", "ocp", "依赖", "dependency", "接口", "interface",
+                "抽象", "abstract", "继承", "inheritance", "多态", "polymorphism"));
+        return keywords;
+    }
+
+    private static Map<Severity, List<String>> defaultSeverityKeywords() {
+        Map<Severity, List<String>> keywords = new LinkedHashMap<>();
+        keywords.put(Severity.CRITICAL, Arrays.asList(
+                "严重", "critical", "致命", "fatal", "崩溃", "crash", "数据丢失", "data loss",
+                "安全漏洞", "security vulnerability", "系统宕机", "system down"));
+        keywords.put(Severity.MAJOR, Arrays.asList(
+                "重要", "major", "影响功能", "功能异常", "性能问题", "performance issue",
+                "用户体验", "user experience", "业务逻辑", "business logic"));
+        keywords.put(Severity.MINOR, Arrays.asList(
+                "轻微", "minor", "小问题", "优化", "optimization", "改进", "improvement",
+                "代码规范", "code standard", "格式", "format"));
+        return keywords;
+    }
+
+    private static Map<String, List<String>> defaultTagKeywords() {
+        Map<String, List<String>> keywords = new LinkedHashMap<>();
+        keywords.put("空指针异常", Arrays.asList("空指针", "nullpointer"));
+        keywords.put("性能问题", Arrays.asList("性能", "慢", "超时"));
+        keywords.put("安全风险", Arrays.asList("安全", "漏洞", "注入"));
+        keywords.put("代码规范", Arrays.asList("命名", "注释", "格式"));
+        keywords.put("设计问题", Arrays.asList("设计", "架构", "耦合"));
+        return keywords;
+    }
+}
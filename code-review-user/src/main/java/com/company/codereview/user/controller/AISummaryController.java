@@ -1,23 +1,37 @@
 package com.company.codereview.user.controller;
 
 import com.company.codereview.common.response.ResponseResult;
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.dto.AISummaryBatchStats;
 import com.company.codereview.user.dto.AISummaryRequest;
 import com.company.codereview.user.dto.AISummaryResponse;
 import com.company.codereview.user.entity.AISummary;
+import com.company.codereview.user.service.AISummaryBatchService;
 import com.company.codereview.user.service.AISummaryService;
+import com.company.codereview.user.service.ai.AICircuitBreaker;
+import com.company.codereview.user.service.ai.AIExecutor;
+import com.company.codereview.user.service.ai.AIExecutorStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AI Summary Controller
@@ -30,6 +44,10 @@ import java.util.concurrent.CompletableFuture;
 public class AISummaryController {
     
     private final AISummaryService aiSummaryService;
+    private final AISummaryBatchService aiSummaryBatchService;
+    private final AIExecutor aiExecutor;
+    private final AICircuitBreaker aiCircuitBreaker;
+    private final AIServiceConfig aiServiceConfig;
     
     /**
      * Generate AI summary
@@ -50,6 +68,53 @@ public class AISummaryController {
         return ResponseResult.success(future);
     }
     
+    /**
+     * Generate AI summary, streaming partial content over Server-Sent Events
+     * 
+     * Emits {@code token} events with newly generated text, then a {@code done} event carrying the persisted
+     * summary, or an {@code error} event. Closing the connection cancels the model call.
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream AI Summary", description = "Generate AI summary and stream partial content over Server-Sent Events")
+    @PreAuthorize("hasRole('TEAM_LEADER') or hasRole('ARCHITECT')")
+    public SseEmitter streamSummary(@Valid @RequestBody AISummaryRequest request, HttpServletResponse response) {
+        
+        log.info("Streaming AI summary for team: {}, type: {}", request.getTeamId(), request.getSummaryType());
+        
+        // Disable proxy buffering so partial content reaches the browser immediately
+        response.setHeader("X-Accel-Buffering", "no");
+        
+        Long currentUserId = getCurrentUserId();
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(aiServiceConfig.getStreamTimeout()));
+        
+        CompletableFuture<AISummaryResponse> future = aiSummaryService.streamSummary(request, currentUserId, token -> {
+            try {
+                emitter.send(SseEmitter.event().name("token").data(token));
+            } catch (IOException e) {
+                // Client went away; abort the model call
+                throw new UncheckedIOException(e);
+            }
+        });
+        
+        emitter.onTimeout(() -> future.cancel(true));
+        emitter.onError(e -> future.cancel(true));
+        future.whenComplete((summary, error) -> {
+            try {
+                if (error == null) {
+                    emitter.send(SseEmitter.event().name("done").data(summary, MediaType.APPLICATION_JSON));
+                } else if (!future.isCancelled()) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    emitter.send(SseEmitter.event().name("error").data("Failed to generate AI summary: " + cause.getMessage()));
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Summary stream closed before completion: {}", e.getMessage());
+            }
+        });
+        
+        return emitter;
+    }
+    
     /**
      * Get summary by ID
      */
@@ -246,6 +311,36 @@ public class AISummaryController {
         return ResponseResult.success(future);
     }
     
+    /**
+     * Get AI call executor statistics
+     */
+    @GetMapping("/executor-stats")
+    @Operation(summary = "Get AI Executor Statistics", description = "Concurrency, queue depth and latency of AI service calls")
+    @PreAuthorize("hasRole('ARCHITECT')")
+    public ResponseResult<AIExecutorStats> getExecutorStats() {
+        return ResponseResult.success(aiExecutor.getStats());
+    }
+    
+    /**
+     * Get AI circuit breaker state
+     */
+    @GetMapping("/circuit-breaker")
+    @Operation(summary = "Get AI Circuit Breaker State", description = "State, failure rate and p95 latency of recent AI service calls")
+    @PreAuthorize("hasRole('ARCHITECT')")
+    public ResponseResult<Map<String, Object>> getCircuitBreakerStats() {
+        return ResponseResult.success(aiCircuitBreaker.getStats());
+    }
+    
+    /**
+     * Get statistics of the last scheduled weekly summary batch
+     */
+    @GetMapping("/batch-stats")
+    @Operation(summary = "Get Summary Batch Statistics", description = "Outcome of the last scheduled weekly summary batch")
+    @PreAuthorize("hasRole('ARCHITECT')")
+    public ResponseResult<AISummaryBatchStats> getBatchStats() {
+        return ResponseResult.success(aiSummaryBatchService.getLastRunStats());
+    }
+    
     /**
      * Get current user ID (placeholder implementation)
      */
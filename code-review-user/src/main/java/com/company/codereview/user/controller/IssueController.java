@@ -3,11 +3,15 @@ package com.company.codereview.user.controller;
 import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
 import com.company.codereview.common.response.ResponseResult;
+import com.company.codereview.user.dto.SearchPage;
+import com.company.codereview.user.dto.SimilarIssue;
 import com.company.codereview.user.entity.Issue;
 import com.company.codereview.user.service.IssueService;
 import com.company.codereview.user.service.IssueTrackingService;
 import com.company.codereview.user.service.IssueClassificationService;
+import com.company.codereview.user.service.IssueSimilarityService;
 import com.company.codereview.user.service.IssueTemplateService;
+import com.company.codereview.user.service.SearchIndexService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -36,6 +40,8 @@ public class IssueController {
     private final IssueTrackingService issueTrackingService;
     private final IssueClassificationService classificationService;
     private final IssueTemplateService templateService;
+    private final IssueSimilarityService similarityService;
+    private final SearchIndexService searchIndexService;
     
     /**
      * 创建问题
@@ -451,6 +457,71 @@ public class IssueController {
         }
     }
     
+    /**
+     * 查找相似历史问题（创建问题前提示可能重复的问题）
+     */
+    @PostMapping("/similar")
+    @Operation(summary = "查找相似历史问题", description = "根据待创建问题的标题和描述查找团队内相似的历史问题")
+    @PreAuthorize("hasRole('DEVELOPER') or hasRole('TEAM_LEADER') or hasRole('ARCHITECT')")
+    public ResponseResult<List<SimilarIssue>> findSimilarIssues(
+            @Parameter(description = "评审记录ID") @RequestParam Long reviewRecordId,
+            @Parameter(description = "问题标题") @RequestParam String title,
+            @Parameter(description = "问题描述") @RequestParam(required = false) String description,
+            @Parameter(description = "返回数量") @RequestParam(defaultValue = "5") Integer limit) {
+        log.info("查找相似历史问题: reviewRecordId={}, title={}", reviewRecordId, title);
+        
+        try {
+            List<SimilarIssue> similarIssues = similarityService.findSimilarIssues(reviewRecordId, title, description, limit);
+            return ResponseResult.success(similarIssues);
+        } catch (Exception e) {
+            log.error("查找相似历史问题失败", e);
+            return ResponseResult.error("查找相似问题失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 查找与指定问题相似的问题
+     */
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "查找相似问题", description = "查找团队内与指定问题相似的问题")
+    @PreAuthorize("hasRole('DEVELOPER') or hasRole('TEAM_LEADER') or hasRole('ARCHITECT')")
+    public ResponseResult<List<SimilarIssue>> findSimilarIssues(
+            @PathVariable Long id,
+            @Parameter(description = "返回数量") @RequestParam(defaultValue = "5") Integer limit) {
+        log.info("查找相似问题: id={}", id);
+        
+        try {
+            return ResponseResult.success(similarityService.findSimilarIssues(id, limit));
+        } catch (Exception e) {
+            log.error("查找相似问题失败: id={}", id, e);
+            return ResponseResult.error("查找相似问题失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 全文检索问题
+     */
+    @GetMapping("/search")
+    @Operation(summary = "全文检索问题", description = "按标题、描述和改进建议检索问题，支持按类型、严重级别、状态和团队过滤；开发人员必须指定团队")
+    @PreAuthorize("hasRole('TEAM_LEADER') or hasRole('ARCHITECT') or (hasRole('DEVELOPER') and #teamId != null)")
+    public ResponseResult<SearchPage<Issue>> searchIssues(
+            @Parameter(description = "查询文本，为空时按创建顺序倒序浏览") @RequestParam(required = false) String q,
+            @Parameter(description = "问题类型") @RequestParam(required = false) IssueType type,
+            @Parameter(description = "严重级别") @RequestParam(required = false) Severity severity,
+            @Parameter(description = "问题状态") @RequestParam(required = false) Issue.IssueStatus status,
+            @Parameter(description = "团队ID") @RequestParam(required = false) Long teamId,
+            @Parameter(description = "页码") @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "20") int size) {
+        log.debug("全文检索问题: q={}, type={}, severity={}, status={}, teamId={}", q, type, severity, status, teamId);
+        
+        try {
+            return ResponseResult.success(searchIndexService.searchIssues(q, type, severity, status, teamId, page, size));
+        } catch (Exception e) {
+            log.error("全文检索问题失败: q={}", q, e);
+            return ResponseResult.error("检索问题失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 获取问题模板列表
      */
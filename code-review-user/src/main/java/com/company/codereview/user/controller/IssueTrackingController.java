@@ -4,6 +4,8 @@ import com.company.codereview.common.response.ResponseResult;
 import com.company.codereview.user.service.IssueTrackingService;
 import com.company.codereview.user.service.FixTrackingWorkflowService;
 import com.company.codereview.user.service.FixTrackingMetricsService;
+import com.company.codereview.user.service.job.DistributedJobRunner;
+import com.company.codereview.user.service.job.JobRunStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -30,6 +32,7 @@ public class IssueTrackingController {
     private final IssueTrackingService issueTrackingService;
     private final FixTrackingWorkflowService workflowService;
     private final FixTrackingMetricsService metricsService;
+    private final DistributedJobRunner jobRunner;
     
     /**
      * 获取问题跟踪仪表板
@@ -374,6 +377,23 @@ public class IssueTrackingController {
         }
     }
     
+    /**
+     * 获取定时任务运行统计
+     */
+    @GetMapping("/jobs")
+    @Operation(summary = "获取定时任务统计", description = "获取本节点整改跟踪定时任务的运行耗时和吞吐量")
+    @PreAuthorize("hasRole('TEAM_LEADER') or hasRole('ARCHITECT')")
+    public ResponseResult<List<JobRunStats>> getJobStats() {
+        log.info("获取定时任务运行统计");
+        
+        try {
+            return ResponseResult.success(jobRunner.getJobStats());
+        } catch (Exception e) {
+            log.error("获取定时任务运行统计失败", e);
+            return ResponseResult.error("获取定时任务统计失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 获取工作流统计信息
      */
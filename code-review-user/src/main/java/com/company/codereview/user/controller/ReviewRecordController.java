@@ -2,8 +2,10 @@ package com.company.codereview.user.controller;
 
 import com.company.codereview.common.response.ResponseResult;
 import com.company.codereview.user.dto.ReviewRecordDTO;
+import com.company.codereview.user.dto.SearchPage;
 import com.company.codereview.user.entity.ReviewRecord;
 import com.company.codereview.user.service.ReviewRecordService;
+import com.company.codereview.user.service.SearchIndexService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -31,6 +33,7 @@ import java.util.stream.Collectors;
 public class ReviewRecordController {
     
     private final ReviewRecordService reviewRecordService;
+    private final SearchIndexService searchIndexService;
     
     /**
      * 创建评审记录
@@ -204,6 +207,34 @@ public class ReviewRecordController {
         return ResponseResult.success(dtoList);
     }
     
+    /**
+     * 全文检索评审记录
+     */
+    @GetMapping("/search")
+    @ApiOperation("全文检索评审记录，开发人员必须指定团队")
+    @PreAuthorize("hasRole('TEAM_LEADER') or hasRole('ARCHITECT') or (hasRole('DEVELOPER') and #teamId != null)")
+    public ResponseResult<SearchPage<ReviewRecordDTO>> searchReviewRecords(
+            @ApiParam("查询文本，为空时按创建顺序倒序浏览") @RequestParam(required = false) String q,
+            @ApiParam("评审状态") @RequestParam(required = false) ReviewRecord.ReviewStatus status,
+            @ApiParam("团队ID") @RequestParam(required = false) Long teamId,
+            @ApiParam("页码") @RequestParam(defaultValue = "1") int page,
+            @ApiParam("每页数量") @RequestParam(defaultValue = "20") int size) {
+        
+        SearchPage<ReviewRecord> result = searchIndexService.searchReviewRecords(q, status, teamId, page, size);
+        List<ReviewRecordDTO> dtoList = result.getItems().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        
+        return ResponseResult.success(SearchPage.<ReviewRecordDTO>builder()
+                .items(dtoList)
+                .total(result.getTotal())
+                .page(result.getPage())
+                .size(result.getSize())
+                .facets(result.getFacets())
+                .tookMillis(result.getTookMillis())
+                .build());
+    }
+    
     /**
      * 查询需要重新评审的记录
      */
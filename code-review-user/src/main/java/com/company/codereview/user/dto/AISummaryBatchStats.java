@@ -0,0 +1,70 @@
+package com.company.codereview.user.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * AI汇总批量生成运行统计DTO
+ */
+@Data
+@Builder
+public class AISummaryBatchStats {
+
+    /**
+     * 汇总的周起始日期
+     */
+    private LocalDate weekStart;
+
+    /**
+     * 参与本次运行的活跃团队数
+     */
+    private Integer teams;
+
+    /**
+     * 问题集未变化、沿用已有汇总的团队数
+     */
+    private Integer reused;
+
+    /**
+     * 周内没有问题、跳过生成的团队数
+     */
+    private Integer skipped;
+
+    /**
+     * 由AI服务生成汇总的团队数
+     */
+    private Integer generated;
+
+    /**
+     * AI调用重试后仍失败、使用降级服务生成基础报告的团队数
+     */
+    private Integer fallback;
+
+    /**
+     * 准备或写入失败、没有保存汇总的团队数
+     */
+    private Integer failed;
+
+    /**
+     * AI调用的重试次数
+     */
+    private Integer retries;
+
+    /**
+     * 写入数据库的汇总数
+     */
+    private Integer persisted;
+
+    /**
+     * 运行耗时（毫秒）
+     */
+    private Long durationMillis;
+
+    /**
+     * 完成时间
+     */
+    private LocalDateTime finishedAt;
+}
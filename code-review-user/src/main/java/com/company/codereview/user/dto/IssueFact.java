@@ -0,0 +1,205 @@
+package com.company.codereview.user.dto;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.entity.Issue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 问题事实（统计查询用的轻量投影）
+ *
+ * 只包含 ID、类型、严重级别、状态、时间和人员，不加载标题、描述、建议等文本；
+ * 枚举按序号、时间按秒保存在基本类型字段中，每条约 60 字节，仪表板和度量统计只需要这些字段。
+ * getXxx 返回装箱值或 LocalDateTime，每次调用都会新建对象；逐条计数、分组的统计路径使用
+ * id()、createdAtEpochSeconds() 等基本类型访问方法。
+ */
+public class IssueFact {
+
+    private static final IssueType[] TYPES = IssueType.values();
+    private static final Severity[] SEVERITIES = Severity.values();
+    private static final Issue.IssueStatus[] STATUSES = Issue.IssueStatus.values();
+
+    private static final byte NONE = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long NO_USER = 0L;
+
+    private long id;
+    private byte issueType = NONE;
+    private byte severity = NONE;
+    private byte status = NONE;
+    private long createdAt = NO_TIME;
+    private long updatedAt = NO_TIME;
+    private long createdBy = NO_USER;
+    private long assignedTo = NO_USER;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id != null ? id : 0L;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public IssueType getIssueType() {
+        return issueType == NONE ? null : TYPES[issueType];
+    }
+
+    public void setIssueType(IssueType issueType) {
+        this.issueType = issueType == null ? NONE : (byte) issueType.ordinal();
+    }
+
+    /**
+     * 问题类型序号，未设置时为 -1
+     */
+    public int issueTypeOrdinal() {
+        return issueType;
+    }
+
+    public Severity getSeverity() {
+        return severity == NONE ? null : SEVERITIES[severity];
+    }
+
+    public void setSeverity(Severity severity) {
+        this.severity = severity == null ? NONE : (byte) severity.ordinal();
+    }
+
+    /**
+     * 严重级别序号，未设置时为 -1
+     */
+    public int severityOrdinal() {
+        return severity;
+    }
+
+    public Issue.IssueStatus getStatus() {
+        return status == NONE ? null : STATUSES[status];
+    }
+
+    public void setStatus(Issue.IssueStatus status) {
+        this.status = status == null ? NONE : (byte) status.ordinal();
+    }
+
+    /**
+     * 状态序号，未设置时为 -1
+     */
+    public int statusOrdinal() {
+        return status;
+    }
+
+    /**
+     * 是否已解决或已关闭
+     */
+    public boolean isResolved() {
+        return status == Issue.IssueStatus.RESOLVED.ordinal() || status == Issue.IssueStatus.CLOSED.ordinal();
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return toDateTime(createdAt);
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = toSeconds(createdAt);
+    }
+
+    /**
+     * 创建时间（按 UTC 换算的秒数，与 getCreatedAt 的本地时间一一对应），调用前先用 hasCreatedAt 判断
+     */
+    public long createdAtEpochSeconds() {
+        return createdAt;
+    }
+
+    public boolean hasCreatedAt() {
+        return createdAt != NO_TIME;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return toDateTime(updatedAt);
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = toSeconds(updatedAt);
+    }
+
+    /**
+     * 更新时间秒数，换算方式同 createdAtEpochSeconds，调用前先用 hasUpdatedAt 判断
+     */
+    public long updatedAtEpochSeconds() {
+        return updatedAt;
+    }
+
+    public boolean hasUpdatedAt() {
+        return updatedAt != NO_TIME;
+    }
+
+    public Long getCreatedBy() {
+        return createdBy == NO_USER ? null : createdBy;
+    }
+
+    public void setCreatedBy(Long createdBy) {
+        this.createdBy = createdBy != null ? createdBy : NO_USER;
+    }
+
+    /**
+     * 创建人ID，未设置时为 0
+     */
+    public long createdById() {
+        return createdBy;
+    }
+
+    public Long getAssignedTo() {
+        return assignedTo == NO_USER ? null : assignedTo;
+    }
+
+    public void setAssignedTo(Long assignedTo) {
+        this.assignedTo = assignedTo != null ? assignedTo : NO_USER;
+    }
+
+    /**
+     * 处理人ID，未分配时为 0
+     */
+    public long assignedToId() {
+        return assignedTo;
+    }
+
+    /**
+     * 按人员ID（createdById、assignedToId）分组，人员未设置的问题被忽略
+     *
+     * 按基本类型的ID排序后切分，不为每条问题装箱；各组按人员ID升序，组内保持原有顺序
+     */
+    public static List<List<IssueFact>> groupByUser(List<IssueFact> facts, ToLongFunction<IssueFact> userId) {
+        List<IssueFact> sorted = new ArrayList<>(facts.size());
+        for (IssueFact fact : facts) {
+            if (userId.applyAsLong(fact) != NO_USER) {
+                sorted.add(fact);
+            }
+        }
+        sorted.sort(Comparator.comparingLong(userId));
+
+        List<List<IssueFact>> groups = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            if (i == sorted.size() || userId.applyAsLong(sorted.get(i)) != userId.applyAsLong(sorted.get(start))) {
+                groups.add(sorted.subList(start, i));
+                start = i;
+            }
+        }
+        return groups;
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime == null ? NO_TIME : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long seconds) {
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
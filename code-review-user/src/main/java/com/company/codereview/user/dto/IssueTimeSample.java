@@ -0,0 +1,22 @@
+package com.company.codereview.user.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 耗时样本（耗时草图的流式查询结果）
+ */
+@Data
+public class IssueTimeSample {
+    
+    /**
+     * 样本所属日期（解决日期或首次整改日期）
+     */
+    private LocalDate statDate;
+    
+    /**
+     * 耗时（分钟）
+     */
+    private Long minutes;
+}
@@ -0,0 +1,49 @@
+package com.company.codereview.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 全文检索结果页DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPage<T> {
+
+    /**
+     * 当前页结果，按相关度排序（无查询词时按ID倒序）
+     */
+    private List<T> items;
+
+    /**
+     * 命中总数
+     */
+    private Long total;
+
+    /**
+     * 页码（从 1 开始）
+     */
+    private Integer page;
+
+    /**
+     * 每页数量
+     */
+    private Integer size;
+
+    /**
+     * 全部命中结果的分面计数：分面名称 -> 分面值 -> 数量
+     */
+    private Map<String, Map<String, Long>> facets;
+
+    /**
+     * 检索耗时（毫秒）
+     */
+    private Long tookMillis;
+}
@@ -0,0 +1,45 @@
+package com.company.codereview.user.dto;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.entity.Issue;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 相似历史问题DTO
+ */
+@Data
+@Builder
+public class SimilarIssue {
+    
+    /**
+     * 问题ID
+     */
+    private Long issueId;
+    
+    /**
+     * 问题标题
+     */
+    private String title;
+    
+    /**
+     * 问题类型
+     */
+    private IssueType issueType;
+    
+    /**
+     * 严重级别
+     */
+    private Severity severity;
+    
+    /**
+     * 问题状态
+     */
+    private Issue.IssueStatus status;
+    
+    /**
+     * 文本相似度估计值（0-1之间）
+     */
+    private Double similarity;
+}
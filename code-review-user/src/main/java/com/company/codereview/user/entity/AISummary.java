@@ -124,6 +124,12 @@ public class AISummary extends BaseEntity {
     @TableField("version")
     private String version;
     
+    /**
+     * Fingerprint of the analysed issue set and generation options, used to reuse an unchanged summary
+     */
+    @TableField("source_fingerprint")
+    private String sourceFingerprint;
+    
     /**
      * Summary Status Enum
      */
@@ -0,0 +1,92 @@
+package com.company.codereview.user.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 整改工作流事件实体（只追加，不更新、不删除）
+ */
+@Data
+@TableName("fix_workflow_events")
+public class FixWorkflowEvent {
+    
+    /**
+     * 流程启动（含重新启动）
+     */
+    public static final String TYPE_STARTED = "STARTED";
+    
+    /**
+     * 阶段转换
+     */
+    public static final String TYPE_TRANSITIONED = "TRANSITIONED";
+    
+    /**
+     * 整改超时
+     */
+    public static final String TYPE_OVERDUE = "OVERDUE";
+    
+    /**
+     * 主键ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+    
+    /**
+     * 问题ID
+     */
+    @TableField("issue_id")
+    private Long issueId;
+    
+    /**
+     * 事件序号，同一问题内从1开始连续递增
+     */
+    @TableField("sequence_no")
+    private Long sequenceNo;
+    
+    /**
+     * 事件类型
+     */
+    @TableField("event_type")
+    private String eventType;
+    
+    /**
+     * 工作流动作
+     */
+    @TableField("action")
+    private String action;
+    
+    /**
+     * 原阶段
+     */
+    @TableField("from_stage")
+    private String fromStage;
+    
+    /**
+     * 新阶段
+     */
+    @TableField("to_stage")
+    private String toStage;
+    
+    /**
+     * 处理人ID
+     */
+    @TableField("assignee_id")
+    private Long assigneeId;
+    
+    /**
+     * 事件发生时的整改截止时间
+     */
+    @TableField("deadline")
+    private LocalDateTime deadline;
+    
+    /**
+     * 发生时间
+     */
+    @TableField("occurred_at")
+    private LocalDateTime occurredAt;
+}
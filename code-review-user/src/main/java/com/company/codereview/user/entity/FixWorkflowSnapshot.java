@@ -0,0 +1,77 @@
+package com.company.codereview.user.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 整改工作流快照实体
+ */
+@Data
+@TableName("fix_workflow_snapshots")
+public class FixWorkflowSnapshot {
+    
+    /**
+     * 问题ID
+     */
+    @TableId(value = "issue_id", type = IdType.INPUT)
+    private Long issueId;
+    
+    /**
+     * 快照对应的最后事件序号
+     */
+    @TableField("last_sequence_no")
+    private Long lastSequenceNo;
+    
+    /**
+     * 当前阶段
+     */
+    @TableField("current_stage")
+    private String currentStage;
+    
+    /**
+     * 处理人ID
+     */
+    @TableField("assignee_id")
+    private Long assigneeId;
+    
+    /**
+     * 开始时间
+     */
+    @TableField("start_time")
+    private LocalDateTime startTime;
+    
+    /**
+     * 结束时间
+     */
+    @TableField("end_time")
+    private LocalDateTime endTime;
+    
+    /**
+     * 最后操作时间
+     */
+    @TableField("last_action_time")
+    private LocalDateTime lastActionTime;
+    
+    /**
+     * 整改截止时间
+     */
+    @TableField("deadline")
+    private LocalDateTime deadline;
+    
+    /**
+     * 是否结束
+     */
+    @TableField("completed")
+    private Boolean completed;
+    
+    /**
+     * 是否超时
+     */
+    @TableField("overdue")
+    private Boolean overdue;
+}
@@ -7,6 +7,7 @@ import com.company.codereview.common.enums.Severity;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -89,6 +90,18 @@ public class Issue extends BaseEntity {
     @TableField("assigned_to")
     private Long assignedTo;
     
+    /**
+     * 超时自动升级时间（为空表示尚未升级）
+     */
+    @TableField("escalated_at")
+    private LocalDateTime escalatedAt;
+    
+    /**
+     * 解决时间（首次进入已解决或已关闭状态的时间）
+     */
+    @TableField("resolved_at")
+    private LocalDateTime resolvedAt;
+    
     /**
      * 整改记录列表（不存储在数据库中，通过关联查询获取）
      */
@@ -0,0 +1,39 @@
+package com.company.codereview.user.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 团队每周问题分析中间结果实体
+ */
+@Data
+@TableName("issue_analysis_partials")
+public class IssueAnalysisPartial {
+    
+    /**
+     * 团队ID
+     */
+    @TableField("team_id")
+    private Long teamId;
+    
+    /**
+     * 周一日期
+     */
+    @TableField("week_start")
+    private LocalDate weekStart;
+    
+    /**
+     * 计算时的问题数量、最后修改时间和规则版本
+     */
+    @TableField("fingerprint")
+    private String fingerprint;
+    
+    /**
+     * 分析中间结果（JSON）
+     */
+    @TableField("payload")
+    private String payload;
+}
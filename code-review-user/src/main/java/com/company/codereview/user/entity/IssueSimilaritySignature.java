@@ -0,0 +1,33 @@
+package com.company.codereview.user.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+/**
+ * 问题文本 MinHash 签名实体
+ */
+@Data
+@TableName("issue_similarity_signatures")
+public class IssueSimilaritySignature {
+    
+    /**
+     * 问题ID
+     */
+    @TableId(value = "issue_id", type = IdType.INPUT)
+    private Long issueId;
+    
+    /**
+     * 团队ID
+     */
+    @TableField("team_id")
+    private Long teamId;
+    
+    /**
+     * MinHash 签名（Base64）
+     */
+    @TableField("signature")
+    private String signature;
+}
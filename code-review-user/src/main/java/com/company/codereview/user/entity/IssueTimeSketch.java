@@ -0,0 +1,55 @@
+package com.company.codereview.user.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 团队每日耗时分位数草图实体
+ */
+@Data
+@TableName("issue_time_sketches")
+public class IssueTimeSketch {
+    
+    /**
+     * 问题解决耗时（创建到解决）
+     */
+    public static final String METRIC_RESOLUTION = "RESOLUTION";
+    
+    /**
+     * 首次整改耗时（创建到第一次提交整改记录）
+     */
+    public static final String METRIC_FIRST_FIX = "FIRST_FIX";
+    
+    /**
+     * 团队ID
+     */
+    @TableField("team_id")
+    private Long teamId;
+    
+    /**
+     * 统计日期
+     */
+    @TableField("stat_date")
+    private LocalDate statDate;
+    
+    /**
+     * 指标
+     */
+    @TableField("metric")
+    private String metric;
+    
+    /**
+     * 样本数
+     */
+    @TableField("sample_count")
+    private Long sampleCount;
+    
+    /**
+     * 直方图编码（分钟）
+     */
+    @TableField("sketch")
+    private String sketch;
+}
@@ -0,0 +1,11 @@
+package com.company.codereview.user.exception;
+
+/**
+ * 熔断器打开、调用被拒绝异常
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+    
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.company.codereview.user.exception;
+
+/**
+ * AI调用配额不足、调用被拒绝异常
+ */
+public class RateLimitExceededException extends RuntimeException {
+    
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -3,8 +3,11 @@ package com.company.codereview.user.repository;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.company.codereview.user.dto.AISummaryRequest;
 import com.company.codereview.user.entity.AISummary;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -49,6 +52,65 @@ public interface AISummaryRepository extends BaseMapper<AISummary> {
     AISummary findLatestByType(@Param("summaryType") AISummaryRequest.SummaryType summaryType,
                               @Param("teamId") Long teamId);
     
+    /**
+     * Find the latest completed or published summary generated from the same issue set and options;
+     * fallback reports are never reused
+     */
+    @Select("<script>SELECT * FROM ai_summaries WHERE summary_type = #{summaryType} " +
+            "AND start_date = #{startDate} AND end_date = #{endDate} AND source_fingerprint = #{sourceFingerprint} " +
+            "AND status IN ('COMPLETED', 'PUBLISHED') AND is_deleted = false " +
+            "AND (ai_model IS NULL OR ai_model != 'fallback') " +
+            "<choose><when test='teamId != null'>AND team_id = #{teamId}</when><otherwise>AND team_id IS NULL</otherwise></choose> " +
+            "ORDER BY id DESC LIMIT 1</script>")
+    AISummary findReusableSummary(@Param("teamId") Long teamId,
+                                  @Param("summaryType") AISummaryRequest.SummaryType summaryType,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate,
+                                  @Param("sourceFingerprint") String sourceFingerprint);
+    
+    /**
+     * Find the latest completed fallback summary generated from the same issue set and options, so that a rerun
+     * replaces it instead of inserting another report for the same period
+     */
+    @Select("<script>SELECT * FROM ai_summaries WHERE summary_type = #{summaryType} " +
+            "AND start_date = #{startDate} AND end_date = #{endDate} AND source_fingerprint = #{sourceFingerprint} " +
+            "AND status = 'COMPLETED' AND ai_model = 'fallback' AND is_deleted = false " +
+            "<choose><when test='teamId != null'>AND team_id = #{teamId}</when><otherwise>AND team_id IS NULL</otherwise></choose> " +
+            "ORDER BY id DESC LIMIT 1</script>")
+    AISummary findFallbackSummary(@Param("teamId") Long teamId,
+                                  @Param("summaryType") AISummaryRequest.SummaryType summaryType,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate,
+                                  @Param("sourceFingerprint") String sourceFingerprint);
+    
+    /**
+     * Insert summaries in one multi-row statement
+     */
+    @Insert("<script>" +
+            "INSERT INTO ai_summaries " +
+            "(title, content, summary_type, team_id, start_date, end_date, key_insights, recommendations, statistics, " +
+            "ai_model, confidence, processing_time_ms, status, published, version, source_fingerprint, " +
+            "created_by, created_at, updated_at) VALUES " +
+            "<foreach collection='summaries' item='s' separator=','>" +
+            "(#{s.title}, #{s.content}, #{s.summaryType}, #{s.teamId}, #{s.startDate}, #{s.endDate}, " +
+            "#{s.keyInsights}, #{s.recommendations}, #{s.statistics}, #{s.aiModel}, #{s.confidence}, " +
+            "#{s.processingTimeMs}, #{s.status}, #{s.published}, #{s.version}, #{s.sourceFingerprint}, " +
+            "#{s.createdBy}, #{s.createdAt}, #{s.updatedAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("summaries") List<AISummary> summaries);
+    
+    /**
+     * Replace the content of a completed fallback summary with AI content that arrived late
+     */
+    @Update("UPDATE ai_summaries SET content = #{content}, ai_model = #{aiModel}, confidence = #{confidence}, " +
+            "updated_at = NOW() WHERE id = #{id} AND ai_model = 'fallback' AND status = 'COMPLETED' " +
+            "AND is_deleted = false")
+    int replaceFallbackContent(@Param("id") Long id,
+                               @Param("content") String content,
+                               @Param("aiModel") String aiModel,
+                               @Param("confidence") Double confidence);
+    
     /**
      * Find summaries for comparison
      */
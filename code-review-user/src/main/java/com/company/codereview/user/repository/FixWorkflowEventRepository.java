@@ -0,0 +1,60 @@
+package com.company.codereview.user.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.company.codereview.user.entity.FixWorkflowEvent;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 整改工作流事件Repository
+ */
+@Mapper
+public interface FixWorkflowEventRepository extends BaseMapper<FixWorkflowEvent> {
+    
+    /**
+     * 批量追加事件，(issue_id, sequence_no) 冲突说明工作流已被并发修改
+     */
+    @Insert("<script>" +
+            "INSERT INTO fix_workflow_events " +
+            "(issue_id, sequence_no, event_type, action, from_stage, to_stage, assignee_id, deadline, occurred_at) VALUES " +
+            "<foreach collection='events' item='e' separator=','>" +
+            "(#{e.issueId}, #{e.sequenceNo}, #{e.eventType}, #{e.action}, #{e.fromStage}, #{e.toStage}, " +
+            "#{e.assigneeId}, #{e.deadline}, #{e.occurredAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("events") List<FixWorkflowEvent> events);
+    
+    /**
+     * 查询快照之后的事件（无快照时返回全部事件），按问题和序号排序
+     */
+    @Select("<script>" +
+            "SELECT e.* FROM fix_workflow_events e " +
+            "LEFT JOIN fix_workflow_snapshots s ON s.issue_id = e.issue_id " +
+            "WHERE e.issue_id IN " +
+            "<foreach collection='issueIds' item='issueId' open='(' separator=',' close=')'>#{issueId}</foreach> " +
+            "AND e.sequence_no > COALESCE(s.last_sequence_no, 0) " +
+            "ORDER BY e.issue_id, e.sequence_no" +
+            "</script>")
+    List<FixWorkflowEvent> findEventsAfterSnapshot(@Param("issueIds") Collection<Long> issueIds);
+    
+    /**
+     * 查询团队在时间范围内启动的工作流的完整事件流，按问题和序号排序
+     */
+    @Select("SELECT e.* FROM fix_workflow_events e " +
+            "JOIN issues i ON i.id = e.issue_id " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND e.issue_id IN (" +
+            "SELECT f.issue_id FROM fix_workflow_events f " +
+            "WHERE f.sequence_no = 1 AND f.occurred_at BETWEEN #{startDate} AND #{endDate}) " +
+            "ORDER BY e.issue_id, e.sequence_no")
+    List<FixWorkflowEvent> findTeamStreamsStartedBetween(@Param("teamId") Long teamId,
+                                                         @Param("startDate") LocalDateTime startDate,
+                                                         @Param("endDate") LocalDateTime endDate);
+}
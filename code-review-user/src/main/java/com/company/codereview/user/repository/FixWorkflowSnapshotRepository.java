@@ -0,0 +1,40 @@
+package com.company.codereview.user.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.company.codereview.user.entity.FixWorkflowSnapshot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 整改工作流快照Repository
+ */
+@Mapper
+public interface FixWorkflowSnapshotRepository extends BaseMapper<FixWorkflowSnapshot> {
+    
+    /**
+     * 批量写入或覆盖快照，只会用更新的序号覆盖旧快照
+     */
+    @Insert("<script>" +
+            "INSERT INTO fix_workflow_snapshots " +
+            "(issue_id, last_sequence_no, current_stage, assignee_id, start_time, end_time, " +
+            "last_action_time, deadline, completed, overdue) VALUES " +
+            "<foreach collection='snapshots' item='s' separator=','>" +
+            "(#{s.issueId}, #{s.lastSequenceNo}, #{s.currentStage}, #{s.assigneeId}, #{s.startTime}, #{s.endTime}, " +
+            "#{s.lastActionTime}, #{s.deadline}, #{s.completed}, #{s.overdue})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE " +
+            "current_stage = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(current_stage), current_stage), " +
+            "assignee_id = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(assignee_id), assignee_id), " +
+            "start_time = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(start_time), start_time), " +
+            "end_time = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(end_time), end_time), " +
+            "last_action_time = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(last_action_time), last_action_time), " +
+            "deadline = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(deadline), deadline), " +
+            "completed = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(completed), completed), " +
+            "overdue = IF(VALUES(last_sequence_no) > last_sequence_no, VALUES(overdue), overdue), " +
+            "last_sequence_no = GREATEST(VALUES(last_sequence_no), last_sequence_no)" +
+            "</script>")
+    int upsertBatch(@Param("snapshots") List<FixWorkflowSnapshot> snapshots);
+}
@@ -0,0 +1,35 @@
+package com.company.codereview.user.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.company.codereview.user.entity.IssueAnalysisPartial;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 团队每周问题分析中间结果Repository
+ */
+@Mapper
+public interface IssueAnalysisPartialRepository extends BaseMapper<IssueAnalysisPartial> {
+    
+    /**
+     * 查询团队日期范围内已保存的周分析结果
+     */
+    @Select("SELECT * FROM issue_analysis_partials " +
+            "WHERE team_id = #{teamId} AND week_start BETWEEN #{firstWeek} AND #{lastWeek}")
+    List<IssueAnalysisPartial> findRange(@Param("teamId") Long teamId,
+                                         @Param("firstWeek") LocalDate firstWeek,
+                                         @Param("lastWeek") LocalDate lastWeek);
+    
+    /**
+     * 写入或覆盖某周的分析结果
+     */
+    @Insert("INSERT INTO issue_analysis_partials (team_id, week_start, fingerprint, payload) " +
+            "VALUES (#{teamId}, #{weekStart}, #{fingerprint}, #{payload}) " +
+            "ON DUPLICATE KEY UPDATE fingerprint = VALUES(fingerprint), payload = VALUES(payload)")
+    int upsert(IssueAnalysisPartial partial);
+}
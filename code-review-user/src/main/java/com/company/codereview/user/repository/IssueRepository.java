@@ -3,11 +3,19 @@ package com.company.codereview.user.repository;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.dto.IssueFact;
 import com.company.codereview.user.entity.Issue;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -84,8 +92,19 @@ public interface IssueRepository extends BaseMapper<Issue> {
     List<Issue> findPendingFix(@Param("userId") Long userId);
     
     /**
-     * 批量更新问题状态
+     * 批量更新问题状态，首次进入已解决或已关闭状态的问题写入解决时间
+     * （resolved_at 需在 status 之前赋值，MySQL 按从左到右的顺序使用已更新的列值）
      */
+    @Update("<script>" +
+            "UPDATE issues SET " +
+            "resolved_at = CASE WHEN #{status} IN ('RESOLVED', 'CLOSED') AND status NOT IN ('RESOLVED', 'CLOSED') " +
+            "THEN NOW() ELSE resolved_at END, " +
+            "status = #{status}, updated_by = #{updatedBy}, updated_at = NOW() " +
+            "WHERE is_deleted = false AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
     int batchUpdateStatus(@Param("ids") List<Long> ids, 
                          @Param("status") Issue.IssueStatus status, 
                          @Param("updatedBy") Long updatedBy);
@@ -186,4 +205,191 @@ public interface IssueRepository extends BaseMapper<Issue> {
      */
     List<Map<String, Object>> getCrossTeamIssueDistribution(@Param("startDate") LocalDateTime startDate, 
                                                             @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+    
+    /**
+     * 游标分页查询待升级的超时问题，并锁定本批记录（已被其他节点锁定的记录跳过）
+     * 只投影通知所需的列，不加载描述等大字段
+     */
+    @Select("SELECT id, title, severity, status, assigned_to, created_by, created_at FROM issues " +
+            "WHERE status = 'OPEN' AND escalated_at IS NULL AND created_at < #{threshold} " +
+            "AND id > #{lastId} AND is_deleted = false " +
+            "ORDER BY id LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<Issue> lockOverdueEscalationBatch(@Param("threshold") LocalDateTime threshold,
+                                           @Param("lastId") long lastId,
+                                           @Param("limit") int limit);
+    
+    /**
+     * 按ID锁定尚未升级的问题（已被其他节点锁定的记录跳过）
+     */
+    @Select("<script>" +
+            "SELECT id, title, severity, status, assigned_to, created_by, created_at FROM issues " +
+            "WHERE escalated_at IS NULL AND is_deleted = false AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " ORDER BY id FOR UPDATE SKIP LOCKED" +
+            "</script>")
+    List<Issue> lockEscalationBatchByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 批量升级问题严重级别并写入升级标记（已升级的问题不会被重复升级）
+     */
+    @Update("<script>" +
+            "UPDATE issues SET " +
+            "severity = CASE severity WHEN 'MINOR' THEN 'MAJOR' WHEN 'MAJOR' THEN 'CRITICAL' ELSE severity END, " +
+            "description = CONCAT(description, #{marker}), " +
+            "escalated_at = #{escalatedAt}, updated_at = NOW() " +
+            "WHERE escalated_at IS NULL AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int escalateBatch(@Param("ids") Collection<Long> ids,
+                      @Param("marker") String marker,
+                      @Param("escalatedAt") LocalDateTime escalatedAt);
+    
+    /**
+     * 查询所有未完成问题的截止时间计算字段（启动时装载整改期限时间轮）
+     */
+    @Select("SELECT id, severity, status, created_at FROM issues " +
+            "WHERE status IN ('OPEN', 'IN_PROGRESS') AND is_deleted = false")
+    List<Issue> findActiveForDeadlineTracking();
+    
+    /**
+     * 查询有未完成整改任务的处理人ID（每日提醒任务的分片条目）
+     */
+    @Select("SELECT DISTINCT assigned_to FROM issues " +
+            "WHERE status IN ('OPEN', 'IN_PROGRESS') AND assigned_to IS NOT NULL AND is_deleted = false " +
+            "ORDER BY assigned_to")
+    List<Long> findAssigneesWithPendingIssues();
+    
+    /**
+     * 查询团队未分配的待处理问题（自动分配）
+     */
+    @Select("SELECT i.id, i.severity, i.status, i.created_at FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.assigned_to IS NULL AND i.status = 'OPEN' " +
+            "AND i.is_deleted = false")
+    List<Issue> findUnassignedOpenByTeamId(@Param("teamId") Long teamId);
+    
+    /**
+     * 统计指定用户当前处理中的问题数量
+     */
+    @Select("<script>" +
+            "SELECT assigned_to AS userId, COUNT(*) AS activeCount FROM issues " +
+            "WHERE status IN ('OPEN', 'IN_PROGRESS') AND is_deleted = false AND assigned_to IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach> " +
+            "GROUP BY assigned_to" +
+            "</script>")
+    List<Map<String, Object>> countActiveByAssignees(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 将一组未分配问题分配给同一处理人，已被其他人处理的问题不会被覆盖
+     */
+    @Update("<script>" +
+            "UPDATE issues SET assigned_to = #{assigneeId}, status = 'IN_PROGRESS', updated_at = NOW() " +
+            "WHERE assigned_to IS NULL AND status = 'OPEN' AND is_deleted = false AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int assignUnassignedBatch(@Param("ids") Collection<Long> ids, @Param("assigneeId") Long assigneeId);
+    
+    /**
+     * 查询团队时间窗口内未完成的问题（重建热点问题索引）
+     */
+    @Select("SELECT i.id, i.severity, i.status, i.created_at FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.status IN ('OPEN', 'IN_PROGRESS') " +
+            "AND i.created_at >= #{since} AND i.is_deleted = false")
+    List<Issue> findHotIssueCandidates(@Param("teamId") Long teamId, @Param("since") LocalDateTime since);
+    
+    /**
+     * 查询问题所属团队
+     */
+    @Select("<script>" +
+            "SELECT i.id AS issueId, ra.team_id AS teamId FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE i.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Map<String, Object>> findTeamIdsByIssueIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 查询团队在时间段内创建的问题（按创建时间排序，增量分析），只查询分析用到的列
+     */
+    @Select("SELECT i.id, i.issue_type, i.severity, i.title, i.description, i.status, i.created_at FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.created_at >= #{from} AND i.created_at < #{to} " +
+            "AND i.is_deleted = false ORDER BY i.created_at, i.id")
+    List<Issue> findTeamIssuesCreatedBetween(@Param("teamId") Long teamId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+    
+    /**
+     * 流式读取时间段内创建的所有问题（按创建时间排序，全局分析）
+     * 只查询分析用到的列；fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行读取，不缓存整个结果集
+     */
+    @Select("SELECT id, issue_type, severity, title, description, status, created_at FROM issues " +
+            "WHERE created_at >= #{from} AND created_at < #{to} AND is_deleted = false " +
+            "ORDER BY created_at, id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Issue.class)
+    void streamIssuesCreatedBetween(@Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    ResultHandler<Issue> handler);
+    
+    /**
+     * 查询分配给用户、在时间段内创建的问题（按创建时间排序，个人问题分析），只查询分析用到的列
+     */
+    @Select("SELECT id, issue_type, severity, title, description, status, created_at FROM issues " +
+            "WHERE assigned_to = #{userId} AND created_at >= #{from} AND created_at < #{to} " +
+            "AND is_deleted = false ORDER BY created_at, id")
+    List<Issue> findUserIssuesCreatedBetween(@Param("userId") Long userId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+    
+    /**
+     * 查询团队问题的统计投影（不含文本列），时间为空时不限制
+     */
+    @Select("<script>" +
+            "SELECT i.id, i.issue_type, i.severity, i.status, i.created_at, i.updated_at, i.created_by, i.assigned_to " +
+            "FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.is_deleted = false " +
+            "<if test='startDate != null'>AND i.created_at &gt;= #{startDate} </if>" +
+            "<if test='endDate != null'>AND i.created_at &lt;= #{endDate} </if>" +
+            "</script>")
+    List<IssueFact> findFactsByTeamId(@Param("teamId") Long teamId,
+                                      @Param("startDate") LocalDateTime startDate,
+                                      @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * 按创建周统计团队问题的数量和最后修改时间（判断已保存的周分析结果是否过期）
+     */
+    @Select("SELECT DATE_SUB(DATE(i.created_at), INTERVAL WEEKDAY(i.created_at) DAY) AS weekStart, " +
+            "COUNT(*) AS issueCount, MAX(i.updated_at) AS lastUpdatedAt FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.created_at >= #{from} AND i.created_at < #{to} " +
+            "AND i.is_deleted = false GROUP BY weekStart")
+    List<Map<String, Object>> findWeeklyFingerprints(@Param("teamId") Long teamId,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+    
+    /**
+     * 统计时间段内创建的问题数量和最后修改时间（团队为空时统计全部团队），判断已生成的智能汇总是否过期
+     */
+    @Select("<script>SELECT COUNT(*) AS issueCount, MAX(i.updated_at) AS lastUpdatedAt FROM issues i " +
+            "<if test='teamId != null'>JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id </if>" +
+            "WHERE i.created_at &gt;= #{from} AND i.created_at &lt; #{to} AND i.is_deleted = false " +
+            "<if test='teamId != null'>AND ra.team_id = #{teamId}</if>" +
+            "</script>")
+    Map<String, Object> findIssueSetFingerprint(@Param("teamId") Long teamId,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,94 @@
+package com.company.codereview.user.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.company.codereview.user.entity.IssueSimilaritySignature;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 问题相似度索引Repository（MinHash 签名和 LSH 分桶）
+ */
+@Mapper
+public interface IssueSimilarityRepository extends BaseMapper<IssueSimilaritySignature> {
+    
+    /**
+     * 写入或覆盖问题签名
+     */
+    @Insert("INSERT INTO issue_similarity_signatures (issue_id, team_id, signature) " +
+            "VALUES (#{issueId}, #{teamId}, #{signature}) " +
+            "ON DUPLICATE KEY UPDATE team_id = VALUES(team_id), signature = VALUES(signature)")
+    int upsertSignature(IssueSimilaritySignature signature);
+    
+    /**
+     * 删除问题的全部分桶
+     */
+    @Delete("DELETE FROM issue_similarity_bands WHERE issue_id = #{issueId}")
+    int deleteBands(@Param("issueId") Long issueId);
+    
+    /**
+     * 删除问题签名
+     */
+    @Delete("DELETE FROM issue_similarity_signatures WHERE issue_id = #{issueId}")
+    int deleteSignature(@Param("issueId") Long issueId);
+    
+    /**
+     * 写入问题的分桶
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO issue_similarity_bands (team_id, band_key, issue_id) VALUES " +
+            "<foreach collection='bandKeys' item='bandKey' separator=','>(#{teamId}, #{bandKey}, #{issueId})</foreach>" +
+            "</script>")
+    int insertBands(@Param("teamId") Long teamId,
+                    @Param("issueId") Long issueId,
+                    @Param("bandKeys") Collection<Long> bandKeys);
+    
+    /**
+     * 按桶键召回团队内的候选问题签名（只返回未删除的问题）
+     */
+    @Select("<script>" +
+            "SELECT s.issue_id, s.team_id, s.signature FROM issue_similarity_signatures s " +
+            "JOIN issues i ON i.id = s.issue_id " +
+            "WHERE i.is_deleted = false AND s.issue_id IN (" +
+            "SELECT DISTINCT b.issue_id FROM issue_similarity_bands b " +
+            "WHERE b.team_id = #{teamId} AND b.band_key IN " +
+            "<foreach collection='bandKeys' item='bandKey' open='(' separator=',' close=')'>#{bandKey}</foreach>" +
+            ")" +
+            "</script>")
+    List<IssueSimilaritySignature> findCandidates(@Param("teamId") Long teamId,
+                                                  @Param("bandKeys") Collection<Long> bandKeys);
+    
+    /**
+     * 查询尚未建立签名的问题（按ID游标分页，补建索引）
+     */
+    @Select("SELECT i.id AS id, i.title AS title, i.description AS description, ra.team_id AS teamId FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "LEFT JOIN issue_similarity_signatures s ON s.issue_id = i.id " +
+            "WHERE s.issue_id IS NULL AND i.id > #{lastId} AND i.is_deleted = false " +
+            "ORDER BY i.id LIMIT #{limit}")
+    List<Map<String, Object>> findUnindexedIssues(@Param("lastId") long lastId, @Param("limit") int limit);
+    
+    /**
+     * 查询问题所属团队
+     */
+    @Select("SELECT ra.team_id FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE i.id = #{issueId}")
+    Long findTeamIdByIssueId(@Param("issueId") Long issueId);
+    
+    /**
+     * 查询评审记录所属团队
+     */
+    @Select("SELECT ra.team_id FROM review_records rr " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE rr.id = #{reviewRecordId}")
+    Long findTeamIdByReviewRecordId(@Param("reviewRecordId") Long reviewRecordId);
+}
@@ -0,0 +1,108 @@
+package com.company.codereview.user.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.company.codereview.user.dto.IssueTimeSample;
+import com.company.codereview.user.entity.IssueTimeSketch;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 团队每日耗时分位数草图Repository
+ */
+@Mapper
+public interface IssueTimeSketchRepository extends BaseMapper<IssueTimeSketch> {
+    
+    /**
+     * 查询团队日期范围内已保存的草图
+     */
+    @Select("SELECT * FROM issue_time_sketches " +
+            "WHERE team_id = #{teamId} AND metric = #{metric} AND stat_date BETWEEN #{startDate} AND #{endDate}")
+    List<IssueTimeSketch> findRange(@Param("teamId") Long teamId,
+                                    @Param("metric") String metric,
+                                    @Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate);
+    
+    /**
+     * 查询团队日期范围内已保存草图的日期
+     */
+    @Select("SELECT stat_date FROM issue_time_sketches " +
+            "WHERE team_id = #{teamId} AND metric = #{metric} AND stat_date BETWEEN #{startDate} AND #{endDate}")
+    List<LocalDate> findStoredDates(@Param("teamId") Long teamId,
+                                    @Param("metric") String metric,
+                                    @Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate);
+    
+    /**
+     * 查询团队最早的问题解决日期，没有已解决的问题时返回 null
+     */
+    @Select("SELECT DATE(MIN(i.resolved_at)) FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.status IN ('RESOLVED', 'CLOSED') AND i.is_deleted = false")
+    LocalDate findEarliestResolutionDate(@Param("teamId") Long teamId);
+    
+    /**
+     * 查询团队最早的整改提交日期，没有整改记录时返回 null
+     */
+    @Select("SELECT DATE(MIN(f.created_at)) FROM fix_records f " +
+            "JOIN issues i ON i.id = f.issue_id " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.is_deleted = false")
+    LocalDate findEarliestFixDate(@Param("teamId") Long teamId);
+    
+    /**
+     * 写入或覆盖某天的草图
+     */
+    @Insert("INSERT INTO issue_time_sketches (team_id, stat_date, metric, sample_count, sketch) " +
+            "VALUES (#{teamId}, #{statDate}, #{metric}, #{sampleCount}, #{sketch}) " +
+            "ON DUPLICATE KEY UPDATE sample_count = VALUES(sample_count), sketch = VALUES(sketch)")
+    int upsert(IssueTimeSketch sketch);
+    
+    /**
+     * 流式读取团队在时间段内解决的问题的解决日期和解决耗时（分钟）
+     * 按 resolved_at 归入日期，解决之后的编辑不会让问题重复计入其他日期
+     */
+    @Select("SELECT DATE(i.resolved_at) AS statDate, TIMESTAMPDIFF(MINUTE, i.created_at, i.resolved_at) AS minutes " +
+            "FROM issues i " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.status IN ('RESOLVED', 'CLOSED') " +
+            "AND i.resolved_at >= #{from} AND i.resolved_at < #{to} AND i.is_deleted = false")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    @ResultType(IssueTimeSample.class)
+    void streamResolutionSamples(@Param("teamId") Long teamId,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 ResultHandler<IssueTimeSample> handler);
+    
+    /**
+     * 流式读取团队在时间段内首次提交整改的问题的首次整改日期和首次整改耗时（分钟）
+     * 时间段之前已有整改记录的问题不计入，多天的时间段与逐天查询的结果一致
+     */
+    @Select("SELECT DATE(MIN(f.created_at)) AS statDate, TIMESTAMPDIFF(MINUTE, i.created_at, MIN(f.created_at)) AS minutes " +
+            "FROM fix_records f " +
+            "JOIN issues i ON i.id = f.issue_id " +
+            "JOIN review_records rr ON rr.id = i.review_record_id " +
+            "JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE ra.team_id = #{teamId} AND i.is_deleted = false " +
+            "AND f.created_at >= #{from} AND f.created_at < #{to} " +
+            "AND NOT EXISTS (SELECT 1 FROM fix_records p WHERE p.issue_id = f.issue_id AND p.created_at < #{from}) " +
+            "GROUP BY i.id, i.created_at")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    @ResultType(IssueTimeSample.class)
+    void streamFirstFixSamples(@Param("teamId") Long teamId,
+                               @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to,
+                               ResultHandler<IssueTimeSample> handler);
+}
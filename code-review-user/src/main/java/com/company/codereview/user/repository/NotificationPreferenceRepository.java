@@ -5,7 +5,9 @@ import com.company.codereview.user.entity.Notification;
 import com.company.codereview.user.entity.NotificationPreference;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +28,26 @@ public interface NotificationPreferenceRepository extends BaseMapper<Notificatio
     Optional<NotificationPreference> findByUserIdAndType(@Param("userId") Long userId,
                                                         @Param("notificationType") Notification.NotificationType notificationType);
     
+    /**
+     * 批量查询一组用户的全部通知偏好
+     */
+    @Select("<script>" +
+            "SELECT * FROM notification_preferences WHERE is_deleted = false AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    List<NotificationPreference> findByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 批量查询一组用户对指定通知类型的偏好，没有设置偏好的用户不返回记录
+     */
+    @Select("<script>" +
+            "SELECT * FROM notification_preferences " +
+            "WHERE notification_type = #{notificationType} AND is_deleted = false AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    List<NotificationPreference> findByUserIdsAndType(@Param("userIds") Collection<Long> userIds,
+                                                      @Param("notificationType") Notification.NotificationType notificationType);
+    
     /**
      * 批量插入或更新用户偏好
      */
@@ -0,0 +1,73 @@
+package com.company.codereview.user.repository;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 全文检索索引数据源Repository
+ *
+ * 只查询建立索引用到的文本和分面列，包含已逻辑删除的行（deleted 为 true 时从索引移除）
+ */
+@Mapper
+public interface SearchIndexRepository {
+
+    /**
+     * 按ID查询问题索引文档
+     */
+    @Select("<script>" +
+            "SELECT i.id AS id, i.title AS title, i.description AS description, i.suggestion AS suggestion, " +
+            "i.issue_type AS issueType, i.severity AS severity, i.status AS status, i.is_deleted AS deleted, " +
+            "i.updated_at AS updatedAt, ra.team_id AS teamId FROM issues i " +
+            "LEFT JOIN review_records rr ON rr.id = i.review_record_id " +
+            "LEFT JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE i.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Map<String, Object>> findIssueDocuments(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按 (updated_at, id) 游标查询修改时间不早于 since 的问题索引文档
+     */
+    @Select("SELECT i.id AS id, i.title AS title, i.description AS description, i.suggestion AS suggestion, " +
+            "i.issue_type AS issueType, i.severity AS severity, i.status AS status, i.is_deleted AS deleted, " +
+            "i.updated_at AS updatedAt, ra.team_id AS teamId FROM issues i " +
+            "LEFT JOIN review_records rr ON rr.id = i.review_record_id " +
+            "LEFT JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE i.updated_at > #{since} OR (i.updated_at = #{since} AND i.id > #{afterId}) " +
+            "ORDER BY i.updated_at, i.id LIMIT #{limit}")
+    List<Map<String, Object>> findIssueDocumentsUpdatedAfter(@Param("since") LocalDateTime since,
+                                                             @Param("afterId") Long afterId,
+                                                             @Param("limit") int limit);
+
+    /**
+     * 按ID查询评审记录索引文档
+     */
+    @Select("<script>" +
+            "SELECT rr.id AS id, rr.title AS title, rr.description AS description, rr.summary AS summary, " +
+            "rr.remarks AS remarks, rr.status AS status, rr.is_deleted AS deleted, rr.updated_at AS updatedAt, " +
+            "ra.team_id AS teamId FROM review_records rr " +
+            "LEFT JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE rr.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Map<String, Object>> findReviewRecordDocuments(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按 (updated_at, id) 游标查询修改时间不早于 since 的评审记录索引文档
+     */
+    @Select("SELECT rr.id AS id, rr.title AS title, rr.description AS description, rr.summary AS summary, " +
+            "rr.remarks AS remarks, rr.status AS status, rr.is_deleted AS deleted, rr.updated_at AS updatedAt, " +
+            "ra.team_id AS teamId FROM review_records rr " +
+            "LEFT JOIN review_assignments ra ON ra.id = rr.assignment_id " +
+            "WHERE rr.updated_at > #{since} OR (rr.updated_at = #{since} AND rr.id > #{afterId}) " +
+            "ORDER BY rr.updated_at, rr.id LIMIT #{limit}")
+    List<Map<String, Object>> findReviewRecordDocumentsUpdatedAfter(@Param("since") LocalDateTime since,
+                                                                    @Param("afterId") Long afterId,
+                                                                    @Param("limit") int limit);
+}
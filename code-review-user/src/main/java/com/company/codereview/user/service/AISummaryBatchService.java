@@ -0,0 +1,399 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.dto.AISummaryBatchStats;
+import com.company.codereview.user.dto.AISummaryRequest;
+import com.company.codereview.user.dto.IssueAnalysisResult;
+import com.company.codereview.user.entity.AISummary;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.entity.Team;
+import com.company.codereview.user.repository.AISummaryRepository;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.repository.TeamRepository;
+import com.company.codereview.user.service.ai.AIClient;
+import com.company.codereview.user.service.ai.AIRateLimiter;
+import com.company.codereview.user.service.ai.FallbackAIService;
+import com.company.codereview.user.service.ai.PromptCompiler;
+import com.company.codereview.user.service.job.DistributedJobRunner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * AI汇总批量生成服务
+ *
+ * 每周一为所有活跃团队生成上一周的AI周报。准备阶段在独立线程池中并行合并各团队已存储的周分析结果并编译提示词，
+ * 问题集未变化、已有可复用汇总的团队直接跳过；调用阶段由固定数量的线程执行，每次调用前等待令牌桶有配额
+ * （配额由AI客户端在发出请求时扣减，与交互式请求共用），并发数和请求速率都不超过服务商配额，
+ * 也不会占满交互式请求共用的AI调用执行器。
+ * 调用失败按指数退避重试，仍失败时由降级服务生成基础统计报告；结果先缓冲，按批次写入数据库。
+ * 同一问题集已有降级报告时不再新增记录：AI调用成功则替换其内容，仍失败则保留原报告。
+ * 多实例部署时只由 leader 节点执行。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AISummaryBatchService {
+
+    private static final String WEEKLY_SUMMARY_JOB = "ai-summary:weekly-batch";
+
+    private final AISummaryService summaryService;
+    private final AISummaryRepository summaryRepository;
+    private final IssueAnalysisService issueAnalysisService;
+    private final IssueRepository issueRepository;
+    private final TeamRepository teamRepository;
+    private final AIClient aiClient;
+    private final AIRateLimiter rateLimiter;
+    private final PromptCompiler promptCompiler;
+    private final FallbackAIService fallbackAIService;
+    private final DistributedJobRunner jobRunner;
+    private final AIServiceConfig aiServiceConfig;
+
+    @Value("${ai.summary-batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.summary-batch.prepare-threads:4}")
+    private int prepareThreads;
+
+    @Value("${ai.summary-batch.max-concurrent-calls:4}")
+    private int maxConcurrentCalls;
+
+    @Value("${ai.summary-batch.initial-backoff-millis:2000}")
+    private long initialBackoffMillis;
+
+    @Value("${ai.summary-batch.max-backoff-millis:60000}")
+    private long maxBackoffMillis;
+
+    @Value("${ai.summary-batch.rate-limit-wait-seconds:600}")
+    private long rateLimitWaitSeconds;
+
+    @Value("${ai.summary-batch.write-batch-size:20}")
+    private int writeBatchSize;
+
+    private ExecutorService preparePool;
+    private ExecutorService callPool;
+    private volatile AISummaryBatchStats lastRunStats;
+
+    @PostConstruct
+    public void init() {
+        preparePool = newPool("ai-summary-prepare-", prepareThreads);
+        callPool = newPool("ai-summary-call-", maxConcurrentCalls);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        preparePool.shutdownNow();
+        callPool.shutdownNow();
+    }
+
+    private static ExecutorService newPool(String namePrefix, int threads) {
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 每周一凌晨0点半生成上一周的团队AI周报
+     */
+    @Scheduled(cron = "${ai.summary-batch.cron:0 30 0 * * MON}")
+    public void generateWeeklySummaries() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate weekStart = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+        jobRunner.runExclusive(WEEKLY_SUMMARY_JOB, weekStart.toString(), () -> runWeeklyBatch(weekStart));
+    }
+
+    /**
+     * 为所有活跃团队生成指定周的AI周报，返回本次运行统计
+     */
+    public AISummaryBatchStats runWeeklyBatch(LocalDate weekStart) {
+        long startNanos = System.nanoTime();
+        List<Long> teamIds = teamRepository.findAllActive().stream()
+                .map(Team::getId)
+                .collect(Collectors.toList());
+        log.info("开始批量生成AI周报: weekStart={}, teams={}", weekStart, teamIds.size());
+
+        BatchRun run = new BatchRun(weekStart);
+        CompletableFuture.allOf(teamIds.stream()
+                .map(teamId -> processTeam(run, teamId))
+                .toArray(CompletableFuture[]::new)).join();
+        run.flush();
+
+        AISummaryBatchStats stats = AISummaryBatchStats.builder()
+                .weekStart(weekStart)
+                .teams(teamIds.size())
+                .reused(run.reused.get())
+                .skipped(run.skipped.get())
+                .generated(run.generated.get())
+                .fallback(run.fallback.get())
+                .failed(run.failed.get())
+                .retries(run.retries.get())
+                .persisted(run.persisted.get())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .finishedAt(LocalDateTime.now())
+                .build();
+        lastRunStats = stats;
+        log.info("AI周报批量生成完成: {}", stats);
+        return stats;
+    }
+
+    /**
+     * 最近一次批量生成的运行统计，尚未运行时返回 null
+     */
+    public AISummaryBatchStats getLastRunStats() {
+        return lastRunStats;
+    }
+
+    private CompletableFuture<Void> processTeam(BatchRun run, Long teamId) {
+        return CompletableFuture.supplyAsync(() -> prepare(run, teamId), preparePool)
+                .thenCompose(prepared -> prepared == null
+                        ? CompletableFuture.<AISummary>completedFuture(null)
+                        : generate(run, prepared))
+                .thenAccept(summary -> {
+                    if (summary != null) {
+                        run.add(summary);
+                    }
+                })
+                .exceptionally(error -> {
+                    run.failed.incrementAndGet();
+                    log.error("团队{}的AI周报生成失败", teamId, unwrap(error));
+                    return null;
+                });
+    }
+
+    /**
+     * 合并团队的周分析结果并编译提示词；已有可复用汇总或周内没有问题时返回 null
+     */
+    private PreparedSummary prepare(BatchRun run, Long teamId) {
+        AISummaryRequest request = new AISummaryRequest();
+        request.setTeamId(teamId);
+        request.setSummaryType(AISummaryRequest.SummaryType.TEAM_WEEKLY);
+        request.setStartDate(run.weekStart);
+        request.setEndDate(run.weekStart.plusDays(6));
+
+        String sourceFingerprint = summaryService.sourceFingerprint(request);
+        if (summaryRepository.findReusableSummary(teamId, request.getSummaryType(), request.getStartDate(),
+                request.getEndDate(), sourceFingerprint) != null) {
+            run.reused.incrementAndGet();
+            return null;
+        }
+
+        long startTime = System.currentTimeMillis();
+        IssueAnalysisResult analysisResult = issueAnalysisService.analyzeTeamIssues(teamId,
+                request.getStartDate(), request.getEndDate());
+        if (analysisResult.getTotalIssues() == null || analysisResult.getTotalIssues() == 0) {
+            run.skipped.incrementAndGet();
+            return null;
+        }
+        String prompt = promptCompiler.compileSummaryPrompt(request, analysisResult);
+        AISummary fallback = summaryRepository.findFallbackSummary(teamId, request.getSummaryType(),
+                request.getStartDate(), request.getEndDate(), sourceFingerprint);
+        return new PreparedSummary(request, sourceFingerprint, analysisResult, prompt, startTime,
+                fallback != null ? fallback.getId() : null);
+    }
+
+    /**
+     * 调用AI服务生成汇总，重试后仍失败时改用降级服务；已有降级报告时原地替换或保留，返回 null
+     */
+    private CompletableFuture<AISummary> generate(BatchRun run, PreparedSummary prepared) {
+        return callWithRetry(run, prepared, 1).handleAsync((content, error) -> {
+            if (error == null) {
+                run.generated.incrementAndGet();
+                AISummary summary = summaryService.buildCompletedSummary(prepared.request, prepared.sourceFingerprint,
+                        content, aiServiceConfig.getDefaultModel(), prepared.analysisResult, prepared.startTime);
+                if (prepared.fallbackSummaryId == null) {
+                    return summary;
+                }
+                if (summaryRepository.replaceFallbackContent(prepared.fallbackSummaryId, summary.getContent(),
+                        summary.getAiModel(), summary.getConfidence()) > 0) {
+                    run.persisted.incrementAndGet();
+                }
+                return null;
+            }
+            run.fallback.incrementAndGet();
+            if (prepared.fallbackSummaryId != null) {
+                log.warn("团队{}的AI调用重试后仍失败，保留已有的降级报告{}: {}",
+                        prepared.request.getTeamId(), prepared.fallbackSummaryId, unwrap(error).toString());
+                return null;
+            }
+            log.warn("团队{}的AI调用重试后仍失败，使用降级服务生成基础报告: {}",
+                    prepared.request.getTeamId(), unwrap(error).toString());
+            return fallbackSummary(prepared);
+        }, preparePool);
+    }
+
+    private CompletableFuture<String> callWithRetry(BatchRun run, PreparedSummary prepared, int attempt) {
+        return CompletableFuture.supplyAsync(() -> callRateLimited(prepared.prompt), callPool)
+                .handle((content, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(content);
+                    }
+                    if (attempt > aiServiceConfig.getMaxRetries()) {
+                        return CompletableFuture.<String>failedFuture(unwrap(error));
+                    }
+                    long backoff = backoffMillis(attempt);
+                    run.retries.incrementAndGet();
+                    log.warn("团队{}的AI调用第{}次失败，{}ms后重试: {}",
+                            prepared.request.getTeamId(), attempt, backoff, unwrap(error).toString());
+                    Executor delayed = CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS, callPool);
+                    return CompletableFuture.runAsync(() -> { }, delayed)
+                            .thenCompose(ignored -> callWithRetry(run, prepared, attempt + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * 等待到有限流配额后同步调用AI服务，在调用线程池中执行，线程数即最大并发调用数
+     *
+     * 配额由AI客户端在发出请求时扣减；等待期间配额被交互式请求取走时本次调用失败，按退避重试
+     */
+    private String callRateLimited(String prompt) {
+        try {
+            if (!rateLimiter.awaitAvailable(TimeUnit.SECONDS.toMillis(rateLimitWaitSeconds))) {
+                throw new IllegalStateException("等待AI调用配额超时");
+            }
+            return aiClient.generateSummaryOrFail(prompt).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("AI调用被中断", e);
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * 指数退避：initial * 2^(attempt-1)，不超过上限，叠加 ±20% 抖动避免各团队同时重试
+     */
+    private long backoffMillis(int attempt) {
+        long base = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        long jitter = (long) (base * 0.2 * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        return Math.max(0L, base + jitter);
+    }
+
+    /**
+     * 降级汇总记录来源指纹但不会被复用，重新运行时按指纹找到它并替换为AI生成的内容
+     */
+    private AISummary fallbackSummary(PreparedSummary prepared) {
+        Long teamId = prepared.request.getTeamId();
+        LocalDateTime from = prepared.request.getStartDate().atStartOfDay();
+        LocalDateTime to = prepared.request.getEndDate().plusDays(1).atStartOfDay();
+        List<Issue> issues = issueRepository.findTeamIssuesCreatedBetween(teamId, from, to);
+        FallbackAIService.AISummaryResult result = fallbackAIService.generateBasicSummary(teamId, from, to, issues);
+
+        AISummary summary = summaryService.buildCompletedSummary(prepared.request, prepared.sourceFingerprint,
+                result.getSummary(), FallbackAIService.MODEL_NAME, prepared.analysisResult, prepared.startTime);
+        summary.setConfidence(null);
+        return summary;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static final class PreparedSummary {
+        private final AISummaryRequest request;
+        private final String sourceFingerprint;
+        private final IssueAnalysisResult analysisResult;
+        private final String prompt;
+        private final long startTime;
+        private final Long fallbackSummaryId;
+
+        private PreparedSummary(AISummaryRequest request, String sourceFingerprint,
+                                IssueAnalysisResult analysisResult, String prompt, long startTime,
+                                Long fallbackSummaryId) {
+            this.request = request;
+            this.sourceFingerprint = sourceFingerprint;
+            this.analysisResult = analysisResult;
+            this.prompt = prompt;
+            this.startTime = startTime;
+            this.fallbackSummaryId = fallbackSummaryId;
+        }
+    }
+
+    /**
+     * 一次批量运行的计数和待写入的汇总缓冲
+     */
+    private final class BatchRun {
+        private final LocalDate weekStart;
+        private final List<AISummary> buffer = new ArrayList<>();
+        private final AtomicInteger reused = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger generated = new AtomicInteger();
+        private final AtomicInteger fallback = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger retries = new AtomicInteger();
+        private final AtomicInteger persisted = new AtomicInteger();
+
+        private BatchRun(LocalDate weekStart) {
+            this.weekStart = weekStart;
+        }
+
+        /**
+         * 加入缓冲，攒满一批时写入
+         */
+        private void add(AISummary summary) {
+            List<AISummary> batch = null;
+            synchronized (buffer) {
+                buffer.add(summary);
+                if (buffer.size() >= Math.max(1, writeBatchSize)) {
+                    batch = new ArrayList<>(buffer);
+                    buffer.clear();
+                }
+            }
+            if (batch != null) {
+                write(batch);
+            }
+        }
+
+        /**
+         * 写入缓冲中剩余的汇总
+         */
+        private void flush() {
+            List<AISummary> batch;
+            synchronized (buffer) {
+                batch = new ArrayList<>(buffer);
+                buffer.clear();
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+
+        private void write(List<AISummary> batch) {
+            try {
+                summaryRepository.insertBatch(batch);
+                persisted.addAndGet(batch.size());
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                log.error("批量写入AI周报失败: count={}, teams={}", batch.size(),
+                        batch.stream().map(AISummary::getTeamId).collect(Collectors.toList()), e);
+            }
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.company.codereview.user.service;
 
 import com.company.codereview.user.dto.*;
+import com.company.codereview.user.config.AIServiceConfig;
 import com.company.codereview.user.entity.AISummary;
+import com.company.codereview.user.exception.CircuitBreakerOpenException;
 import com.company.codereview.user.repository.AISummaryRepository;
+import com.company.codereview.user.repository.IssueRepository;
 import com.company.codereview.user.service.ai.AIClient;
+import com.company.codereview.user.service.ai.AIResponseCache;
+import com.company.codereview.user.service.ai.FallbackAIService;
+import com.company.codereview.user.service.ai.PromptCompiler;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Builder;
@@ -17,7 +23,14 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -28,50 +41,192 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AISummaryService {
     
+    private static final String AI_MODEL = "gpt-3.5-turbo";
+    private static final double AI_CONFIDENCE = 0.85;
+    
     private final AISummaryRepository summaryRepository;
     private final IssueAnalysisService issueAnalysisService;
+    private final IssueRepository issueRepository;
+    private final IssueAnalyzer issueAnalyzer;
     private final AIClient aiClient;
+    private final PromptCompiler promptCompiler;
+    private final FallbackAIService fallbackAIService;
+    private final AIServiceConfig aiServiceConfig;
     private final ObjectMapper objectMapper;
     
+    /**
+     * Summaries being generated, keyed by request; concurrent identical requests share one future
+     */
+    private final ConcurrentMap<String, CompletableFuture<AISummaryResponse>> inFlightSummaries = new ConcurrentHashMap<>();
+    
     /**
      * Generate AI summary
+     * 
+     * Reuses the latest completed summary for the same team, period and options when the issue set has not
+     * changed since it was generated, and joins a generation already in progress for an identical request.
+     * When the AI service fails, is circuit-broken or has not answered within the latency SLO, a basic
+     * statistics report is returned at once and replaced by the AI content if it arrives later.
+     * Not transactional: the summary row is committed before waiting on the AI service, so no
+     * transaction or row lock is held during the wait and a late swap never blocks on it.
      */
     @Async
-    @Transactional
     public CompletableFuture<AISummaryResponse> generateSummary(AISummaryRequest request, Long userId) {
+        String requestKey = requestKey(request);
+        CompletableFuture<AISummaryResponse> result = new CompletableFuture<>();
+        CompletableFuture<AISummaryResponse> inFlight = inFlightSummaries.putIfAbsent(requestKey, result);
+        if (inFlight != null) {
+            log.info("Joining in-flight AI summary generation for team: {}, type: {}", request.getTeamId(), request.getSummaryType());
+            return inFlight;
+        }
+        
+        try {
+            result.complete(generateOrReuseSummary(request, userId));
+        } catch (Exception e) {
+            log.error("Failed to generate AI summary", e);
+            result.completeExceptionally(e);
+        } finally {
+            inFlightSummaries.remove(requestKey, result);
+        }
+        return result;
+    }
+    
+    private AISummaryResponse generateOrReuseSummary(AISummaryRequest request, Long userId) {
+        String sourceFingerprint = sourceFingerprint(request);
+        AISummary reusable = summaryRepository.findReusableSummary(request.getTeamId(), request.getSummaryType(),
+            request.getStartDate(), request.getEndDate(), sourceFingerprint);
+        if (reusable != null) {
+            log.info("Issue set unchanged, reusing AI summary: {}", reusable.getId());
+            return convertToResponse(reusable);
+        }
+        
         log.info("Starting AI summary generation for team: {}, type: {}", request.getTeamId(), request.getSummaryType());
         
         long startTime = System.currentTimeMillis();
         
+        // Create summary record
+        AISummary summary = createSummaryRecord(request, userId, sourceFingerprint);
+        
         try {
-            // Create summary record
-            AISummary summary = createSummaryRecord(request, userId);
-            
             // Perform issue analysis
             IssueAnalysisResult analysisResult = performIssueAnalysis(request);
             
-            // Generate AI content
-            String aiContent = generateAIContent(request, analysisResult);
+            // Generate AI content, falling back to a basic report when the model misses the latency SLO
+            CompletableFuture<String> aiContent = requestAIContent(buildPrompt(request, analysisResult));
+            String content = awaitAIContent(aiContent);
+            boolean fallback = content == null;
+            if (fallback) {
+                content = generateFallbackContent(request);
+            }
             
             // Extract insights and recommendations
             List<String> keyInsights = extractKeyInsights(analysisResult);
             List<String> recommendations = extractRecommendations(analysisResult);
             
             // Update summary with results
-            updateSummaryWithResults(summary, aiContent, analysisResult, keyInsights, recommendations, startTime);
+            applyResults(summary, content, analysisResult, keyInsights, recommendations, startTime);
+            if (fallback) {
+                summary.setAiModel(FallbackAIService.MODEL_NAME);
+                summary.setConfidence(null);
+            }
+            summaryRepository.updateById(summary);
+            if (fallback) {
+                swapInLateContent(summary, aiContent);
+            }
+            
+            log.info("AI summary generation completed for ID: {}", summary.getId());
             
             // Build response
-            AISummaryResponse response = buildSummaryResponse(summary, analysisResult, keyInsights, recommendations, userId, startTime);
+            return buildSummaryResponse(summary, analysisResult, keyInsights, recommendations, userId, startTime);
+        } catch (RuntimeException e) {
+            markFailed(summary, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Generate AI summary, relaying content to {@code onToken} while the model produces it
+     * 
+     * The completed text is persisted through the same path as {@link #generateSummary}; an unchanged
+     * summary is replayed as a single chunk. Cancelling the returned future aborts the model call.
+     */
+    public CompletableFuture<AISummaryResponse> streamSummary(AISummaryRequest request, Long userId, Consumer<String> onToken) {
+        AISummary summary = null;
+        try {
+            String sourceFingerprint = sourceFingerprint(request);
+            AISummary reusable = summaryRepository.findReusableSummary(request.getTeamId(), request.getSummaryType(),
+                request.getStartDate(), request.getEndDate(), sourceFingerprint);
+            if (reusable != null) {
+                log.info("Issue set unchanged, replaying AI summary: {}", reusable.getId());
+                if (reusable.getContent() != null) {
+                    onToken.accept(reusable.getContent());
+                }
+                return CompletableFuture.completedFuture(convertToResponse(reusable));
+            }
             
-            log.info("AI summary generation completed for ID: {}", summary.getId());
-            return CompletableFuture.completedFuture(response);
+            log.info("Starting streaming AI summary generation for team: {}, type: {}", request.getTeamId(), request.getSummaryType());
+            
+            long startTime = System.currentTimeMillis();
+            AISummary record = createSummaryRecord(request, userId, sourceFingerprint);
+            summary = record;
+            IssueAnalysisResult analysisResult = performIssueAnalysis(request);
+            
+            CompletableFuture<String> stream = aiClient.streamSummary(buildPrompt(request, analysisResult), onToken);
+            CompletableFuture<AISummaryResponse> result = stream.thenApply(content -> {
+                List<String> keyInsights = extractKeyInsights(analysisResult);
+                List<String> recommendations = extractRecommendations(analysisResult);
+                updateSummaryWithResults(record, content, analysisResult, keyInsights, recommendations, startTime);
+                log.info("Streaming AI summary generation completed for ID: {}", record.getId());
+                return buildSummaryResponse(record, analysisResult, keyInsights, recommendations, userId, startTime);
+            });
+            result.whenComplete((response, error) -> {
+                if (error != null) {
+                    stream.cancel(true);
+                    markFailed(record, error);
+                }
+            });
+            return result;
             
         } catch (Exception e) {
-            log.error("Failed to generate AI summary", e);
+            log.error("Failed to start streaming AI summary", e);
+            if (summary != null) {
+                markFailed(summary, e);
+            }
             return CompletableFuture.failedFuture(e);
         }
     }
     
+    /**
+     * Mark a summary whose generation failed or was cancelled
+     */
+    private void markFailed(AISummary summary, Throwable error) {
+        log.warn("AI summary generation failed for ID: {}, error: {}", summary.getId(), error.toString());
+        summary.setStatus(AISummary.SummaryStatus.FAILED);
+        summary.setUpdatedAt(LocalDateTime.now());
+        summaryRepository.updateById(summary);
+    }
+    
+    /**
+     * Key identifying identical summary requests
+     */
+    private String requestKey(AISummaryRequest request) {
+        return AIResponseCache.key(request.getTeamId(), request.getSummaryType(), request.getStartDate(),
+            request.getEndDate(), request.getIncludeAnalysis(), request.getIncludeRecommendations(),
+            request.getCustomPrompt());
+    }
+    
+    /**
+     * Fingerprint of the issue set in the period (count and last update time), the pattern rules and the
+     * request options; a summary with the same fingerprint would be generated from identical input
+     */
+    String sourceFingerprint(AISummaryRequest request) {
+        Map<String, Object> issueSet = issueRepository.findIssueSetFingerprint(request.getTeamId(),
+            request.getStartDate().atStartOfDay(), request.getEndDate().plusDays(1).atStartOfDay());
+        Object issueCount = issueSet != null ? issueSet.get("issueCount") : null;
+        Object lastUpdatedAt = issueSet != null ? issueSet.get("lastUpdatedAt") : null;
+        return AIResponseCache.key(requestKey(request), issueCount + "@" + lastUpdatedAt,
+            issueAnalyzer.getPatternVersion());
+    }
+    
     /**
      * Get summary by ID
      */
@@ -212,7 +367,16 @@ public class AISummaryService {
     /**
      * Create summary record
      */
-    private AISummary createSummaryRecord(AISummaryRequest request, Long userId) {
+    private AISummary createSummaryRecord(AISummaryRequest request, Long userId, String sourceFingerprint) {
+        AISummary summary = newSummaryRecord(request, userId, sourceFingerprint);
+        summaryRepository.insert(summary);
+        return summary;
+    }
+    
+    /**
+     * Build a summary entity in GENERATING status without persisting it
+     */
+    private AISummary newSummaryRecord(AISummaryRequest request, Long userId, String sourceFingerprint) {
         AISummary summary = new AISummary();
         summary.setTitle(generateSummaryTitle(request));
         summary.setSummaryType(request.getSummaryType());
@@ -222,10 +386,22 @@ public class AISummaryService {
         summary.setStatus(AISummary.SummaryStatus.GENERATING);
         summary.setPublished(false);
         summary.setVersion("1.0");
+        summary.setSourceFingerprint(sourceFingerprint);
         summary.setCreatedBy(userId);
         summary.setCreatedAt(LocalDateTime.now());
-        
-        summaryRepository.insert(summary);
+        return summary;
+    }
+    
+    /**
+     * Build a completed summary entity from generated content without persisting it, for callers that
+     * write summaries in batches; {@code aiModel} records the model or fallback that produced the content
+     */
+    AISummary buildCompletedSummary(AISummaryRequest request, String sourceFingerprint, String content,
+                                    String aiModel, IssueAnalysisResult analysisResult, long startTime) {
+        AISummary summary = newSummaryRecord(request, null, sourceFingerprint);
+        applyResults(summary, content, analysisResult, extractKeyInsights(analysisResult),
+            extractRecommendations(analysisResult), startTime);
+        summary.setAiModel(aiModel);
         return summary;
     }
     
@@ -241,109 +417,87 @@ public class AISummaryService {
     }
     
     /**
-     * Generate AI content
+     * Request AI content; a call rejected synchronously is reported through the returned future
      */
-    private String generateAIContent(AISummaryRequest request, IssueAnalysisResult analysisResult) {
-        String prompt = buildPrompt(request, analysisResult);
-        
+    private CompletableFuture<String> requestAIContent(String prompt) {
         try {
-            // This would call the actual AI service
-            // For now, return a placeholder
-            return generatePlaceholderContent(request, analysisResult);
-        } catch (Exception e) {
-            log.error("Failed to generate AI content", e);
-            return generateFallbackContent(request, analysisResult);
+            return aiClient.generateSummaryOrFail(prompt);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
     
     /**
-     * Build AI prompt
+     * Wait for AI content within the latency SLO
+     * 
+     * @return null when the call failed, was rejected by the circuit breaker or is still running; a running
+     *         call is left to finish so that {@link #swapInLateContent} can use its answer
      */
-    private String buildPrompt(AISummaryRequest request, IssueAnalysisResult analysisResult) {
-        StringBuilder prompt = new StringBuilder();
-        
-        prompt.append("Generate a comprehensive code review summary report based on the following analysis:\n\n");
-        
-        // Add analysis data
-        prompt.append("Analysis Period: ").append(request.getStartDate()).append(" to ").append(request.getEndDate()).append("\n");
-        prompt.append("Total Issues: ").append(analysisResult.getTotalIssues()).append("\n");
-        prompt.append("Resolution Rate: ").append(String.format("%.1f%%", analysisResult.getResolutionRate())).append("\n\n");
-        
-        // Add type distribution
-        prompt.append("Issue Type Distribution:\n");
-        analysisResult.getTypeDistribution().forEach((type, count) -> 
-            prompt.append("- ").append(type.getDescription()).append(": ").append(count).append("\n"));
-        
-        // Add patterns
-        if (!analysisResult.getPatterns().isEmpty()) {
-            prompt.append("\nIdentified Patterns:\n");
-            analysisResult.getPatterns().forEach(pattern -> 
-                prompt.append("- ").append(pattern.getPatternName()).append(" (").append(pattern.getFrequency()).append(" occurrences)\n"));
-        }
-        
-        // Add custom prompt if provided
-        if (request.getCustomPrompt() != null && !request.getCustomPrompt().trim().isEmpty()) {
-            prompt.append("\nAdditional Instructions: ").append(request.getCustomPrompt()).append("\n");
+    private String awaitAIContent(CompletableFuture<String> aiContent) {
+        long sloMillis = aiServiceConfig.getSummarySloMillis();
+        try {
+            return aiContent.get(sloMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("AI service did not answer within {}ms, returning fallback summary", sloMillis);
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CircuitBreakerOpenException) {
+                log.info("AI service circuit is open, returning fallback summary");
+            } else {
+                log.warn("AI content generation failed, returning fallback summary", e.getCause());
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aiContent.cancel(true);
+            return null;
         }
-        
-        prompt.append("\nPlease provide:\n");
-        prompt.append("1. Executive summary\n");
-        prompt.append("2. Key findings and insights\n");
-        prompt.append("3. Trend analysis\n");
-        prompt.append("4. Actionable recommendations\n");
-        prompt.append("5. Areas for improvement\n");
-        
-        return prompt.toString();
     }
     
     /**
-     * Generate placeholder content
+     * Replace the content of a fallback summary with the AI answer once it arrives; summaries published,
+     * archived or regenerated in the meantime are left untouched
      */
-    private String generatePlaceholderContent(AISummaryRequest request, IssueAnalysisResult analysisResult) {
-        StringBuilder content = new StringBuilder();
-        
-        content.append("# Code Review Summary Report\n\n");
-        content.append("**Analysis Period:** ").append(request.getStartDate()).append(" to ").append(request.getEndDate()).append("\n\n");
-        
-        content.append("## Executive Summary\n\n");
-        content.append("During the analysis period, a total of ").append(analysisResult.getTotalIssues())
-               .append(" issues were identified with a resolution rate of ")
-               .append(String.format("%.1f%%", analysisResult.getResolutionRate())).append(".\n\n");
-        
-        content.append("## Key Findings\n\n");
-        content.append("### Issue Distribution\n");
-        analysisResult.getTypeDistribution().forEach((type, count) -> 
-            content.append("- **").append(type.getDescription()).append(":** ").append(count).append(" issues\n"));
-        
-        if (!analysisResult.getPatterns().isEmpty()) {
-            content.append("\n### Identified Patterns\n");
-            analysisResult.getPatterns().forEach(pattern -> 
-                content.append("- **").append(pattern.getPatternName()).append(":** ")
-                       .append(pattern.getFrequency()).append(" occurrences\n"));
-        }
-        
-        content.append("\n## Trend Analysis\n\n");
-        content.append("The overall trend shows: ").append(analysisResult.getTrendAnalysis().getSummary()).append("\n\n");
-        
-        content.append("## Recommendations\n\n");
-        content.append("Based on the analysis, the following actions are recommended:\n");
-        content.append("1. Focus on addressing critical and major issues first\n");
-        content.append("2. Implement preventive measures for identified patterns\n");
-        content.append("3. Strengthen code review processes\n");
-        content.append("4. Provide targeted training for common issue types\n");
-        
-        return content.toString();
+    private void swapInLateContent(AISummary summary, CompletableFuture<String> aiContent) {
+        aiContent.whenComplete((content, error) -> {
+            if (error != null || content == null) {
+                log.info("No late AI content for fallback summary: {}", summary.getId());
+                return;
+            }
+            try {
+                int updated = summaryRepository.replaceFallbackContent(summary.getId(), content, AI_MODEL, AI_CONFIDENCE);
+                if (updated > 0) {
+                    log.info("Late AI content swapped into summary: {}", summary.getId());
+                }
+            } catch (Exception e) {
+                log.error("Failed to swap late AI content into summary: {}", summary.getId(), e);
+            }
+        });
+    }
+    
+    /**
+     * Build AI prompt, ranked and compacted to the configured token budget
+     */
+    private String buildPrompt(AISummaryRequest request, IssueAnalysisResult analysisResult) {
+        return promptCompiler.compileSummaryPrompt(request, analysisResult);
     }
     
     /**
-     * Generate fallback content
+     * Generate fallback content: the basic statistics report, built without the AI service
+     * 
+     * Issues are counted as they are read (both queries return them by creation time), so the global
+     * report does not hold every issue of the period in memory.
      */
-    private String generateFallbackContent(AISummaryRequest request, IssueAnalysisResult analysisResult) {
-        return "# Code Review Summary\n\n" +
-               "Analysis completed for period: " + request.getStartDate() + " to " + request.getEndDate() + "\n\n" +
-               "Total Issues: " + analysisResult.getTotalIssues() + "\n" +
-               "Resolution Rate: " + String.format("%.1f%%", analysisResult.getResolutionRate()) + "\n\n" +
-               "Please refer to the detailed analysis results for more information.";
+    private String generateFallbackContent(AISummaryRequest request) {
+        LocalDateTime from = request.getStartDate().atStartOfDay();
+        LocalDateTime to = request.getEndDate().plusDays(1).atStartOfDay();
+        FallbackAIService.IssueStatistics statistics = new FallbackAIService.IssueStatistics();
+        if (request.getTeamId() != null) {
+            issueRepository.findTeamIssuesCreatedBetween(request.getTeamId(), from, to).forEach(statistics::add);
+        } else {
+            issueRepository.streamIssuesCreatedBetween(from, to, context -> statistics.add(context.getResultObject()));
+        }
+        return fallbackAIService.generateBasicSummary(request.getTeamId(), from, to, statistics).getSummary();
     }
     
     /**
@@ -375,6 +529,15 @@ public class AISummaryService {
      */
     private void updateSummaryWithResults(AISummary summary, String content, IssueAnalysisResult analysisResult, 
                                         List<String> keyInsights, List<String> recommendations, long startTime) {
+        applyResults(summary, content, analysisResult, keyInsights, recommendations, startTime);
+        summaryRepository.updateById(summary);
+    }
+    
+    /**
+     * Fill generated content and statistics; marks the summary FAILED when they cannot be serialized
+     */
+    private void applyResults(AISummary summary, String content, IssueAnalysisResult analysisResult, 
+                              List<String> keyInsights, List<String> recommendations, long startTime) {
         try {
             summary.setContent(content);
             summary.setKeyInsights(objectMapper.writeValueAsString(keyInsights));
@@ -395,17 +558,14 @@ public class AISummaryService {
             
             summary.setStatistics(objectMapper.writeValueAsString(stats));
             summary.setStatus(AISummary.SummaryStatus.COMPLETED);
-            summary.setAiModel("gpt-3.5-turbo");
-            summary.setConfidence(0.85);
+            summary.setAiModel(AI_MODEL);
+            summary.setConfidence(AI_CONFIDENCE);
             summary.setProcessingTimeMs(System.currentTimeMillis() - startTime);
             summary.setUpdatedAt(LocalDateTime.now());
             
-            summaryRepository.updateById(summary);
-            
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize summary data", e);
             summary.setStatus(AISummary.SummaryStatus.FAILED);
-            summaryRepository.updateById(summary);
         }
     }
     
@@ -427,7 +587,7 @@ public class AISummaryService {
             .keyInsights(keyInsights)
             .recommendations(recommendations)
             .statistics(buildStatistics(analysisResult))
-            .metadata(buildMetadata(userId, startTime))
+            .metadata(buildMetadata(summary, userId, startTime))
             .build();
     }
     
@@ -451,12 +611,12 @@ public class AISummaryService {
     /**
      * Build metadata
      */
-    private AISummaryResponse.GenerationMetadata buildMetadata(Long userId, long startTime) {
+    private AISummaryResponse.GenerationMetadata buildMetadata(AISummary summary, Long userId, long startTime) {
         return AISummaryResponse.GenerationMetadata.builder()
             .generatedAt(LocalDateTime.now())
             .generatedBy(userId)
-            .aiModel("gpt-3.5-turbo")
-            .confidence(0.85)
+            .aiModel(summary.getAiModel())
+            .confidence(summary.getConfidence())
             .processingTimeMs(System.currentTimeMillis() - startTime)
             .version("1.0")
             .build();
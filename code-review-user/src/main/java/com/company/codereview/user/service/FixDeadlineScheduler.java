@@ -0,0 +1,325 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.HierarchicalTimingWheel;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.IssueRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 整改期限调度服务
+ *
+ * 在内存分层时间轮中保存所有未完成问题的整改截止时间，启动时全量装载，
+ * 问题创建、状态变更、严重级别变更时增量更新，到期时立即回调超时处理器，
+ * 取代按小时全表扫描的超时检测。
+ *
+ * 每个节点都维护自己的时间轮，到期时重新加载问题，只为仍需处理的问题在 Redis 中以 SETNX
+ * 写入已通知标记，写入成功的节点回调处理器；标记按（问题，截止时间）区分，保留期内有效，
+ * 多节点部署和节点重启都不会重复通知，严重级别变化或重新打开后按新的截止时间再次通知。
+ * 处理器抛出异常时撤销本批标记，并在重试间隔后重新到期。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FixDeadlineScheduler {
+
+    private static final String NOTIFIED_KEY_PREFIX = "fix-deadline:notified:";
+
+    private final IssueRepository issueRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${fix-tracking.deadline-wheel.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fix-tracking.deadline-wheel.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${fix-tracking.deadline-wheel.wheel-size:60}")
+    private int wheelSize;
+
+    @Value("${fix-tracking.deadline-wheel.notified-ttl-days:30}")
+    private long notifiedTtlDays;
+
+    @Value("${fix-tracking.deadline-wheel.retry-delay-millis:60000}")
+    private long retryDelayMillis;
+
+    private volatile HierarchicalTimingWheel<Long> wheel;
+    private volatile Predicate<Issue> expiryFilter = issue -> true;
+    private volatile Consumer<List<Issue>> expiryHandler = issues -> { };
+    private ScheduledExecutorService ticker;
+
+    /**
+     * 计算问题的整改截止时间：严重1天、一般3天、轻微7天、建议14天
+     */
+    public static LocalDateTime calculateDeadline(Severity severity, LocalDateTime createdAt) {
+        int days;
+        switch (severity) {
+            case CRITICAL:
+                days = 1;
+                break;
+            case MAJOR:
+                days = 3;
+                break;
+            case MINOR:
+                days = 7;
+                break;
+            case SUGGESTION:
+                days = 14;
+                break;
+            default:
+                days = 7;
+        }
+
+        return createdAt.plusDays(days);
+    }
+
+    /**
+     * 注册到期回调，回调在调度线程中执行
+     *
+     * @param filter  到期后重新加载的未完成问题中需要处理的问题（如已分配处理人），未通过的问题不写已通知标记
+     * @param handler 入参为本次到期且由本节点负责通知的问题；抛出异常时撤销标记并稍后重试
+     */
+    public void registerExpiryHandler(Predicate<Issue> filter, Consumer<List<Issue>> handler) {
+        this.expiryFilter = filter;
+        this.expiryHandler = handler;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 应用启动后装载所有未完成问题并启动时间轮
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("整改期限时间轮未启用，沿用定时轮询检测超时");
+            return;
+        }
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fix-deadline-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HierarchicalTimingWheel<Long> newWheel =
+                new HierarchicalTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        List<Long> overdueIds = new ArrayList<>();
+        for (Issue issue : issueRepository.findActiveForDeadlineTracking()) {
+            if (schedule(newWheel, issue.getId(), issue.getStatus(), issue.getSeverity(), issue.getCreatedAt())) {
+                overdueIds.add(issue.getId());
+            }
+        }
+        this.wheel = newWheel;
+        log.info("整改期限时间轮装载完成: trackedIssues={}, overdueIssues={}", newWheel.size(), overdueIds.size());
+
+        if (!overdueIds.isEmpty()) {
+            ticker.execute(() -> dispatch(overdueIds));
+        }
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * 问题创建或变更后更新其截止时间
+     */
+    public void onIssueChanged(Issue issue) {
+        if (issue == null) {
+            return;
+        }
+        track(issue.getId(), issue.getStatus(), issue.getSeverity(), issue.getCreatedAt());
+    }
+
+    /**
+     * 根据问题当前状态更新时间轮：未完成的问题（重新）登记截止时间，其余问题移除
+     */
+    public void track(Long issueId, Issue.IssueStatus status, Severity severity, LocalDateTime createdAt) {
+        HierarchicalTimingWheel<Long> current = wheel;
+        if (current == null || issueId == null) {
+            return;
+        }
+
+        if (schedule(current, issueId, status, severity, createdAt)) {
+            // 已经超过截止时间，交由调度线程立即处理
+            ticker.execute(() -> dispatch(Collections.singletonList(issueId)));
+        } else if (!isActive(status) && severity != null && createdAt != null) {
+            // 问题完成后清除当前截止时间的已通知标记，重新打开后到期仍会通知
+            release(Collections.singletonList(notifiedKey(issueId, deadlineMillis(severity, createdAt))));
+        }
+    }
+
+    /**
+     * 登记或移除单个问题
+     *
+     * @return true 表示问题已超过截止时间，需要立即处理
+     */
+    private boolean schedule(HierarchicalTimingWheel<Long> target, Long issueId, Issue.IssueStatus status,
+                             Severity severity, LocalDateTime createdAt) {
+        if (!isActive(status) || severity == null || createdAt == null) {
+            target.cancel(issueId);
+            return false;
+        }
+
+        return target.schedule(issueId, deadlineMillis(severity, createdAt));
+    }
+
+    private static long deadlineMillis(Severity severity, LocalDateTime createdAt) {
+        return calculateDeadline(severity, createdAt).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 批量状态变更后刷新时间轮
+     */
+    public void refresh(Collection<Long> issueIds) {
+        if (wheel == null || issueIds == null || issueIds.isEmpty()) {
+            return;
+        }
+        issueRepository.selectBatchIds(issueIds).forEach(this::onIssueChanged);
+    }
+
+    /**
+     * 问题删除后移除
+     */
+    public void cancel(Long issueId) {
+        HierarchicalTimingWheel<Long> current = wheel;
+        if (current != null && issueId != null) {
+            current.cancel(issueId);
+        }
+    }
+
+    private boolean isActive(Issue.IssueStatus status) {
+        return status == Issue.IssueStatus.OPEN || status == Issue.IssueStatus.IN_PROGRESS;
+    }
+
+    private void tick() {
+        try {
+            List<Long> expired = wheel.advanceClock(System.currentTimeMillis());
+            if (!expired.isEmpty()) {
+                dispatch(expired);
+            }
+        } catch (Exception e) {
+            log.error("整改期限时间轮推进失败", e);
+        }
+    }
+
+    private void dispatch(List<Long> issueIds) {
+        Map<String, Issue> claimed;
+        try {
+            claimed = claim(loadDue(issueIds));
+        } catch (Exception e) {
+            log.error("加载到期问题失败: issueIds={}", issueIds, e);
+            retryLater(issueIds);
+            return;
+        }
+        log.info("整改期限到期: issueCount={}, claimedCount={}", issueIds.size(), claimed.size());
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        List<Issue> issues = new ArrayList<>(claimed.values());
+        try {
+            expiryHandler.accept(issues);
+        } catch (Exception e) {
+            log.error("处理到期问题失败: issueIds={}", issues.stream().map(Issue::getId).collect(Collectors.toList()), e);
+            // 处理失败时撤销标记，重试间隔后重新到期
+            release(new ArrayList<>(claimed.keySet()));
+            retryLater(issues.stream().map(Issue::getId).collect(Collectors.toList()));
+            return;
+        }
+
+        // 处理器升级严重级别后截止时间提前，同时标记新的截止时间，避免升级触发的重新登记再次通知
+        String notifiedAt = LocalDateTime.now().toString();
+        for (Issue issue : issues) {
+            String key = notifiedKey(issue.getId(), deadlineMillis(issue.getSeverity(), issue.getCreatedAt()));
+            if (!claimed.containsKey(key)) {
+                markNotified(key, notifiedAt);
+            }
+        }
+    }
+
+    /**
+     * 重新加载到期的问题，过滤已完成、截止时间已变化或不需要处理的问题
+     */
+    private List<Issue> loadDue(List<Long> issueIds) {
+        long now = System.currentTimeMillis();
+        return issueRepository.selectBatchIds(issueIds).stream()
+                .filter(issue -> isActive(issue.getStatus()) && issue.getSeverity() != null && issue.getCreatedAt() != null)
+                .filter(issue -> deadlineMillis(issue.getSeverity(), issue.getCreatedAt()) <= now)
+                .filter(expiryFilter)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 写入已通知标记，返回本节点成功写入的标记及其问题（其他节点已处理或本节点重启前已处理的问题被过滤）
+     */
+    private Map<String, Issue> claim(List<Issue> issues) {
+        String notifiedAt = LocalDateTime.now().toString();
+        Map<String, Issue> claimed = new LinkedHashMap<>();
+        for (Issue issue : issues) {
+            String key = notifiedKey(issue.getId(), deadlineMillis(issue.getSeverity(), issue.getCreatedAt()));
+            if (markNotified(key, notifiedAt)) {
+                claimed.put(key, issue);
+            }
+        }
+        return claimed;
+    }
+
+    private boolean markNotified(String key, String notifiedAt) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(key, notifiedAt, notifiedTtlDays, TimeUnit.DAYS));
+        } catch (Exception e) {
+            // Redis 不可用时仍然处理，升级本身是幂等的，最坏情况下重复发送通知
+            log.warn("写入整改到期标记失败，直接处理: key={}, error={}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    private void release(List<String> keys) {
+        try {
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            log.warn("撤销整改到期标记失败: keys={}, error={}", keys, e.getMessage());
+        }
+    }
+
+    private void retryLater(List<Long> issueIds) {
+        HierarchicalTimingWheel<Long> current = wheel;
+        long retryAt = System.currentTimeMillis() + retryDelayMillis;
+        issueIds.forEach(issueId -> current.schedule(issueId, retryAt));
+    }
+
+    private String notifiedKey(Long issueId, long deadlineMillis) {
+        return NOTIFIED_KEY_PREFIX + issueId + ":" + deadlineMillis;
+    }
+}
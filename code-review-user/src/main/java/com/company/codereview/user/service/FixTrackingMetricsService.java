@@ -2,8 +2,10 @@ package com.company.codereview.user.service;
 
 import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.dto.IssueFact;
 import com.company.codereview.user.entity.Issue;
 import com.company.codereview.user.entity.FixRecord;
+import com.company.codereview.user.entity.IssueTimeSketch;
 import com.company.codereview.user.repository.IssueRepository;
 import com.company.codereview.user.repository.FixRecordRepository;
 import lombok.RequiredArgsConstructor;
@@ -11,8 +13,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 整改跟踪度量服务
@@ -22,8 +24,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FixTrackingMetricsService {
     
+    private static final long SECONDS_PER_HOUR = 3600L;
+    private static final long SECONDS_PER_DAY = 86400L;
+    
     private final IssueRepository issueRepository;
     private final FixRecordRepository fixRecordRepository;
+    private final IssueTimeSketchService timeSketchService;
     
     /**
      * 计算整改效率指标
@@ -31,29 +37,46 @@ public class FixTrackingMetricsService {
     public FixEfficiencyMetrics calculateFixEfficiencyMetrics(Long teamId, LocalDateTime startDate, LocalDateTime endDate) {
         log.info("计算整改效率指标: teamId={}, startDate={}, endDate={}", teamId, startDate, endDate);
         
-        List<Issue> issues = issueRepository.findByTeamId(teamId, startDate, endDate);
-        List<FixRecord> allFixRecords = new ArrayList<>();
+        List<IssueFact> issues = issueRepository.findFactsByTeamId(teamId, startDate, endDate);
         
-        for (Issue issue : issues) {
-            allFixRecords.addAll(fixRecordRepository.findByIssueId(issue.getId()));
+        // 每个问题的整改记录只查询一次，与 issues 按下标对应
+        List<List<FixRecord>> issueFixRecords = new ArrayList<>(issues.size());
+        List<FixRecord> allFixRecords = new ArrayList<>();
+        for (IssueFact issue : issues) {
+            List<FixRecord> fixRecords = fixRecordRepository.findByIssueId(issue.id());
+            issueFixRecords.add(fixRecords);
+            allFixRecords.addAll(fixRecords);
         }
         
         FixEfficiencyMetrics metrics = new FixEfficiencyMetrics();
         
         // 计算平均首次整改时间
-        metrics.setAverageFirstFixTime(calculateAverageFirstFixTime(issues));
+        metrics.setAverageFirstFixTime(calculateAverageFirstFixTime(issues, issueFixRecords));
         
         // 计算整改成功率
         metrics.setFixSuccessRate(calculateFixSuccessRate(allFixRecords));
         
         // 计算平均整改轮次
-        metrics.setAverageFixRounds(calculateAverageFixRounds(issues));
+        metrics.setAverageFixRounds(calculateAverageFixRounds(issueFixRecords));
         
         // 计算整改及时率
         metrics.setFixTimelinessRate(calculateFixTimelinessRate(issues));
         
         // 计算重复整改率
-        metrics.setRepeatFixRate(calculateRepeatFixRate(issues));
+        metrics.setRepeatFixRate(calculateRepeatFixRate(issueFixRecords));
+        
+        // 首次整改耗时和解决耗时的分位数（合并每日草图）
+        IssueTimeSketchService.TimePercentiles firstFix = timeSketchService.getPercentiles(
+                teamId, IssueTimeSketch.METRIC_FIRST_FIX, startDate, endDate);
+        metrics.setFirstFixTimeP50(firstFix.getP50());
+        metrics.setFirstFixTimeP90(firstFix.getP90());
+        metrics.setFirstFixTimeP99(firstFix.getP99());
+        
+        IssueTimeSketchService.TimePercentiles resolution = timeSketchService.getPercentiles(
+                teamId, IssueTimeSketch.METRIC_RESOLUTION, startDate, endDate);
+        metrics.setResolutionTimeP50(resolution.getP50());
+        metrics.setResolutionTimeP90(resolution.getP90());
+        metrics.setResolutionTimeP99(resolution.getP99());
         
         return metrics;
     }
@@ -61,24 +84,27 @@ public class FixTrackingMetricsService {
     /**
      * 计算平均首次整改时间
      */
-    private double calculateAverageFirstFixTime(List<Issue> issues) {
-        List<Long> firstFixTimes = new ArrayList<>();
+    private double calculateAverageFirstFixTime(List<IssueFact> issues, List<List<FixRecord>> issueFixRecords) {
+        long totalHours = 0;
+        int count = 0;
         
-        for (Issue issue : issues) {
-            List<FixRecord> fixRecords = fixRecordRepository.findByIssueId(issue.getId());
+        for (int i = 0; i < issues.size(); i++) {
+            List<FixRecord> fixRecords = issueFixRecords.get(i);
             if (!fixRecords.isEmpty()) {
                 FixRecord firstRecord = fixRecords.stream()
                         .min(Comparator.comparing(FixRecord::getCreatedAt))
                         .orElse(null);
                 
                 if (firstRecord != null) {
-                    long hours = java.time.Duration.between(issue.getCreatedAt(), firstRecord.getCreatedAt()).toHours();
-                    firstFixTimes.add(hours);
+                    long seconds = firstRecord.getCreatedAt().toEpochSecond(ZoneOffset.UTC)
+                            - issues.get(i).createdAtEpochSeconds();
+                    totalHours += seconds / SECONDS_PER_HOUR;
+                    count++;
                 }
             }
         }
         
-        return firstFixTimes.stream().mapToLong(Long::longValue).average().orElse(0.0);
+        return count > 0 ? (double) totalHours / count : 0.0;
     }
     
     /**
@@ -99,37 +125,32 @@ public class FixTrackingMetricsService {
     /**
      * 计算平均整改轮次
      */
-    private double calculateAverageFixRounds(List<Issue> issues) {
-        List<Integer> fixRounds = new ArrayList<>();
+    private double calculateAverageFixRounds(List<List<FixRecord>> issueFixRecords) {
+        long totalRounds = 0;
+        int count = 0;
         
-        for (Issue issue : issues) {
-            List<FixRecord> fixRecords = fixRecordRepository.findByIssueId(issue.getId());
+        for (List<FixRecord> fixRecords : issueFixRecords) {
             if (!fixRecords.isEmpty()) {
-                fixRounds.add(fixRecords.size());
+                totalRounds += fixRecords.size();
+                count++;
             }
         }
         
-        return fixRounds.stream().mapToInt(Integer::intValue).average().orElse(0.0);
+        return count > 0 ? (double) totalRounds / count : 0.0;
     }
     
     /**
      * 计算整改及时率
      */
-    private double calculateFixTimelinessRate(List<Issue> issues) {
+    private double calculateFixTimelinessRate(List<IssueFact> issues) {
         int timelyFixes = 0;
         int totalFixes = 0;
         
-        for (Issue issue : issues) {
-            if (issue.getStatus() == Issue.IssueStatus.RESOLVED || 
-                issue.getStatus() == Issue.IssueStatus.CLOSED) {
-                
+        for (IssueFact issue : issues) {
+            if (issue.isResolved()) {
                 totalFixes++;
                 
-                // 根据严重级别确定期限
-                int deadlineDays = getDeadlineDays(issue.getSeverity());
-                LocalDateTime deadline = issue.getCreatedAt().plusDays(deadlineDays);
-                
-                if (issue.getUpdatedAt() != null && issue.getUpdatedAt().isBefore(deadline)) {
+                if (isResolvedInTime(issue)) {
                     timelyFixes++;
                 }
             }
@@ -141,12 +162,11 @@ public class FixTrackingMetricsService {
     /**
      * 计算重复整改率
      */
-    private double calculateRepeatFixRate(List<Issue> issues) {
+    private double calculateRepeatFixRate(List<List<FixRecord>> issueFixRecords) {
         int repeatFixIssues = 0;
-        int totalIssues = issues.size();
+        int totalIssues = issueFixRecords.size();
         
-        for (Issue issue : issues) {
-            List<FixRecord> fixRecords = fixRecordRepository.findByIssueId(issue.getId());
+        for (List<FixRecord> fixRecords : issueFixRecords) {
             if (fixRecords.size() > 1) {
                 repeatFixIssues++;
             }
@@ -155,6 +175,14 @@ public class FixTrackingMetricsService {
         return totalIssues > 0 ? (double) repeatFixIssues / totalIssues * 100 : 0.0;
     }
     
+    /**
+     * 是否在整改期限内解决（根据严重级别确定期限，按秒比较）
+     */
+    private boolean isResolvedInTime(IssueFact issue) {
+        long deadline = issue.createdAtEpochSeconds() + getDeadlineDays(issue.getSeverity()) * SECONDS_PER_DAY;
+        return issue.hasUpdatedAt() && issue.updatedAtEpochSeconds() < deadline;
+    }
+    
     /**
      * 根据严重级别获取期限天数
      */
@@ -184,8 +212,8 @@ public class FixTrackingMetricsService {
         log.info("计算质量改进指标: teamId={}", teamId);
         
         // 获取当前周期和上一周期的数据
-        List<Issue> currentIssues = issueRepository.findByTeamId(teamId, currentPeriodStart, currentPeriodEnd);
-        List<Issue> previousIssues = issueRepository.findByTeamId(teamId, previousPeriodStart, previousPeriodEnd);
+        List<IssueFact> currentIssues = issueRepository.findFactsByTeamId(teamId, currentPeriodStart, currentPeriodEnd);
+        List<IssueFact> previousIssues = issueRepository.findFactsByTeamId(teamId, previousPeriodStart, previousPeriodEnd);
         
         QualityImprovementMetrics metrics = new QualityImprovementMetrics();
         
@@ -228,7 +256,7 @@ public class FixTrackingMetricsService {
     /**
      * 计算严重级别问题变化
      */
-    private double calculateSeverityChange(List<Issue> previousIssues, List<Issue> currentIssues, Severity severity) {
+    private double calculateSeverityChange(List<IssueFact> previousIssues, List<IssueFact> currentIssues, Severity severity) {
         int previousCount = (int) previousIssues.stream().filter(i -> i.getSeverity() == severity).count();
         int currentCount = (int) currentIssues.stream().filter(i -> i.getSeverity() == severity).count();
         
@@ -238,7 +266,7 @@ public class FixTrackingMetricsService {
     /**
      * 计算问题类型变化
      */
-    private double calculateTypeChange(List<Issue> previousIssues, List<Issue> currentIssues, IssueType type) {
+    private double calculateTypeChange(List<IssueFact> previousIssues, List<IssueFact> currentIssues, IssueType type) {
         int previousCount = (int) previousIssues.stream().filter(i -> i.getIssueType() == type).count();
         int currentCount = (int) currentIssues.stream().filter(i -> i.getIssueType() == type).count();
         
@@ -248,7 +276,7 @@ public class FixTrackingMetricsService {
     /**
      * 计算解决率
      */
-    private double calculateResolutionRate(List<Issue> issues) {
+    private double calculateResolutionRate(List<IssueFact> issues) {
         if (issues.isEmpty()) {
             return 0.0;
         }
@@ -269,26 +297,34 @@ public class FixTrackingMetricsService {
                                                                            LocalDateTime endDate) {
         log.info("计算团队成员表现指标: teamId={}", teamId);
         
-        List<Issue> issues = issueRepository.findByTeamId(teamId, startDate, endDate);
-        Map<Long, List<Issue>> memberIssues = issues.stream()
-                .filter(issue -> issue.getAssignedTo() != null)
-                .collect(Collectors.groupingBy(Issue::getAssignedTo));
+        List<IssueFact> issues = issueRepository.findFactsByTeamId(teamId, startDate, endDate);
         
         List<MemberPerformanceMetrics> memberMetrics = new ArrayList<>();
         
-        for (Map.Entry<Long, List<Issue>> entry : memberIssues.entrySet()) {
-            Long memberId = entry.getKey();
-            List<Issue> memberIssueList = entry.getValue();
-            
+        // 按处理人分组，未分配的问题不参与统计
+        for (List<IssueFact> memberIssueList : IssueFact.groupByUser(issues, IssueFact::assignedToId)) {
             MemberPerformanceMetrics metrics = new MemberPerformanceMetrics();
-            metrics.setMemberId(memberId);
+            metrics.setMemberId(memberIssueList.get(0).getAssignedTo());
             metrics.setTotalAssignedIssues(memberIssueList.size());
             
-            // 计算解决的问题数量
-            int resolvedIssues = (int) memberIssueList.stream()
-                    .filter(i -> i.getStatus() == Issue.IssueStatus.RESOLVED || 
-                               i.getStatus() == Issue.IssueStatus.CLOSED)
-                    .count();
+            // 一次遍历统计解决数量、解决耗时和及时完成数量
+            int resolvedIssues = 0;
+            int timelyCompletions = 0;
+            long totalResolutionHours = 0;
+            int resolutionCount = 0;
+            for (IssueFact issue : memberIssueList) {
+                if (!issue.isResolved()) {
+                    continue;
+                }
+                resolvedIssues++;
+                if (issue.hasUpdatedAt()) {
+                    totalResolutionHours += (issue.updatedAtEpochSeconds() - issue.createdAtEpochSeconds()) / SECONDS_PER_HOUR;
+                    resolutionCount++;
+                }
+                if (isResolvedInTime(issue)) {
+                    timelyCompletions++;
+                }
+            }
             metrics.setResolvedIssues(resolvedIssues);
             
             // 计算解决率
@@ -296,39 +332,18 @@ public class FixTrackingMetricsService {
                     (double) resolvedIssues / memberIssueList.size() * 100 : 0.0);
             
             // 计算平均解决时间
-            List<Long> resolutionTimes = memberIssueList.stream()
-                    .filter(i -> i.getStatus() == Issue.IssueStatus.RESOLVED || 
-                               i.getStatus() == Issue.IssueStatus.CLOSED)
-                    .filter(i -> i.getUpdatedAt() != null)
-                    .map(i -> java.time.Duration.between(i.getCreatedAt(), i.getUpdatedAt()).toHours())
-                    .collect(Collectors.toList());
-            
-            if (!resolutionTimes.isEmpty()) {
-                metrics.setAverageResolutionTime(resolutionTimes.stream().mapToLong(Long::longValue).average().orElse(0.0));
+            if (resolutionCount > 0) {
+                metrics.setAverageResolutionTime((double) totalResolutionHours / resolutionCount);
             }
             
             // 计算及时完成率
-            int timelyCompletions = 0;
-            for (Issue issue : memberIssueList) {
-                if (issue.getStatus() == Issue.IssueStatus.RESOLVED || 
-                    issue.getStatus() == Issue.IssueStatus.CLOSED) {
-                    
-                    int deadlineDays = getDeadlineDays(issue.getSeverity());
-                    LocalDateTime deadline = issue.getCreatedAt().plusDays(deadlineDays);
-                    
-                    if (issue.getUpdatedAt() != null && issue.getUpdatedAt().isBefore(deadline)) {
-                        timelyCompletions++;
-                    }
-                }
-            }
-            
             metrics.setTimelyCompletionRate(resolvedIssues > 0 ? 
                     (double) timelyCompletions / resolvedIssues * 100 : 0.0);
             
             // 计算质量分数（基于整改成功率）
             List<FixRecord> memberFixRecords = new ArrayList<>();
-            for (Issue issue : memberIssueList) {
-                memberFixRecords.addAll(fixRecordRepository.findByIssueId(issue.getId()));
+            for (IssueFact issue : memberIssueList) {
+                memberFixRecords.addAll(fixRecordRepository.findByIssueId(issue.id()));
             }
             
             if (!memberFixRecords.isEmpty()) {
@@ -363,7 +378,7 @@ public class FixTrackingMetricsService {
                 intervalEnd = endDate;
             }
             
-            List<Issue> intervalIssues = issueRepository.findByTeamId(teamId, current, intervalEnd);
+            List<IssueFact> intervalIssues = issueRepository.findFactsByTeamId(teamId, current, intervalEnd);
             
             TrendDataPoint dataPoint = new TrendDataPoint();
             dataPoint.setDate(current.toLocalDate());
@@ -398,6 +413,12 @@ public class FixTrackingMetricsService {
         private double averageFixRounds; // 平均整改轮次
         private double fixTimelinessRate; // 整改及时率（%）
         private double repeatFixRate; // 重复整改率（%）
+        private double firstFixTimeP50; // 首次整改时间中位数（小时）
+        private double firstFixTimeP90; // 首次整改时间P90（小时）
+        private double firstFixTimeP99; // 首次整改时间P99（小时）
+        private double resolutionTimeP50; // 解决时间中位数（小时）
+        private double resolutionTimeP90; // 解决时间P90（小时）
+        private double resolutionTimeP99; // 解决时间P99（小时）
         
         // Getters and Setters
         public double getAverageFirstFixTime() { return averageFirstFixTime; }
@@ -414,6 +435,24 @@ public class FixTrackingMetricsService {
         
         public double getRepeatFixRate() { return repeatFixRate; }
         public void setRepeatFixRate(double repeatFixRate) { this.repeatFixRate = repeatFixRate; }
+        
+        public double getFirstFixTimeP50() { return firstFixTimeP50; }
+        public void setFirstFixTimeP50(double firstFixTimeP50) { this.firstFixTimeP50 = firstFixTimeP50; }
+        
+        public double getFirstFixTimeP90() { return firstFixTimeP90; }
+        public void setFirstFixTimeP90(double firstFixTimeP90) { this.firstFixTimeP90 = firstFixTimeP90; }
+        
+        public double getFirstFixTimeP99() { return firstFixTimeP99; }
+        public void setFirstFixTimeP99(double firstFixTimeP99) { this.firstFixTimeP99 = firstFixTimeP99; }
+        
+        public double getResolutionTimeP50() { return resolutionTimeP50; }
+        public void setResolutionTimeP50(double resolutionTimeP50) { this.resolutionTimeP50 = resolutionTimeP50; }
+        
+        public double getResolutionTimeP90() { return resolutionTimeP90; }
+        public void setResolutionTimeP90(double resolutionTimeP90) { this.resolutionTimeP90 = resolutionTimeP90; }
+        
+        public double getResolutionTimeP99() { return resolutionTimeP99; }
+        public void setResolutionTimeP99(double resolutionTimeP99) { this.resolutionTimeP99 = resolutionTimeP99; }
     }
     
     public static class QualityImprovementMetrics {
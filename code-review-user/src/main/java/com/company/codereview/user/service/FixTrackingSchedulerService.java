@@ -1,42 +1,88 @@
 package com.company.codereview.user.service;
 
+import com.company.codereview.user.entity.Team;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.repository.TeamRepository;
+import com.company.codereview.user.service.job.DistributedJobRunner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 整改跟踪调度服务
+ *
+ * 多实例部署时每个任务只由一个节点执行：按团队、用户分片的任务由 leader 节点并行处理，
+ * 处理进度写入检查点，leader 崩溃后由其他节点继续。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FixTrackingSchedulerService {
     
+    private static final String OVERDUE_CHECK_JOB = "fix-tracking:overdue-check";
+    private static final String AUTO_ASSIGN_JOB = "fix-tracking:auto-assign";
+    private static final String DAILY_REMINDER_JOB = "fix-tracking:daily-reminder";
+    private static final String WEEKLY_REPORT_JOB = "fix-tracking:weekly-report";
+    private static final String MONTHLY_REPORT_JOB = "fix-tracking:monthly-report";
+    private static final String CLEANUP_JOB = "fix-tracking:cleanup";
+    private static final String TIME_SKETCH_JOB = "fix-tracking:time-sketch";
+    private static final String TIME_SKETCH_BACKFILL_JOB = "fix-tracking:time-sketch-backfill";
+    
     private final FixTrackingWorkflowService workflowService;
     private final IssueTrackingService issueTrackingService;
+    private final FixDeadlineScheduler deadlineScheduler;
+    private final DistributedJobRunner jobRunner;
+    private final TeamRepository teamRepository;
+    private final IssueRepository issueRepository;
+    private final IssueTimeSketchService timeSketchService;
+    
+    /**
+     * 注册分片任务
+     */
+    @PostConstruct
+    public void registerJobs() {
+        jobRunner.register(AUTO_ASSIGN_JOB, this::loadActiveTeamIds, issueTrackingService::autoAssignIssues);
+        jobRunner.register(DAILY_REMINDER_JOB, issueRepository::findAssigneesWithPendingIssues,
+                this::sendUserDailyReminder);
+        jobRunner.register(WEEKLY_REPORT_JOB, this::loadActiveTeamIds, teamId -> {
+            LocalDateTime endDate = currentWeekStart().atStartOfDay();
+            generateTeamWeeklyReport(teamId, endDate.minusDays(7), endDate);
+        });
+        jobRunner.register(TIME_SKETCH_JOB, this::loadActiveTeamIds,
+                teamId -> timeSketchService.backfillMissingDays(teamId, LocalDate.now().minusDays(1)));
+        jobRunner.register(TIME_SKETCH_BACKFILL_JOB, this::loadActiveTeamIds,
+                teamId -> timeSketchService.backfillMissingDays(teamId, LocalDate.now().minusDays(1)));
+    }
     
     /**
      * 每小时检查超时的整改任务
      */
     @Scheduled(fixedRate = 3600000) // 1小时
     public void checkOverdueTasks() {
-        log.info("开始检查超时的整改任务");
-        
-        try {
-            // 处理超时的工作流
-            workflowService.handleOverdueWorkflows();
+        jobRunner.runExclusive(OVERDUE_CHECK_JOB, LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).toString(), () -> {
+            log.info("开始检查超时的整改任务");
+            
+            // 处理超时的工作流（启用整改期限时间轮时由到期回调实时处理）
+            if (!deadlineScheduler.isEnabled()) {
+                workflowService.handleOverdueWorkflows();
+            }
             
             // 升级超时问题
             issueTrackingService.escalateOverdueIssues();
             
             log.info("超时任务检查完成");
-            
-        } catch (Exception e) {
-            log.error("检查超时任务失败", e);
-        }
+        });
     }
     
     /**
@@ -45,25 +91,25 @@ public class FixTrackingSchedulerService {
     @Scheduled(cron = "0 0 2 * * ?")
     public void autoAssignUnassignedIssues() {
         log.info("开始自动分配未分配的问题");
-        
-        try {
-            // 这里需要获取所有团队ID，简化处理
-            // 在实际应用中应该从团队服务获取所有活跃团队
-            Long[] teamIds = {1L, 2L, 3L}; // 示例团队ID
-            
-            for (Long teamId : teamIds) {
-                try {
-                    issueTrackingService.autoAssignIssues(teamId);
-                } catch (Exception e) {
-                    log.error("自动分配团队{}的问题失败", teamId, e);
-                }
-            }
-            
-            log.info("自动分配问题完成");
-            
-        } catch (Exception e) {
-            log.error("自动分配问题失败", e);
-        }
+        jobRunner.runPartitioned(AUTO_ASSIGN_JOB, LocalDate.now().toString());
+    }
+    
+    /**
+     * 每天凌晨1点半生成前一天的耗时分位数草图，同时补齐之前错过的日期
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void buildDailyTimeSketches() {
+        log.info("开始生成每日耗时分位数草图");
+        jobRunner.runPartitioned(TIME_SKETCH_JOB, LocalDate.now().toString());
+    }
+    
+    /**
+     * 启动后补建历史日期缺失的耗时分位数草图（部署前的日期、每日任务未执行的日期），之后定期检查，每天最多完成一次
+     */
+    @Scheduled(initialDelayString = "${fix-tracking.time-sketch.backfill-initial-delay-millis:60000}",
+               fixedDelayString = "${fix-tracking.time-sketch.backfill-interval-millis:21600000}")
+    public void backfillTimeSketches() {
+        jobRunner.runPartitioned(TIME_SKETCH_BACKFILL_JOB, LocalDate.now().toString());
     }
     
     /**
@@ -72,25 +118,7 @@ public class FixTrackingSchedulerService {
     @Scheduled(cron = "0 0 9 * * ?")
     public void sendDailyReminders() {
         log.info("开始发送每日整改任务提醒");
-        
-        try {
-            // 获取所有有待处理任务的用户
-            // 这里简化处理，实际应该从用户服务获取所有活跃用户
-            Long[] userIds = {1L, 2L, 3L, 4L, 5L}; // 示例用户ID
-            
-            for (Long userId : userIds) {
-                try {
-                    sendUserDailyReminder(userId);
-                } catch (Exception e) {
-                    log.error("发送用户{}的每日提醒失败", userId, e);
-                }
-            }
-            
-            log.info("每日提醒发送完成");
-            
-        } catch (Exception e) {
-            log.error("发送每日提醒失败", e);
-        }
+        jobRunner.runPartitioned(DAILY_REMINDER_JOB, LocalDate.now().toString());
     }
     
     /**
@@ -105,39 +133,19 @@ public class FixTrackingSchedulerService {
             // 这里可以发送邮件或其他形式的提醒
             // 简化处理，只记录日志
             for (var task : userTasks) {
-                log.debug("待处理任务: issueId={}, priority={}, remainingTime={}小时", 
+                log.debug("待处理任务: issueId={}, priority={}, remainingTime={}小时",
                          task.getIssue().getId(), task.getPriority(), task.getRemainingTime());
             }
         }
     }
     
     /**
-     * 每周一早上8点生成整改效果报告
+     * 每周一早上8点生成上一周的整改效果报告
      */
     @Scheduled(cron = "0 0 8 * * MON")
     public void generateWeeklyReports() {
         log.info("开始生成每周整改效果报告");
-        
-        try {
-            LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = endDate.minusDays(7);
-            
-            // 为每个团队生成报告
-            Long[] teamIds = {1L, 2L, 3L}; // 示例团队ID
-            
-            for (Long teamId : teamIds) {
-                try {
-                    generateTeamWeeklyReport(teamId, startDate, endDate);
-                } catch (Exception e) {
-                    log.error("生成团队{}的周报告失败", teamId, e);
-                }
-            }
-            
-            log.info("每周报告生成完成");
-            
-        } catch (Exception e) {
-            log.error("生成每周报告失败", e);
-        }
+        jobRunner.runPartitioned(WEEKLY_REPORT_JOB, currentWeekStart().toString());
     }
     
     /**
@@ -150,12 +158,12 @@ public class FixTrackingSchedulerService {
         // 获取工作流统计
         var workflowStats = workflowService.getWorkflowStatistics(teamId, startDate, endDate);
         
-        log.info("团队{}周报告: 总整改记录={}, 成功率={:.2f}%, 平均处理时间={:.2f}小时", 
-                teamId, 
+        log.info("团队{}周报告: 总整改记录={}, 成功率={}%, 平均处理时间={}小时",
+                teamId,
                 effectivenessReport.getTotalFixRecords(),
-                effectivenessReport.getSuccessRate(),
-                workflowStats.getAverageProcessingTime());
-        
+                String.format("%.2f", effectivenessReport.getSuccessRate()),
+                String.format("%.2f", workflowStats.getAverageProcessingTime()));
+                
         // 这里可以将报告发送给团队负责人或保存到数据库
     }
     
@@ -164,9 +172,9 @@ public class FixTrackingSchedulerService {
      */
     @Scheduled(cron = "0 0 6 1 * ?")
     public void generateMonthlyReports() {
-        log.info("开始生成月度统计报告");
-        
-        try {
+        jobRunner.runExclusive(MONTHLY_REPORT_JOB, YearMonth.now().toString(), () -> {
+            log.info("开始生成月度统计报告");
+            
             LocalDateTime endDate = LocalDateTime.now();
             LocalDateTime startDate = endDate.minusMonths(1);
             
@@ -174,10 +182,7 @@ public class FixTrackingSchedulerService {
             generateGlobalMonthlyReport(startDate, endDate);
             
             log.info("月度报告生成完成");
-            
-        } catch (Exception e) {
-            log.error("生成月度报告失败", e);
-        }
+        });
     }
     
     /**
@@ -193,23 +198,26 @@ public class FixTrackingSchedulerService {
         // 3. 整改效率和质量指标
         // 4. 团队间的对比分析
         
-        Long[] teamIds = {1L, 2L, 3L}; // 示例团队ID
+        List<Long> teamIds = loadActiveTeamIds();
         int totalIssues = 0;
         double totalSuccessRate = 0.0;
+        int reportedTeams = 0;
         
         for (Long teamId : teamIds) {
             try {
                 var report = issueTrackingService.getFixEffectivenessReport(teamId, startDate, endDate);
                 totalIssues += report.getTotalFixRecords();
                 totalSuccessRate += report.getSuccessRate();
+                reportedTeams++;
             } catch (Exception e) {
                 log.error("获取团队{}月度数据失败", teamId, e);
             }
         }
         
-        double avgSuccessRate = totalSuccessRate / teamIds.length;
+        double avgSuccessRate = reportedTeams > 0 ? totalSuccessRate / reportedTeams : 0.0;
         
-        log.info("月度全局统计: 总问题数={}, 平均成功率={:.2f}%", totalIssues, avgSuccessRate);
+        log.info("月度全局统计: 团队数={}, 总问题数={}, 平均成功率={}%",
+                reportedTeams, totalIssues, String.format("%.2f", avgSuccessRate));
     }
     
     /**
@@ -217,9 +225,9 @@ public class FixTrackingSchedulerService {
      */
     @Scheduled(cron = "0 0 3 L * ?")
     public void cleanupExpiredData() {
-        log.info("开始清理过期数据");
-        
-        try {
+        jobRunner.runExclusive(CLEANUP_JOB, YearMonth.now().toString(), () -> {
+            log.info("开始清理过期数据");
+            
             // 清理6个月前的已完成问题的详细记录
             LocalDateTime cutoffDate = LocalDateTime.now().minusMonths(6);
             
@@ -229,9 +237,24 @@ public class FixTrackingSchedulerService {
             // 3. 压缩历史数据
             
             log.info("过期数据清理完成，截止日期: {}", cutoffDate);
-            
-        } catch (Exception e) {
-            log.error("清理过期数据失败", e);
-        }
+        });
+    }
+    
+    /**
+     * 每5分钟检查被中断或有条目失败的分片任务，从检查点继续执行
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 60000)
+    public void resumeInterruptedJobs() {
+        jobRunner.resumeInterruptedRuns();
+    }
+    
+    private List<Long> loadActiveTeamIds() {
+        return teamRepository.findAllActive().stream()
+                .map(Team::getId)
+                .collect(Collectors.toList());
+    }
+    
+    private LocalDate currentWeekStart() {
+        return LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
     }
 }
\ No newline at end of file
@@ -3,13 +3,16 @@ package com.company.codereview.user.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.company.codereview.user.entity.Issue;
 import com.company.codereview.user.entity.FixRecord;
+import com.company.codereview.user.entity.FixWorkflowEvent;
 import com.company.codereview.user.repository.IssueRepository;
 import com.company.codereview.user.repository.FixRecordRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -25,6 +28,19 @@ public class FixTrackingWorkflowService {
     private final IssueRepository issueRepository;
     private final FixRecordRepository fixRecordRepository;
     private final IssueNotificationService notificationService;
+    private final IssueEscalationService escalationService;
+    private final FixDeadlineScheduler deadlineScheduler;
+    private final FixWorkflowEventStore eventStore;
+    private final HotIssueIndexService hotIssueIndex;
+    private final TransactionTemplate transactionTemplate;
+    
+    /**
+     * 注册整改期限到期回调
+     */
+    @PostConstruct
+    public void registerDeadlineHandler() {
+        deadlineScheduler.registerExpiryHandler(issue -> issue.getAssignedTo() != null, this::handleExpiredDeadlines);
+    }
     
     /**
      * 启动整改流程
@@ -46,14 +62,15 @@ public class FixTrackingWorkflowService {
         issue.setAssignedTo(assigneeId);
         issue.setStatus(Issue.IssueStatus.IN_PROGRESS);
         issueRepository.updateById(issue);
+        deadlineScheduler.onIssueChanged(issue);
         
-        // 创建工作流实例
-        FixTrackingWorkflow workflow = new FixTrackingWorkflow();
-        workflow.setIssueId(issueId);
-        workflow.setAssigneeId(assigneeId);
-        workflow.setCurrentStage(WorkflowStage.ASSIGNED);
-        workflow.setStartTime(LocalDateTime.now());
-        workflow.setDeadline(calculateDeadline(issue));
+        // 追加流程启动事件（重新打开的问题沿用原事件流）
+        FixTrackingWorkflow workflow = eventStore.load(issueId);
+        if (workflow == null) {
+            workflow = FixWorkflowEventStore.newWorkflow(issueId);
+        }
+        eventStore.record(workflow, FixWorkflowEvent.TYPE_STARTED, WorkflowAction.ASSIGN,
+                WorkflowStage.ASSIGNED, assigneeId, calculateDeadline(issue));
         
         // 发送分配通知
         notificationService.sendIssueAssignedNotification(issue, null, assigneeId);
@@ -83,17 +100,11 @@ public class FixTrackingWorkflowService {
         WorkflowStage nextStage = determineNextStage(workflow.getCurrentStage(), action);
         
         // 执行阶段转换逻辑
-        executeStageTransition(workflow, nextStage, action, parameters);
+        Issue updatedIssue = executeStageTransition(workflow, nextStage, action, parameters);
         
-        // 更新工作流状态
-        workflow.setCurrentStage(nextStage);
-        workflow.setLastActionTime(LocalDateTime.now());
-        
-        // 检查是否完成
-        if (nextStage == WorkflowStage.COMPLETED || nextStage == WorkflowStage.CANCELLED) {
-            workflow.setEndTime(LocalDateTime.now());
-            workflow.setCompleted(true);
-        }
+        // 追加阶段转换事件，事件在事务提交前写入
+        eventStore.record(workflow, FixWorkflowEvent.TYPE_TRANSITIONED, action, nextStage,
+                updatedIssue.getAssignedTo(), calculateDeadline(updatedIssue));
         
         log.info("工作流推进成功: issueId={}, newStage={}", issueId, nextStage);
         return workflow;
@@ -101,17 +112,27 @@ public class FixTrackingWorkflowService {
     
     /**
      * 获取当前工作流状态
+     * 从快照和快照之后的事件恢复；尚未产生事件的历史问题根据问题状态推导
      */
     public FixTrackingWorkflow getCurrentWorkflow(Long issueId) {
-        // 这里应该从数据库或缓存中获取工作流状态
-        // 为了简化，这里创建一个模拟的工作流状态
+        FixTrackingWorkflow workflow = eventStore.load(issueId);
+        if (workflow != null) {
+            return workflow;
+        }
+        
         Issue issue = issueRepository.selectById(issueId);
         if (issue == null) {
             return null;
         }
         
-        FixTrackingWorkflow workflow = new FixTrackingWorkflow();
-        workflow.setIssueId(issueId);
+        return buildWorkflow(issue);
+    }
+    
+    /**
+     * 根据问题构建工作流状态（没有事件流时使用，version 为 0）
+     */
+    private FixTrackingWorkflow buildWorkflow(Issue issue) {
+        FixTrackingWorkflow workflow = FixWorkflowEventStore.newWorkflow(issue.getId());
         workflow.setAssigneeId(issue.getAssignedTo());
         workflow.setCurrentStage(mapIssueStatusToWorkflowStage(issue.getStatus()));
         workflow.setDeadline(calculateDeadline(issue));
@@ -185,8 +206,8 @@ public class FixTrackingWorkflowService {
     /**
      * 执行阶段转换逻辑
      */
-    private void executeStageTransition(FixTrackingWorkflow workflow, WorkflowStage nextStage, 
-                                      WorkflowAction action, Map<String, Object> parameters) {
+    private Issue executeStageTransition(FixTrackingWorkflow workflow, WorkflowStage nextStage, 
+                                       WorkflowAction action, Map<String, Object> parameters) {
         
         Issue issue = issueRepository.selectById(workflow.getIssueId());
         
@@ -212,7 +233,9 @@ public class FixTrackingWorkflowService {
                 
             case COMPLETED:
                 // 完成整改
+                Issue.IssueStatus previousStatus = issue.getStatus();
                 issue.setStatus(Issue.IssueStatus.RESOLVED);
+                IssueService.recordResolution(issue, previousStatus);
                 issueRepository.updateById(issue);
                 break;
                 
@@ -227,6 +250,10 @@ public class FixTrackingWorkflowService {
                 updateFixRecordStatus(workflow, FixRecord.FixStatus.NEED_REVISION, parameters);
                 break;
         }
+        
+        deadlineScheduler.onIssueChanged(issue);
+        hotIssueIndex.onIssueChanged(issue);
+        return issue;
     }
     
     /**
@@ -272,25 +299,7 @@ public class FixTrackingWorkflowService {
      * 计算截止时间
      */
     private LocalDateTime calculateDeadline(Issue issue) {
-        int days;
-        switch (issue.getSeverity()) {
-            case CRITICAL:
-                days = 1;
-                break;
-            case MAJOR:
-                days = 3;
-                break;
-            case MINOR:
-                days = 7;
-                break;
-            case SUGGESTION:
-                days = 14;
-                break;
-            default:
-                days = 7;
-        }
-        
-        return issue.getCreatedAt().plusDays(days);
+        return FixDeadlineScheduler.calculateDeadline(issue.getSeverity(), issue.getCreatedAt());
     }
     
     /**
@@ -299,129 +308,150 @@ public class FixTrackingWorkflowService {
     public List<FixTrackingWorkflow> getOverdueWorkflows() {
         log.info("获取超时的工作流");
         
+        List<Issue> overdueIssues = findOverdueIssues();
+        Map<Long, FixTrackingWorkflow> workflows = eventStore.loadAll(
+                overdueIssues.stream().map(Issue::getId).collect(Collectors.toList()));
+        
+        List<FixTrackingWorkflow> overdueWorkflows = overdueIssues.stream()
+                .map(issue -> {
+                    FixTrackingWorkflow workflow = workflows.get(issue.getId());
+                    if (workflow == null) {
+                        workflow = buildWorkflow(issue);
+                    }
+                    workflow.setOverdue(true);
+                    return workflow;
+                })
+                .collect(Collectors.toList());
+        
+        log.info("找到{}个超时的工作流", overdueWorkflows.size());
+        return overdueWorkflows;
+    }
+    
+    /**
+     * 查询已超过截止时间的进行中问题
+     */
+    private List<Issue> findOverdueIssues() {
         QueryWrapper<Issue> queryWrapper = new QueryWrapper<>();
         queryWrapper.in("status", Issue.IssueStatus.OPEN, Issue.IssueStatus.IN_PROGRESS)
                 .isNotNull("assigned_to");
         
-        List<Issue> issues = issueRepository.selectList(queryWrapper);
-        List<FixTrackingWorkflow> overdueWorkflows = new ArrayList<>();
-        
         LocalDateTime now = LocalDateTime.now();
         
-        for (Issue issue : issues) {
-            LocalDateTime deadline = calculateDeadline(issue);
-            if (now.isAfter(deadline)) {
-                FixTrackingWorkflow workflow = getCurrentWorkflow(issue.getId());
-                if (workflow != null) {
-                    workflow.setOverdue(true);
-                    overdueWorkflows.add(workflow);
-                }
-            }
-        }
-        
-        log.info("找到{}个超时的工作流", overdueWorkflows.size());
-        return overdueWorkflows;
+        return issueRepository.selectList(queryWrapper).stream()
+                .filter(issue -> now.isAfter(calculateDeadline(issue)))
+                .collect(Collectors.toList());
     }
     
     /**
      * 处理超时工作流
+     * 启用整改期限时间轮时由到期回调实时处理，此方法作为轮询兜底
      */
-    @Transactional
     public void handleOverdueWorkflows() {
         log.info("处理超时工作流");
         
-        List<FixTrackingWorkflow> overdueWorkflows = getOverdueWorkflows();
+        List<Issue> overdueIssues = findOverdueIssues();
+        if (overdueIssues.isEmpty()) {
+            return;
+        }
         
-        for (FixTrackingWorkflow workflow : overdueWorkflows) {
-            try {
-                // 升级问题严重级别
-                escalateIssue(workflow.getIssueId());
-                
-                // 发送超时通知
-                sendOverdueNotification(workflow);
-                
-                // 记录超时事件
-                recordOverdueEvent(workflow);
-                
-            } catch (Exception e) {
-                log.error("处理超时工作流失败: workflowId={}, error={}", 
-                         workflow.getId(), e.getMessage(), e);
-            }
+        try {
+            escalateAndNotify(overdueIssues);
+        } catch (Exception e) {
+            log.error("处理超时工作流失败: issueCount={}, error={}", overdueIssues.size(), e.getMessage(), e);
+        }
+        
+        try {
+            recordOverdueEventsInTransaction(overdueIssues);
+        } catch (Exception e) {
+            log.error("记录超时事件失败: issueCount={}, error={}", overdueIssues.size(), e.getMessage(), e);
         }
     }
     
     /**
-     * 升级问题严重级别
+     * 整改期限时间轮到期回调，入参已由调度服务重新核对为仍未完成、已分配且已到期的问题
+     * 异常向调度服务抛出，由其撤销已通知标记并稍后重试；升级和超时事件都会跳过已处理的问题
      */
-    private void escalateIssue(Long issueId) {
-        Issue issue = issueRepository.selectById(issueId);
-        if (issue != null) {
-            // 提升严重级别
-            if (issue.getSeverity() == com.company.codereview.common.enums.Severity.MINOR) {
-                issue.setSeverity(com.company.codereview.common.enums.Severity.MAJOR);
-            } else if (issue.getSeverity() == com.company.codereview.common.enums.Severity.MAJOR) {
-                issue.setSeverity(com.company.codereview.common.enums.Severity.CRITICAL);
-            }
-            
-            // 添加超时标记
-            issue.setDescription(issue.getDescription() + "\n\n[系统提醒] 此问题已超时，已自动升级严重级别。");
-            
-            issueRepository.updateById(issue);
-            
-            // 发送升级通知
-            notificationService.sendIssueEscalatedNotification(issue);
-            
-            log.info("问题升级成功: issueId={}, newSeverity={}", issueId, issue.getSeverity());
-        }
+    private void handleExpiredDeadlines(List<Issue> overdueIssues) {
+        escalateAndNotify(overdueIssues);
+        recordOverdueEventsInTransaction(overdueIssues);
     }
     
     /**
-     * 发送超时通知
+     * 升级超时问题并发送超时通知
+     * 升级在 IssueEscalationService 中按批次、短事务执行，这里不再包裹整体事务
      */
-    private void sendOverdueNotification(FixTrackingWorkflow workflow) {
-        Issue issue = issueRepository.selectById(workflow.getIssueId());
-        if (issue != null) {
-            notificationService.sendOverdueReminderNotification(Arrays.asList(issue));
-        }
+    private void escalateAndNotify(List<Issue> overdueIssues) {
+        // 批量升级问题严重级别（已升级过的问题会被跳过）
+        List<Long> issueIds = overdueIssues.stream().map(Issue::getId).collect(Collectors.toList());
+        Map<Long, com.company.codereview.common.enums.Severity> escalatedSeverities = escalationService.escalateIssues(issueIds)
+                .stream()
+                .collect(Collectors.toMap(Issue::getId, Issue::getSeverity));
+        overdueIssues.forEach(issue -> issue.setSeverity(
+                escalatedSeverities.getOrDefault(issue.getId(), issue.getSeverity())));
+        
+        // 批量发送超时通知
+        notificationService.sendOverdueReminderNotification(overdueIssues);
     }
     
     /**
-     * 记录超时事件
+     * 记录超时事件，同一批次的事件合并为一次写入
      */
-    private void recordOverdueEvent(FixTrackingWorkflow workflow) {
-        // 这里可以记录到审计日志或事件表中
-        log.warn("工作流超时: issueId={}, assigneeId={}, deadline={}", 
-                workflow.getIssueId(), workflow.getAssigneeId(), workflow.getDeadline());
+    private void recordOverdueEventsInTransaction(List<Issue> overdueIssues) {
+        transactionTemplate.executeWithoutResult(status -> recordOverdueEvents(overdueIssues));
+    }
+    
+    /**
+     * 记录超时事件，已标记超时的工作流不重复记录
+     */
+    private void recordOverdueEvents(List<Issue> overdueIssues) {
+        Map<Long, FixTrackingWorkflow> workflows = eventStore.loadAll(
+                overdueIssues.stream().map(Issue::getId).collect(Collectors.toList()));
+        
+        for (Issue issue : overdueIssues) {
+            FixTrackingWorkflow workflow = workflows.get(issue.getId());
+            if (workflow == null) {
+                workflow = buildWorkflow(issue);
+            } else if (workflow.isOverdue()) {
+                continue;
+            }
+            
+            eventStore.record(workflow, FixWorkflowEvent.TYPE_OVERDUE, null, workflow.getCurrentStage(),
+                    issue.getAssignedTo(), calculateDeadline(issue));
+            log.warn("工作流超时: issueId={}, assigneeId={}, deadline={}", 
+                    workflow.getIssueId(), workflow.getAssigneeId(), workflow.getDeadline());
+        }
     }
     
     /**
      * 获取工作流统计信息
+     * 统计范围为时间段内启动的工作流，各工作流状态由其事件流回放得到
      */
     public WorkflowStatistics getWorkflowStatistics(Long teamId, LocalDateTime startDate, LocalDateTime endDate) {
         log.info("获取工作流统计信息: teamId={}, startDate={}, endDate={}", teamId, startDate, endDate);
         
-        List<Issue> issues = issueRepository.findByTeamId(teamId, startDate, endDate);
+        List<FixTrackingWorkflow> workflows = eventStore.replayTeamStreams(teamId, startDate, endDate);
         
         WorkflowStatistics stats = new WorkflowStatistics();
-        stats.setTotalWorkflows(issues.size());
+        stats.setTotalWorkflows(workflows.size());
         
         // 统计各阶段的工作流数量
         int completedCount = 0;
         int inProgressCount = 0;
         int overdueCount = 0;
+        long totalProcessingHours = 0;
         
         LocalDateTime now = LocalDateTime.now();
         
-        for (Issue issue : issues) {
-            if (issue.getStatus() == Issue.IssueStatus.RESOLVED || 
-                issue.getStatus() == Issue.IssueStatus.CLOSED) {
+        for (FixTrackingWorkflow workflow : workflows) {
+            if (workflow.getCurrentStage() == WorkflowStage.COMPLETED) {
                 completedCount++;
-            } else if (issue.getStatus() == Issue.IssueStatus.IN_PROGRESS) {
+                totalProcessingHours += java.time.Duration.between(workflow.getStartTime(), workflow.getEndTime()).toHours();
+            } else if (!workflow.isCompleted()) {
                 inProgressCount++;
                 
                 // 检查是否超时
-                LocalDateTime deadline = calculateDeadline(issue);
-                if (now.isAfter(deadline)) {
+                if (workflow.isOverdue() || 
+                    (workflow.getDeadline() != null && now.isAfter(workflow.getDeadline()))) {
                     overdueCount++;
                 }
             }
@@ -432,18 +462,11 @@ public class FixTrackingWorkflowService {
         stats.setOverdueWorkflows(overdueCount);
         
         // 计算完成率
-        stats.setCompletionRate(issues.size() > 0 ? (double) completedCount / issues.size() * 100 : 0.0);
+        stats.setCompletionRate(workflows.size() > 0 ? (double) completedCount / workflows.size() * 100 : 0.0);
         
         // 计算平均处理时间
-        List<Long> processingTimes = issues.stream()
-                .filter(issue -> issue.getStatus() == Issue.IssueStatus.RESOLVED || 
-                               issue.getStatus() == Issue.IssueStatus.CLOSED)
-                .filter(issue -> issue.getUpdatedAt() != null)
-                .map(issue -> java.time.Duration.between(issue.getCreatedAt(), issue.getUpdatedAt()).toHours())
-                .collect(Collectors.toList());
-        
-        if (!processingTimes.isEmpty()) {
-            stats.setAverageProcessingTime(processingTimes.stream().mapToLong(Long::longValue).average().orElse(0.0));
+        if (completedCount > 0) {
+            stats.setAverageProcessingTime((double) totalProcessingHours / completedCount);
         }
         
         return stats;
@@ -503,6 +526,7 @@ public class FixTrackingWorkflowService {
         private LocalDateTime deadline;
         private boolean completed;
         private boolean overdue;
+        private long version;
         
         public FixTrackingWorkflow() {
             this.id = UUID.randomUUID().toString();
@@ -538,6 +562,9 @@ public class FixTrackingWorkflowService {
         
         public boolean isOverdue() { return overdue; }
         public void setOverdue(boolean overdue) { this.overdue = overdue; }
+        
+        public long getVersion() { return version; }
+        public void setVersion(long version) { this.version = version; }
     }
     
     public static class WorkflowStatistics {
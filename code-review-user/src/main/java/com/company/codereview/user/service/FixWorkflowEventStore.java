@@ -0,0 +1,283 @@
+package com.company.codereview.user.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.company.codereview.user.entity.FixWorkflowEvent;
+import com.company.codereview.user.entity.FixWorkflowSnapshot;
+import com.company.codereview.user.repository.FixWorkflowEventRepository;
+import com.company.codereview.user.repository.FixWorkflowSnapshotRepository;
+import com.company.codereview.user.service.FixTrackingWorkflowService.FixTrackingWorkflow;
+import com.company.codereview.user.service.FixTrackingWorkflowService.WorkflowAction;
+import com.company.codereview.user.service.FixTrackingWorkflowService.WorkflowStage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 整改工作流事件存储
+ *
+ * 工作流状态由只追加的事件流推导：每个问题一条事件流，每隔固定数量的事件以及流程结束时保存快照，
+ * 读取当前状态只需一次快照读取加上快照之后的少量事件回放，已结束的流程无需回放。
+ * 事务内产生的事件在提交前一次性批量写入。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FixWorkflowEventStore {
+
+    private final FixWorkflowEventRepository eventRepository;
+    private final FixWorkflowSnapshotRepository snapshotRepository;
+
+    @Value("${fix-tracking.workflow.snapshot-interval:5}")
+    private int snapshotInterval;
+
+    @Value("${fix-tracking.workflow.write-batch-size:500}")
+    private int writeBatchSize;
+
+    /**
+     * 读取问题的当前工作流状态，问题没有事件流时返回 null
+     */
+    public FixTrackingWorkflow load(Long issueId) {
+        return loadAll(Collections.singletonList(issueId)).get(issueId);
+    }
+
+    /**
+     * 批量读取工作流状态，没有事件流的问题不在结果中
+     */
+    public Map<Long, FixTrackingWorkflow> loadAll(Collection<Long> issueIds) {
+        if (issueIds == null || issueIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, FixTrackingWorkflow> workflows = new HashMap<>();
+        for (FixWorkflowSnapshot snapshot : snapshotRepository.selectBatchIds(issueIds)) {
+            workflows.put(snapshot.getIssueId(), fromSnapshot(snapshot));
+        }
+
+        Set<Long> staleIssueIds = new LinkedHashSet<>();
+        for (FixWorkflowEvent event : eventRepository.findEventsAfterSnapshot(issueIds)) {
+            FixTrackingWorkflow workflow = workflows.computeIfAbsent(event.getIssueId(), FixWorkflowEventStore::newWorkflow);
+            if (event.getSequenceNo() <= workflow.getVersion()) {
+                continue;
+            }
+            if (event.getSequenceNo() != workflow.getVersion() + 1) {
+                // 两次读取之间快照被推进，回放缺失的事件
+                staleIssueIds.add(event.getIssueId());
+                continue;
+            }
+            apply(workflow, event);
+        }
+
+        for (Long issueId : staleIssueIds) {
+            FixTrackingWorkflow workflow = workflows.get(issueId);
+            eventRepository.selectList(new QueryWrapper<FixWorkflowEvent>()
+                            .eq("issue_id", issueId)
+                            .gt("sequence_no", workflow.getVersion())
+                            .orderByAsc("sequence_no"))
+                    .forEach(event -> apply(workflow, event));
+        }
+
+        return workflows;
+    }
+
+    /**
+     * 回放团队在时间范围内启动的工作流
+     */
+    public List<FixTrackingWorkflow> replayTeamStreams(Long teamId, LocalDateTime startDate, LocalDateTime endDate) {
+        List<FixTrackingWorkflow> workflows = new ArrayList<>();
+        FixTrackingWorkflow current = null;
+
+        // 事件已按问题和序号排序，逐条折叠即可
+        for (FixWorkflowEvent event : eventRepository.findTeamStreamsStartedBetween(teamId, startDate, endDate)) {
+            if (current == null || !current.getIssueId().equals(event.getIssueId())) {
+                current = newWorkflow(event.getIssueId());
+                workflows.add(current);
+            }
+            apply(current, event);
+        }
+
+        return workflows;
+    }
+
+    /**
+     * 记录一个事件：立即作用到传入的工作流状态，并在当前事务提交前批量写入
+     *
+     * @param workflow 当前工作流状态，version 为已持久化的最后事件序号
+     */
+    public FixWorkflowEvent record(FixTrackingWorkflow workflow, String eventType, WorkflowAction action,
+                                   WorkflowStage toStage, Long assigneeId, LocalDateTime deadline) {
+        FixWorkflowEvent event = new FixWorkflowEvent();
+        event.setIssueId(workflow.getIssueId());
+        event.setSequenceNo(workflow.getVersion() + 1);
+        event.setEventType(eventType);
+        event.setAction(action != null ? action.name() : null);
+        event.setFromStage(workflow.getCurrentStage() != null ? workflow.getCurrentStage().name() : null);
+        event.setToStage(toStage.name());
+        event.setAssigneeId(assigneeId);
+        event.setDeadline(deadline);
+        event.setOccurredAt(LocalDateTime.now());
+
+        apply(workflow, event);
+
+        PendingWrites pending = currentPendingWrites();
+        pending.events.add(event);
+        // 整改流程通常只有几个事件，结束时保存快照，避免每次读取都回放整个事件流
+        if (event.getSequenceNo() % snapshotInterval == 0 || workflow.isCompleted()) {
+            pending.snapshots.put(workflow.getIssueId(), toSnapshot(workflow));
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flush(pending);
+        }
+        return event;
+    }
+
+    /**
+     * 将事件作用到工作流状态
+     */
+    public static void apply(FixTrackingWorkflow workflow, FixWorkflowEvent event) {
+        WorkflowStage stage = WorkflowStage.valueOf(event.getToStage());
+
+        if (FixWorkflowEvent.TYPE_STARTED.equals(event.getEventType())) {
+            // 重新启动的流程从本次启动开始计时，并清除上一轮的结束和超时标记
+            workflow.setStartTime(event.getOccurredAt());
+            workflow.setCompleted(false);
+            workflow.setEndTime(null);
+            workflow.setOverdue(false);
+        } else if (FixWorkflowEvent.TYPE_OVERDUE.equals(event.getEventType())) {
+            workflow.setOverdue(true);
+        }
+
+        if (workflow.getStartTime() == null) {
+            workflow.setStartTime(event.getOccurredAt());
+        }
+        workflow.setCurrentStage(stage);
+        if (event.getAssigneeId() != null) {
+            workflow.setAssigneeId(event.getAssigneeId());
+        }
+        if (event.getDeadline() != null) {
+            workflow.setDeadline(event.getDeadline());
+        }
+        workflow.setLastActionTime(event.getOccurredAt());
+
+        if (stage == WorkflowStage.COMPLETED || stage == WorkflowStage.CANCELLED) {
+            workflow.setCompleted(true);
+            workflow.setEndTime(event.getOccurredAt());
+        }
+
+        workflow.setVersion(event.getSequenceNo());
+    }
+
+    /**
+     * 新建空的工作流状态（尚无任何事件）
+     */
+    public static FixTrackingWorkflow newWorkflow(Long issueId) {
+        FixTrackingWorkflow workflow = new FixTrackingWorkflow();
+        workflow.setId("issue-" + issueId);
+        workflow.setIssueId(issueId);
+        workflow.setCurrentStage(WorkflowStage.CREATED);
+        workflow.setVersion(0);
+        return workflow;
+    }
+
+    private PendingWrites currentPendingWrites() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PendingWrites();
+        }
+
+        PendingWrites pending = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingWrites created = new PendingWrites();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    FixWorkflowEventStore.this.flush(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FixWorkflowEventStore.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private void flush(PendingWrites pending) {
+        if (pending.events.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (int from = 0; from < pending.events.size(); from += writeBatchSize) {
+                int to = Math.min(from + writeBatchSize, pending.events.size());
+                eventRepository.insertBatch(pending.events.subList(from, to));
+            }
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("工作流已被并发修改，请刷新后重试", e);
+        }
+
+        List<FixWorkflowSnapshot> snapshots = new ArrayList<>(pending.snapshots.values());
+        for (int from = 0; from < snapshots.size(); from += writeBatchSize) {
+            int to = Math.min(from + writeBatchSize, snapshots.size());
+            snapshotRepository.upsertBatch(snapshots.subList(from, to));
+        }
+
+        log.debug("写入工作流事件: events={}, snapshots={}", pending.events.size(), snapshots.size());
+        pending.events.clear();
+        pending.snapshots.clear();
+    }
+
+    private FixTrackingWorkflow fromSnapshot(FixWorkflowSnapshot snapshot) {
+        FixTrackingWorkflow workflow = newWorkflow(snapshot.getIssueId());
+        workflow.setCurrentStage(WorkflowStage.valueOf(snapshot.getCurrentStage()));
+        workflow.setAssigneeId(snapshot.getAssigneeId());
+        workflow.setStartTime(snapshot.getStartTime());
+        workflow.setEndTime(snapshot.getEndTime());
+        workflow.setLastActionTime(snapshot.getLastActionTime());
+        workflow.setDeadline(snapshot.getDeadline());
+        workflow.setCompleted(Boolean.TRUE.equals(snapshot.getCompleted()));
+        workflow.setOverdue(Boolean.TRUE.equals(snapshot.getOverdue()));
+        workflow.setVersion(snapshot.getLastSequenceNo());
+        return workflow;
+    }
+
+    private FixWorkflowSnapshot toSnapshot(FixTrackingWorkflow workflow) {
+        FixWorkflowSnapshot snapshot = new FixWorkflowSnapshot();
+        snapshot.setIssueId(workflow.getIssueId());
+        snapshot.setLastSequenceNo(workflow.getVersion());
+        snapshot.setCurrentStage(workflow.getCurrentStage().name());
+        snapshot.setAssigneeId(workflow.getAssigneeId());
+        snapshot.setStartTime(workflow.getStartTime());
+        snapshot.setEndTime(workflow.getEndTime());
+        snapshot.setLastActionTime(workflow.getLastActionTime());
+        snapshot.setDeadline(workflow.getDeadline());
+        snapshot.setCompleted(workflow.isCompleted());
+        snapshot.setOverdue(workflow.isOverdue());
+        return snapshot;
+    }
+
+    /**
+     * 当前事务中待写入的事件和快照
+     */
+    private static class PendingWrites {
+        private final List<FixWorkflowEvent> events = new ArrayList<>();
+        private final Map<Long, FixWorkflowSnapshot> snapshots = new LinkedHashMap<>();
+    }
+}
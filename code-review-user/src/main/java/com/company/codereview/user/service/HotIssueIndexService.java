@@ -0,0 +1,303 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.IssueRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 热点问题索引服务
+ *
+ * 每个团队维护一个 Redis 有序集合，成员为未完成问题ID，分值按严重级别分层、
+ * 同级别内创建越早分值越高。问题创建、状态或严重级别变更后增量更新，
+ * 读取热点问题只需一次范围查询；Redis 不可用时回退为数据库查询加有界优先队列。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotIssueIndexService {
+
+    private static final String KEY_PREFIX = "hot-issues:team:";
+
+    /**
+     * 每个严重级别占用的分值区间，大于任何秒级时间戳
+     */
+    private static final long TIER = 10_000_000_000L;
+
+    /**
+     * 清理超出时间窗口的成员后返回分值最高的成员
+     * ARGV[1] 为返回数量，之后每两个参数为一个待清理的分值区间
+     */
+    private static final RedisScript<List> PRUNE_AND_RANGE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do redis.call('zremrangebyscore', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "return redis.call('zrevrange', KEYS[1], 0, tonumber(ARGV[1]) - 1)", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final IssueRepository issueRepository;
+
+    @Value("${issue.hot-index.window-days:30}")
+    private int windowDays;
+
+    @Value("${issue.hot-index.rebuild-interval-hours:24}")
+    private long rebuildIntervalHours;
+
+    /**
+     * 获取团队热点问题：按严重级别从高到低，同级别按创建时间从早到晚
+     */
+    public List<Issue> getHotIssues(Long teamId, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        try {
+            ensureBuilt(teamId);
+
+            // 多取一些，以容忍尚未同步移除的已完成问题；移除失效成员后仍不足 limit 个时重新读取
+            int fetchCount = limit * 2;
+            List<Issue> hotIssues;
+            while (true) {
+                List<Long> rankedIds = readTopIds(teamId, fetchCount);
+                hotIssues = loadRanked(rankedIds);
+
+                Set<Long> liveIds = hotIssues.stream().map(Issue::getId).collect(Collectors.toSet());
+                List<Long> staleIds = rankedIds.stream().filter(id -> !liveIds.contains(id)).collect(Collectors.toList());
+                if (staleIds.isEmpty()) {
+                    break;
+                }
+                redisTemplate.opsForZSet().remove(teamKey(teamId), staleIds.stream().map(String::valueOf).toArray());
+
+                // 已经足够，或索引中已没有更多成员
+                if (hotIssues.size() >= limit || rankedIds.size() < fetchCount) {
+                    break;
+                }
+            }
+
+            return hotIssues.size() > limit ? new ArrayList<>(hotIssues.subList(0, limit)) : hotIssues;
+        } catch (Exception e) {
+            log.warn("热点问题索引不可用，回退为数据库查询: teamId={}, error={}", teamId, e.getMessage());
+            return getHotIssuesFromDatabase(teamId, limit);
+        }
+    }
+
+    /**
+     * 问题变更后更新索引（当前事务提交后执行）
+     */
+    public void onIssueChanged(Issue issue) {
+        if (issue != null && issue.getId() != null) {
+            refresh(Collections.singletonList(issue.getId()));
+        }
+    }
+
+    /**
+     * 按数据库中的最新状态更新一批问题的索引（当前事务提交后执行）
+     */
+    public void refresh(Collection<Long> issueIds) {
+        if (issueIds == null || issueIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(issueIds));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyRefresh(ids);
+                }
+            });
+        } else {
+            applyRefresh(ids);
+        }
+    }
+
+    /**
+     * 问题删除后从索引移除
+     */
+    public void remove(Long teamId, Long issueId) {
+        if (teamId == null || issueId == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForZSet().remove(teamKey(teamId), String.valueOf(issueId));
+        } catch (Exception e) {
+            log.warn("移除热点问题索引失败: teamId={}, issueId={}, error={}", teamId, issueId, e.getMessage());
+        }
+    }
+
+    /**
+     * 计算热度分值：严重级别决定分层，同一层内创建越早分值越高
+     */
+    public static long score(Severity severity, LocalDateTime createdAt) {
+        long createdSeconds = createdAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        return severityTier(severity) * TIER + (TIER - createdSeconds);
+    }
+
+    private static int severityTier(Severity severity) {
+        return severity != null ? 5 - severity.getLevel() : 0;
+    }
+
+    private void applyRefresh(List<Long> issueIds) {
+        try {
+            Map<Long, Issue> issues = issueRepository.selectBatchIds(issueIds).stream()
+                    .collect(Collectors.toMap(Issue::getId, Function.identity()));
+            LocalDateTime windowStart = LocalDateTime.now().minusDays(windowDays);
+
+            for (Map<String, Object> row : issueRepository.findTeamIdsByIssueIds(issueIds)) {
+                Long issueId = ((Number) row.get("issueId")).longValue();
+                String key = teamKey(((Number) row.get("teamId")).longValue());
+                Issue issue = issues.get(issueId);
+
+                if (issue != null && isActive(issue) && issue.getCreatedAt() != null
+                        && issue.getCreatedAt().isAfter(windowStart)) {
+                    redisTemplate.opsForZSet().add(key, String.valueOf(issueId),
+                            score(issue.getSeverity(), issue.getCreatedAt()));
+                } else {
+                    redisTemplate.opsForZSet().remove(key, String.valueOf(issueId));
+                }
+            }
+        } catch (Exception e) {
+            // 索引按周期全量重建，单次更新失败只会短暂影响排序
+            log.warn("更新热点问题索引失败: issueIds={}, error={}", issueIds, e.getMessage());
+        }
+    }
+
+    /**
+     * 索引不存在或已到重建周期时从数据库全量重建
+     */
+    private void ensureBuilt(Long teamId) {
+        String builtKey = teamKey(teamId) + ":built";
+        Boolean rebuild = redisTemplate.opsForValue()
+                .setIfAbsent(builtKey, "1", rebuildIntervalHours, TimeUnit.HOURS);
+        if (!Boolean.TRUE.equals(rebuild)) {
+            return;
+        }
+
+        try {
+            List<Issue> candidates = issueRepository.findHotIssueCandidates(teamId,
+                    LocalDateTime.now().minusDays(windowDays));
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            for (Issue issue : candidates) {
+                tuples.add(ZSetOperations.TypedTuple.of(String.valueOf(issue.getId()),
+                        (double) score(issue.getSeverity(), issue.getCreatedAt())));
+            }
+
+            // 先写入临时键再原子替换，重建期间读取到的始终是完整的索引
+            String key = teamKey(teamId);
+            if (tuples.isEmpty()) {
+                redisTemplate.delete(key);
+            } else {
+                String buildingKey = key + ":building:" + UUID.randomUUID();
+                redisTemplate.opsForZSet().add(buildingKey, tuples);
+                redisTemplate.rename(buildingKey, key);
+            }
+            log.info("重建热点问题索引: teamId={}, size={}", teamId, tuples.size());
+        } catch (RuntimeException e) {
+            redisTemplate.delete(builtKey);
+            throw e;
+        }
+    }
+
+    private List<Long> readTopIds(Long teamId, int count) {
+        long cutoffSeconds = LocalDateTime.now().minusDays(windowDays)
+                .atZone(ZoneId.systemDefault()).toEpochSecond();
+
+        // 每个严重级别中创建时间早于窗口的成员位于该层分值的最高段
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(count));
+        for (int tier = 0; tier <= 4; tier++) {
+            args.add(String.valueOf(tier * TIER + (TIER - cutoffSeconds) + 1));
+            args.add(String.valueOf(tier * TIER + TIER - 1));
+        }
+
+        List<?> members = redisTemplate.execute(PRUNE_AND_RANGE_SCRIPT,
+                Collections.singletonList(teamKey(teamId)), args.toArray());
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        return members.stream().map(member -> Long.valueOf(member.toString())).collect(Collectors.toList());
+    }
+
+    /**
+     * 按排名顺序加载问题，过滤已完成或已删除的问题
+     */
+    private List<Issue> loadRanked(List<Long> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Issue> issues = new HashMap<>();
+        for (Issue issue : issueRepository.selectBatchIds(rankedIds)) {
+            if (isActive(issue)) {
+                issues.put(issue.getId(), issue);
+            }
+        }
+
+        List<Issue> ranked = new ArrayList<>(issues.size());
+        for (Long id : rankedIds) {
+            Issue issue = issues.get(id);
+            if (issue != null) {
+                ranked.add(issue);
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * 回退路径：用大小为 limit 的小顶堆保留热度最高的问题，O(n log k)
+     */
+    private List<Issue> getHotIssuesFromDatabase(Long teamId, int limit) {
+        List<Issue> candidates = issueRepository.findHotIssueCandidates(teamId,
+                LocalDateTime.now().minusDays(windowDays));
+
+        Comparator<Issue> byHeat = Comparator.comparingLong(issue -> score(issue.getSeverity(), issue.getCreatedAt()));
+        PriorityQueue<Issue> heap = new PriorityQueue<>(limit + 1, byHeat);
+        for (Issue issue : candidates) {
+            heap.offer(issue);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Long> rankedIds = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            rankedIds.add(heap.poll().getId());
+        }
+        Collections.reverse(rankedIds);
+
+        return loadRanked(rankedIds);
+    }
+
+    private boolean isActive(Issue issue) {
+        return issue.getStatus() == Issue.IssueStatus.OPEN || issue.getStatus() == Issue.IssueStatus.IN_PROGRESS;
+    }
+
+    private String teamKey(Long teamId) {
+        return KEY_PREFIX + teamId;
+    }
+}
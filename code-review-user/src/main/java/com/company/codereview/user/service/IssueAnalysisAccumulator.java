@@ -0,0 +1,654 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.MinHash;
+import com.company.codereview.user.entity.Issue;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass accumulator for team issue analysis
+ * Fills distributions, weekly buckets, pattern counters and cluster buckets in one loop,
+ * using primitive arrays indexed by enum ordinal and week offset.
+ * Accumulators of disjoint date ranges can be merged, so closed weeks are persisted as snapshots
+ * and combined for any range. Issues are not retained: memory grows with distinct keywords; cluster
+ * issue ids and keyword sets grow too unless {@link #setClusterIssueIdLimit(int)} and
+ * {@link #setClusterKeywordSetLimit(int)} cap them
+ */
+final class IssueAnalysisAccumulator {
+
+    static final IssueType[] TYPES = IssueType.values();
+    static final Severity[] SEVERITIES = Severity.values();
+
+    private static final int MAX_PATTERN_EXAMPLES = 3;
+
+    private final LocalDate firstWeek;
+    private final int weekCount;
+
+    private long totalIssues;
+    private long resolvedIssues;
+    private final long[] typeCounts = new long[TYPES.length];
+    private final long[] severityCounts = new long[SEVERITIES.length];
+
+    private final long[] weeklyCreated;
+    private final long[] weeklyResolved;
+    private final double[] weeklyDeduction;
+
+    private final long[] patternCounts;
+    private final List<List<String>> patternExamples;
+
+    private final Map<String, KeywordStats> keywordStats = new HashMap<>();
+    private final ClusterBucket[] clusterBuckets = new ClusterBucket[TYPES.length * SEVERITIES.length];
+    private int clusterIssueIdLimit = Integer.MAX_VALUE;
+    private int clusterKeywordSetLimit = Integer.MAX_VALUE;
+
+    IssueAnalysisAccumulator(LocalDate startDate, LocalDate endDate, int patternCount) {
+        this.firstWeek = startDate.with(DayOfWeek.MONDAY);
+        this.weekCount = endDate.isBefore(firstWeek) ? 0 : (int) ChronoUnit.WEEKS.between(firstWeek, endDate) + 1;
+        this.weeklyCreated = new long[weekCount];
+        this.weeklyResolved = new long[weekCount];
+        this.weeklyDeduction = new double[weekCount];
+        this.patternCounts = new long[patternCount];
+        this.patternExamples = new ArrayList<>(patternCount);
+        for (int i = 0; i < patternCount; i++) {
+            patternExamples.add(new ArrayList<>(MAX_PATTERN_EXAMPLES));
+        }
+    }
+
+    /**
+     * Accumulate one issue
+     *
+     * @param keywords    distinct keywords extracted from the issue description
+     * @param patternMask bit i is set when the issue matches pattern i
+     */
+    void add(Issue issue, List<String> keywords, long patternMask) {
+        IssueType type = issue.getIssueType();
+        Severity severity = issue.getSeverity();
+        boolean resolved = Issue.IssueStatus.RESOLVED.equals(issue.getStatus())
+                || Issue.IssueStatus.CLOSED.equals(issue.getStatus());
+
+        totalIssues++;
+        if (resolved) {
+            resolvedIssues++;
+        }
+        if (type != null) {
+            typeCounts[type.ordinal()]++;
+        }
+        if (severity != null) {
+            severityCounts[severity.ordinal()]++;
+        }
+
+        if (issue.getCreatedAt() != null) {
+            LocalDate week = issue.getCreatedAt().toLocalDate().with(DayOfWeek.MONDAY);
+            long offset = ChronoUnit.WEEKS.between(firstWeek, week);
+            if (offset >= 0 && offset < weekCount) {
+                int index = (int) offset;
+                weeklyCreated[index]++;
+                if (resolved) {
+                    weeklyResolved[index]++;
+                }
+                weeklyDeduction[index] += qualityDeduction(severity);
+            }
+        }
+
+        for (String keyword : keywords) {
+            keywordStats.computeIfAbsent(keyword, k -> new KeywordStats(issue.getDescription()))
+                    .add(type, severity);
+        }
+
+        for (int i = 0; i < patternCounts.length; i++) {
+            if ((patternMask & (1L << i)) != 0) {
+                patternCounts[i]++;
+                List<String> examples = patternExamples.get(i);
+                if (examples.size() < MAX_PATTERN_EXAMPLES) {
+                    examples.add(issue.getDescription());
+                }
+            }
+        }
+
+        if (type != null && severity != null) {
+            int index = type.ordinal() * SEVERITIES.length + severity.ordinal();
+            if (clusterBuckets[index] == null) {
+                clusterBuckets[index] = new ClusterBucket();
+            }
+            clusterBuckets[index].add(issue.getId(), keywords, clusterIssueIdLimit, clusterKeywordSetLimit);
+        }
+    }
+
+    /**
+     * Keep at most this many issue ids per cluster bucket; cluster sizes stay exact
+     */
+    void setClusterIssueIdLimit(int clusterIssueIdLimit) {
+        this.clusterIssueIdLimit = clusterIssueIdLimit;
+    }
+
+    /**
+     * Keep at most this many distinct keyword sets per cluster bucket; above it the average similarity
+     * is estimated from a sample, below it stays exact
+     */
+    void setClusterKeywordSetLimit(int clusterKeywordSetLimit) {
+        this.clusterKeywordSetLimit = clusterKeywordSetLimit;
+    }
+
+    long getTotalIssues() {
+        return totalIssues;
+    }
+
+    long getResolvedIssues() {
+        return resolvedIssues;
+    }
+
+    long getTypeCount(IssueType type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    long getSeverityCount(Severity severity) {
+        return severityCounts[severity.ordinal()];
+    }
+
+    int getWeekCount() {
+        return weekCount;
+    }
+
+    LocalDate getWeekStart(int week) {
+        return firstWeek.plusWeeks(week);
+    }
+
+    long getCreatedInWeek(int week) {
+        return weeklyCreated[week];
+    }
+
+    /**
+     * Percentage of issues created in the week that are resolved or closed
+     */
+    double getResolutionRateInWeek(int week) {
+        return weeklyCreated[week] == 0 ? 0.0 : (double) weeklyResolved[week] / weeklyCreated[week] * 100;
+    }
+
+    /**
+     * Quality score of the week: 100 minus severity deductions, 100 when no issues
+     */
+    double getQualityScoreInWeek(int week) {
+        if (weeklyCreated[week] == 0) {
+            return 100.0;
+        }
+        double score = Math.max(0, 100 - weeklyDeduction[week]);
+        return Math.round(score * 100.0) / 100.0;
+    }
+
+    long getPatternCount(int pattern) {
+        return patternCounts[pattern];
+    }
+
+    List<String> getPatternExamples(int pattern) {
+        return patternExamples.get(pattern);
+    }
+
+    Map<String, KeywordStats> getKeywordStats() {
+        return keywordStats;
+    }
+
+    /**
+     * Cluster bucket of the type and severity, null when no issue fell into it
+     */
+    ClusterBucket getClusterBucket(IssueType type, Severity severity) {
+        return clusterBuckets[type.ordinal() * SEVERITIES.length + severity.ordinal()];
+    }
+
+    /**
+     * Merge an accumulator of a disjoint range inside this one; merge in chronological order
+     * so keyword and pattern examples stay the earliest ones
+     */
+    void merge(IssueAnalysisAccumulator other) {
+        if (other.patternCounts.length != patternCounts.length) {
+            throw new IllegalArgumentException("Pattern count mismatch: " + other.patternCounts.length
+                    + " != " + patternCounts.length);
+        }
+
+        totalIssues += other.totalIssues;
+        resolvedIssues += other.resolvedIssues;
+        for (int i = 0; i < typeCounts.length; i++) {
+            typeCounts[i] += other.typeCounts[i];
+        }
+        for (int i = 0; i < severityCounts.length; i++) {
+            severityCounts[i] += other.severityCounts[i];
+        }
+
+        long weekOffset = ChronoUnit.WEEKS.between(firstWeek, other.firstWeek);
+        for (int week = 0; week < other.weekCount; week++) {
+            long index = weekOffset + week;
+            if (index >= 0 && index < weekCount) {
+                weeklyCreated[(int) index] += other.weeklyCreated[week];
+                weeklyResolved[(int) index] += other.weeklyResolved[week];
+                weeklyDeduction[(int) index] += other.weeklyDeduction[week];
+            }
+        }
+
+        other.keywordStats.forEach((keyword, stats) ->
+                keywordStats.computeIfAbsent(keyword, k -> new KeywordStats(stats.example)).merge(stats));
+
+        for (int i = 0; i < patternCounts.length; i++) {
+            patternCounts[i] += other.patternCounts[i];
+            List<String> examples = patternExamples.get(i);
+            for (String example : other.patternExamples.get(i)) {
+                if (examples.size() < MAX_PATTERN_EXAMPLES) {
+                    examples.add(example);
+                }
+            }
+        }
+
+        for (int i = 0; i < clusterBuckets.length; i++) {
+            if (other.clusterBuckets[i] != null) {
+                if (clusterBuckets[i] == null) {
+                    clusterBuckets[i] = new ClusterBucket();
+                }
+                clusterBuckets[i].merge(other.clusterBuckets[i], clusterIssueIdLimit, clusterKeywordSetLimit);
+            }
+        }
+    }
+
+    /**
+     * Serializable form of this accumulator
+     *
+     * All keyword counters are kept so that merged snapshots count keywords exactly; cluster issue ids
+     * and keyword sets are kept up to the limits set by {@link #setClusterIssueIdLimit(int)} and
+     * {@link #setClusterKeywordSetLimit(int)}
+     */
+    Snapshot toSnapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.setFirstWeek(firstWeek);
+        snapshot.setWeekCount(weekCount);
+        snapshot.setTotalIssues(totalIssues);
+        snapshot.setResolvedIssues(resolvedIssues);
+        snapshot.setTypeCounts(typeCounts.clone());
+        snapshot.setSeverityCounts(severityCounts.clone());
+        snapshot.setWeeklyCreated(weeklyCreated.clone());
+        snapshot.setWeeklyResolved(weeklyResolved.clone());
+        snapshot.setWeeklyDeduction(weeklyDeduction.clone());
+        snapshot.setPatternCounts(patternCounts.clone());
+        snapshot.setPatternExamples(patternExamples);
+
+        Map<String, KeywordSnapshot> keywords = new LinkedHashMap<>();
+        keywordStats.forEach((keyword, stats) -> keywords.put(keyword, stats.toSnapshot()));
+        snapshot.setKeywords(keywords);
+
+        Map<Integer, BucketSnapshot> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < clusterBuckets.length; i++) {
+            if (clusterBuckets[i] != null) {
+                buckets.put(i, clusterBuckets[i].toSnapshot());
+            }
+        }
+        snapshot.setClusterBuckets(buckets);
+        return snapshot;
+    }
+
+    /**
+     * Restore an accumulator from {@link #toSnapshot()}
+     */
+    static IssueAnalysisAccumulator fromSnapshot(Snapshot snapshot) {
+        LocalDate lastDay = snapshot.getFirstWeek().plusWeeks(snapshot.getWeekCount()).minusDays(1);
+        IssueAnalysisAccumulator accumulator = new IssueAnalysisAccumulator(
+                snapshot.getFirstWeek(), lastDay, snapshot.getPatternCounts().length);
+
+        accumulator.totalIssues = snapshot.getTotalIssues();
+        accumulator.resolvedIssues = snapshot.getResolvedIssues();
+        System.arraycopy(snapshot.getTypeCounts(), 0, accumulator.typeCounts, 0, accumulator.typeCounts.length);
+        System.arraycopy(snapshot.getSeverityCounts(), 0, accumulator.severityCounts, 0, accumulator.severityCounts.length);
+        System.arraycopy(snapshot.getWeeklyCreated(), 0, accumulator.weeklyCreated, 0, accumulator.weekCount);
+        System.arraycopy(snapshot.getWeeklyResolved(), 0, accumulator.weeklyResolved, 0, accumulator.weekCount);
+        System.arraycopy(snapshot.getWeeklyDeduction(), 0, accumulator.weeklyDeduction, 0, accumulator.weekCount);
+        System.arraycopy(snapshot.getPatternCounts(), 0, accumulator.patternCounts, 0, accumulator.patternCounts.length);
+        for (int i = 0; i < accumulator.patternCounts.length; i++) {
+            accumulator.patternExamples.get(i).addAll(snapshot.getPatternExamples().get(i));
+        }
+
+        snapshot.getKeywords().forEach((keyword, stats) ->
+                accumulator.keywordStats.put(keyword, KeywordStats.fromSnapshot(stats)));
+        snapshot.getClusterBuckets().forEach((index, bucket) ->
+                accumulator.clusterBuckets[index] = ClusterBucket.fromSnapshot(bucket));
+        return accumulator;
+    }
+
+    private static double qualityDeduction(Severity severity) {
+        if (severity == null) {
+            return 1.0;
+        }
+        switch (severity) {
+            case CRITICAL: return 10.0;
+            case MAJOR: return 5.0;
+            case MINOR: return 2.0;
+            case SUGGESTION: return 0.5;
+            default: return 1.0;
+        }
+    }
+
+    /**
+     * Per-keyword counters for frequent issue identification
+     */
+    static final class KeywordStats {
+        private final String example;
+        private final long[] typeCounts = new long[TYPES.length];
+        private long count;
+        private long severityLevelSum;
+        private long severityCount;
+
+        private KeywordStats(String example) {
+            this.example = example;
+        }
+
+        private void add(IssueType type, Severity severity) {
+            count++;
+            if (type != null) {
+                typeCounts[type.ordinal()]++;
+            }
+            if (severity != null) {
+                severityLevelSum += severity.getLevel();
+                severityCount++;
+            }
+        }
+
+        private void merge(KeywordStats other) {
+            count += other.count;
+            for (int i = 0; i < typeCounts.length; i++) {
+                typeCounts[i] += other.typeCounts[i];
+            }
+            severityLevelSum += other.severityLevelSum;
+            severityCount += other.severityCount;
+        }
+
+        private KeywordSnapshot toSnapshot() {
+            KeywordSnapshot snapshot = new KeywordSnapshot();
+            snapshot.setExample(example);
+            snapshot.setTypeCounts(typeCounts.clone());
+            snapshot.setCount(count);
+            snapshot.setSeverityLevelSum(severityLevelSum);
+            snapshot.setSeverityCount(severityCount);
+            return snapshot;
+        }
+
+        private static KeywordStats fromSnapshot(KeywordSnapshot snapshot) {
+            KeywordStats stats = new KeywordStats(snapshot.getExample());
+            System.arraycopy(snapshot.getTypeCounts(), 0, stats.typeCounts, 0, stats.typeCounts.length);
+            stats.count = snapshot.getCount();
+            stats.severityLevelSum = snapshot.getSeverityLevelSum();
+            stats.severityCount = snapshot.getSeverityCount();
+            return stats;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * Description of the first issue containing the keyword
+         */
+        String getExample() {
+            return example;
+        }
+
+        double getAverageSeverityLevel() {
+            return severityCount == 0 ? 3.0 : (double) severityLevelSum / severityCount;
+        }
+
+        IssueType getDominantType() {
+            IssueType dominant = IssueType.CODE_STANDARD;
+            long max = 0;
+            for (IssueType type : TYPES) {
+                if (typeCounts[type.ordinal()] > max) {
+                    max = typeCounts[type.ordinal()];
+                    dominant = type;
+                }
+            }
+            return dominant;
+        }
+    }
+
+    /**
+     * Issues sharing one type and severity
+     *
+     * Keyword sets are a bottom-k sample: only the distinct sets with the smallest {@link MinHash#hashSet}
+     * values are kept, each with its issue count. Every set is kept while there are at most k of them,
+     * and the sample of a merge equals the sample of a single pass over both ranges
+     */
+    static final class ClusterBucket {
+        private long size;
+        private final List<Long> issueIds = new ArrayList<>();
+        private final Map<String, Integer> keywordCounts = new HashMap<>();
+        private final Map<Set<String>, KeywordSetCount> keywordSetCounts = new HashMap<>();
+        /**
+         * Sets hashing above this value are not sampled
+         */
+        private long keywordSetThreshold = Long.MAX_VALUE;
+        /**
+         * Issues whose keyword set is in the sample
+         */
+        private long sampledIssues;
+
+        private void add(Long issueId, List<String> keywords, int issueIdLimit, int keywordSetLimit) {
+            size++;
+            if (issueIds.size() < issueIdLimit) {
+                issueIds.add(issueId);
+            }
+            for (String keyword : keywords) {
+                keywordCounts.put(keyword, keywordCounts.getOrDefault(keyword, 0) + 1);
+            }
+            Set<String> keywordSet = new HashSet<>(keywords);
+            KeywordSetCount sampled = keywordSetCounts.get(keywordSet);
+            if (sampled != null) {
+                sampled.count++;
+                sampledIssues++;
+                return;
+            }
+            long hash = MinHash.hashSet(keywordSet);
+            if (hash <= keywordSetThreshold) {
+                keywordSetCounts.put(keywordSet, new KeywordSetCount(hash, 1));
+                sampledIssues++;
+                evictKeywordSets(keywordSetLimit);
+            }
+        }
+
+        private void merge(ClusterBucket other, int issueIdLimit, int keywordSetLimit) {
+            size += other.size;
+            for (Long issueId : other.issueIds) {
+                if (issueIds.size() >= issueIdLimit) {
+                    break;
+                }
+                issueIds.add(issueId);
+            }
+            other.keywordCounts.forEach((keyword, count) ->
+                    keywordCounts.put(keyword, keywordCounts.getOrDefault(keyword, 0) + count));
+
+            // sets above either threshold are missing from one side, so neither sample keeps them
+            if (other.keywordSetThreshold < keywordSetThreshold) {
+                keywordSetThreshold = other.keywordSetThreshold;
+                dropKeywordSetsAboveThreshold();
+            }
+            other.keywordSetCounts.forEach((keywords, sampled) -> {
+                if (sampled.hash <= keywordSetThreshold) {
+                    keywordSetCounts.computeIfAbsent(keywords, k -> new KeywordSetCount(sampled.hash, 0)).count += sampled.count;
+                    sampledIssues += sampled.count;
+                }
+            });
+            evictKeywordSets(keywordSetLimit);
+        }
+
+        /**
+         * Remove the sets with the largest hashes until at most {@code limit} remain; the threshold
+         * becomes the largest remaining hash so that evicted sets are not sampled again
+         */
+        private void evictKeywordSets(int limit) {
+            while (keywordSetCounts.size() > limit) {
+                long largest = Long.MIN_VALUE;
+                for (KeywordSetCount sampled : keywordSetCounts.values()) {
+                    largest = Math.max(largest, sampled.hash);
+                }
+                keywordSetThreshold = largest - 1;
+                dropKeywordSetsAboveThreshold();
+            }
+        }
+
+        private void dropKeywordSetsAboveThreshold() {
+            Iterator<KeywordSetCount> iterator = keywordSetCounts.values().iterator();
+            while (iterator.hasNext()) {
+                KeywordSetCount sampled = iterator.next();
+                if (sampled.hash > keywordSetThreshold) {
+                    sampledIssues -= sampled.count;
+                    iterator.remove();
+                }
+            }
+        }
+
+        private BucketSnapshot toSnapshot() {
+            BucketSnapshot snapshot = new BucketSnapshot();
+            snapshot.setIssueCount(size);
+            snapshot.setIssueIds(issueIds);
+            snapshot.setKeywordCounts(keywordCounts);
+            List<List<String>> keywordSets = new ArrayList<>(keywordSetCounts.size());
+            List<Long> keywordSetCountList = new ArrayList<>(keywordSetCounts.size());
+            keywordSetCounts.forEach((keywords, sampled) -> {
+                keywordSets.add(new ArrayList<>(keywords));
+                keywordSetCountList.add(sampled.count);
+            });
+            snapshot.setKeywordSets(keywordSets);
+            snapshot.setKeywordSetCounts(keywordSetCountList);
+            snapshot.setKeywordSetThreshold(keywordSetThreshold);
+            return snapshot;
+        }
+
+        private static ClusterBucket fromSnapshot(BucketSnapshot snapshot) {
+            ClusterBucket bucket = new ClusterBucket();
+            bucket.issueIds.addAll(snapshot.getIssueIds());
+            bucket.size = Math.max(snapshot.getIssueCount(), snapshot.getIssueIds().size());
+            bucket.keywordCounts.putAll(snapshot.getKeywordCounts());
+            for (int i = 0; i < snapshot.getKeywordSets().size(); i++) {
+                Set<String> keywords = new HashSet<>(snapshot.getKeywordSets().get(i));
+                long count = snapshot.getKeywordSetCounts().get(i);
+                bucket.keywordSetCounts.put(keywords, new KeywordSetCount(MinHash.hashSet(keywords), count));
+                bucket.sampledIssues += count;
+            }
+            bucket.keywordSetThreshold = snapshot.getKeywordSetThreshold();
+            return bucket;
+        }
+
+        /**
+         * Number of issues in the bucket
+         */
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * Ids of the earliest issues in the bucket, possibly capped
+         */
+        List<Long> getIssueIds() {
+            return issueIds;
+        }
+
+        Map<String, Integer> getKeywordCounts() {
+            return keywordCounts;
+        }
+
+        /**
+         * Average pairwise Jaccard similarity of the issues' keyword sets
+         * Issues with identical keyword sets are compared once and weighted by multiplicity; exact while
+         * every keyword set is sampled, otherwise estimated from the sampled issues in O(k²)
+         */
+        double getAverageSimilarity() {
+            if (size < 2 || sampledIssues < 2) {
+                return 1.0;
+            }
+
+            List<Map.Entry<Set<String>, KeywordSetCount>> sets = new ArrayList<>(keywordSetCounts.entrySet());
+            double totalSimilarity = 0.0;
+            for (int i = 0; i < sets.size(); i++) {
+                Set<String> first = sets.get(i).getKey();
+                long firstCount = sets.get(i).getValue().count;
+                if (!first.isEmpty()) {
+                    totalSimilarity += firstCount * (firstCount - 1) / 2.0;
+                }
+                for (int j = i + 1; j < sets.size(); j++) {
+                    totalSimilarity += firstCount * sets.get(j).getValue().count * jaccard(first, sets.get(j).getKey());
+                }
+            }
+
+            return totalSimilarity / (sampledIssues * (sampledIssues - 1) / 2.0);
+        }
+
+        private static double jaccard(Set<String> first, Set<String> second) {
+            Set<String> smaller = first.size() <= second.size() ? first : second;
+            Set<String> larger = smaller == first ? second : first;
+            int intersection = 0;
+            for (String keyword : smaller) {
+                if (larger.contains(keyword)) {
+                    intersection++;
+                }
+            }
+            int union = first.size() + second.size() - intersection;
+            return union == 0 ? 0.0 : (double) intersection / union;
+        }
+    }
+
+    /**
+     * Sampled keyword set: its hash and the number of issues having it
+     */
+    private static final class KeywordSetCount {
+        private final long hash;
+        private long count;
+
+        private KeywordSetCount(long hash, long count) {
+            this.hash = hash;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Serializable accumulator state
+     */
+    @Data
+    static class Snapshot {
+        private LocalDate firstWeek;
+        private int weekCount;
+        private long totalIssues;
+        private long resolvedIssues;
+        private long[] typeCounts;
+        private long[] severityCounts;
+        private long[] weeklyCreated;
+        private long[] weeklyResolved;
+        private double[] weeklyDeduction;
+        private long[] patternCounts;
+        private List<List<String>> patternExamples;
+        private Map<String, KeywordSnapshot> keywords;
+        private Map<Integer, BucketSnapshot> clusterBuckets;
+    }
+
+    @Data
+    static class KeywordSnapshot {
+        private String example;
+        private long[] typeCounts;
+        private long count;
+        private long severityLevelSum;
+        private long severityCount;
+    }
+
+    @Data
+    static class BucketSnapshot {
+        private long issueCount;
+        private List<Long> issueIds;
+        private Map<String, Integer> keywordCounts;
+        private List<List<String>> keywordSets;
+        private List<Long> keywordSetCounts;
+        private long keywordSetThreshold = Long.MAX_VALUE;
+    }
+}
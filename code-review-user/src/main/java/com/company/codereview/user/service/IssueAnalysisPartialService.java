@@ -0,0 +1,175 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.entity.IssueAnalysisPartial;
+import com.company.codereview.user.repository.IssueAnalysisPartialRepository;
+import com.company.codereview.user.repository.IssueRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 团队每周问题分析中间结果服务
+ *
+ * 已结束的整周按（团队，周）保存一份可合并的分析中间结果（分布计数、关键词计数、模式计数、周趋势点），
+ * 任意日期范围的分析合并各周结果，只有未结束的当前周和范围两端不满一周的日期从原始问题计算。
+ * 每周结果带有计算时的问题数量、最后修改时间和模式规则版本，问题被修改、删除或规则变化后自动重新计算。
+ * 关键词计数完整保存，合并结果与直接计算一致；每个聚类只保存最早的若干个问题ID，聚类问题数仍为精确值；
+ * 每个聚类的关键词集合按哈希取最小的若干个作为样本，超过上限时聚类相似度由样本估计。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IssueAnalysisPartialService {
+
+    private final IssueRepository issueRepository;
+    private final IssueAnalysisPartialRepository partialRepository;
+    private final IssueAnalyzer issueAnalyzer;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 中间结果格式版本，保存内容或取舍规则变化时递增，旧版本的结果自动重新计算
+     */
+    private static final int PAYLOAD_VERSION = 3;
+
+    @Value("${issue.analysis.partial.cluster-issue-id-limit:1000}")
+    private int clusterIssueIdLimit;
+
+    @Value("${issue.analysis.partial.cluster-keyword-set-limit:1000}")
+    private int clusterKeywordSetLimit;
+
+    /**
+     * 累计团队在日期范围内创建的问题
+     */
+    IssueAnalysisAccumulator accumulateTeamIssues(Long teamId, LocalDate startDate, LocalDate endDate) {
+        IssueAnalysisAccumulator result = issueAnalyzer.newAccumulator(startDate, endDate);
+        result.setClusterIssueIdLimit(clusterIssueIdLimit);
+        result.setClusterKeywordSetLimit(clusterKeywordSetLimit);
+        if (endDate.isBefore(startDate)) {
+            return result;
+        }
+
+        // 范围内完整且已结束的周
+        LocalDate currentWeek = LocalDate.now().with(DayOfWeek.MONDAY);
+        LocalDate firstClosedWeek = startDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+        LocalDate lastFullWeek = endDate.minusDays(6).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate lastClosedWeek = lastFullWeek.isBefore(currentWeek) ? lastFullWeek : currentWeek.minusWeeks(1);
+
+        if (firstClosedWeek.isAfter(lastClosedWeek)) {
+            result.merge(accumulateRaw(teamId, startDate, endDate));
+            return result;
+        }
+
+        // 按时间顺序合并，保证示例取最早的问题
+        if (startDate.isBefore(firstClosedWeek)) {
+            result.merge(accumulateRaw(teamId, startDate, firstClosedWeek.minusDays(1)));
+        }
+        mergeClosedWeeks(result, teamId, firstClosedWeek, lastClosedWeek);
+        LocalDate openFrom = lastClosedWeek.plusWeeks(1);
+        if (!openFrom.isAfter(endDate)) {
+            result.merge(accumulateRaw(teamId, openFrom, endDate));
+        }
+        return result;
+    }
+
+    private void mergeClosedWeeks(IssueAnalysisAccumulator result, Long teamId, LocalDate firstWeek, LocalDate lastWeek) {
+        Map<LocalDate, String> fingerprints = weeklyFingerprints(teamId, firstWeek, lastWeek.plusWeeks(1));
+        Map<LocalDate, IssueAnalysisPartial> storedPartials = partialRepository.findRange(teamId, firstWeek, lastWeek)
+                .stream()
+                .collect(Collectors.toMap(IssueAnalysisPartial::getWeekStart, Function.identity()));
+
+        int reused = 0;
+        int rebuilt = 0;
+        for (LocalDate week = firstWeek; !week.isAfter(lastWeek); week = week.plusWeeks(1)) {
+            String fingerprint = fingerprints.get(week);
+            if (fingerprint == null) {
+                continue; // 该周没有问题
+            }
+
+            IssueAnalysisPartial stored = storedPartials.get(week);
+            IssueAnalysisAccumulator weekAccumulator = stored != null && fingerprint.equals(stored.getFingerprint())
+                    ? restore(stored) : null;
+            if (weekAccumulator != null) {
+                reused++;
+            } else {
+                weekAccumulator = accumulateRaw(teamId, week, week.plusDays(6));
+                save(teamId, week, fingerprint, weekAccumulator);
+                rebuilt++;
+            }
+            result.merge(weekAccumulator);
+        }
+
+        log.debug("合并周分析结果: teamId={}, weeks={} - {}, reused={}, rebuilt={}", teamId, firstWeek, lastWeek, reused, rebuilt);
+    }
+
+    private IssueAnalysisAccumulator accumulateRaw(Long teamId, LocalDate startDate, LocalDate endDate) {
+        IssueAnalysisAccumulator accumulator = issueAnalyzer.newAccumulator(startDate, endDate);
+        accumulator.setClusterIssueIdLimit(clusterIssueIdLimit);
+        accumulator.setClusterKeywordSetLimit(clusterKeywordSetLimit);
+        issueRepository.findTeamIssuesCreatedBetween(teamId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay())
+                .forEach(issue -> issueAnalyzer.accumulate(accumulator, issue));
+        return accumulator;
+    }
+
+    /**
+     * 各周的指纹：问题数量、最后修改时间、模式规则版本和中间结果格式版本
+     */
+    private Map<LocalDate, String> weeklyFingerprints(Long teamId, LocalDate firstWeek, LocalDate endExclusive) {
+        String version = Integer.toHexString(issueAnalyzer.getPatternVersion().hashCode());
+        Map<LocalDate, String> fingerprints = new HashMap<>();
+        List<Map<String, Object>> rows = issueRepository.findWeeklyFingerprints(
+                teamId, firstWeek.atStartOfDay(), endExclusive.atStartOfDay());
+        for (Map<String, Object> row : rows) {
+            fingerprints.put(toLocalDate(row.get("weekStart")),
+                    row.get("issueCount") + "@" + row.get("lastUpdatedAt") + "#" + version + "/" + PAYLOAD_VERSION);
+        }
+        return fingerprints;
+    }
+
+    private IssueAnalysisAccumulator restore(IssueAnalysisPartial partial) {
+        try {
+            return IssueAnalysisAccumulator.fromSnapshot(
+                    objectMapper.readValue(partial.getPayload(), IssueAnalysisAccumulator.Snapshot.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("周分析结果无法解析，重新计算: teamId={}, week={}, error={}",
+                    partial.getTeamId(), partial.getWeekStart(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(Long teamId, LocalDate week, String fingerprint, IssueAnalysisAccumulator accumulator) {
+        try {
+            IssueAnalysisPartial partial = new IssueAnalysisPartial();
+            partial.setTeamId(teamId);
+            partial.setWeekStart(week);
+            partial.setFingerprint(fingerprint);
+            partial.setPayload(objectMapper.writeValueAsString(accumulator.toSnapshot()));
+            partialRepository.upsert(partial);
+        } catch (Exception e) {
+            // 保存失败只影响下次复用，不影响本次分析
+            log.warn("保存周分析结果失败: teamId={}, week={}, error={}", teamId, week, e.getMessage());
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toLocalDate();
+        }
+        return LocalDate.parse(String.valueOf(value));
+    }
+}
@@ -5,11 +5,11 @@ import com.company.codereview.user.entity.Issue;
 import com.company.codereview.user.repository.IssueRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -23,6 +23,13 @@ public class IssueAnalysisService {
     
     private final IssueRepository issueRepository;
     private final IssueAnalyzer issueAnalyzer;
+    private final IssueAnalysisPartialService partialService;
+    
+    @Value("${issue.analysis.global.cluster-issue-id-limit:1000}")
+    private int clusterIssueIdLimit;
+    
+    @Value("${issue.analysis.global.cluster-keyword-set-limit:1000}")
+    private int clusterKeywordSetLimit;
     
     /**
      * 分析团队问题
@@ -36,19 +43,15 @@ public class IssueAnalysisService {
     public IssueAnalysisResult analyzeTeamIssues(Long teamId, LocalDate startDate, LocalDate endDate) {
         log.info("开始分析团队问题，团队ID: {}, 时间范围: {} - {}", teamId, startDate, endDate);
         
-        // 查询团队在指定时间范围内的所有问题
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        // 已结束的周合并保存的周分析结果，只有当前周和范围两端不满一周的日期从原始问题计算
+        IssueAnalysisAccumulator accumulator = partialService.accumulateTeamIssues(teamId, startDate, endDate);
         
-        List<Issue> issues = issueRepository.findByTeamId(teamId, startDateTime, endDateTime);
-        
-        if (issues.isEmpty()) {
+        if (accumulator.getTotalIssues() == 0) {
             log.info("团队 {} 在指定时间范围内没有问题记录", teamId);
             return createEmptyAnalysisResult(startDate, endDate);
         }
         
-        // 使用问题分析器进行分析
-        IssueAnalysisResult result = issueAnalyzer.analyzeTeamIssues(issues, startDate, endDate);
+        IssueAnalysisResult result = issueAnalyzer.buildResult(accumulator, startDate, endDate);
         
         log.info("团队问题分析完成，共分析 {} 个问题，识别出 {} 个模式，{} 个聚类", 
             result.getTotalIssues(), 
@@ -70,23 +73,9 @@ public class IssueAnalysisService {
     public IssueAnalysisResult analyzeUserIssues(Long userId, LocalDate startDate, LocalDate endDate) {
         log.info("开始分析用户问题，用户ID: {}, 时间范围: {} - {}", userId, startDate, endDate);
         
-        // 查询用户在指定时间范围内分配的所有问题
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        // 这里需要根据实际的数据库查询方法来获取用户相关的问题
-        // 假设我们有一个方法可以查询分配给用户的问题
-        List<Issue> issues = issueRepository.findAssignedToUser(userId, null); // 查询所有状态的问题
-        
-        // 过滤时间范围
-        issues = issues.stream()
-            .filter(issue -> {
-                LocalDateTime createdAt = issue.getCreatedAt();
-                return createdAt != null && 
-                       !createdAt.isBefore(startDateTime) && 
-                       !createdAt.isAfter(endDateTime);
-            })
-            .collect(java.util.stream.Collectors.toList());
+        // 查询用户在指定时间范围内分配的问题，只加载分析用到的列
+        List<Issue> issues = issueRepository.findUserIssuesCreatedBetween(
+            userId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
         
         if (issues.isEmpty()) {
             log.info("用户 {} 在指定时间范围内没有问题记录", userId);
@@ -112,20 +101,19 @@ public class IssueAnalysisService {
     public IssueAnalysisResult analyzeGlobalIssues(LocalDate startDate, LocalDate endDate) {
         log.info("开始分析全局问题，时间范围: {} - {}", startDate, endDate);
         
-        // 查询所有团队在指定时间范围内的问题
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        // 这里需要一个查询所有问题的方法，暂时使用团队ID为null来表示查询所有
-        List<Issue> issues = issueRepository.findByTeamId(null, startDateTime, endDateTime);
+        // 流式读取所有团队在指定时间范围内的问题，逐条累计，内存只与关键词数量和聚类上限有关
+        IssueAnalysisAccumulator accumulator = issueAnalyzer.newAccumulator(startDate, endDate);
+        accumulator.setClusterIssueIdLimit(clusterIssueIdLimit);
+        accumulator.setClusterKeywordSetLimit(clusterKeywordSetLimit);
+        issueRepository.streamIssuesCreatedBetween(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(),
+            context -> issueAnalyzer.accumulate(accumulator, context.getResultObject()));
         
-        if (issues.isEmpty()) {
+        if (accumulator.getTotalIssues() == 0) {
             log.info("指定时间范围内没有问题记录");
             return createEmptyAnalysisResult(startDate, endDate);
         }
         
-        // 使用问题分析器进行分析
-        IssueAnalysisResult result = issueAnalyzer.analyzeTeamIssues(issues, startDate, endDate);
+        IssueAnalysisResult result = issueAnalyzer.buildResult(accumulator, startDate, endDate);
         
         log.info("全局问题分析完成，共分析 {} 个问题，涉及 {} 个模式", 
             result.getTotalIssues(), 
@@ -4,11 +4,15 @@ import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
 import com.company.codereview.user.dto.*;
 import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.config.IssueAnalysisConfig;
+import com.company.codereview.user.util.KeywordTokenizer;
+import com.company.codereview.user.util.PatternRuleEngine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -20,45 +24,78 @@ import java.util.stream.Collectors;
 @Component
 public class IssueAnalyzer {
     
+    private static final DateTimeFormatter WEEK_LABEL_FORMAT = DateTimeFormatter.ofPattern("w");
+    
+    /**
+     * Compiled pattern rules, matched against every issue in the single analysis pass
+     */
+    private PatternRuleEngine patternRules = PatternRuleEngine.fromConfig(new IssueAnalysisConfig.PatternConfig());
+    
+    /**
+     * Use the pattern rules compiled from the external configuration
+     */
+    @Autowired(required = false)
+    public void setPatternRuleEngine(PatternRuleEngine patternRules) {
+        this.patternRules = patternRules;
+    }
+    
     /**
      * Analyze team issues
      */
     public IssueAnalysisResult analyzeTeamIssues(List<Issue> issues, LocalDate startDate, LocalDate endDate) {
         log.info("Starting team issue analysis, issue count: {}, date range: {} - {}", issues.size(), startDate, endDate);
         
-        // Calculate type distribution
-        Map<IssueType, Long> typeDistribution = calculateTypeDistribution(issues);
-        
-        // Calculate severity distribution
-        Map<Severity, Long> severityDistribution = calculateSeverityDistribution(issues);
-        
-        // Identify frequent issues
-        List<FrequentIssue> frequentIssues = identifyFrequentIssues(issues);
-        
-        // Trend analysis
-        TrendAnalysis trendAnalysis = analyzeTrend(issues, startDate, endDate);
-        
-        // Pattern identification
-        List<IssuePattern> patterns = identifyPatterns(issues);
-        
-        // Issue clustering
-        List<IssueCluster> clusters = clusterIssues(issues);
-        
+        return buildResult(accumulate(issues, startDate, endDate), startDate, endDate);
+    }
+    
+    /**
+     * Single pass: distributions, weekly buckets, keyword groups, pattern counters and cluster buckets
+     */
+    IssueAnalysisAccumulator accumulate(List<Issue> issues, LocalDate startDate, LocalDate endDate) {
+        IssueAnalysisAccumulator accumulator = newAccumulator(startDate, endDate);
+        for (Issue issue : issues) {
+            accumulate(accumulator, issue);
+        }
+        return accumulator;
+    }
+    
+    /**
+     * Accumulate one issue; used when issues are streamed instead of loaded as a list
+     */
+    void accumulate(IssueAnalysisAccumulator accumulator, Issue issue) {
+        accumulator.add(issue, extractKeywords(issue.getDescription()), matchPatterns(issue));
+    }
+    
+    /**
+     * Empty accumulator for the date range, sized for the current pattern rules
+     */
+    IssueAnalysisAccumulator newAccumulator(LocalDate startDate, LocalDate endDate) {
+        return new IssueAnalysisAccumulator(startDate, endDate, patternRules.size());
+    }
+    
+    /**
+     * Identifies the pattern rule set; persisted partials built with other rules are not reused
+     */
+    String getPatternVersion() {
+        return patternRules.getVersion();
+    }
+    
+    /**
+     * Build the analysis result from accumulated (possibly merged) counters
+     */
+    IssueAnalysisResult buildResult(IssueAnalysisAccumulator accumulator, LocalDate startDate, LocalDate endDate) {
         // Calculate resolution rate
-        long totalIssues = issues.size();
-        long resolvedIssues = issues.stream()
-            .mapToLong(issue -> Issue.IssueStatus.RESOLVED.equals(issue.getStatus()) || 
-                              Issue.IssueStatus.CLOSED.equals(issue.getStatus()) ? 1 : 0)
-            .sum();
+        long totalIssues = accumulator.getTotalIssues();
+        long resolvedIssues = accumulator.getResolvedIssues();
         double resolutionRate = totalIssues > 0 ? (double) resolvedIssues / totalIssues * 100 : 0.0;
         
         return IssueAnalysisResult.builder()
-            .typeDistribution(typeDistribution)
-            .severityDistribution(severityDistribution)
-            .frequentIssues(frequentIssues)
-            .trendAnalysis(trendAnalysis)
-            .patterns(patterns)
-            .clusters(clusters)
+            .typeDistribution(calculateTypeDistribution(accumulator))
+            .severityDistribution(calculateSeverityDistribution(accumulator))
+            .frequentIssues(identifyFrequentIssues(accumulator))
+            .trendAnalysis(analyzeTrend(accumulator))
+            .patterns(identifyPatterns(accumulator))
+            .clusters(clusterIssues(accumulator))
             .startDate(startDate)
             .endDate(endDate)
             .totalIssues(totalIssues)
@@ -70,65 +107,60 @@ public class IssueAnalyzer {
     /**
      * Calculate issue type distribution
      */
-    private Map<IssueType, Long> calculateTypeDistribution(List<Issue> issues) {
-        return issues.stream()
-            .collect(Collectors.groupingBy(Issue::getIssueType, Collectors.counting()));
+    private Map<IssueType, Long> calculateTypeDistribution(IssueAnalysisAccumulator accumulator) {
+        Map<IssueType, Long> distribution = new EnumMap<>(IssueType.class);
+        for (IssueType type : IssueAnalysisAccumulator.TYPES) {
+            long count = accumulator.getTypeCount(type);
+            if (count > 0) {
+                distribution.put(type, count);
+            }
+        }
+        return distribution;
     }
     
     /**
      * Calculate severity distribution
      */
-    private Map<Severity, Long> calculateSeverityDistribution(List<Issue> issues) {
-        return issues.stream()
-            .collect(Collectors.groupingBy(Issue::getSeverity, Collectors.counting()));
+    private Map<Severity, Long> calculateSeverityDistribution(IssueAnalysisAccumulator accumulator) {
+        Map<Severity, Long> distribution = new EnumMap<>(Severity.class);
+        for (Severity severity : IssueAnalysisAccumulator.SEVERITIES) {
+            long count = accumulator.getSeverityCount(severity);
+            if (count > 0) {
+                distribution.put(severity, count);
+            }
+        }
+        return distribution;
     }
     
     /**
      * Identify frequent issues
      */
-    private List<FrequentIssue> identifyFrequentIssues(List<Issue> issues) {
-        // Extract keywords from issue descriptions and calculate frequency
-        Map<String, List<Issue>> keywordGroups = new HashMap<>();
-        
-        for (Issue issue : issues) {
-            List<String> keywords = extractKeywords(issue.getDescription());
-            for (String keyword : keywords) {
-                keywordGroups.computeIfAbsent(keyword, k -> new ArrayList<>()).add(issue);
-            }
-        }
-        
-        return keywordGroups.entrySet().stream()
-            .filter(entry -> entry.getValue().size() >= 2) // At least 2 occurrences
+    private List<FrequentIssue> identifyFrequentIssues(IssueAnalysisAccumulator accumulator) {
+        long totalIssues = accumulator.getTotalIssues();
+        
+        return accumulator.getKeywordStats().entrySet().stream()
+            .filter(entry -> entry.getValue().getCount() >= 2) // At least 2 occurrences
+            .sorted((a, b) -> {
+                // Ties are ordered by keyword so merged partials and a direct scan rank the same
+                int byCount = Long.compare(b.getValue().getCount(), a.getValue().getCount());
+                return byCount != 0 ? byCount : a.getKey().compareTo(b.getKey());
+            })
+            .limit(10) // Return top 10 frequent issues
             .map(entry -> {
                 String keyword = entry.getKey();
-                List<Issue> relatedIssues = entry.getValue();
-                
-                // Calculate average severity
-                Severity avgSeverity = calculateAverageSeverity(relatedIssues);
-                
-                // Get dominant issue type
-                IssueType dominantType = relatedIssues.stream()
-                    .collect(Collectors.groupingBy(Issue::getIssueType, Collectors.counting()))
-                    .entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse(IssueType.CODE_STANDARD);
-                
-                // Calculate impact percentage
-                double impactPercentage = (double) relatedIssues.size() / issues.size() * 100;
+                IssueAnalysisAccumulator.KeywordStats stats = entry.getValue();
+                IssueType dominantType = stats.getDominantType();
                 
                 return FrequentIssue.builder()
                     .keyword(keyword)
-                    .count((long) relatedIssues.size())
+                    .count(stats.getCount())
                     .issueType(dominantType)
-                    .averageSeverity(avgSeverity)
-                    .example(relatedIssues.get(0).getDescription())
+                    .averageSeverity(severityForLevel(stats.getAverageSeverityLevel()))
+                    .example(stats.getExample())
                     .suggestedSolution(generateSuggestedSolution(keyword, dominantType))
-                    .impactPercentage(impactPercentage)
+                    .impactPercentage((double) stats.getCount() / totalIssues * 100)
                     .build();
             })
-            .sorted((a, b) -> Long.compare(b.getCount(), a.getCount()))
-            .limit(10) // Return top 10 frequent issues
             .collect(Collectors.toList());
     }
     
@@ -136,34 +168,13 @@ public class IssueAnalyzer {
      * Extract keywords from description
      */
     private List<String> extractKeywords(String description) {
-        if (description == null || description.trim().isEmpty()) {
-            return Collections.emptyList();
-        }
-        
-        // Simple keyword extraction logic
-        String[] words = description.toLowerCase()
-            .replaceAll("[^a-zA-Z0-9\\s]", " ")
-            .split("\\s+");
-        
-        Set<String> stopWords = Set.of("the", "is", "in", "and", "or", "but", "if", "because", "so", "a", "an", "to", "of", "for", "with", "on", "at", "by", "from", "as", "be", "have", "has", "had", "do", "does", "did", "will", "would", "could", "should", "may", "might", "can", "this", "that", "these", "those");
-        
-        return Arrays.stream(words)
-            .filter(word -> word.length() > 2)
-            .filter(word -> !stopWords.contains(word))
-            .distinct()
-            .collect(Collectors.toList());
+        return KeywordTokenizer.shared().tokenize(description);
     }
     
     /**
-     * Calculate average severity
+     * Map average severity level to the closest severity
      */
-    private Severity calculateAverageSeverity(List<Issue> issues) {
-        double avgLevel = issues.stream()
-            .mapToInt(issue -> issue.getSeverity().getLevel())
-            .average()
-            .orElse(3.0);
-        
-        // Return closest severity level
+    private Severity severityForLevel(double avgLevel) {
         if (avgLevel <= 1.5) return Severity.CRITICAL;
         if (avgLevel <= 2.5) return Severity.MAJOR;
         if (avgLevel <= 3.5) return Severity.MINOR;
@@ -188,15 +199,20 @@ public class IssueAnalyzer {
     /**
      * Trend analysis
      */
-    private TrendAnalysis analyzeTrend(List<Issue> issues, LocalDate startDate, LocalDate endDate) {
-        // Calculate weekly issue trend
-        List<TrendAnalysis.TrendPoint> issueTrend = calculateWeeklyIssueTrend(issues, startDate, endDate);
-        
-        // Calculate weekly resolution trend
-        List<TrendAnalysis.TrendPoint> resolutionTrend = calculateWeeklyResolutionTrend(issues, startDate, endDate);
-        
-        // Calculate quality score trend
-        List<TrendAnalysis.TrendPoint> qualityTrend = calculateWeeklyQualityTrend(issues, startDate, endDate);
+    private TrendAnalysis analyzeTrend(IssueAnalysisAccumulator accumulator) {
+        int weekCount = accumulator.getWeekCount();
+        List<TrendAnalysis.TrendPoint> issueTrend = new ArrayList<>(weekCount);
+        List<TrendAnalysis.TrendPoint> resolutionTrend = new ArrayList<>(weekCount);
+        List<TrendAnalysis.TrendPoint> qualityTrend = new ArrayList<>(weekCount);
+        
+        // Weekly issue count, resolution rate and quality score
+        for (int week = 0; week < weekCount; week++) {
+            LocalDate weekStart = accumulator.getWeekStart(week);
+            String label = "Week " + weekStart.format(WEEK_LABEL_FORMAT);
+            issueTrend.add(trendPoint(weekStart, accumulator.getCreatedInWeek(week), label));
+            resolutionTrend.add(trendPoint(weekStart, accumulator.getResolutionRateInWeek(week), label));
+            qualityTrend.add(trendPoint(weekStart, accumulator.getQualityScoreInWeek(week), label));
+        }
         
         // Analyze overall trend direction
         TrendAnalysis.TrendDirection overallDirection = analyzeOverallTrend(issueTrend);
@@ -221,121 +237,12 @@ public class IssueAnalyzer {
             .build();
     }
     
-    /**
-     * Calculate weekly issue trend
-     */
-    private List<TrendAnalysis.TrendPoint> calculateWeeklyIssueTrend(List<Issue> issues, LocalDate startDate, LocalDate endDate) {
-        Map<LocalDate, Long> weeklyCount = issues.stream()
-            .filter(issue -> issue.getCreatedAt() != null)
-            .collect(Collectors.groupingBy(
-                issue -> issue.getCreatedAt().toLocalDate().with(java.time.DayOfWeek.MONDAY),
-                Collectors.counting()
-            ));
-        
-        List<TrendAnalysis.TrendPoint> trendPoints = new ArrayList<>();
-        LocalDate current = startDate.with(java.time.DayOfWeek.MONDAY);
-        
-        while (!current.isAfter(endDate)) {
-            Long count = weeklyCount.getOrDefault(current, 0L);
-            trendPoints.add(TrendAnalysis.TrendPoint.builder()
-                .date(current)
-                .value(count.doubleValue())
-                .label("Week " + current.format(java.time.format.DateTimeFormatter.ofPattern("w")))
-                .build());
-            current = current.plusWeeks(1);
-        }
-        
-        return trendPoints;
-    }
-    
-    /**
-     * Calculate weekly resolution trend
-     */
-    private List<TrendAnalysis.TrendPoint> calculateWeeklyResolutionTrend(List<Issue> issues, LocalDate startDate, LocalDate endDate) {
-        Map<LocalDate, List<Issue>> weeklyIssues = issues.stream()
-            .filter(issue -> issue.getCreatedAt() != null)
-            .collect(Collectors.groupingBy(
-                issue -> issue.getCreatedAt().toLocalDate().with(java.time.DayOfWeek.MONDAY)
-            ));
-        
-        List<TrendAnalysis.TrendPoint> trendPoints = new ArrayList<>();
-        LocalDate current = startDate.with(java.time.DayOfWeek.MONDAY);
-        
-        while (!current.isAfter(endDate)) {
-            List<Issue> weekIssues = weeklyIssues.getOrDefault(current, Collections.emptyList());
-            double resolutionRate = 0.0;
-            
-            if (!weekIssues.isEmpty()) {
-                long resolved = weekIssues.stream()
-                    .mapToLong(issue -> Issue.IssueStatus.RESOLVED.equals(issue.getStatus()) || 
-                                      Issue.IssueStatus.CLOSED.equals(issue.getStatus()) ? 1 : 0)
-                    .sum();
-                resolutionRate = (double) resolved / weekIssues.size() * 100;
-            }
-            
-            trendPoints.add(TrendAnalysis.TrendPoint.builder()
-                .date(current)
-                .value(resolutionRate)
-                .label("Week " + current.format(java.time.format.DateTimeFormatter.ofPattern("w")))
-                .build());
-            current = current.plusWeeks(1);
-        }
-        
-        return trendPoints;
-    }
-    
-    /**
-     * Calculate weekly quality trend
-     */
-    private List<TrendAnalysis.TrendPoint> calculateWeeklyQualityTrend(List<Issue> issues, LocalDate startDate, LocalDate endDate) {
-        Map<LocalDate, List<Issue>> weeklyIssues = issues.stream()
-            .filter(issue -> issue.getCreatedAt() != null)
-            .collect(Collectors.groupingBy(
-                issue -> issue.getCreatedAt().toLocalDate().with(java.time.DayOfWeek.MONDAY)
-            ));
-        
-        List<TrendAnalysis.TrendPoint> trendPoints = new ArrayList<>();
-        LocalDate current = startDate.with(java.time.DayOfWeek.MONDAY);
-        
-        while (!current.isAfter(endDate)) {
-            List<Issue> weekIssues = weeklyIssues.getOrDefault(current, Collections.emptyList());
-            double qualityScore = calculateQualityScore(weekIssues);
-            
-            trendPoints.add(TrendAnalysis.TrendPoint.builder()
-                .date(current)
-                .value(qualityScore)
-                .label("Week " + current.format(java.time.format.DateTimeFormatter.ofPattern("w")))
-                .build());
-            current = current.plusWeeks(1);
-        }
-        
-        return trendPoints;
-    }
-    
-    /**
-     * Calculate quality score based on issue severity
-     */
-    private double calculateQualityScore(List<Issue> issues) {
-        if (issues.isEmpty()) {
-            return 100.0; // Perfect score when no issues
-        }
-        
-        // Calculate deduction based on severity
-        double totalDeduction = issues.stream()
-            .mapToDouble(issue -> {
-                switch (issue.getSeverity()) {
-                    case CRITICAL: return 10.0;
-                    case MAJOR: return 5.0;
-                    case MINOR: return 2.0;
-                    case SUGGESTION: return 0.5;
-                    default: return 1.0;
-                }
-            })
-            .sum();
-        
-        // Base score 100, deduct based on issue count and severity
-        double score = Math.max(0, 100 - totalDeduction);
-        return Math.round(score * 100.0) / 100.0;
+    private TrendAnalysis.TrendPoint trendPoint(LocalDate date, double value, String label) {
+        return TrendAnalysis.TrendPoint.builder()
+            .date(date)
+            .value(value)
+            .label(label)
+            .build();
     }
     
     /**
@@ -442,197 +349,72 @@ public class IssueAnalyzer {
     }
     
     /**
-     * Identify issue patterns
+     * Match issue against pattern rules, bit i is set when rule i matches
      */
-    private List<IssuePattern> identifyPatterns(List<Issue> issues) {
-        List<IssuePattern> patterns = new ArrayList<>();
-        
-        // Pattern 1: Null pointer exception pattern
-        identifyNullPointerPattern(issues, patterns);
-        
-        // Pattern 2: Performance issue pattern
-        identifyPerformancePattern(issues, patterns);
-        
-        // Pattern 3: Security vulnerability pattern
-        identifySecurityPattern(issues, patterns);
-        
-        // Pattern 4: Code standard pattern
-        identifyCodeStandardPattern(issues, patterns);
-        
-        return patterns.stream()
-            .filter(pattern -> pattern.getFrequency() >= 2) // At least 2 occurrences
-            .sorted((a, b) -> Long.compare(b.getFrequency(), a.getFrequency()))
-            .collect(Collectors.toList());
+    private long matchPatterns(Issue issue) {
+        return patternRules.match(issue.getIssueType(), issue.getTitle(), issue.getDescription());
     }
     
     /**
-     * Identify null pointer exception pattern
-     */
-    private void identifyNullPointerPattern(List<Issue> issues, List<IssuePattern> patterns) {
-        List<String> nullPointerKeywords = Arrays.asList("null", "nullpointer", "npe", "pointer");
-        
-        List<Issue> matchedIssues = issues.stream()
-            .filter(issue -> containsAnyKeyword(issue.getDescription(), nullPointerKeywords) ||
-                           containsAnyKeyword(issue.getTitle(), nullPointerKeywords))
-            .collect(Collectors.toList());
-        
-        if (!matchedIssues.isEmpty()) {
-            patterns.add(IssuePattern.builder()
-                .patternId("NULL_POINTER_PATTERN")
-                .patternName("Null Pointer Exception Pattern")
-                .description("Code contains potential null pointer exception risks")
-                .matchedTypes(Arrays.asList(IssueType.FUNCTIONAL_DEFECT, IssueType.CODE_STANDARD))
-                .frequency((long) matchedIssues.size())
-                .confidence(0.85)
-                .keywords(nullPointerKeywords)
-                .examples(matchedIssues.stream().limit(3).map(Issue::getDescription).collect(Collectors.toList()))
-                .preventionSuggestion("Recommend using Optional class or adding null checks")
-                .affectedAreas(Arrays.asList("Business Logic Layer", "Data Access Layer"))
-                .build());
-        }
-    }
-    
-    /**
-     * Identify performance issue pattern
+     * Identify issue patterns
      */
-    private void identifyPerformancePattern(List<Issue> issues, List<IssuePattern> patterns) {
-        List<String> performanceKeywords = Arrays.asList("performance", "slow", "timeout", "memory", "cpu", "lag");
-        
-        List<Issue> matchedIssues = issues.stream()
-            .filter(issue -> issue.getIssueType() == IssueType.PERFORMANCE_ISSUE ||
-                           containsAnyKeyword(issue.getDescription(), performanceKeywords))
-            .collect(Collectors.toList());
+    private List<IssuePattern> identifyPatterns(IssueAnalysisAccumulator accumulator) {
+        List<IssuePattern> patterns = new ArrayList<>();
         
-        if (!matchedIssues.isEmpty()) {
+        for (int i = 0; i < patternRules.size(); i++) {
+            long frequency = accumulator.getPatternCount(i);
+            if (frequency < patternRules.getMinFrequency()) {
+                continue;
+            }
+            
+            IssueAnalysisConfig.PatternConfig.PatternRule rule = patternRules.getRule(i);
             patterns.add(IssuePattern.builder()
-                .patternId("PERFORMANCE_PATTERN")
-                .patternName("Performance Issue Pattern")
-                .description("Code contains performance bottlenecks or improper resource usage")
-                .matchedTypes(Arrays.asList(IssueType.PERFORMANCE_ISSUE))
-                .frequency((long) matchedIssues.size())
-                .confidence(0.90)
-                .keywords(performanceKeywords)
-                .examples(matchedIssues.stream().limit(3).map(Issue::getDescription).collect(Collectors.toList()))
-                .preventionSuggestion("Recommend performance testing and code optimization")
-                .affectedAreas(Arrays.asList("Database Queries", "Algorithm Implementation", "Cache Usage"))
+                .patternId(rule.getId())
+                .patternName(rule.getName())
+                .description(rule.getDescription())
+                .matchedTypes(new ArrayList<>(rule.getMatchedTypes()))
+                .frequency(frequency)
+                .confidence(rule.getConfidence())
+                .keywords(new ArrayList<>(rule.getKeywords()))
+                .examples(new ArrayList<>(accumulator.getPatternExamples(i)))
+                .preventionSuggestion(rule.getPreventionSuggestion())
+                .affectedAreas(new ArrayList<>(rule.getAffectedAreas()))
                 .build());
         }
-    }
-    
-    /**
-     * Identify security vulnerability pattern
-     */
-    private void identifySecurityPattern(List<Issue> issues, List<IssuePattern> patterns) {
-        List<String> securityKeywords = Arrays.asList("security", "injection", "xss", "csrf", "auth", "encrypt");
         
-        List<Issue> matchedIssues = issues.stream()
-            .filter(issue -> issue.getIssueType() == IssueType.SECURITY_VULNERABILITY ||
-                           containsAnyKeyword(issue.getDescription(), securityKeywords))
+        return patterns.stream()
+            .sorted((a, b) -> Long.compare(b.getFrequency(), a.getFrequency()))
             .collect(Collectors.toList());
-        
-        if (!matchedIssues.isEmpty()) {
-            patterns.add(IssuePattern.builder()
-                .patternId("SECURITY_PATTERN")
-                .patternName("Security Vulnerability Pattern")
-                .description("Code contains security risks or vulnerabilities")
-                .matchedTypes(Arrays.asList(IssueType.SECURITY_VULNERABILITY))
-                .frequency((long) matchedIssues.size())
-                .confidence(0.95)
-                .keywords(securityKeywords)
-                .examples(matchedIssues.stream().limit(3).map(Issue::getDescription).collect(Collectors.toList()))
-                .preventionSuggestion("Recommend security review and vulnerability scanning")
-                .affectedAreas(Arrays.asList("User Input Validation", "Access Control", "Data Transmission"))
-                .build());
-        }
-    }
-    
-    /**
-     * Identify code standard pattern
-     */
-    private void identifyCodeStandardPattern(List<Issue> issues, List<IssuePattern> patterns) {
-        List<String> standardKeywords = Arrays.asList("naming", "format", "comment", "standard", "style");
-        
-        List<Issue> matchedIssues = issues.stream()
-            .filter(issue -> issue.getIssueType() == IssueType.CODE_STANDARD ||
-                           containsAnyKeyword(issue.getDescription(), standardKeywords))
-            .collect(Collectors.toList());
-        
-        if (!matchedIssues.isEmpty()) {
-            patterns.add(IssuePattern.builder()
-                .patternId("CODE_STANDARD_PATTERN")
-                .patternName("Code Standard Pattern")
-                .description("Code does not conform to team standards or best practices")
-                .matchedTypes(Arrays.asList(IssueType.CODE_STANDARD))
-                .frequency((long) matchedIssues.size())
-                .confidence(0.80)
-                .keywords(standardKeywords)
-                .examples(matchedIssues.stream().limit(3).map(Issue::getDescription).collect(Collectors.toList()))
-                .preventionSuggestion("Recommend using code formatting tools and static analysis")
-                .affectedAreas(Arrays.asList("Naming Convention", "Code Format", "Comment Standard"))
-                .build());
-        }
-    }
-    
-    /**
-     * Check if text contains any keyword
-     */
-    private boolean containsAnyKeyword(String text, List<String> keywords) {
-        if (text == null) return false;
-        String lowerText = text.toLowerCase();
-        return keywords.stream().anyMatch(lowerText::contains);
     }
     
     /**
      * Issue clustering
      */
-    private List<IssueCluster> clusterIssues(List<Issue> issues) {
+    private List<IssueCluster> clusterIssues(IssueAnalysisAccumulator accumulator) {
         List<IssueCluster> clusters = new ArrayList<>();
         
-        // Basic clustering by issue type
-        Map<IssueType, List<Issue>> typeGroups = issues.stream()
-            .collect(Collectors.groupingBy(Issue::getIssueType));
-        
-        for (Map.Entry<IssueType, List<Issue>> entry : typeGroups.entrySet()) {
-            IssueType type = entry.getKey();
-            List<Issue> typeIssues = entry.getValue();
-            
-            if (typeIssues.size() >= 2) { // At least 2 issues to form a cluster
-                // Further cluster by severity within same type
-                Map<Severity, List<Issue>> severityGroups = typeIssues.stream()
-                    .collect(Collectors.groupingBy(Issue::getSeverity));
-                
-                for (Map.Entry<Severity, List<Issue>> severityEntry : severityGroups.entrySet()) {
-                    Severity severity = severityEntry.getKey();
-                    List<Issue> severityIssues = severityEntry.getValue();
-                    
-                    if (severityIssues.size() >= 2) {
-                        String clusterId = type.name() + "_" + severity.name();
-                        String clusterName = type.getDescription() + " - " + severity.getDescription();
-                        
-                        // Extract characteristic keywords
-                        List<String> keywords = extractClusterKeywords(severityIssues);
-                        
-                        // Calculate cluster similarity
-                        double similarity = calculateClusterSimilarity(severityIssues);
-                        
-                        // Calculate cluster weight
-                        double weight = calculateClusterWeight(severityIssues, issues.size());
-                        
-                        clusters.add(IssueCluster.builder()
-                            .clusterId(clusterId)
-                            .clusterName(clusterName)
-                            .centerDescription(generateClusterCenterDescription(severityIssues))
-                            .issueCount((long) severityIssues.size())
-                            .dominantType(type)
-                            .dominantSeverity(severity)
-                            .issueIds(severityIssues.stream().map(Issue::getId).collect(Collectors.toList()))
-                            .characteristicKeywords(keywords)
-                            .similarity(similarity)
-                            .recommendation(generateClusterRecommendation(type, severity, severityIssues.size()))
-                            .weight(weight)
-                            .build());
-                    }
+        // Basic clustering by issue type, further clustered by severity within same type
+        for (IssueType type : IssueAnalysisAccumulator.TYPES) {
+            for (Severity severity : IssueAnalysisAccumulator.SEVERITIES) {
+                IssueAnalysisAccumulator.ClusterBucket bucket = accumulator.getClusterBucket(type, severity);
+                if (bucket == null || bucket.getSize() < 2) { // At least 2 issues to form a cluster
+                    continue;
                 }
+                
+                int clusterSize = (int) bucket.getSize();
+                clusters.add(IssueCluster.builder()
+                    .clusterId(type.name() + "_" + severity.name())
+                    .clusterName(type.getDescription() + " - " + severity.getDescription())
+                    .centerDescription("Main topics: " + String.join(", ", topKeywords(bucket.getKeywordCounts(), 1, 3)))
+                    .issueCount((long) clusterSize)
+                    .dominantType(type)
+                    .dominantSeverity(severity)
+                    .issueIds(new ArrayList<>(bucket.getIssueIds()))
+                    .characteristicKeywords(topKeywords(bucket.getKeywordCounts(), 2, 5))
+                    .similarity(bucket.getAverageSimilarity())
+                    .recommendation(generateClusterRecommendation(type, severity, clusterSize))
+                    .weight(calculateClusterWeight(severity, clusterSize, accumulator.getTotalIssues()))
+                    .build());
             }
         }
         
@@ -642,102 +424,32 @@ public class IssueAnalyzer {
     }
     
     /**
-     * Extract cluster characteristic keywords
+     * Most frequent keywords of a cluster
      */
-    private List<String> extractClusterKeywords(List<Issue> issues) {
-        Map<String, Integer> keywordCount = new HashMap<>();
-        
-        for (Issue issue : issues) {
-            List<String> keywords = extractKeywords(issue.getDescription());
-            for (String keyword : keywords) {
-                keywordCount.put(keyword, keywordCount.getOrDefault(keyword, 0) + 1);
-            }
-        }
-        
+    private List<String> topKeywords(Map<String, Integer> keywordCount, int minCount, int limit) {
         return keywordCount.entrySet().stream()
-            .filter(entry -> entry.getValue() >= 2) // At least 2 occurrences
+            .filter(entry -> entry.getValue() >= minCount)
             .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
-            .limit(5)
+            .limit(limit)
             .map(Map.Entry::getKey)
             .collect(Collectors.toList());
     }
     
-    /**
-     * Calculate cluster similarity
-     */
-    private double calculateClusterSimilarity(List<Issue> issues) {
-        if (issues.size() < 2) return 1.0;
-        
-        // Calculate similarity based on keyword overlap
-        List<Set<String>> keywordSets = issues.stream()
-            .map(issue -> new HashSet<>(extractKeywords(issue.getDescription())))
-            .collect(Collectors.toList());
-        
-        double totalSimilarity = 0.0;
-        int comparisons = 0;
-        
-        for (int i = 0; i < keywordSets.size(); i++) {
-            for (int j = i + 1; j < keywordSets.size(); j++) {
-                Set<String> set1 = keywordSets.get(i);
-                Set<String> set2 = keywordSets.get(j);
-                
-                Set<String> intersection = new HashSet<>(set1);
-                intersection.retainAll(set2);
-                
-                Set<String> union = new HashSet<>(set1);
-                union.addAll(set2);
-                
-                double similarity = union.isEmpty() ? 0.0 : (double) intersection.size() / union.size();
-                totalSimilarity += similarity;
-                comparisons++;
-            }
-        }
-        
-        return comparisons > 0 ? totalSimilarity / comparisons : 0.0;
-    }
-    
-    /**
-     * Generate cluster center description
-     */
-    private String generateClusterCenterDescription(List<Issue> issues) {
-        // Find most representative issue description
-        Map<String, Integer> keywordCount = new HashMap<>();
-        
-        for (Issue issue : issues) {
-            List<String> keywords = extractKeywords(issue.getDescription());
-            for (String keyword : keywords) {
-                keywordCount.put(keyword, keywordCount.getOrDefault(keyword, 0) + 1);
-            }
-        }
-        
-        List<String> topKeywords = keywordCount.entrySet().stream()
-            .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
-            .limit(3)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-        
-        return "Main topics: " + String.join(", ", topKeywords);
-    }
-    
     /**
      * Calculate cluster weight
      */
-    private double calculateClusterWeight(List<Issue> clusterIssues, int totalIssues) {
+    private double calculateClusterWeight(Severity severity, int clusterSize, long totalIssues) {
         // Calculate weight based on quantity ratio and severity
-        double quantityWeight = (double) clusterIssues.size() / totalIssues;
-        
-        double severityWeight = clusterIssues.stream()
-            .mapToDouble(issue -> {
-                switch (issue.getSeverity()) {
-                    case CRITICAL: return 1.0;
-                    case MAJOR: return 0.7;
-                    case MINOR: return 0.4;
-                    case SUGGESTION: return 0.1;
-                    default: return 0.5;
-                }
-            })
-            .average()
-            .orElse(0.5);
+        double quantityWeight = (double) clusterSize / totalIssues;
+        
+        double severityWeight;
+        switch (severity) {
+            case CRITICAL: severityWeight = 1.0; break;
+            case MAJOR: severityWeight = 0.7; break;
+            case MINOR: severityWeight = 0.4; break;
+            case SUGGESTION: severityWeight = 0.1; break;
+            default: severityWeight = 0.5;
+        }
         
         return (quantityWeight * 0.6 + severityWeight * 0.4) * 100;
     }
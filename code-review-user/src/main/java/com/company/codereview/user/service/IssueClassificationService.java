@@ -2,71 +2,120 @@ package com.company.codereview.user.service;
 
 import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.AhoCorasickMatcher;
+import com.company.codereview.user.config.IssueClassificationConfig;
 import com.company.codereview.user.entity.Issue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * 问题分类服务
+ *
+ * 全部类型、严重级别和标签关键词编译为一个 Aho–Corasick 自动机，每个问题只扫描一次文本，
+ * 同时得到各类别的命中关键词。关键词可通过外部文件热更新。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class IssueClassificationService {
     
-    // 功能缺陷关键词
-    private static final Set<String> FUNCTIONAL_DEFECT_KEYWORDS = Set.of(
-            "空指针", "nullpointer", "npe", "异常", "exception", "错误", "error",
-            "崩溃", "crash", "失败", "fail", "bug", "缺陷", "defect", "资源泄露",
-            "内存泄露", "死锁", "deadlock", "数组越界", "索引", "index"
-    );
+    private final IssueClassificationConfig classificationConfig;
     
-    // 性能问题关键词
-    private static final Set<String> PERFORMANCE_KEYWORDS = Set.of(
-            "性能", "performance", "慢", "slow", "超时", "timeout", "延迟", "delay",
-            "响应时间", "response time", "吞吐量", "throughput", "内存", "memory",
-            "cpu", "循环", "loop", "查询", "query", "n+1", "缓存", "cache"
-    );
+    private volatile KeywordIndex keywordIndex;
     
-    // 安全漏洞关键词
-    private static final Set<String> SECURITY_KEYWORDS = Set.of(
-            "安全", "security", "漏洞", "vulnerability", "注入", "injection",
-            "xss", "csrf", "sql注入", "权限", "permission", "认证", "authentication",
-            "授权", "authorization", "密码", "password", "加密", "encryption"
-    );
+    private volatile long keywordsFileLastModified = -1L;
     
-    // 代码规范关键词
-    private static final Set<String> CODE_STANDARD_KEYWORDS = Set.of(
-            "命名", "naming", "注释", "comment", "格式", "format", "缩进", "indent",
-            "规范", "standard", "风格", "style", "可读性", "readability", "文档", "document"
-    );
-    
-    // 设计问题关键词
-    private static final Set<String> DESIGN_KEYWORDS = Set.of(
-            "设计", "design", "架构", "architecture", "耦合", "coupling", "内聚", "cohesion",
-            "单一职责", "srp", "开闭原则", "ocp", "依赖", "dependency", "接口", "interface",
-            "抽象", "abstract", "继承", "inheritance", "多态", "polymorphism"
-    );
+    /**
+     * 启动时编译关键词
+     */
+    @PostConstruct
+    public void init() {
+        reloadKeywords();
+    }
     
-    // 严重级别关键词
-    private static final Set<String> CRITICAL_KEYWORDS = Set.of(
-            "严重", "critical", "致命", "fatal", "崩溃", "crash", "数据丢失", "data loss",
-            "安全漏洞", "security vulnerability", "系统宕机", "system down"
-    );
+    /**
+     * 定期检查外部关键词文件，修改后重新编译
+     */
+    @Scheduled(fixedDelayString = "${issue.classification.reload-interval-millis:30000}")
+    public void reloadKeywordsIfChanged() {
+        String keywordsFile = classificationConfig.getKeywordsFile();
+        if (!StringUtils.hasText(keywordsFile)) {
+            return;
+        }
+        
+        long lastModified = Paths.get(keywordsFile).toFile().lastModified();
+        if (lastModified != keywordsFileLastModified) {
+            reloadKeywords();
+        }
+    }
     
-    private static final Set<String> MAJOR_KEYWORDS = Set.of(
-            "重要", "major", "影响功能", "功能异常", "性能问题", "performance issue",
-            "用户体验", "user experience", "业务逻辑", "business logic"
-    );
+    /**
+     * 按当前配置和外部关键词文件重新编译关键词
+     */
+    public synchronized void reloadKeywords() {
+        Map<IssueType, List<String>> typeKeywords = new EnumMap<>(IssueType.class);
+        typeKeywords.putAll(classificationConfig.getTypeKeywords());
+        Map<Severity, List<String>> severityKeywords = new EnumMap<>(Severity.class);
+        severityKeywords.putAll(classificationConfig.getSeverityKeywords());
+        Map<String, List<String>> tagKeywords = new LinkedHashMap<>(classificationConfig.getTagKeywords());
+        
+        String keywordsFile = classificationConfig.getKeywordsFile();
+        if (StringUtils.hasText(keywordsFile)) {
+            Path path = Paths.get(keywordsFile);
+            long lastModified = path.toFile().lastModified();
+            try {
+                applyKeywordsFile(path, typeKeywords, severityKeywords, tagKeywords);
+            } catch (IOException | RuntimeException e) {
+                log.warn("加载分类关键词文件失败，继续使用当前关键词: file={}, error={}", keywordsFile, e.getMessage());
+                if (keywordIndex != null) {
+                    keywordsFileLastModified = lastModified;
+                    return;
+                }
+            }
+            keywordsFileLastModified = lastModified;
+        }
+        
+        keywordIndex = KeywordIndex.build(typeKeywords, severityKeywords, tagKeywords);
+        log.info("分类关键词已编译: keywords={}, tags={}", keywordIndex.matcher.size(), tagKeywords.size());
+    }
     
-    private static final Set<String> MINOR_KEYWORDS = Set.of(
-            "轻微", "minor", "小问题", "优化", "optimization", "改进", "improvement",
-            "代码规范", "code standard", "格式", "format"
-    );
+    private void applyKeywordsFile(Path path, Map<IssueType, List<String>> typeKeywords,
+                                   Map<Severity, List<String>> severityKeywords,
+                                   Map<String, List<String>> tagKeywords) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        
+        for (String key : properties.stringPropertyNames()) {
+            List<String> keywords = Arrays.asList(StringUtils.commaDelimitedListToStringArray(properties.getProperty(key)));
+            if (key.startsWith("type.")) {
+                typeKeywords.put(IssueType.valueOf(key.substring("type.".length()).trim()), keywords);
+            } else if (key.startsWith("severity.")) {
+                severityKeywords.put(Severity.valueOf(key.substring("severity.".length()).trim()), keywords);
+            } else if (key.startsWith("tag.")) {
+                tagKeywords.put(key.substring("tag.".length()).trim(), keywords);
+            } else {
+                log.warn("忽略无法识别的分类关键词配置: {}", key);
+            }
+        }
+    }
     
     /**
      * 自动分类问题类型
@@ -74,36 +123,21 @@ public class IssueClassificationService {
     public IssueType classifyIssueType(String title, String description) {
         log.debug("自动分类问题类型: title={}", title);
         
-        String content = (title + " " + description).toLowerCase();
-        
-        // 计算各类型的匹配分数
-        int functionalScore = calculateKeywordScore(content, FUNCTIONAL_DEFECT_KEYWORDS);
-        int performanceScore = calculateKeywordScore(content, PERFORMANCE_KEYWORDS);
-        int securityScore = calculateKeywordScore(content, SECURITY_KEYWORDS);
-        int standardScore = calculateKeywordScore(content, CODE_STANDARD_KEYWORDS);
-        int designScore = calculateKeywordScore(content, DESIGN_KEYWORDS);
-        
-        // 找出最高分数的类型
-        int maxScore = Math.max(functionalScore, 
-                       Math.max(performanceScore, 
-                       Math.max(securityScore, 
-                       Math.max(standardScore, designScore))));
-        
-        if (maxScore == 0) {
-            return IssueType.FUNCTIONAL_DEFECT; // 默认类型
-        }
-        
-        if (functionalScore == maxScore) {
-            return IssueType.FUNCTIONAL_DEFECT;
-        } else if (performanceScore == maxScore) {
-            return IssueType.PERFORMANCE_ISSUE;
-        } else if (securityScore == maxScore) {
-            return IssueType.SECURITY_VULNERABILITY;
-        } else if (standardScore == maxScore) {
-            return IssueType.CODE_STANDARD;
-        } else {
-            return IssueType.DESIGN_ISSUE;
+        return classifyIssueType(keywordIndex.scan(title, description));
+    }
+    
+    private IssueType classifyIssueType(KeywordMatches matches) {
+        // 找出最高分数的类型，分数相同时按枚举顺序优先
+        IssueType bestType = IssueType.FUNCTIONAL_DEFECT; // 默认类型
+        int maxScore = 0;
+        for (IssueType type : IssueType.values()) {
+            int score = matches.getScore(type);
+            if (score > maxScore) {
+                maxScore = score;
+                bestType = type;
+            }
         }
+        return bestType;
     }
     
     /**
@@ -112,23 +146,20 @@ public class IssueClassificationService {
     public Severity classifySeverity(String title, String description, IssueType issueType) {
         log.debug("自动评估严重级别: title={}, type={}", title, issueType);
         
-        String content = (title + " " + description).toLowerCase();
-        
-        // 计算严重级别分数
-        int criticalScore = calculateKeywordScore(content, CRITICAL_KEYWORDS);
-        int majorScore = calculateKeywordScore(content, MAJOR_KEYWORDS);
-        int minorScore = calculateKeywordScore(content, MINOR_KEYWORDS);
-        
+        return classifySeverity(keywordIndex.scan(title, description), issueType);
+    }
+    
+    private Severity classifySeverity(KeywordMatches matches, IssueType issueType) {
         // 根据问题类型调整基础严重级别
         Severity baseSeverity = getBaseSeverityByType(issueType);
         
         // 根据关键词分数调整严重级别
-        if (criticalScore > 0) {
+        if (matches.getScore(Severity.CRITICAL) > 0) {
             return Severity.CRITICAL;
-        } else if (majorScore > 0) {
+        } else if (matches.getScore(Severity.MAJOR) > 0) {
             return baseSeverity == Severity.SUGGESTION ? Severity.MINOR : 
                    baseSeverity == Severity.MINOR ? Severity.MAJOR : baseSeverity;
-        } else if (minorScore > 0) {
+        } else if (matches.getScore(Severity.MINOR) > 0) {
             return baseSeverity == Severity.CRITICAL ? Severity.MAJOR :
                    baseSeverity == Severity.MAJOR ? Severity.MINOR : baseSeverity;
         }
@@ -156,41 +187,34 @@ public class IssueClassificationService {
         }
     }
     
-    /**
-     * 计算关键词匹配分数
-     */
-    private int calculateKeywordScore(String content, Set<String> keywords) {
-        int score = 0;
-        for (String keyword : keywords) {
-            if (content.contains(keyword)) {
-                score++;
-            }
-        }
-        return score;
-    }
-    
     /**
      * 智能分类问题
      */
     public Issue classifyIssue(Issue issue) {
+        return classifyIssue(issue, keywordIndex);
+    }
+    
+    private Issue classifyIssue(Issue issue, KeywordIndex index) {
         log.info("智能分类问题: issueId={}, title={}", issue.getId(), issue.getTitle());
         
+        KeywordMatches matches = index.scan(issue.getTitle(), issue.getDescription());
+        
         // 自动分类问题类型
         if (issue.getIssueType() == null) {
-            IssueType classifiedType = classifyIssueType(issue.getTitle(), issue.getDescription());
+            IssueType classifiedType = classifyIssueType(matches);
             issue.setIssueType(classifiedType);
             log.debug("自动分类问题类型: issueId={}, type={}", issue.getId(), classifiedType);
         }
         
         // 自动评估严重级别
         if (issue.getSeverity() == null) {
-            Severity classifiedSeverity = classifySeverity(issue.getTitle(), issue.getDescription(), issue.getIssueType());
+            Severity classifiedSeverity = classifySeverity(matches, issue.getIssueType());
             issue.setSeverity(classifiedSeverity);
             log.debug("自动评估严重级别: issueId={}, severity={}", issue.getId(), classifiedSeverity);
         }
         
         // 生成标签
-        Set<String> tags = generateTags(issue);
+        Set<String> tags = generateTags(issue, matches);
         if (!tags.isEmpty()) {
             // 这里可以将标签存储到数据库或其他地方
             log.debug("生成问题标签: issueId={}, tags={}", issue.getId(), tags);
@@ -203,30 +227,12 @@ public class IssueClassificationService {
      * 生成问题标签
      */
     public Set<String> generateTags(Issue issue) {
-        Set<String> tags = new HashSet<>();
-        
-        String content = (issue.getTitle() + " " + issue.getDescription()).toLowerCase();
-        
+        return generateTags(issue, keywordIndex.scan(issue.getTitle(), issue.getDescription()));
+    }
+    
+    private Set<String> generateTags(Issue issue, KeywordMatches matches) {
         // 根据内容生成标签
-        if (content.contains("空指针") || content.contains("nullpointer")) {
-            tags.add("空指针异常");
-        }
-        
-        if (content.contains("性能") || content.contains("慢") || content.contains("超时")) {
-            tags.add("性能问题");
-        }
-        
-        if (content.contains("安全") || content.contains("漏洞") || content.contains("注入")) {
-            tags.add("安全风险");
-        }
-        
-        if (content.contains("命名") || content.contains("注释") || content.contains("格式")) {
-            tags.add("代码规范");
-        }
-        
-        if (content.contains("设计") || content.contains("架构") || content.contains("耦合")) {
-            tags.add("设计问题");
-        }
+        Set<String> tags = new HashSet<>(matches.getTags());
         
         // 根据严重级别添加标签
         if (issue.getSeverity() == Severity.CRITICAL) {
@@ -247,11 +253,13 @@ public class IssueClassificationService {
     public List<Issue> batchClassifyIssues(List<Issue> issues) {
         log.info("批量分类问题: count={}", issues.size());
         
-        List<Issue> classifiedIssues = new ArrayList<>();
+        // 整批使用同一份关键词，避免中途热更新导致结果不一致
+        KeywordIndex index = keywordIndex;
+        List<Issue> classifiedIssues = new ArrayList<>(issues.size());
         
         for (Issue issue : issues) {
             try {
-                Issue classifiedIssue = classifyIssue(issue);
+                Issue classifiedIssue = classifyIssue(issue, index);
                 classifiedIssues.add(classifiedIssue);
             } catch (Exception e) {
                 log.error("分类问题失败: issueId={}, error={}", issue.getId(), e.getMessage(), e);
@@ -269,18 +277,15 @@ public class IssueClassificationService {
     public IssueClassificationSuggestion getClassificationSuggestion(String title, String description) {
         log.debug("获取问题分类建议: title={}", title);
         
-        IssueType suggestedType = classifyIssueType(title, description);
-        Severity suggestedSeverity = classifySeverity(title, description, suggestedType);
-        
-        // 计算置信度
-        String content = (title + " " + description).toLowerCase();
-        double confidence = calculateClassificationConfidence(content, suggestedType);
+        KeywordMatches matches = keywordIndex.scan(title, description);
+        IssueType suggestedType = classifyIssueType(matches);
+        Severity suggestedSeverity = classifySeverity(matches, suggestedType);
         
         IssueClassificationSuggestion suggestion = new IssueClassificationSuggestion();
         suggestion.setSuggestedType(suggestedType);
         suggestion.setSuggestedSeverity(suggestedSeverity);
-        suggestion.setConfidence(confidence);
-        suggestion.setReason(generateClassificationReason(content, suggestedType, suggestedSeverity));
+        suggestion.setConfidence(calculateClassificationConfidence(matches, suggestedType));
+        suggestion.setReason(generateClassificationReason(matches, suggestedType, suggestedSeverity));
         
         return suggestion;
     }
@@ -288,30 +293,13 @@ public class IssueClassificationService {
     /**
      * 计算分类置信度
      */
-    private double calculateClassificationConfidence(String content, IssueType suggestedType) {
-        Set<String> keywords;
-        switch (suggestedType) {
-            case FUNCTIONAL_DEFECT:
-                keywords = FUNCTIONAL_DEFECT_KEYWORDS;
-                break;
-            case PERFORMANCE_ISSUE:
-                keywords = PERFORMANCE_KEYWORDS;
-                break;
-            case SECURITY_VULNERABILITY:
-                keywords = SECURITY_KEYWORDS;
-                break;
-            case CODE_STANDARD:
-                keywords = CODE_STANDARD_KEYWORDS;
-                break;
-            case DESIGN_ISSUE:
-                keywords = DESIGN_KEYWORDS;
-                break;
-            default:
-                return 0.5;
+    private double calculateClassificationConfidence(KeywordMatches matches, IssueType suggestedType) {
+        int totalKeywords = matches.getKeywordCount(suggestedType);
+        if (totalKeywords == 0) {
+            return 0.5;
         }
         
-        int matchCount = calculateKeywordScore(content, keywords);
-        int totalKeywords = keywords.size();
+        int matchCount = matches.getScore(suggestedType);
         
         // 简单的置信度计算：匹配关键词数量 / 总关键词数量
         double confidence = Math.min(1.0, (double) matchCount / Math.min(5, totalKeywords));
@@ -321,47 +309,153 @@ public class IssueClassificationService {
     /**
      * 生成分类原因说明
      */
-    private String generateClassificationReason(String content, IssueType type, Severity severity) {
+    private String generateClassificationReason(KeywordMatches matches, IssueType type, Severity severity) {
         StringBuilder reason = new StringBuilder();
         
         reason.append("基于内容分析，建议分类为").append(type.name()).append("，");
         reason.append("严重级别为").append(severity.name()).append("。");
         
-        // 添加具体的匹配关键词
-        Set<String> keywords = getKeywordsByType(type);
-        List<String> matchedKeywords = new ArrayList<>();
+        // 添加具体的匹配关键词，最多显示3个
+        List<String> matchedKeywords = matches.getMatchedKeywords(type);
+        if (!matchedKeywords.isEmpty()) {
+            reason.append(" 匹配关键词：")
+                  .append(String.join(", ", matchedKeywords.subList(0, Math.min(3, matchedKeywords.size()))));
+        }
         
-        for (String keyword : keywords) {
-            if (content.contains(keyword)) {
-                matchedKeywords.add(keyword);
-                if (matchedKeywords.size() >= 3) break; // 最多显示3个关键词
+        return reason.toString();
+    }
+    
+    /**
+     * 编译后的关键词索引（不可变，热更新时整体替换）
+     *
+     * 类别编号：问题类型按枚举序号，其后为严重级别，再其后为标签
+     */
+    private static final class KeywordIndex {
+        private static final int SEVERITY_OFFSET = IssueType.values().length;
+        private static final int TAG_OFFSET = SEVERITY_OFFSET + Severity.values().length;
+        
+        private final AhoCorasickMatcher matcher;
+        private final int[][] keywordCategories;
+        private final int[] categoryKeywordCounts;
+        private final String[] tagNames;
+        
+        private KeywordIndex(AhoCorasickMatcher matcher, int[][] keywordCategories,
+                             int[] categoryKeywordCounts, String[] tagNames) {
+            this.matcher = matcher;
+            this.keywordCategories = keywordCategories;
+            this.categoryKeywordCounts = categoryKeywordCounts;
+            this.tagNames = tagNames;
+        }
+        
+        static KeywordIndex build(Map<IssueType, List<String>> typeKeywords,
+                                  Map<Severity, List<String>> severityKeywords,
+                                  Map<String, List<String>> tagKeywords) {
+            String[] tagNames = tagKeywords.keySet().toArray(new String[0]);
+            Map<String, Set<Integer>> categoriesByKeyword = new LinkedHashMap<>();
+            int[] categoryKeywordCounts = new int[TAG_OFFSET + tagNames.length];
+            
+            typeKeywords.forEach((type, keywords) ->
+                    addKeywords(categoriesByKeyword, categoryKeywordCounts, type.ordinal(), keywords));
+            severityKeywords.forEach((severity, keywords) ->
+                    addKeywords(categoriesByKeyword, categoryKeywordCounts, SEVERITY_OFFSET + severity.ordinal(), keywords));
+            for (int i = 0; i < tagNames.length; i++) {
+                addKeywords(categoriesByKeyword, categoryKeywordCounts, TAG_OFFSET + i, tagKeywords.get(tagNames[i]));
+            }
+            
+            List<String> patterns = new ArrayList<>(categoriesByKeyword.keySet());
+            int[][] keywordCategories = new int[patterns.size()][];
+            for (int id = 0; id < patterns.size(); id++) {
+                keywordCategories[id] = categoriesByKeyword.get(patterns.get(id)).stream()
+                        .mapToInt(Integer::intValue).toArray();
             }
+            
+            return new KeywordIndex(new AhoCorasickMatcher(patterns), keywordCategories,
+                    categoryKeywordCounts, tagNames);
         }
         
-        if (!matchedKeywords.isEmpty()) {
-            reason.append(" 匹配关键词：").append(String.join(", ", matchedKeywords));
+        private static void addKeywords(Map<String, Set<Integer>> categoriesByKeyword, int[] categoryKeywordCounts,
+                                        int category, List<String> keywords) {
+            if (keywords == null) {
+                return;
+            }
+            for (String keyword : keywords) {
+                String normalized = keyword == null ? "" : keyword.trim().toLowerCase();
+                if (!normalized.isEmpty()
+                        && categoriesByKeyword.computeIfAbsent(normalized, k -> new LinkedHashSet<>()).add(category)) {
+                    categoryKeywordCounts[category]++;
+                }
+            }
         }
         
-        return reason.toString();
+        /**
+         * 一次扫描标题和描述，统计各类别命中的关键词
+         */
+        KeywordMatches scan(String title, String description) {
+            StringBuilder content = new StringBuilder();
+            if (title != null) {
+                content.append(title);
+            }
+            if (description != null) {
+                content.append(' ').append(description);
+            }
+            
+            KeywordMatches matches = new KeywordMatches(this);
+            matcher.forEachDistinctMatch(content, id -> {
+                for (int category : keywordCategories[id]) {
+                    matches.add(category, id);
+                }
+            });
+            return matches;
+        }
     }
     
     /**
-     * 根据类型获取关键词集合
+     * 单个问题的关键词命中结果
      */
-    private Set<String> getKeywordsByType(IssueType type) {
-        switch (type) {
-            case FUNCTIONAL_DEFECT:
-                return FUNCTIONAL_DEFECT_KEYWORDS;
-            case PERFORMANCE_ISSUE:
-                return PERFORMANCE_KEYWORDS;
-            case SECURITY_VULNERABILITY:
-                return SECURITY_KEYWORDS;
-            case CODE_STANDARD:
-                return CODE_STANDARD_KEYWORDS;
-            case DESIGN_ISSUE:
-                return DESIGN_KEYWORDS;
-            default:
-                return Collections.emptySet();
+    private static final class KeywordMatches {
+        private final KeywordIndex index;
+        private final int[] scores;
+        private final List<List<String>> typeKeywords = new ArrayList<>();
+        
+        private KeywordMatches(KeywordIndex index) {
+            this.index = index;
+            this.scores = new int[index.categoryKeywordCounts.length];
+            for (int i = 0; i < KeywordIndex.SEVERITY_OFFSET; i++) {
+                typeKeywords.add(new ArrayList<>(2));
+            }
+        }
+        
+        private void add(int category, int keywordId) {
+            scores[category]++;
+            if (category < KeywordIndex.SEVERITY_OFFSET) {
+                typeKeywords.get(category).add(index.matcher.getPattern(keywordId));
+            }
+        }
+        
+        int getScore(IssueType type) {
+            return scores[type.ordinal()];
+        }
+        
+        int getScore(Severity severity) {
+            return scores[KeywordIndex.SEVERITY_OFFSET + severity.ordinal()];
+        }
+        
+        int getKeywordCount(IssueType type) {
+            return index.categoryKeywordCounts[type.ordinal()];
+        }
+        
+        List<String> getMatchedKeywords(IssueType type) {
+            return typeKeywords.get(type.ordinal());
+        }
+        
+        List<String> getTags() {
+            List<String> tags = new ArrayList<>();
+            for (int i = 0; i < index.tagNames.length; i++) {
+                if (scores[KeywordIndex.TAG_OFFSET + i] > 0) {
+                    tags.add(index.tagNames[i]);
+                }
+            }
+            return tags;
         }
     }
     
@@ -0,0 +1,145 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.IssueRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 问题超时升级服务
+ *
+ * 按批次执行集合式升级：每批在独立的短事务中锁定候选问题并用一条 UPDATE 完成升级，
+ * 通过 escalated_at 标记保证同一问题只会被升级一次，事务提交后按批次发送升级通知。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IssueEscalationService {
+
+    /**
+     * 追加到问题描述中的超时标记
+     */
+    public static final String ESCALATION_MARKER = "\n\n[系统提醒] 此问题已超时，已自动升级严重级别。";
+
+    private final IssueRepository issueRepository;
+    private final IssueNotificationService notificationService;
+    private final HotIssueIndexService hotIssueIndex;
+    private final FixDeadlineScheduler deadlineScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${issue.escalation.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 升级创建时间早于阈值且仍处于待处理状态的问题
+     *
+     * @return 本次升级的问题数量
+     */
+    public int escalateOverdueIssues(LocalDateTime overdueThreshold) {
+        log.info("批量升级超时问题: threshold={}, batchSize={}", overdueThreshold, batchSize);
+
+        int total = 0;
+        long lastId = 0L;
+        while (true) {
+            final long cursor = lastId;
+            List<Issue> escalated = escalateBatch(
+                    () -> issueRepository.lockOverdueEscalationBatch(overdueThreshold, cursor, batchSize));
+            if (escalated.isEmpty()) {
+                break;
+            }
+
+            notificationService.sendIssueEscalatedNotifications(escalated);
+            total += escalated.size();
+            lastId = escalated.get(escalated.size() - 1).getId();
+
+            if (escalated.size() < batchSize) {
+                break;
+            }
+        }
+
+        log.info("超时问题升级完成: escalatedCount={}", total);
+        return total;
+    }
+
+    /**
+     * 升级指定的问题，已升级过的问题会被跳过
+     *
+     * @return 本次实际升级的问题（严重级别为升级后的值）
+     */
+    public List<Issue> escalateIssues(Collection<Long> issueIds) {
+        if (issueIds == null || issueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(issueIds));
+        Collections.sort(ids);
+
+        List<Issue> result = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            List<Issue> escalated = escalateBatch(() -> issueRepository.lockEscalationBatchByIds(chunk));
+            if (!escalated.isEmpty()) {
+                notificationService.sendIssueEscalatedNotifications(escalated);
+                result.addAll(escalated);
+            }
+        }
+
+        log.info("指定问题升级完成: requested={}, escalated={}", ids.size(), result.size());
+        return result;
+    }
+
+    /**
+     * 在单个短事务内锁定一批候选问题并执行集合式升级
+     */
+    private List<Issue> escalateBatch(Supplier<List<Issue>> candidateLoader) {
+        List<Issue> escalated = transactionTemplate.execute(status -> {
+            List<Issue> candidates = candidateLoader.get();
+            if (candidates.isEmpty()) {
+                return Collections.<Issue>emptyList();
+            }
+
+            List<Long> ids = candidates.stream().map(Issue::getId).collect(Collectors.toList());
+            issueRepository.escalateBatch(ids, ESCALATION_MARKER, LocalDateTime.now());
+
+            // 与 UPDATE 中的 CASE 表达式保持一致，供后续通知使用
+            for (Issue issue : candidates) {
+                issue.setSeverity(escalateSeverity(issue.getSeverity()));
+            }
+            return candidates;
+        });
+        if (escalated == null || escalated.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 严重级别变化后更新热点问题排序和整改截止时间
+        hotIssueIndex.refresh(escalated.stream().map(Issue::getId).collect(Collectors.toList()));
+        escalated.forEach(deadlineScheduler::onIssueChanged);
+        return escalated;
+    }
+
+    /**
+     * 计算升级后的严重级别
+     */
+    public static Severity escalateSeverity(Severity severity) {
+        if (severity == Severity.MINOR) {
+            return Severity.MAJOR;
+        }
+        if (severity == Severity.MAJOR) {
+            return Severity.CRITICAL;
+        }
+        return severity;
+    }
+}
@@ -9,7 +9,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 问题通知服务
@@ -136,6 +144,50 @@ public class IssueNotificationService {
         }
     }
     
+    /**
+     * 批量发送问题升级通知
+     * 一次性加载本批问题涉及的所有用户，避免逐个问题查询
+     */
+    public void sendIssueEscalatedNotifications(List<Issue> issues) {
+        if (issues == null || issues.isEmpty()) {
+            return;
+        }
+        log.info("批量发送问题升级通知: issueCount={}", issues.size());
+        
+        Set<Long> userIds = new HashSet<>();
+        for (Issue issue : issues) {
+            if (issue.getAssignedTo() != null) {
+                userIds.add(issue.getAssignedTo());
+            }
+            if (issue.getCreatedBy() != null) {
+                userIds.add(issue.getCreatedBy());
+            }
+        }
+        Map<Long, User> users = loadUsers(userIds);
+        
+        for (Issue issue : issues) {
+            try {
+                User assignee = issue.getAssignedTo() != null ? users.get(issue.getAssignedTo()) : null;
+                User creator = issue.getCreatedBy() != null ? users.get(issue.getCreatedBy()) : null;
+                
+                NotificationContent content = buildIssueEscalatedContent(issue);
+                
+                if (assignee != null) {
+                    sendNotification(assignee, content);
+                }
+                
+                if (creator != null && (assignee == null || !creator.getId().equals(assignee.getId()))) {
+                    sendNotification(creator, content);
+                }
+                
+                sendNotificationToTeamLeaders(issue, content);
+                
+            } catch (Exception e) {
+                log.error("发送问题升级通知失败: issueId={}, error={}", issue.getId(), e.getMessage(), e);
+            }
+        }
+    }
+    
     /**
      * 发送整改记录提交通知
      */
@@ -202,9 +254,14 @@ public class IssueNotificationService {
     public void sendOverdueReminderNotification(List<Issue> overdueIssues) {
         log.info("发送超时提醒通知: issueCount={}", overdueIssues.size());
         
+        Map<Long, User> assignees = loadUsers(overdueIssues.stream()
+                .map(Issue::getAssignedTo)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        
         for (Issue issue : overdueIssues) {
             try {
-                User assignee = issue.getAssignedTo() != null ? userRepository.selectById(issue.getAssignedTo()) : null;
+                User assignee = issue.getAssignedTo() != null ? assignees.get(issue.getAssignedTo()) : null;
                 
                 if (assignee != null) {
                     NotificationContent content = buildOverdueReminderContent(issue);
@@ -217,6 +274,17 @@ public class IssueNotificationService {
         }
     }
     
+    /**
+     * 批量加载用户
+     */
+    private Map<Long, User> loadUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRepository.selectBatchIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a));
+    }
+    
     /**
      * 发送通知给团队负责人
      */
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +27,10 @@ public class IssueService {
     
     private final IssueRepository issueRepository;
     private final ReviewRecordRepository reviewRecordRepository;
+    private final FixDeadlineScheduler deadlineScheduler;
+    private final HotIssueIndexService hotIssueIndex;
+    private final IssueSimilarityService similarityIndex;
+    private final SearchIndexService searchIndex;
     
     /**
      * 创建问题
@@ -55,6 +60,10 @@ public class IssueService {
         validateIssue(issue);
         
         issueRepository.insert(issue);
+        deadlineScheduler.onIssueChanged(issue);
+        hotIssueIndex.onIssueChanged(issue);
+        similarityIndex.index(issue);
+        searchIndex.refreshIssues(Collections.singletonList(issue.getId()));
         
         log.info("问题创建成功: id={}", issue.getId());
         return issue;
@@ -107,13 +116,44 @@ public class IssueService {
         
         // 验证状态转换
         validateStatusTransition(existingIssue.getStatus(), issue.getStatus());
+        recordResolution(issue, existingIssue.getStatus());
         
         issueRepository.updateById(issue);
+        deadlineScheduler.track(issue.getId(),
+                issue.getStatus() != null ? issue.getStatus() : existingIssue.getStatus(),
+                issue.getSeverity() != null ? issue.getSeverity() : existingIssue.getSeverity(),
+                existingIssue.getCreatedAt());
+        if (issue.getStatus() != existingIssue.getStatus() || 
+            (issue.getSeverity() != null && issue.getSeverity() != existingIssue.getSeverity())) {
+            hotIssueIndex.onIssueChanged(issue);
+        }
+        if ((issue.getTitle() != null && !issue.getTitle().equals(existingIssue.getTitle())) ||
+            (issue.getDescription() != null && !issue.getDescription().equals(existingIssue.getDescription()))) {
+            Issue indexedIssue = new Issue();
+            indexedIssue.setId(issue.getId());
+            indexedIssue.setTitle(issue.getTitle() != null ? issue.getTitle() : existingIssue.getTitle());
+            indexedIssue.setDescription(issue.getDescription() != null ? issue.getDescription() : existingIssue.getDescription());
+            similarityIndex.index(indexedIssue);
+        }
+        searchIndex.refreshIssues(Collections.singletonList(issue.getId()));
         
         log.info("问题更新成功: id={}", issue.getId());
         return issue;
     }
     
+    /**
+     * 问题首次进入已解决或已关闭状态时记录解决时间，已解决问题转为已关闭时保留原解决时间
+     */
+    public static void recordResolution(Issue issue, Issue.IssueStatus previousStatus) {
+        if (isResolved(issue.getStatus()) && !isResolved(previousStatus)) {
+            issue.setResolvedAt(LocalDateTime.now());
+        }
+    }
+    
+    private static boolean isResolved(Issue.IssueStatus status) {
+        return status == Issue.IssueStatus.RESOLVED || status == Issue.IssueStatus.CLOSED;
+    }
+    
     /**
      * 验证状态转换是否合法
      */
@@ -183,6 +223,10 @@ public class IssueService {
         }
         
         issueRepository.deleteById(id);
+        deadlineScheduler.cancel(id);
+        hotIssueIndex.refresh(Collections.singletonList(id));
+        similarityIndex.remove(id);
+        searchIndex.refreshIssues(Collections.singletonList(id));
         
         log.info("问题删除成功: id={}", id);
     }
@@ -255,8 +299,13 @@ public class IssueService {
         // 验证状态转换
         validateStatusTransition(issue.getStatus(), status);
         
+        Issue.IssueStatus previousStatus = issue.getStatus();
         issue.setStatus(status);
+        recordResolution(issue, previousStatus);
         issueRepository.updateById(issue);
+        deadlineScheduler.onIssueChanged(issue);
+        hotIssueIndex.onIssueChanged(issue);
+        searchIndex.refreshIssues(Collections.singletonList(id));
         
         log.info("问题状态更新成功: id={}, status={}", id, status);
         return issue;
@@ -270,6 +319,9 @@ public class IssueService {
         log.info("批量更新问题状态: ids={}, status={}", ids, status);
         
         int updatedCount = issueRepository.batchUpdateStatus(ids, status, updatedBy);
+        deadlineScheduler.refresh(ids);
+        hotIssueIndex.refresh(ids);
+        searchIndex.refreshIssues(ids);
         
         log.info("批量更新完成: 更新了{}条问题", updatedCount);
     }
@@ -290,12 +342,17 @@ public class IssueService {
             throw new RuntimeException("问题已经关闭");
         }
         
+        Issue.IssueStatus previousStatus = issue.getStatus();
         issue.setStatus(Issue.IssueStatus.CLOSED);
+        recordResolution(issue, previousStatus);
         if (reason != null && !reason.trim().isEmpty()) {
             issue.setDescription(issue.getDescription() + "\n\n关闭原因: " + reason);
         }
         
         issueRepository.updateById(issue);
+        deadlineScheduler.onIssueChanged(issue);
+        hotIssueIndex.onIssueChanged(issue);
+        searchIndex.refreshIssues(Collections.singletonList(id));
         
         log.info("问题关闭成功: id={}", id);
         return issue;
@@ -324,6 +381,9 @@ public class IssueService {
         }
         
         issueRepository.updateById(issue);
+        deadlineScheduler.onIssueChanged(issue);
+        hotIssueIndex.onIssueChanged(issue);
+        searchIndex.refreshIssues(Collections.singletonList(id));
         
         log.info("问题重新打开成功: id={}", id);
         return issue;
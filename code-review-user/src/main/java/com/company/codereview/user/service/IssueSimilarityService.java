@@ -0,0 +1,235 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.algorithm.MinHash;
+import com.company.codereview.user.dto.SimilarIssue;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.entity.IssueSimilaritySignature;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.repository.IssueSimilarityRepository;
+import com.company.codereview.user.service.job.DistributedJobRunner;
+import com.company.codereview.user.util.IssueAnalysisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 问题相似度索引服务
+ *
+ * 每个问题的标题和描述在创建或修改时计算一次 MinHash 签名并按 LSH 分段写入桶表，
+ * 查询相似问题时只召回与查询签名有相同桶键的候选，再按签名估算相似度排序，
+ * 耗时与团队问题总数无关。历史问题由定时任务补建索引。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IssueSimilarityService {
+    
+    private static final String BACKFILL_JOB = "issue-similarity:backfill";
+    
+    private final IssueSimilarityRepository similarityRepository;
+    private final IssueRepository issueRepository;
+    private final DistributedJobRunner jobRunner;
+    
+    @Value("${issue.similarity.min-similarity:0.6}")
+    private double minSimilarity;
+    
+    @Value("${issue.similarity.backfill-batch-size:500}")
+    private int backfillBatchSize;
+    
+    /**
+     * 建立或更新问题的相似度索引（当前事务提交后执行）
+     *
+     * 索引失败只记录日志，不影响问题的创建和修改；没有签名的问题由定时任务补建。
+     */
+    public void index(Issue issue) {
+        if (issue == null || issue.getId() == null) {
+            return;
+        }
+        
+        Long issueId = issue.getId();
+        String title = issue.getTitle();
+        String description = issue.getDescription();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indexQuietly(issueId, title, description);
+                }
+            });
+        } else {
+            indexQuietly(issueId, title, description);
+        }
+    }
+    
+    private void indexQuietly(Long issueId, String title, String description) {
+        try {
+            Long teamId = similarityRepository.findTeamIdByIssueId(issueId);
+            if (teamId == null) {
+                log.debug("问题未关联团队，跳过相似度索引: issueId={}", issueId);
+                return;
+            }
+            index(issueId, teamId, title, description);
+        } catch (Exception e) {
+            log.error("更新问题相似度索引失败: issueId={}, error={}", issueId, e.getMessage(), e);
+        }
+    }
+    
+    private void index(Long issueId, Long teamId, String title, String description) {
+        int[] signature = signature(title, description);
+        
+        IssueSimilaritySignature record = new IssueSimilaritySignature();
+        record.setIssueId(issueId);
+        record.setTeamId(teamId);
+        record.setSignature(MinHash.encode(signature));
+        similarityRepository.upsertSignature(record);
+        
+        similarityRepository.deleteBands(issueId);
+        List<Long> bandKeys = toList(IssueAnalysisUtil.textMinHash().bandKeys(signature));
+        if (!bandKeys.isEmpty()) {
+            similarityRepository.insertBands(teamId, issueId, bandKeys);
+        }
+    }
+    
+    /**
+     * 删除问题的相似度索引
+     */
+    public void remove(Long issueId) {
+        similarityRepository.deleteBands(issueId);
+        similarityRepository.deleteSignature(issueId);
+    }
+    
+    /**
+     * 查找与待创建问题相似的团队历史问题
+     *
+     * @param reviewRecordId 待创建问题所属的评审记录
+     * @param limit 最多返回数量
+     */
+    public List<SimilarIssue> findSimilarIssues(Long reviewRecordId, String title, String description, int limit) {
+        Long teamId = similarityRepository.findTeamIdByReviewRecordId(reviewRecordId);
+        if (teamId == null) {
+            return Collections.emptyList();
+        }
+        return findSimilarIssues(teamId, signature(title, description), null, limit);
+    }
+    
+    /**
+     * 查找与已有问题相似的团队问题（不含问题本身）
+     */
+    public List<SimilarIssue> findSimilarIssues(Long issueId, int limit) {
+        IssueSimilaritySignature record = similarityRepository.selectById(issueId);
+        if (record == null) {
+            Issue issue = issueRepository.selectById(issueId);
+            if (issue == null) {
+                throw new RuntimeException("问题不存在");
+            }
+            Long teamId = similarityRepository.findTeamIdByIssueId(issueId);
+            if (teamId == null) {
+                return Collections.emptyList();
+            }
+            return findSimilarIssues(teamId, signature(issue.getTitle(), issue.getDescription()), issueId, limit);
+        }
+        return findSimilarIssues(record.getTeamId(), MinHash.decode(record.getSignature()), issueId, limit);
+    }
+    
+    private List<SimilarIssue> findSimilarIssues(Long teamId, int[] signature, Long excludedIssueId, int limit) {
+        List<Long> bandKeys = toList(IssueAnalysisUtil.textMinHash().bandKeys(signature));
+        if (bandKeys.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        // 只对同桶候选估算相似度
+        List<IssueSimilaritySignature> candidates = similarityRepository.findCandidates(teamId, bandKeys);
+        Map<Long, Double> similarities = candidates.stream()
+                .filter(candidate -> !candidate.getIssueId().equals(excludedIssueId))
+                .collect(Collectors.toMap(IssueSimilaritySignature::getIssueId,
+                        candidate -> MinHash.similarity(signature, MinHash.decode(candidate.getSignature())),
+                        (a, b) -> a));
+        
+        List<Long> rankedIds = similarities.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minSimilarity)
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        if (rankedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Map<Long, Issue> issues = issueRepository.selectBatchIds(rankedIds).stream()
+                .collect(Collectors.toMap(Issue::getId, Function.identity()));
+        List<SimilarIssue> result = new ArrayList<>(rankedIds.size());
+        for (Long id : rankedIds) {
+            Issue issue = issues.get(id);
+            if (issue != null) {
+                result.add(SimilarIssue.builder()
+                        .issueId(id)
+                        .title(issue.getTitle())
+                        .issueType(issue.getIssueType())
+                        .severity(issue.getSeverity())
+                        .status(issue.getStatus())
+                        .similarity(similarities.get(id))
+                        .build());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 为尚未建立签名的历史问题补建索引（集群内只有一个节点执行）
+     */
+    @Scheduled(fixedDelayString = "${issue.similarity.backfill-interval-millis:600000}")
+    public void backfill() {
+        jobRunner.runExclusive(BACKFILL_JOB, this::backfillUnindexedIssues);
+    }
+    
+    private void backfillUnindexedIssues() {
+        long lastId = 0L;
+        int indexed = 0;
+        
+        List<Map<String, Object>> batch;
+        do {
+            batch = similarityRepository.findUnindexedIssues(lastId, backfillBatchSize);
+            for (Map<String, Object> row : batch) {
+                Long issueId = ((Number) row.get("id")).longValue();
+                index(issueId, ((Number) row.get("teamId")).longValue(),
+                        (String) row.get("title"), (String) row.get("description"));
+                lastId = issueId;
+                indexed++;
+            }
+        } while (batch.size() == backfillBatchSize);
+        
+        if (indexed > 0) {
+            log.info("补建问题相似度索引完成: count={}", indexed);
+        }
+    }
+    
+    private static int[] signature(String title, String description) {
+        StringBuilder text = new StringBuilder();
+        if (title != null) {
+            text.append(title);
+        }
+        if (description != null) {
+            text.append(' ').append(description);
+        }
+        return IssueAnalysisUtil.calculateTextSignature(text.toString());
+    }
+    
+    private static List<Long> toList(long[] values) {
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,258 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.algorithm.LogLinearHistogram;
+import com.company.codereview.user.dto.IssueTimeSample;
+import com.company.codereview.user.entity.IssueTimeSketch;
+import com.company.codereview.user.repository.IssueTimeSketchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 耗时分位数草图服务
+ *
+ * 按团队、按天保存解决耗时和首次整改耗时的直方图草图，查询任意日期范围时合并各天草图，
+ * 不再加载问题明细。历史日期的草图由每日任务生成，每次运行补齐从最早样本日期到前一天之间缺失的日期
+ * （包括部署前的日期和任务错过的日期），查询只读取草图；
+ * 尚未生成草图的日期（包括当天）用一次流式查询实时计算，不在查询中写入。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IssueTimeSketchService {
+
+    private static final String[] METRICS = {IssueTimeSketch.METRIC_RESOLUTION, IssueTimeSketch.METRIC_FIRST_FIX};
+
+    private final IssueTimeSketchRepository sketchRepository;
+
+    @Value("${issue.time-sketch.backfill-window-days:31}")
+    private int backfillWindowDays;
+
+    /**
+     * 获取团队在日期范围内的耗时分位数（按天粒度，包含起止日期）
+     *
+     * @param metric {@link IssueTimeSketch#METRIC_RESOLUTION} 或 {@link IssueTimeSketch#METRIC_FIRST_FIX}
+     */
+    public TimePercentiles getPercentiles(Long teamId, String metric, LocalDateTime startDate, LocalDateTime endDate) {
+        return TimePercentiles.of(getMergedSketch(teamId, metric, startDate.toLocalDate(), endDate.toLocalDate()));
+    }
+
+    /**
+     * 合并日期范围内各天的草图
+     */
+    public LogLinearHistogram getMergedSketch(Long teamId, String metric, LocalDate startDate, LocalDate endDate) {
+        LocalDate today = LocalDate.now();
+        LocalDate lastDay = endDate.isAfter(today) ? today : endDate;
+        LogLinearHistogram merged = new LogLinearHistogram();
+        if (startDate.isAfter(lastDay)) {
+            return merged;
+        }
+
+        Set<LocalDate> storedDays = new HashSet<>();
+        for (IssueTimeSketch sketch : sketchRepository.findRange(teamId, metric, startDate, lastDay)) {
+            // 当天的数据仍在变化，不使用已保存的草图
+            if (sketch.getStatDate().isBefore(today)) {
+                merged.merge(LogLinearHistogram.decode(sketch.getSketch()));
+                storedDays.add(sketch.getStatDate());
+            }
+        }
+
+        // 缺失的日期合并为一个查询区间，只计入没有草图的日期的样本
+        LocalDate firstMissing = startDate;
+        while (!firstMissing.isAfter(lastDay) && storedDays.contains(firstMissing)) {
+            firstMissing = firstMissing.plusDays(1);
+        }
+        LocalDate lastMissing = lastDay;
+        while (!lastMissing.isBefore(firstMissing) && storedDays.contains(lastMissing)) {
+            lastMissing = lastMissing.minusDays(1);
+        }
+        if (!firstMissing.isAfter(lastMissing)) {
+            streamSamples(teamId, metric, firstMissing, lastMissing, sample -> {
+                if (!storedDays.contains(sample.getStatDate())) {
+                    record(merged, sample.getMinutes());
+                }
+            });
+        }
+        return merged;
+    }
+
+    /**
+     * 补建团队从最早样本日期到 lastDay 之间缺失的草图（每日任务和启动补建任务调用）
+     *
+     * 按窗口划分日期，每个窗口内每个指标只流式查询一次，样本按日期分到各天；没有样本的日期也保存空草图，
+     * 之后的查询和补建不会再读取这些日期的问题。已有草图的日期不重新计算。
+     *
+     * @return 补建的天数
+     */
+    public int backfillMissingDays(Long teamId, LocalDate lastDay) {
+        LocalDate firstDay = earliest(sketchRepository.findEarliestResolutionDate(teamId),
+                sketchRepository.findEarliestFixDate(teamId));
+        if (firstDay == null || firstDay.isAfter(lastDay)) {
+            return 0;
+        }
+
+        // 首次整改草图在每天的两个指标中最后写入，以它判断该天是否已完整生成
+        Set<LocalDate> storedDays = new HashSet<>(
+                sketchRepository.findStoredDates(teamId, IssueTimeSketch.METRIC_FIRST_FIX, firstDay, lastDay));
+        int built = 0;
+        int windowDays = Math.max(1, backfillWindowDays);
+        for (LocalDate windowStart = firstDay; !windowStart.isAfter(lastDay); windowStart = windowStart.plusDays(windowDays)) {
+            LocalDate windowEnd = windowStart.plusDays(windowDays - 1L);
+            if (windowEnd.isAfter(lastDay)) {
+                windowEnd = lastDay;
+            }
+            built += buildMissingDays(teamId, windowStart, windowEnd, storedDays);
+        }
+
+        if (built > 0) {
+            log.info("补建耗时草图: teamId={}, days={}, range={} - {}", teamId, built, firstDay, lastDay);
+        }
+        return built;
+    }
+
+    private int buildMissingDays(Long teamId, LocalDate firstDay, LocalDate lastDay, Set<LocalDate> storedDays) {
+        LocalDate firstMissing = firstDay;
+        while (!firstMissing.isAfter(lastDay) && storedDays.contains(firstMissing)) {
+            firstMissing = firstMissing.plusDays(1);
+        }
+        LocalDate lastMissing = lastDay;
+        while (!lastMissing.isBefore(firstMissing) && storedDays.contains(lastMissing)) {
+            lastMissing = lastMissing.minusDays(1);
+        }
+        if (firstMissing.isAfter(lastMissing)) {
+            return 0;
+        }
+
+        Map<String, Map<LocalDate, LogLinearHistogram>> dailySketches = new HashMap<>();
+        for (String metric : METRICS) {
+            Map<LocalDate, LogLinearHistogram> daily = new HashMap<>();
+            streamSamples(teamId, metric, firstMissing, lastMissing, sample -> {
+                if (!storedDays.contains(sample.getStatDate())) {
+                    record(daily.computeIfAbsent(sample.getStatDate(), day -> new LogLinearHistogram()), sample.getMinutes());
+                }
+            });
+            dailySketches.put(metric, daily);
+        }
+
+        int built = 0;
+        for (LocalDate day = firstMissing; !day.isAfter(lastMissing); day = day.plusDays(1)) {
+            if (storedDays.contains(day)) {
+                continue;
+            }
+            for (String metric : METRICS) {
+                save(teamId, metric, day, dailySketches.get(metric).getOrDefault(day, new LogLinearHistogram()));
+            }
+            built++;
+        }
+        return built;
+    }
+
+    private static LocalDate earliest(LocalDate a, LocalDate b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * 重新生成团队某天的全部草图（覆盖已保存的结果）
+     */
+    public void rebuildDay(Long teamId, LocalDate day) {
+        for (String metric : METRICS) {
+            LogLinearHistogram daily = new LogLinearHistogram();
+            streamSamples(teamId, metric, day, day, sample -> record(daily, sample.getMinutes()));
+            save(teamId, metric, day, daily);
+            log.debug("生成耗时草图: teamId={}, metric={}, day={}, samples={}",
+                    teamId, metric, day, daily.getTotalCount());
+        }
+    }
+
+    /**
+     * 流式读取日期范围内（包含起止日期）的耗时样本
+     */
+    private void streamSamples(Long teamId, String metric, LocalDate firstDay, LocalDate lastDay,
+                               Consumer<IssueTimeSample> consumer) {
+        LocalDateTime from = firstDay.atStartOfDay();
+        LocalDateTime to = lastDay.plusDays(1).atStartOfDay();
+
+        if (IssueTimeSketch.METRIC_RESOLUTION.equals(metric)) {
+            sketchRepository.streamResolutionSamples(teamId, from, to, context -> consumer.accept(context.getResultObject()));
+        } else if (IssueTimeSketch.METRIC_FIRST_FIX.equals(metric)) {
+            sketchRepository.streamFirstFixSamples(teamId, from, to, context -> consumer.accept(context.getResultObject()));
+        } else {
+            throw new IllegalArgumentException("未知的耗时指标: " + metric);
+        }
+    }
+
+    private void record(LogLinearHistogram histogram, Long minutes) {
+        if (minutes != null) {
+            histogram.record(minutes);
+        }
+    }
+
+    private void save(Long teamId, String metric, LocalDate day, LogLinearHistogram histogram) {
+        IssueTimeSketch sketch = new IssueTimeSketch();
+        sketch.setTeamId(teamId);
+        sketch.setMetric(metric);
+        sketch.setStatDate(day);
+        sketch.setSampleCount(histogram.getTotalCount());
+        sketch.setSketch(histogram.encode());
+        sketchRepository.upsert(sketch);
+    }
+
+    /**
+     * 耗时分位数（小时）
+     */
+    public static class TimePercentiles {
+        private long count;
+        private double mean;
+        private double min;
+        private double max;
+        private double p50;
+        private double p90;
+        private double p99;
+
+        static TimePercentiles of(LogLinearHistogram histogram) {
+            TimePercentiles percentiles = new TimePercentiles();
+            percentiles.setCount(histogram.getTotalCount());
+            percentiles.setMean(histogram.getMean() / 60.0);
+            percentiles.setMin(histogram.getMin() / 60.0);
+            percentiles.setMax(histogram.getMax() / 60.0);
+            percentiles.setP50(histogram.quantile(0.5) / 60.0);
+            percentiles.setP90(histogram.quantile(0.9) / 60.0);
+            percentiles.setP99(histogram.quantile(0.99) / 60.0);
+            return percentiles;
+        }
+
+        // Getters and Setters
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+
+        public double getMean() { return mean; }
+        public void setMean(double mean) { this.mean = mean; }
+
+        public double getMin() { return min; }
+        public void setMin(double min) { this.min = min; }
+
+        public double getMax() { return max; }
+        public void setMax(double max) { this.max = max; }
+
+        public double getP50() { return p50; }
+        public void setP50(double p50) { this.p50 = p50; }
+
+        public double getP90() { return p90; }
+        public void setP90(double p90) { this.p90 = p90; }
+
+        public double getP99() { return p99; }
+        public void setP99(double p99) { this.p99 = p99; }
+    }
+}
@@ -3,12 +3,17 @@ package com.company.codereview.user.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.LeastLoadedAssigner;
+import com.company.codereview.user.dto.IssueFact;
 import com.company.codereview.user.entity.Issue;
 import com.company.codereview.user.entity.FixRecord;
+import com.company.codereview.user.entity.IssueTimeSketch;
 import com.company.codereview.user.entity.ReviewRecord;
+import com.company.codereview.user.entity.User;
 import com.company.codereview.user.repository.IssueRepository;
 import com.company.codereview.user.repository.FixRecordRepository;
 import com.company.codereview.user.repository.ReviewRecordRepository;
+import com.company.codereview.user.repository.UserRepository;
 import com.company.codereview.user.dto.FixRecordRequest;
 import com.company.codereview.user.dto.VerificationRequest;
 import lombok.RequiredArgsConstructor;
@@ -28,10 +33,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class IssueTrackingService {
     
+    private static final int AUTO_ASSIGN_BATCH_SIZE = 500;
+    private static final long SECONDS_PER_DAY = 86400L;
+    
     private final IssueRepository issueRepository;
     private final FixRecordRepository fixRecordRepository;
     private final ReviewRecordRepository reviewRecordRepository;
     private final IssueNotificationService notificationService;
+    private final IssueEscalationService escalationService;
+    private final FixDeadlineScheduler deadlineScheduler;
+    private final UserRepository userRepository;
+    private final HotIssueIndexService hotIssueIndex;
+    private final IssueTimeSketchService timeSketchService;
     
     /**
      * 获取问题跟踪仪表板数据
@@ -39,8 +52,8 @@ public class IssueTrackingService {
     public IssueTrackingDashboard getTrackingDashboard(Long teamId, LocalDateTime startDate, LocalDateTime endDate) {
         log.info("获取问题跟踪仪表板数据: teamId={}, startDate={}, endDate={}", teamId, startDate, endDate);
         
-        // 获取团队所有问题
-        List<Issue> issues = issueRepository.findByTeamId(teamId, startDate, endDate);
+        // 获取团队所有问题（统计投影，不加载文本）
+        List<IssueFact> issues = issueRepository.findFactsByTeamId(teamId, startDate, endDate);
         
         // 统计数据
         IssueTrackingDashboard dashboard = new IssueTrackingDashboard();
@@ -50,17 +63,28 @@ public class IssueTrackingService {
         dashboard.setResolvedIssues((int) issues.stream().filter(i -> i.getStatus() == Issue.IssueStatus.RESOLVED).count());
         dashboard.setClosedIssues((int) issues.stream().filter(i -> i.getStatus() == Issue.IssueStatus.CLOSED).count());
         
-        // 按严重级别统计
-        Map<Severity, Long> severityStats = issues.stream()
-                .collect(Collectors.groupingBy(Issue::getSeverity, Collectors.counting()));
-        dashboard.setCriticalIssues(severityStats.getOrDefault(Severity.CRITICAL, 0L).intValue());
-        dashboard.setMajorIssues(severityStats.getOrDefault(Severity.MAJOR, 0L).intValue());
-        dashboard.setMinorIssues(severityStats.getOrDefault(Severity.MINOR, 0L).intValue());
-        dashboard.setSuggestionIssues(severityStats.getOrDefault(Severity.SUGGESTION, 0L).intValue());
-        
-        // 按类型统计
-        Map<IssueType, Long> typeStats = issues.stream()
-                .collect(Collectors.groupingBy(Issue::getIssueType, Collectors.counting()));
+        // 按严重级别和类型统计，按枚举序号计数
+        int[] severityCounts = new int[Severity.values().length];
+        int[] typeCounts = new int[IssueType.values().length];
+        for (IssueFact issue : issues) {
+            if (issue.severityOrdinal() >= 0) {
+                severityCounts[issue.severityOrdinal()]++;
+            }
+            if (issue.issueTypeOrdinal() >= 0) {
+                typeCounts[issue.issueTypeOrdinal()]++;
+            }
+        }
+        dashboard.setCriticalIssues(severityCounts[Severity.CRITICAL.ordinal()]);
+        dashboard.setMajorIssues(severityCounts[Severity.MAJOR.ordinal()]);
+        dashboard.setMinorIssues(severityCounts[Severity.MINOR.ordinal()]);
+        dashboard.setSuggestionIssues(severityCounts[Severity.SUGGESTION.ordinal()]);
+        
+        Map<IssueType, Long> typeStats = new HashMap<>();
+        for (IssueType type : IssueType.values()) {
+            if (typeCounts[type.ordinal()] > 0) {
+                typeStats.put(type, (long) typeCounts[type.ordinal()]);
+            }
+        }
         dashboard.setIssueTypeStats(typeStats);
         
         // 计算解决率
@@ -82,19 +106,43 @@ public class IssueTrackingService {
     public List<IssueTrendData> getIssueTrendData(Long teamId, LocalDateTime startDate, LocalDateTime endDate) {
         List<IssueTrendData> trendData = new ArrayList<>();
         
+        // 一次查询整个范围的统计投影，再按创建日期（距起始日的天数）计数
+        long firstDay = startDate.toLocalDate().toEpochDay();
+        int dayCount = (int) Math.max(0, endDate.toLocalDate().toEpochDay() - firstDay + 1);
+        int[] totalCounts = new int[dayCount];
+        int[] newCounts = new int[dayCount];
+        int[] resolvedCounts = new int[dayCount];
+        for (IssueFact issue : issueRepository.findFactsByTeamId(
+                teamId, startDate.withHour(0).withMinute(0).withSecond(0), endDate.withHour(23).withMinute(59).withSecond(59))) {
+            if (!issue.hasCreatedAt()) {
+                continue;
+            }
+            long day = Math.floorDiv(issue.createdAtEpochSeconds(), SECONDS_PER_DAY) - firstDay;
+            if (day < 0 || day >= dayCount) {
+                continue;
+            }
+            int index = (int) day;
+            totalCounts[index]++;
+            // 与 00:00:00 和 23:59:59 两个边界时刻比较时不计入新增
+            long secondOfDay = Math.floorMod(issue.createdAtEpochSeconds(), SECONDS_PER_DAY);
+            if (secondOfDay > 0 && secondOfDay < SECONDS_PER_DAY - 1) {
+                newCounts[index]++;
+            }
+            if (issue.statusOrdinal() == Issue.IssueStatus.RESOLVED.ordinal()) {
+                resolvedCounts[index]++;
+            }
+        }
+        
         // 按天统计问题数量
         LocalDateTime current = startDate;
         while (!current.isAfter(endDate)) {
-            LocalDateTime dayStart = current.withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime dayEnd = current.withHour(23).withMinute(59).withSecond(59);
-            
-            List<Issue> dayIssues = issueRepository.findByTeamId(teamId, dayStart, dayEnd);
+            int index = (int) (current.toLocalDate().toEpochDay() - firstDay);
             
             IssueTrendData data = new IssueTrendData();
             data.setDate(current.toLocalDate());
-            data.setTotalIssues(dayIssues.size());
-            data.setNewIssues((int) dayIssues.stream().filter(i -> i.getCreatedAt().isAfter(dayStart) && i.getCreatedAt().isBefore(dayEnd)).count());
-            data.setResolvedIssues((int) dayIssues.stream().filter(i -> i.getStatus() == Issue.IssueStatus.RESOLVED).count());
+            data.setTotalIssues(totalCounts[index]);
+            data.setNewIssues(newCounts[index]);
+            data.setResolvedIssues(resolvedCounts[index]);
             
             trendData.add(data);
             current = current.plusDays(1);
@@ -107,55 +155,20 @@ public class IssueTrackingService {
      * 获取热点问题
      */
     public List<Issue> getHotIssues(Long teamId, int limit) {
-        // 获取最近30天的问题，按严重级别和创建时间排序
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Issue> issues = issueRepository.findByTeamId(teamId, thirtyDaysAgo, LocalDateTime.now());
-        
-        return issues.stream()
-                .filter(issue -> issue.getStatus() == Issue.IssueStatus.OPEN || issue.getStatus() == Issue.IssueStatus.IN_PROGRESS)
-                .sorted((a, b) -> {
-                    // 先按严重级别排序
-                    int severityCompare = getSeverityWeight(a.getSeverity()) - getSeverityWeight(b.getSeverity());
-                    if (severityCompare != 0) {
-                        return severityCompare;
-                    }
-                    // 再按创建时间排序（越早越优先）
-                    return a.getCreatedAt().compareTo(b.getCreatedAt());
-                })
-                .limit(limit)
-                .collect(Collectors.toList());
-    }
-    
-    /**
-     * 获取严重级别权重
-     */
-    private int getSeverityWeight(Severity severity) {
-        switch (severity) {
-            case CRITICAL: return 1;
-            case MAJOR: return 2;
-            case MINOR: return 3;
-            case SUGGESTION: return 4;
-            default: return 5;
-        }
+        return hotIssueIndex.getHotIssues(teamId, limit);
     }
     
     /**
      * 获取用户问题分配情况
      */
     public List<UserIssueAssignment> getUserIssueAssignments(Long teamId) {
-        List<Issue> issues = issueRepository.findByTeamId(teamId, null, null);
+        List<IssueFact> issues = issueRepository.findFactsByTeamId(teamId, null, null);
         
         // 按创建者分组统计
-        Map<Long, List<Issue>> userIssuesMap = issues.stream()
-                .collect(Collectors.groupingBy(Issue::getCreatedBy));
-        
         List<UserIssueAssignment> assignments = new ArrayList<>();
-        for (Map.Entry<Long, List<Issue>> entry : userIssuesMap.entrySet()) {
-            Long userId = entry.getKey();
-            List<Issue> userIssues = entry.getValue();
-            
+        for (List<IssueFact> userIssues : IssueFact.groupByUser(issues, IssueFact::createdById)) {
             UserIssueAssignment assignment = new UserIssueAssignment();
-            assignment.setUserId(userId);
+            assignment.setUserId(userIssues.get(0).getCreatedBy());
             assignment.setTotalIssues(userIssues.size());
             assignment.setOpenIssues((int) userIssues.stream().filter(i -> i.getStatus() == Issue.IssueStatus.OPEN).count());
             assignment.setInProgressIssues((int) userIssues.stream().filter(i -> i.getStatus() == Issue.IssueStatus.IN_PROGRESS).count());
@@ -170,131 +183,97 @@ public class IssueTrackingService {
     
     /**
      * 自动分配问题给团队成员
+     * 团队未分配的问题按严重级别优先、创建时间先后排序，依次分给当前负载最小的成员，
+     * 同一成员的问题用一条语句批量更新
      */
     @Transactional
     public void autoAssignIssues(Long teamId) {
         log.info("自动分配问题: teamId={}", teamId);
         
-        // 获取未分配的问题
-        QueryWrapper<Issue> queryWrapper = new QueryWrapper<>();
-        queryWrapper.isNull("assigned_to")
-                .eq("status", Issue.IssueStatus.OPEN);
-        
-        List<Issue> unassignedIssues = issueRepository.selectList(queryWrapper);
+        // 获取团队未分配的问题
+        List<Issue> unassignedIssues = issueRepository.findUnassignedOpenByTeamId(teamId);
         
         if (unassignedIssues.isEmpty()) {
-            log.info("没有未分配的问题");
+            log.info("团队{}没有未分配的问题", teamId);
             return;
         }
         
-        // 获取团队成员的工作负载
-        List<UserIssueAssignment> assignments = getUserIssueAssignments(teamId);
+        List<Long> memberIds = userRepository.findByTeamId(teamId).stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+        if (memberIds.isEmpty()) {
+            log.warn("团队{}没有可分配的成员", teamId);
+            return;
+        }
         
-        // 按工作负载排序，优先分配给负载较轻的成员
-        assignments.sort(Comparator.comparingInt(a -> a.getOpenIssues() + a.getInProgressIssues()));
+        // 获取团队成员当前负载
+        Map<Long, Integer> memberLoads = new HashMap<>();
+        memberIds.forEach(memberId -> memberLoads.put(memberId, 0));
+        for (Map<String, Object> row : issueRepository.countActiveByAssignees(memberIds)) {
+            memberLoads.put(((Number) row.get("userId")).longValue(), ((Number) row.get("activeCount")).intValue());
+        }
         
-        // 轮询分配
-        int assignmentIndex = 0;
-        for (Issue issue : unassignedIssues) {
-            if (!assignments.isEmpty()) {
-                UserIssueAssignment assignment = assignments.get(assignmentIndex % assignments.size());
-                
-                // 更新问题分配
-                issue.setAssignedTo(assignment.getUserId());
-                issue.setStatus(Issue.IssueStatus.IN_PROGRESS);
-                issueRepository.updateById(issue);
-                
-                // 更新分配统计
-                assignment.setInProgressIssues(assignment.getInProgressIssues() + 1);
-                
-                assignmentIndex++;
-                
-                log.info("问题分配成功: issueId={}, userId={}", issue.getId(), assignment.getUserId());
+        List<Long> issueIds = unassignedIssues.stream()
+                .sorted(Comparator.comparing((Issue issue) -> issue.getSeverity().getLevel())
+                        .thenComparing(Issue::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(Issue::getId)
+                .collect(Collectors.toList());
+        
+        // 负载最小的成员优先
+        Map<Long, List<Long>> plan = LeastLoadedAssigner.assign(issueIds, memberLoads);
+        
+        int assignedCount = 0;
+        for (Map.Entry<Long, List<Long>> entry : plan.entrySet()) {
+            List<Long> assigneeIssueIds = entry.getValue();
+            for (int from = 0; from < assigneeIssueIds.size(); from += AUTO_ASSIGN_BATCH_SIZE) {
+                List<Long> chunk = assigneeIssueIds.subList(from, Math.min(from + AUTO_ASSIGN_BATCH_SIZE, assigneeIssueIds.size()));
+                assignedCount += issueRepository.assignUnassignedBatch(chunk, entry.getKey());
             }
+            log.debug("问题分配: userId={}, issueCount={}", entry.getKey(), assigneeIssueIds.size());
         }
+        
+        deadlineScheduler.refresh(issueIds);
+        
+        log.info("自动分配完成: teamId={}, candidateIssues={}, assignedIssues={}, assignees={}", 
+                teamId, issueIds.size(), assignedCount, plan.size());
     }
     
     /**
      * 升级超时问题
+     * 按批次集合式升级，已升级过的问题不会被重复升级
      */
-    @Transactional
     public void escalateOverdueIssues() {
         log.info("升级超时问题");
         
         LocalDateTime overdueThreshold = LocalDateTime.now().minusDays(7); // 7天未处理视为超时
         
-        QueryWrapper<Issue> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("status", Issue.IssueStatus.OPEN)
-                .lt("created_at", overdueThreshold);
-        
-        List<Issue> overdueIssues = issueRepository.selectList(queryWrapper);
+        int escalatedCount = escalationService.escalateOverdueIssues(overdueThreshold);
         
-        for (Issue issue : overdueIssues) {
-            // 提升严重级别
-            if (issue.getSeverity() == Severity.MINOR) {
-                issue.setSeverity(Severity.MAJOR);
-            } else if (issue.getSeverity() == Severity.MAJOR) {
-                issue.setSeverity(Severity.CRITICAL);
-            }
-            
-            // 添加超时标记
-            issue.setDescription(issue.getDescription() + "\n\n[系统提醒] 此问题已超时，已自动升级严重级别。");
-            
-            issueRepository.updateById(issue);
-            
-            log.info("问题升级成功: issueId={}, newSeverity={}", issue.getId(), issue.getSeverity());
-        }
+        log.info("超时问题升级完成: escalatedCount={}", escalatedCount);
     }
     
     /**
      * 获取问题解决时间统计
+     * 合并团队每日的解决耗时草图得到分位数，统计范围为时间段内解决的问题（按天粒度）
      */
     public IssueResolutionStats getResolutionStats(Long teamId, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Issue> resolvedIssues = issueRepository.findByTeamId(teamId, startDate, endDate)
-                .stream()
-                .filter(issue -> issue.getStatus() == Issue.IssueStatus.RESOLVED || issue.getStatus() == Issue.IssueStatus.CLOSED)
-                .collect(Collectors.toList());
-        
-        if (resolvedIssues.isEmpty()) {
-            return new IssueResolutionStats();
-        }
-        
-        // 计算解决时间
-        List<Long> resolutionTimes = resolvedIssues.stream()
-                .map(this::calculateResolutionTime)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        IssueTimeSketchService.TimePercentiles percentiles = timeSketchService.getPercentiles(
+                teamId, IssueTimeSketch.METRIC_RESOLUTION, startDate, endDate);
         
         IssueResolutionStats stats = new IssueResolutionStats();
-        stats.setTotalResolvedIssues(resolvedIssues.size());
-        
-        if (!resolutionTimes.isEmpty()) {
-            stats.setAverageResolutionTime(resolutionTimes.stream().mapToLong(Long::longValue).average().orElse(0.0));
-            stats.setMinResolutionTime(Collections.min(resolutionTimes));
-            stats.setMaxResolutionTime(Collections.max(resolutionTimes));
-            
-            // 计算中位数
-            resolutionTimes.sort(Long::compareTo);
-            int size = resolutionTimes.size();
-            if (size % 2 == 0) {
-                stats.setMedianResolutionTime((resolutionTimes.get(size / 2 - 1) + resolutionTimes.get(size / 2)) / 2.0);
-            } else {
-                stats.setMedianResolutionTime(resolutionTimes.get(size / 2).doubleValue());
-            }
+        if (percentiles.getCount() == 0) {
+            return stats;
         }
         
-        return stats;
-    }
-    
-    /**
-     * 计算问题解决时间（小时）
-     */
-    private Long calculateResolutionTime(Issue issue) {
-        if (issue.getCreatedAt() == null || issue.getUpdatedAt() == null) {
-            return null;
-        }
+        stats.setTotalResolvedIssues((int) percentiles.getCount());
+        stats.setAverageResolutionTime(percentiles.getMean());
+        stats.setMinResolutionTime((long) percentiles.getMin());
+        stats.setMaxResolutionTime((long) percentiles.getMax());
+        stats.setMedianResolutionTime(percentiles.getP50());
+        stats.setP90ResolutionTime(percentiles.getP90());
+        stats.setP99ResolutionTime(percentiles.getP99());
         
-        return java.time.Duration.between(issue.getCreatedAt(), issue.getUpdatedAt()).toHours();
+        return stats;
     }
     
     /**
@@ -367,8 +346,12 @@ public class IssueTrackingService {
             case PASS:
                 fixRecord.setStatus(FixRecord.FixStatus.APPROVED);
                 if (issue != null) {
+                    Issue.IssueStatus previousStatus = issue.getStatus();
                     issue.setStatus(Issue.IssueStatus.RESOLVED);
+                    IssueService.recordResolution(issue, previousStatus);
                     issueRepository.updateById(issue);
+                    deadlineScheduler.onIssueChanged(issue);
+                    hotIssueIndex.onIssueChanged(issue);
                 }
                 break;
             case FAIL:
@@ -553,26 +536,7 @@ public class IssueTrackingService {
      * 计算剩余时间
      */
     private long calculateRemainingTime(Issue issue) {
-        // 根据严重级别设置期限
-        int deadlineDays;
-        switch (issue.getSeverity()) {
-            case CRITICAL:
-                deadlineDays = 1;
-                break;
-            case MAJOR:
-                deadlineDays = 3;
-                break;
-            case MINOR:
-                deadlineDays = 7;
-                break;
-            case SUGGESTION:
-                deadlineDays = 14;
-                break;
-            default:
-                deadlineDays = 7;
-        }
-        
-        LocalDateTime deadline = issue.getCreatedAt().plusDays(deadlineDays);
+        LocalDateTime deadline = FixDeadlineScheduler.calculateDeadline(issue.getSeverity(), issue.getCreatedAt());
         return java.time.Duration.between(LocalDateTime.now(), deadline).toHours();
     }
     
@@ -582,11 +546,14 @@ public class IssueTrackingService {
     public FixEffectivenessReport getFixEffectivenessReport(Long teamId, LocalDateTime startDate, LocalDateTime endDate) {
         log.info("获取整改效果评估: teamId={}, startDate={}, endDate={}", teamId, startDate, endDate);
         
-        List<Issue> issues = issueRepository.findByTeamId(teamId, startDate, endDate);
+        List<IssueFact> issues = issueRepository.findFactsByTeamId(teamId, startDate, endDate);
         List<FixRecord> fixRecords = new ArrayList<>();
+        int[] fixAttempts = new int[issues.size()];
         
-        for (Issue issue : issues) {
-            fixRecords.addAll(fixRecordRepository.findByIssueId(issue.getId()));
+        for (int i = 0; i < issues.size(); i++) {
+            List<FixRecord> issueFixRecords = fixRecordRepository.findByIssueId(issues.get(i).id());
+            fixAttempts[i] = issueFixRecords.size();
+            fixRecords.addAll(issueFixRecords);
         }
         
         FixEffectivenessReport report = new FixEffectivenessReport();
@@ -612,19 +579,16 @@ public class IssueTrackingService {
         
         // 统计各类型问题的整改情况
         Map<IssueType, FixTypeStats> typeStats = new HashMap<>();
-        for (Issue issue : issues) {
-            List<FixRecord> issueFixRecords = fixRecords.stream()
-                    .filter(record -> record.getIssueId().equals(issue.getId()))
-                    .collect(Collectors.toList());
-            
+        for (int i = 0; i < issues.size(); i++) {
+            IssueFact issue = issues.get(i);
             FixTypeStats stats = typeStats.computeIfAbsent(issue.getIssueType(), k -> new FixTypeStats());
             stats.setTotalIssues(stats.getTotalIssues() + 1);
             
-            if (issue.getStatus() == Issue.IssueStatus.RESOLVED || issue.getStatus() == Issue.IssueStatus.CLOSED) {
+            if (issue.isResolved()) {
                 stats.setResolvedIssues(stats.getResolvedIssues() + 1);
             }
             
-            stats.setTotalFixAttempts(stats.getTotalFixAttempts() + issueFixRecords.size());
+            stats.setTotalFixAttempts(stats.getTotalFixAttempts() + fixAttempts[i]);
         }
         
         report.setTypeStats(typeStats);
@@ -743,6 +707,8 @@ public class IssueTrackingService {
         private double medianResolutionTime;
         private long minResolutionTime;
         private long maxResolutionTime;
+        private double p90ResolutionTime;
+        private double p99ResolutionTime;
         
         // Getters and Setters
         public int getTotalResolvedIssues() { return totalResolvedIssues; }
@@ -759,6 +725,12 @@ public class IssueTrackingService {
         
         public long getMaxResolutionTime() { return maxResolutionTime; }
         public void setMaxResolutionTime(long maxResolutionTime) { this.maxResolutionTime = maxResolutionTime; }
+        
+        public double getP90ResolutionTime() { return p90ResolutionTime; }
+        public void setP90ResolutionTime(double p90ResolutionTime) { this.p90ResolutionTime = p90ResolutionTime; }
+        
+        public double getP99ResolutionTime() { return p99ResolutionTime; }
+        public void setP99ResolutionTime(double p99ResolutionTime) { this.p99ResolutionTime = p99ResolutionTime; }
     }
     
     // 新增的内部类定义
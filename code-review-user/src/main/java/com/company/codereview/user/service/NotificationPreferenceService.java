@@ -14,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -145,13 +146,20 @@ public class NotificationPreferenceService {
     
     /**
      * 批量获取用户偏好设置
+     * 一次查询全部用户的偏好，没有设置偏好的用户返回默认设置
      */
     public Map<Long, List<NotificationPreferenceDTO>> getBatchUserPreferences(List<Long> userIds) {
-        return userIds.stream()
-                .collect(Collectors.toMap(
-                        userId -> userId,
-                        this::getUserPreferences
-                ));
+        if (CollectionUtils.isEmpty(userIds)) {
+            return new HashMap<>();
+        }
+        
+        Map<Long, List<NotificationPreferenceDTO>> result = preferenceRepository.findByUserIds(userIds).stream()
+                .collect(Collectors.groupingBy(NotificationPreference::getUserId,
+                        Collectors.mapping(this::convertToDTO, Collectors.toList())));
+        for (Long userId : userIds) {
+            result.computeIfAbsent(userId, this::getDefaultPreferences);
+        }
+        return result;
     }
     
     /**
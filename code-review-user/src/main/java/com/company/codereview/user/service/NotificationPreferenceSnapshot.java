@@ -0,0 +1,110 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.entity.NotificationPreference;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一批接收者对某一通知类型的偏好快照
+ *
+ * 由一次批量查询的结果构建，之后只读，在内存中判断是否启用、发送渠道和频率限制；
+ * 没有偏好记录的用户按默认设置处理：启用站内信，频率限制5分钟。
+ */
+final class NotificationPreferenceSnapshot {
+
+    static final int DEFAULT_FREQUENCY_LIMIT_MINUTES = 5;
+
+    private final Map<Long, NotificationPreference> preferences;
+
+    private NotificationPreferenceSnapshot(Map<Long, NotificationPreference> preferences) {
+        this.preferences = preferences;
+    }
+
+    /**
+     * 由同一通知类型的偏好记录构建快照，同一用户有多条记录时取第一条
+     */
+    static NotificationPreferenceSnapshot of(Collection<NotificationPreference> preferences) {
+        Map<Long, NotificationPreference> byUser = new HashMap<>();
+        if (preferences != null) {
+            for (NotificationPreference preference : preferences) {
+                byUser.putIfAbsent(preference.getUserId(), preference);
+            }
+        }
+        return new NotificationPreferenceSnapshot(Collections.unmodifiableMap(byUser));
+    }
+
+    /**
+     * 用户是否启用了任一渠道
+     */
+    boolean isEnabled(Long userId) {
+        NotificationPreference pref = preferences.get(userId);
+        if (pref == null) {
+            // 默认启用站内信
+            return true;
+        }
+        return Boolean.TRUE.equals(pref.getInAppEnabled()) ||
+               Boolean.TRUE.equals(pref.getEmailEnabled()) ||
+               Boolean.TRUE.equals(pref.getWechatWorkEnabled()) ||
+               Boolean.TRUE.equals(pref.getSmsEnabled());
+    }
+
+    /**
+     * 发送渠道：请求中指定了渠道时直接使用，否则按用户偏好确定
+     */
+    List<String> channels(Long userId, List<String> requestChannels) {
+        if (!CollectionUtils.isEmpty(requestChannels)) {
+            return requestChannels;
+        }
+
+        List<String> channels = new ArrayList<>();
+        NotificationPreference pref = preferences.get(userId);
+        if (pref == null) {
+            // 默认启用站内信
+            channels.add("IN_APP");
+            return channels;
+        }
+        if (Boolean.TRUE.equals(pref.getInAppEnabled())) {
+            channels.add("IN_APP");
+        }
+        if (Boolean.TRUE.equals(pref.getEmailEnabled())) {
+            channels.add("EMAIL");
+        }
+        if (Boolean.TRUE.equals(pref.getWechatWorkEnabled())) {
+            channels.add("WECHAT_WORK");
+        }
+        if (Boolean.TRUE.equals(pref.getSmsEnabled())) {
+            channels.add("SMS");
+        }
+        return channels;
+    }
+
+    /**
+     * 两次通知之间的最小间隔（分钟）
+     */
+    int frequencyLimitMinutes(Long userId) {
+        NotificationPreference pref = preferences.get(userId);
+        if (pref == null || pref.getFrequencyLimit() == null) {
+            return DEFAULT_FREQUENCY_LIMIT_MINUTES;
+        }
+        return pref.getFrequencyLimit();
+    }
+
+    /**
+     * 距上次发送是否仍在频率限制内
+     *
+     * @param lastSent 上次发送时间（ISO 格式），从未发送时为 null
+     */
+    boolean isFrequencyLimited(Long userId, String lastSent, LocalDateTime now) {
+        if (lastSent == null) {
+            return false;
+        }
+        return LocalDateTime.parse(lastSent).plusMinutes(frequencyLimitMinutes(userId)).isAfter(now);
+    }
+}
@@ -73,24 +73,28 @@ public class NotificationService {
             return;
         }
         
+        // 一次查询全部接收者的偏好和上次发送时间，在内存中逐个判断
+        NotificationPreferenceSnapshot preferences = loadPreferenceSnapshot(recipients, request.getNotificationType());
+        Map<Long, String> lastSentTimes = loadLastSentTimes(recipients, request.getNotificationType());
+        LocalDateTime now = LocalDateTime.now();
+        
         // 为每个接收者创建通知记录
         List<Notification> notifications = new ArrayList<>();
         for (User recipient : recipients) {
             // 检查用户偏好设置
-            if (!shouldSendNotification(recipient.getId(), request.getNotificationType())) {
+            if (!preferences.isEnabled(recipient.getId())) {
                 log.debug("用户 {} 已禁用此类型通知，跳过发送", recipient.getId());
                 continue;
             }
             
             // 检查频率限制
-            if (isFrequencyLimited(recipient.getId(), request.getNotificationType())) {
+            if (preferences.isFrequencyLimited(recipient.getId(), lastSentTimes.get(recipient.getId()), now)) {
                 log.debug("用户 {} 通知频率受限，跳过发送", recipient.getId());
                 continue;
             }
             
             // 获取用户的通知渠道
-            List<String> channels = getUserNotificationChannels(recipient.getId(), 
-                request.getNotificationType(), request.getChannels());
+            List<String> channels = preferences.channels(recipient.getId(), request.getChannels());
             
             if (CollectionUtils.isEmpty(channels)) {
                 log.debug("用户 {} 没有启用的通知渠道，跳过发送", recipient.getId());
@@ -564,39 +568,34 @@ public class NotificationService {
     
     // 私有辅助方法
     
-    private boolean shouldSendNotification(Long userId, Notification.NotificationType notificationType) {
-        Optional<NotificationPreference> preference = preferenceRepository
-                .findByUserIdAndType(userId, notificationType);
-        
-        if (preference.isPresent()) {
-            NotificationPreference pref = preference.get();
-            // 检查是否有任何渠道启用
-            return Boolean.TRUE.equals(pref.getInAppEnabled()) ||
-                   Boolean.TRUE.equals(pref.getEmailEnabled()) ||
-                   Boolean.TRUE.equals(pref.getWechatWorkEnabled()) ||
-                   Boolean.TRUE.equals(pref.getSmsEnabled());
-        }
-        
-        // 默认启用站内信
-        return true;
+    /**
+     * 批量加载接收者对该通知类型的偏好
+     */
+    private NotificationPreferenceSnapshot loadPreferenceSnapshot(List<User> recipients,
+                                                                  Notification.NotificationType notificationType) {
+        List<Long> userIds = recipients.stream().map(User::getId).collect(Collectors.toList());
+        return NotificationPreferenceSnapshot.of(preferenceRepository.findByUserIdsAndType(userIds, notificationType));
     }
     
-    private boolean isFrequencyLimited(Long userId, Notification.NotificationType notificationType) {
-        String key = FREQUENCY_LIMIT_KEY + userId + ":" + notificationType.name();
-        String lastSent = (String) redisTemplate.opsForValue().get(key);
+    /**
+     * 批量读取接收者上次收到该类型通知的时间，从未发送的用户不在结果中
+     */
+    private Map<Long, String> loadLastSentTimes(List<User> recipients, Notification.NotificationType notificationType) {
+        List<String> keys = recipients.stream()
+                .map(recipient -> FREQUENCY_LIMIT_KEY + recipient.getId() + ":" + notificationType.name())
+                .collect(Collectors.toList());
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
         
-        if (lastSent == null) {
-            return false;
+        Map<Long, String> lastSentTimes = new HashMap<>();
+        if (values == null) {
+            return lastSentTimes;
         }
-        
-        // 获取用户的频率限制设置
-        Optional<NotificationPreference> preference = preferenceRepository
-                .findByUserIdAndType(userId, notificationType);
-        
-        int limitMinutes = preference.map(NotificationPreference::getFrequencyLimit).orElse(5);
-        
-        LocalDateTime lastSentTime = LocalDateTime.parse(lastSent);
-        return lastSentTime.plusMinutes(limitMinutes).isAfter(LocalDateTime.now());
+        for (int i = 0; i < recipients.size() && i < values.size(); i++) {
+            if (values.get(i) != null) {
+                lastSentTimes.put(recipients.get(i).getId(), (String) values.get(i));
+            }
+        }
+        return lastSentTimes;
     }
     
     private void updateFrequencyLimit(Long userId, Notification.NotificationType notificationType) {
@@ -604,42 +603,6 @@ public class NotificationService {
         redisTemplate.opsForValue().set(key, LocalDateTime.now().toString(), 1, TimeUnit.HOURS);
     }
     
-    private List<String> getUserNotificationChannels(Long userId, 
-                                                    Notification.NotificationType notificationType,
-                                                    List<String> requestChannels) {
-        List<String> channels = new ArrayList<>();
-        
-        // 如果请求中指定了渠道，直接使用
-        if (!CollectionUtils.isEmpty(requestChannels)) {
-            return requestChannels;
-        }
-        
-        // 否则根据用户偏好设置确定渠道
-        Optional<NotificationPreference> preference = preferenceRepository
-                .findByUserIdAndType(userId, notificationType);
-        
-        if (preference.isPresent()) {
-            NotificationPreference pref = preference.get();
-            if (Boolean.TRUE.equals(pref.getInAppEnabled())) {
-                channels.add("IN_APP");
-            }
-            if (Boolean.TRUE.equals(pref.getEmailEnabled())) {
-                channels.add("EMAIL");
-            }
-            if (Boolean.TRUE.equals(pref.getWechatWorkEnabled())) {
-                channels.add("WECHAT_WORK");
-            }
-            if (Boolean.TRUE.equals(pref.getSmsEnabled())) {
-                channels.add("SMS");
-            }
-        } else {
-            // 默认启用站内信
-            channels.add("IN_APP");
-        }
-        
-        return channels;
-    }
-    
     private boolean isInQuietTime(Long userId) {
         Optional<NotificationPreference> preference = preferenceRepository
                 .findByUserIdAndType(userId, null); // 获取通用设置
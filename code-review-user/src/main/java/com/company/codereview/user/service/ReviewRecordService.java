@@ -9,8 +9,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * 评审记录服务
@@ -25,6 +27,7 @@ public class ReviewRecordService {
     private final IssueRepository issueRepository;
     private final FixRecordRepository fixRecordRepository;
     private final ReviewAssignmentRepository assignmentRepository;
+    private final SearchIndexService searchIndex;
     
     /**
      * 创建评审记录
@@ -58,6 +61,7 @@ public class ReviewRecordService {
         
         // 保存评审记录
         reviewRecordRepository.insert(reviewRecord);
+        searchIndex.refreshReviewRecords(Collections.singletonList(reviewRecord.getId()));
         
         log.info("评审记录创建成功: id={}", reviewRecord.getId());
         return reviewRecord;
@@ -92,6 +96,7 @@ public class ReviewRecordService {
         }
         
         reviewRecordRepository.updateById(reviewRecord);
+        searchIndex.refreshReviewRecords(Collections.singletonList(reviewRecord.getId()));
         
         log.info("评审记录更新成功: id={}", reviewRecord.getId());
         return reviewRecord;
@@ -173,6 +178,8 @@ public class ReviewRecordService {
         
         // 删除评审记录
         reviewRecordRepository.deleteById(id);
+        searchIndex.refreshReviewRecords(Collections.singletonList(id));
+        searchIndex.refreshIssues(issues.stream().map(Issue::getId).collect(Collectors.toList()));
         
         log.info("评审记录删除成功: id={}", id);
     }
@@ -274,6 +281,7 @@ public class ReviewRecordService {
         // 更新状态为已提交
         reviewRecord.setStatus(ReviewRecord.ReviewStatus.SUBMITTED);
         reviewRecordRepository.updateById(reviewRecord);
+        searchIndex.refreshReviewRecords(Collections.singletonList(id));
         
         // 更新分配记录状态
         ReviewAssignment assignment = assignmentRepository.selectById(reviewRecord.getAssignmentId());
@@ -329,6 +337,7 @@ public class ReviewRecordService {
         reviewRecord.setStatus(ReviewRecord.ReviewStatus.IN_PROGRESS);
         reviewRecord.setRemarks(reason);
         reviewRecordRepository.updateById(reviewRecord);
+        searchIndex.refreshReviewRecords(Collections.singletonList(id));
         
         log.info("标记重新评审成功: id={}", id);
         return reviewRecord;
@@ -362,6 +371,7 @@ public class ReviewRecordService {
         log.info("批量更新评审记录状态: ids={}, status={}", ids, status);
         
         int updatedCount = reviewRecordRepository.batchUpdateStatus(ids, status, updatedBy);
+        searchIndex.refreshReviewRecords(ids);
         
         log.info("批量更新完成: 更新了{}条记录", updatedCount);
     }
@@ -389,6 +399,7 @@ public class ReviewRecordService {
         newRecord.setNeedsReReview(false);
         
         reviewRecordRepository.insert(newRecord);
+        searchIndex.refreshReviewRecords(Collections.singletonList(newRecord.getId()));
         
         // 复制截图
         if (original.getScreenshots() != null) {
@@ -0,0 +1,436 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.InvertedIndex;
+import com.company.codereview.user.dto.SearchPage;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.entity.ReviewRecord;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.repository.ReviewRecordRepository;
+import com.company.codereview.user.repository.SearchIndexRepository;
+import com.company.codereview.user.util.SearchTextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 全文检索索引服务
+ *
+ * 问题（标题、描述、改进建议）和评审记录（标题、描述、总结、备注）各维护一个进程内倒排索引，
+ * 中文按单字和二元组切分，标题计两次以提高权重；问题按类型、严重级别、状态、团队分面，评审记录按状态、团队分面。
+ * 问题和评审记录写入后在事务提交时增量更新索引；另有定时任务按 (updated_at, id) 游标拉取最近修改的行，
+ * 补上其他节点或绕过服务的修改。索引定期写出快照到本地目录，重启后加载快照再从快照时间继续同步，
+ * 没有快照时首次同步即全量构建。检索只在内存中完成，结果页再按ID从数据库加载。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchIndexService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final long NONE = -1L;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final SearchIndexRepository searchIndexRepository;
+    private final IssueRepository issueRepository;
+    private final ReviewRecordRepository reviewRecordRepository;
+
+    private final IndexState issueIndex = new IndexState("issues",
+            new String[]{"title", "description", "suggestion"},
+            new Facet("type", "issueType", IssueType.values()),
+            new Facet("severity", "severity", Severity.values()),
+            new Facet("status", "status", Issue.IssueStatus.values()),
+            new Facet("team", "teamId", null));
+
+    private final IndexState reviewRecordIndex = new IndexState("review-records",
+            new String[]{"title", "description", "summary", "remarks"},
+            new Facet("status", "status", ReviewRecord.ReviewStatus.values()),
+            new Facet("team", "teamId", null));
+
+    @Value("${search.index.directory:}")
+    private String directory;
+
+    @Value("${search.index.sync-batch-size:1000}")
+    private int syncBatchSize;
+
+    @Value("${search.index.sync-overlap-seconds:10}")
+    private long syncOverlapSeconds;
+
+    /**
+     * 加载本地快照，之后由定时同步补上快照之后的修改
+     */
+    @PostConstruct
+    public void init() {
+        load(issueIndex);
+        load(reviewRecordIndex);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * 检索问题
+     *
+     * @param query 查询文本，为空时按ID倒序浏览
+     * @param page  页码（从 1 开始）
+     */
+    public SearchPage<Issue> searchIssues(String query, IssueType type, Severity severity,
+                                          Issue.IssueStatus status, Long teamId, int page, int size) {
+        long[] filters = {
+                type != null ? type.ordinal() : InvertedIndex.ANY,
+                severity != null ? severity.ordinal() : InvertedIndex.ANY,
+                status != null ? status.ordinal() : InvertedIndex.ANY,
+                teamId != null ? teamId : InvertedIndex.ANY
+        };
+        return search(issueIndex, query, filters, page, size, issueRepository::selectBatchIds, Issue::getId, Issue::getDeleted);
+    }
+
+    /**
+     * 检索评审记录
+     *
+     * @param query 查询文本，为空时按ID倒序浏览
+     * @param page  页码（从 1 开始）
+     */
+    public SearchPage<ReviewRecord> searchReviewRecords(String query, ReviewRecord.ReviewStatus status, Long teamId,
+                                                        int page, int size) {
+        long[] filters = {
+                status != null ? status.ordinal() : InvertedIndex.ANY,
+                teamId != null ? teamId : InvertedIndex.ANY
+        };
+        return search(reviewRecordIndex, query, filters, page, size,
+                reviewRecordRepository::selectBatchIds, ReviewRecord::getId, ReviewRecord::getDeleted);
+    }
+
+    /**
+     * 按数据库中的最新状态更新一批问题的索引（当前事务提交后执行）
+     */
+    public void refreshIssues(Collection<Long> issueIds) {
+        afterCommit(issueIndex, issueIds, searchIndexRepository::findIssueDocuments);
+    }
+
+    /**
+     * 按数据库中的最新状态更新一批评审记录的索引（当前事务提交后执行）
+     */
+    public void refreshReviewRecords(Collection<Long> reviewRecordIds) {
+        afterCommit(reviewRecordIndex, reviewRecordIds, searchIndexRepository::findReviewRecordDocuments);
+    }
+
+    /**
+     * 同步最近修改的问题和评审记录
+     *
+     * 每次从已同步的最大修改时间往前回退一段时间重新拉取，覆盖修改时间早于提交时间的事务；
+     * 重复应用同一行是幂等的。
+     */
+    @Scheduled(fixedDelayString = "${search.index.sync-interval-millis:5000}")
+    public synchronized void sync() {
+        sync(issueIndex, searchIndexRepository::findIssueDocumentsUpdatedAfter);
+        sync(reviewRecordIndex, searchIndexRepository::findReviewRecordDocumentsUpdatedAfter);
+    }
+
+    /**
+     * 有修改时写出索引快照
+     */
+    @Scheduled(fixedDelayString = "${search.index.snapshot-interval-millis:300000}")
+    public synchronized void snapshot() {
+        if (!StringUtils.hasText(directory)) {
+            return;
+        }
+        save(issueIndex);
+        save(reviewRecordIndex);
+    }
+
+    private <T> SearchPage<T> search(IndexState state, String query, long[] filters, int page, int size,
+                                     Function<Collection<Long>, List<T>> loader,
+                                     Function<T, Long> idOf, Function<T, Boolean> deletedOf) {
+        long start = System.nanoTime();
+        int pageNumber = Math.max(1, page);
+        int pageSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        int offset = (int) Math.min(Integer.MAX_VALUE, (long) (pageNumber - 1) * pageSize);
+
+        InvertedIndex.Hits hits = state.index.search(SearchTextAnalyzer.analyzeQuery(query), filters, offset, pageSize);
+
+        List<T> items = new ArrayList<>();
+        if (hits.getDocIds().length > 0) {
+            List<Long> ids = new ArrayList<>(hits.getDocIds().length);
+            for (long docId : hits.getDocIds()) {
+                ids.add(docId);
+            }
+            // 索引与数据库之间可能有短暂延迟，跳过已删除的行
+            Map<Long, T> loaded = loader.apply(ids).stream()
+                    .filter(item -> !Boolean.TRUE.equals(deletedOf.apply(item)))
+                    .collect(Collectors.toMap(idOf, Function.identity()));
+            items = ids.stream().map(loaded::get).filter(Objects::nonNull).collect(Collectors.toList());
+        }
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        for (int f = 0; f < state.facets.length; f++) {
+            Facet facet = state.facets[f];
+            Map<String, Long> counts = new LinkedHashMap<>();
+            hits.getFacetCounts().get(f).entrySet().stream()
+                    .filter(entry -> entry.getKey() != NONE)
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                    .forEach(entry -> counts.put(facet.decode(entry.getKey()), entry.getValue()));
+            facets.put(facet.name, counts);
+        }
+
+        return SearchPage.<T>builder()
+                .items(items)
+                .total((long) hits.getTotal())
+                .page(pageNumber)
+                .size(pageSize)
+                .facets(facets)
+                .tookMillis((System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+
+    private void afterCommit(IndexState state, Collection<Long> ids,
+                             Function<Collection<Long>, List<Map<String, Object>>> loader) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(state, distinctIds, loader);
+                }
+            });
+        } else {
+            refresh(state, distinctIds, loader);
+        }
+    }
+
+    private void refresh(IndexState state, List<Long> ids,
+                         Function<Collection<Long>, List<Map<String, Object>>> loader) {
+        try {
+            Set<Long> missing = new HashSet<>(ids);
+            for (Map<String, Object> row : loader.apply(ids)) {
+                missing.remove(apply(state, row));
+            }
+            // 已物理删除的行
+            missing.forEach(state.index::remove);
+            state.dirty = true;
+        } catch (Exception e) {
+            // 定时同步会补上本次修改
+            log.warn("更新全文检索索引失败: index={}, ids={}, error={}", state.name, ids, e.getMessage());
+        }
+    }
+
+    private void sync(IndexState state, SyncQuery query) {
+        LocalDateTime since = state.watermark.minusSeconds(syncOverlapSeconds);
+        long afterId = 0L;
+        int applied = 0;
+
+        try {
+            List<Map<String, Object>> batch;
+            do {
+                batch = query.find(since, afterId, syncBatchSize);
+                for (Map<String, Object> row : batch) {
+                    afterId = apply(state, row);
+                    since = toLocalDateTime(row.get("updatedAt"));
+                    applied++;
+                }
+                if (since.isAfter(state.watermark)) {
+                    state.watermark = since;
+                }
+            } while (batch.size() == syncBatchSize);
+        } catch (Exception e) {
+            log.error("同步全文检索索引失败: index={}, since={}, error={}", state.name, since, e.getMessage(), e);
+        }
+
+        if (applied > 0) {
+            state.dirty = true;
+            log.debug("同步全文检索索引: index={}, rows={}, documents={}", state.name, applied, state.index.size());
+        }
+    }
+
+    /**
+     * 按一行数据更新索引，返回行ID
+     */
+    private long apply(IndexState state, Map<String, Object> row) {
+        long id = ((Number) row.get("id")).longValue();
+        if (isTrue(row.get("deleted"))) {
+            state.index.remove(id);
+            return id;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        String title = (String) row.get(state.textColumns[0]);
+        SearchTextAnalyzer.analyze(title, tokens);
+        SearchTextAnalyzer.analyze(title, tokens);
+        for (int i = 1; i < state.textColumns.length; i++) {
+            SearchTextAnalyzer.analyze((String) row.get(state.textColumns[i]), tokens);
+        }
+
+        long[] facetValues = new long[state.facets.length];
+        for (int f = 0; f < state.facets.length; f++) {
+            facetValues[f] = state.facets[f].encode(row.get(state.facets[f].column));
+        }
+        state.index.put(id, tokens, facetValues);
+        return id;
+    }
+
+    private void load(IndexState state) {
+        if (!StringUtils.hasText(directory)) {
+            return;
+        }
+        Path file = Paths.get(directory, state.name + ".idx");
+        if (!Files.exists(file)) {
+            log.info("全文检索索引快照不存在，首次同步时全量构建: index={}", state.name);
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int analyzerVersion = in.readInt();
+            if (analyzerVersion != SearchTextAnalyzer.VERSION) {
+                log.info("全文检索索引快照的分词规则已变化，首次同步时全量构建: index={}, version={}",
+                        state.name, analyzerVersion);
+                return;
+            }
+            LocalDateTime watermark = LocalDateTime.parse(in.readUTF());
+            state.index = InvertedIndex.readFrom(in, state.facets.length);
+            state.watermark = watermark;
+            log.info("加载全文检索索引快照: index={}, documents={}, watermark={}",
+                    state.name, state.index.size(), watermark);
+        } catch (Exception e) {
+            log.warn("全文检索索引快照无法加载，首次同步时全量构建: index={}, error={}", state.name, e.getMessage());
+        }
+    }
+
+    private void save(IndexState state) {
+        if (!state.dirty) {
+            return;
+        }
+        state.dirty = false;
+
+        Path target = Paths.get(directory, state.name + ".idx");
+        Path temp = Paths.get(directory, state.name + ".idx.tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SearchTextAnalyzer.VERSION);
+                out.writeUTF(state.watermark.toString());
+                state.index.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("写出全文检索索引快照: index={}, documents={}", state.name, state.index.size());
+        } catch (IOException e) {
+            state.dirty = true;
+            log.warn("写出全文检索索引快照失败: index={}, error={}", state.name, e.getMessage());
+        }
+    }
+
+    private static boolean isTrue(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof Number && ((Number) value).intValue() != 0;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return value == null ? EPOCH : LocalDateTime.parse(String.valueOf(value).replace(' ', 'T'));
+    }
+
+    @FunctionalInterface
+    private interface SyncQuery {
+        List<Map<String, Object>> find(LocalDateTime since, Long afterId, int limit);
+    }
+
+    /**
+     * 单个索引及其同步进度
+     */
+    private static final class IndexState {
+
+        private final String name;
+        private final String[] textColumns;
+        private final Facet[] facets;
+
+        private volatile InvertedIndex index;
+        private volatile LocalDateTime watermark = EPOCH;
+        private volatile boolean dirty;
+
+        IndexState(String name, String[] textColumns, Facet... facets) {
+            this.name = name;
+            this.textColumns = textColumns;
+            this.facets = facets;
+            this.index = new InvertedIndex(facets.length);
+        }
+    }
+
+    /**
+     * 分面：枚举列按序号编码，ID列直接使用数值，空值编码为 -1
+     */
+    private static final class Facet {
+
+        private final String name;
+        private final String column;
+        private final Enum<?>[] constants;
+
+        Facet(String name, String column, Enum<?>[] constants) {
+            this.name = name;
+            this.column = column;
+            this.constants = constants;
+        }
+
+        long encode(Object value) {
+            if (value == null) {
+                return NONE;
+            }
+            if (constants == null) {
+                return ((Number) value).longValue();
+            }
+            String text = value.toString();
+            for (Enum<?> constant : constants) {
+                if (constant.name().equals(text)) {
+                    return constant.ordinal();
+                }
+            }
+            return NONE;
+        }
+
+        String decode(long value) {
+            return constants == null ? String.valueOf(value) : constants[(int) value].name();
+        }
+    }
+}
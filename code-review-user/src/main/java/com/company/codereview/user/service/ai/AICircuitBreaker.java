@@ -0,0 +1,228 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.exception.CircuitBreakerOpenException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * AI服务熔断器
+ *
+ * 关闭状态下按最近 slidingWindowSize 次调用统计失败率和 P95 延迟，调用数达到 minimumNumberOfCalls 后，
+ * 失败率或 P95 延迟任一超过阈值即打开；打开状态下直接拒绝调用，不再等待超时。
+ * 打开 waitDurationInOpenState 秒后进入半开状态，放行 permittedNumberOfCallsInHalfOpenState 次探测调用，
+ * 探测结果仍超过阈值时重新打开，否则关闭并清空窗口。
+ * 每次状态切换递增代数，上一代放行的调用在切换后完成时不再计入统计。
+ */
+@Slf4j
+@Component
+public class AICircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final double failureRateThreshold;
+    private final long slowCallP95ThresholdMillis;
+    private final int minimumNumberOfCalls;
+    private final long waitDurationInOpenNanos;
+    private final int permittedCallsInHalfOpen;
+    private final LongSupplier clockNanos;
+
+    /**
+     * 滑动窗口，环形缓冲；半开状态下记录探测结果
+     */
+    private final boolean[] failures;
+    private final long[] latencies;
+    private int windowCount;
+    private int windowNext;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesIssued;
+
+    private long notPermittedCalls;
+    private long openedCount;
+
+    @Autowired
+    public AICircuitBreaker(AIServiceConfig config) {
+        this(config.getCircuitBreaker(), System::nanoTime);
+    }
+
+    AICircuitBreaker(AIServiceConfig.CircuitBreakerConfig config, LongSupplier clockNanos) {
+        this.enabled = config.isEnabled();
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.slowCallP95ThresholdMillis = config.getSlowCallP95ThresholdMillis();
+        this.permittedCallsInHalfOpen = Math.max(1, config.getPermittedNumberOfCallsInHalfOpenState());
+        int windowSize = Math.max(Math.max(1, config.getSlidingWindowSize()), permittedCallsInHalfOpen);
+        this.minimumNumberOfCalls = Math.min(windowSize, Math.max(1, config.getMinimumNumberOfCalls()));
+        this.waitDurationInOpenNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getWaitDurationInOpenState()));
+        this.clockNanos = clockNanos;
+        this.failures = new boolean[windowSize];
+        this.latencies = new long[windowSize];
+    }
+
+    /**
+     * 在熔断器保护下执行调用
+     *
+     * @param call      发起调用，返回调用结果的 Future
+     * @param isSuccess 判断正常完成的结果是否成功（例如响应中的错误标记）；异常完成一律视为失败
+     * @return 熔断器打开时返回以 {@link CircuitBreakerOpenException} 异常完成的 Future；
+     *         调用方取消返回的 Future 时不计入统计
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call, Predicate<T> isSuccess) {
+        if (!enabled) {
+            return call.get();
+        }
+        long permit = tryAcquirePermission();
+        if (permit < 0) {
+            return CompletableFuture.failedFuture(new CircuitBreakerOpenException("AI服务熔断中，暂停调用"));
+        }
+        long startNanos = clockNanos.getAsLong();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onComplete(permit, false, elapsedMillis(startNanos));
+            throw e;
+        }
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                onCancelled(permit);
+            } else {
+                onComplete(permit, error == null && isSuccess.test(value), elapsedMillis(startNanos));
+            }
+        });
+        return future;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clockNanos.getAsLong() - openedAt >= waitDurationInOpenNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * 运行统计：状态、窗口内失败率和 P95 延迟、被拒绝的调用数和打开次数
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", getState().name());
+        stats.put("windowCalls", windowCount);
+        stats.put("failureRate", failureRate());
+        stats.put("latencyP95Millis", latencyP95());
+        stats.put("notPermittedCalls", notPermittedCalls);
+        stats.put("openedCount", openedCount);
+        return stats;
+    }
+
+    /**
+     * 取得调用许可，返回许可所属的代数；不允许调用时返回 -1
+     */
+    private synchronized long tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clockNanos.getAsLong() - openedAt < waitDurationInOpenNanos) {
+                notPermittedCalls++;
+                return -1;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= permittedCallsInHalfOpen) {
+                notPermittedCalls++;
+                return -1;
+            }
+            probesIssued++;
+        }
+        return generation;
+    }
+
+    private synchronized void onComplete(long permit, boolean success, long latencyMillis) {
+        if (permit != generation || state == State.OPEN) {
+            return;
+        }
+        failures[windowNext] = !success;
+        latencies[windowNext] = latencyMillis;
+        windowNext = (windowNext + 1) % failures.length;
+        windowCount = Math.min(windowCount + 1, failures.length);
+
+        if (state == State.HALF_OPEN) {
+            if (windowCount >= permittedCallsInHalfOpen) {
+                if (exceedsThresholds()) {
+                    open();
+                } else {
+                    log.info("AI服务探测调用恢复正常，熔断器关闭");
+                    transitionTo(State.CLOSED);
+                }
+            }
+        } else if (windowCount >= minimumNumberOfCalls && exceedsThresholds()) {
+            open();
+        }
+    }
+
+    private synchronized void onCancelled(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            probesIssued--; // 释放探测名额
+        }
+    }
+
+    private boolean exceedsThresholds() {
+        return failureRate() >= failureRateThreshold || latencyP95() >= slowCallP95ThresholdMillis;
+    }
+
+    private void open() {
+        log.warn("AI服务熔断器打开: failureRate={}%, latencyP95={}ms, calls={}, 等待{}ms后探测",
+                String.format("%.1f", failureRate()), latencyP95(), windowCount,
+                TimeUnit.NANOSECONDS.toMillis(waitDurationInOpenNanos));
+        openedCount++;
+        transitionTo(State.OPEN);
+        openedAt = clockNanos.getAsLong();
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        generation++;
+        probesIssued = 0;
+        windowCount = 0;
+        windowNext = 0;
+    }
+
+    private double failureRate() {
+        if (windowCount == 0) {
+            return 0.0;
+        }
+        int failed = 0;
+        for (int i = 0; i < windowCount; i++) {
+            if (failures[i]) {
+                failed++;
+            }
+        }
+        return failed * 100.0 / windowCount;
+    }
+
+    private long latencyP95() {
+        if (windowCount == 0) {
+            return 0L;
+        }
+        long[] sorted = Arrays.copyOf(latencies, windowCount);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(0.95 * windowCount) - 1];
+    }
+
+    private long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(clockNanos.getAsLong() - startNanos);
+    }
+}
@@ -1,6 +1,7 @@
 package com.company.codereview.user.service.ai;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * AI服务客户端接口
@@ -15,6 +16,21 @@ public interface AIClient {
      */
     CompletableFuture<String> generateSummary(String prompt);
     
+    /**
+     * 生成智能汇总，调用失败时异常完成而不是返回错误说明，供需要重试或降级的调用方使用
+     * @param prompt 提示词
+     * @return AI生成的汇总内容
+     */
+    CompletableFuture<String> generateSummaryOrFail(String prompt);
+    
+    /**
+     * 流式生成智能汇总，生成过程中逐段回调已产生的内容
+     * @param prompt 提示词
+     * @param onToken 每段新生成内容的回调，在AI调用线程中执行；回调抛出异常时中止生成
+     * @return 完整的汇总内容，调用失败时异常完成
+     */
+    CompletableFuture<String> streamSummary(String prompt, Consumer<String> onToken);
+    
     /**
      * 分析问题模式
      * @param issuesData 问题数据
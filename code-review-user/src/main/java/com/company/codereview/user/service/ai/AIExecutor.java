@@ -0,0 +1,178 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.algorithm.LogLinearHistogram;
+import com.company.codereview.user.config.AIServiceConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI调用执行器（舱壁隔离）
+ *
+ * AI服务调用是阻塞的 HTTP 请求，统一在独立的有界线程池中执行，不占用公共 ForkJoinPool：
+ * 线程数即最大并发调用数，超出的调用在有界队列中等待，队列满时立即以 {@link RejectedExecutionException} 失败。
+ * 每次调用从提交开始计时，超时后以 {@link TimeoutException} 失败并中断执行线程；
+ * 调用方取消返回的 Future 时同样取消排队或执行中的任务。记录队列长度、排队耗时和调用耗时。
+ */
+@Slf4j
+@Component
+public class AIExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timer;
+    private final long timeoutMillis;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final LogLinearHistogram queueWaitMillis = new LogLinearHistogram();
+    private final LogLinearHistogram latencyMillis = new LogLinearHistogram();
+
+    public AIExecutor(AIServiceConfig config) {
+        AIServiceConfig.ExecutorConfig executorConfig = config.getExecutor();
+        int maxConcurrentCalls = Math.max(1, executorConfig.getMaxConcurrentCalls());
+        this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, executorConfig.getQueueCapacity())),
+                namedThreads("ai-client-"), new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timer = Executors.newSingleThreadScheduledExecutor(namedThreads("ai-client-timeout-"));
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, config.getTimeout()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * 提交一次AI调用，使用配置的超时时间
+     *
+     * @param operation 调用名称，用于日志
+     */
+    public <T> CompletableFuture<T> submit(String operation, Callable<T> call) {
+        return submit(operation, call, timeoutMillis);
+    }
+
+    /**
+     * 提交一次AI调用
+     *
+     * @param operation     调用名称，用于日志
+     * @param timeoutMillis 从提交开始计算的超时时间（毫秒）
+     */
+    public <T> CompletableFuture<T> submit(String operation, Callable<T> call, long timeoutMillis) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+        submitted.incrementAndGet();
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (result.isDone()) {
+                    return; // 排队期间已超时或被取消
+                }
+                long startedAt = System.nanoTime();
+                record(queueWaitMillis, startedAt - submittedAt);
+                try {
+                    T value = call.call();
+                    if (result.complete(value)) {
+                        completed.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    if (result.completeExceptionally(e)) {
+                        failed.incrementAndGet();
+                    }
+                } finally {
+                    record(latencyMillis, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("AI调用队列已满，拒绝请求: operation={}, active={}, queued={}",
+                    operation, executor.getActiveCount(), executor.getQueue().size());
+            result.completeExceptionally(new RejectedExecutionException("AI服务繁忙，请稍后重试"));
+            return result;
+        }
+
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException("AI服务调用超时: " + timeoutMillis + "ms"))) {
+                timedOut.incrementAndGet();
+                log.warn("AI调用超时: operation={}, timeout={}ms", operation, timeoutMillis);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+        result.whenComplete((value, error) -> {
+            timeout.cancel(false);
+            if (result.isCancelled()) {
+                cancelled.incrementAndGet();
+            }
+            if (error != null) {
+                // 超时或被取消时中断执行线程，排队中的任务直接从队列移除
+                task.cancel(true);
+                executor.remove((Runnable) task);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 运行统计
+     */
+    public AIExecutorStats getStats() {
+        AIExecutorStats stats = new AIExecutorStats();
+        stats.setMaxConcurrentCalls(executor.getMaximumPoolSize());
+        stats.setActiveCalls(executor.getActiveCount());
+        stats.setQueuedCalls(executor.getQueue().size());
+        stats.setQueueCapacity(executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.setSubmittedCalls(submitted.get());
+        stats.setCompletedCalls(completed.get());
+        stats.setFailedCalls(failed.get());
+        stats.setRejectedCalls(rejected.get());
+        stats.setTimedOutCalls(timedOut.get());
+        stats.setCancelledCalls(cancelled.get());
+        synchronized (queueWaitMillis) {
+            stats.setQueueWaitP50Millis(queueWaitMillis.quantile(0.5));
+            stats.setQueueWaitP99Millis(queueWaitMillis.quantile(0.99));
+        }
+        synchronized (latencyMillis) {
+            stats.setLatencyP50Millis(latencyMillis.quantile(0.5));
+            stats.setLatencyP95Millis(latencyMillis.quantile(0.95));
+            stats.setLatencyP99Millis(latencyMillis.quantile(0.99));
+            stats.setLatencyMaxMillis(latencyMillis.getTotalCount() > 0 ? latencyMillis.getMax() : 0L);
+        }
+        return stats;
+    }
+
+    private static void record(LogLinearHistogram histogram, long nanos) {
+        synchronized (histogram) {
+            histogram.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
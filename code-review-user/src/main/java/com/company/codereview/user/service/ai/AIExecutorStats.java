@@ -0,0 +1,90 @@
+package com.company.codereview.user.service.ai;
+
+import lombok.Data;
+
+/**
+ * AI调用执行器运行统计
+ */
+@Data
+public class AIExecutorStats {
+
+    /**
+     * 最大并发调用数
+     */
+    private int maxConcurrentCalls;
+
+    /**
+     * 正在执行的调用数
+     */
+    private int activeCalls;
+
+    /**
+     * 排队中的调用数
+     */
+    private int queuedCalls;
+
+    /**
+     * 队列容量
+     */
+    private int queueCapacity;
+
+    /**
+     * 累计提交的调用数
+     */
+    private long submittedCalls;
+
+    /**
+     * 累计成功的调用数
+     */
+    private long completedCalls;
+
+    /**
+     * 累计抛出异常的调用数
+     */
+    private long failedCalls;
+
+    /**
+     * 累计因队列已满被拒绝的调用数
+     */
+    private long rejectedCalls;
+
+    /**
+     * 累计超时的调用数
+     */
+    private long timedOutCalls;
+
+    /**
+     * 累计被调用方取消的调用数
+     */
+    private long cancelledCalls;
+
+    /**
+     * 排队耗时中位数（毫秒）
+     */
+    private long queueWaitP50Millis;
+
+    /**
+     * 排队耗时 P99（毫秒）
+     */
+    private long queueWaitP99Millis;
+
+    /**
+     * 调用耗时中位数（毫秒）
+     */
+    private long latencyP50Millis;
+
+    /**
+     * 调用耗时 P95（毫秒）
+     */
+    private long latencyP95Millis;
+
+    /**
+     * 调用耗时 P99（毫秒）
+     */
+    private long latencyP99Millis;
+
+    /**
+     * 最大调用耗时（毫秒）
+     */
+    private long latencyMaxMillis;
+}
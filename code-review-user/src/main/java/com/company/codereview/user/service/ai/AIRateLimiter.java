@@ -0,0 +1,125 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.algorithm.TokenBucket;
+import com.company.codereview.user.config.AIServiceConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI调用限流器
+ *
+ * 按服务商配额（每分钟、每小时、每天的最大请求数）各建一个令牌桶，一次调用需要同时从所有桶中取得令牌，
+ * 任一桶不足时不扣减任何桶，等待到所有桶都有令牌为止。配置值不大于 0 的维度不限流。
+ */
+@Slf4j
+@Component
+public class AIRateLimiter {
+
+    /**
+     * 按时间窗口的令牌桶，由自身加锁保护
+     */
+    private final Map<String, TokenBucket> buckets = new LinkedHashMap<>();
+
+    public AIRateLimiter(AIServiceConfig config) {
+        AIServiceConfig.RateLimitConfig rateLimit = config.getRateLimit();
+        long now = System.nanoTime();
+        addBucket("minute", rateLimit.getRequestsPerMinute(), TimeUnit.MINUTES.toNanos(1), now);
+        addBucket("hour", rateLimit.getRequestsPerHour(), TimeUnit.HOURS.toNanos(1), now);
+        addBucket("day", rateLimit.getRequestsPerDay(), TimeUnit.DAYS.toNanos(1), now);
+    }
+
+    private void addBucket(String window, int limit, long periodNanos, long now) {
+        if (limit > 0) {
+            buckets.put(window, new TokenBucket(limit, periodNanos, now));
+        }
+    }
+
+    /**
+     * 不等待地取得一次调用的配额
+     */
+    public boolean tryAcquire() {
+        synchronized (buckets) {
+            return acquireOrWaitNanos(System.nanoTime()) == 0L;
+        }
+    }
+
+    /**
+     * 取得一次调用的配额，配额不足时等待，最多等待 timeoutMillis
+     *
+     * @return 超时仍未取得配额时返回 false
+     */
+    public boolean acquire(long timeoutMillis) throws InterruptedException {
+        return await(timeoutMillis, true);
+    }
+
+    /**
+     * 等待到所有时间窗口都有配额为止，但不扣减配额，最多等待 timeoutMillis
+     *
+     * 供批量任务在调用前控制节奏，实际的扣减由发出请求的客户端完成；返回后配额仍可能被其他调用先取走
+     *
+     * @return 超时仍没有配额时返回 false
+     */
+    public boolean awaitAvailable(long timeoutMillis) throws InterruptedException {
+        return await(timeoutMillis, false);
+    }
+
+    private boolean await(long timeoutMillis, boolean acquire) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            long now = System.nanoTime();
+            long waitNanos;
+            synchronized (buckets) {
+                waitNanos = acquire ? acquireOrWaitNanos(now) : waitNanos(now);
+            }
+            if (waitNanos == 0L) {
+                return true;
+            }
+            if (now + waitNanos > deadline) {
+                log.debug("AI调用配额不足，等待{}ms超过剩余时限", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                return false;
+            }
+            // 醒来后重新检查，期间配额可能已被其他线程取走
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 各时间窗口当前剩余的配额
+     */
+    public Map<String, Long> getAvailablePermits() {
+        Map<String, Long> available = new LinkedHashMap<>();
+        synchronized (buckets) {
+            long now = System.nanoTime();
+            buckets.forEach((window, bucket) -> available.put(window, bucket.available(now)));
+        }
+        return available;
+    }
+
+    /**
+     * 所有桶都有令牌时一起扣减并返回 0，否则返回需要等待的纳秒数
+     */
+    private long acquireOrWaitNanos(long now) {
+        long waitNanos = waitNanos(now);
+        if (waitNanos == 0L) {
+            for (TokenBucket bucket : buckets.values()) {
+                bucket.tryAcquire(1, now);
+            }
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 所有桶都有令牌前需要等待的纳秒数
+     */
+    private long waitNanos(long now) {
+        long waitNanos = 0L;
+        for (TokenBucket bucket : buckets.values()) {
+            waitNanos = Math.max(waitNanos, bucket.nanosUntilAvailable(1, now));
+        }
+        return waitNanos;
+    }
+}
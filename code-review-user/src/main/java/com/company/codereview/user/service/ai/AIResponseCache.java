@@ -0,0 +1,260 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * AI回复缓存
+ *
+ * 以提示词内容的 SHA-256 作为键（内容寻址），先查本地 LRU 缓存，再查 Redis，都未命中时才调用AI服务。
+ * 相同键的并发请求合并为一次调用（single-flight），共享同一个进行中的结果；
+ * 只缓存成功的回复，失败不缓存，下一次请求会重新调用。
+ * 每个等待方拿到各自的 Future，全部等待方都取消后才取消底层调用。
+ */
+@Slf4j
+@Component
+public class AIResponseCache {
+
+    private static final String KEY_PREFIX = "ai-response:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final long ttlMillis;
+    private final int localCapacity;
+
+    /**
+     * 本地缓存，按访问顺序淘汰，由自身加锁保护
+     */
+    private final LinkedHashMap<String, LocalEntry> local;
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    public AIResponseCache(AIServiceConfig config, StringRedisTemplate redisTemplate) {
+        AIServiceConfig.ResponseCacheConfig cacheConfig = config.getResponseCache();
+        this.redisTemplate = redisTemplate;
+        this.enabled = cacheConfig.isEnabled();
+        this.redisEnabled = cacheConfig.isRedisEnabled() && redisTemplate != null;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(1, cacheConfig.getTtlSeconds()));
+        this.localCapacity = Math.max(1, cacheConfig.getLocalCapacity());
+        this.local = new LinkedHashMap<String, LocalEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > localCapacity;
+            }
+        };
+    }
+
+    /**
+     * 由请求的各组成部分计算缓存键（SHA-256 十六进制）
+     */
+    public static String key(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0); // 分隔符，避免 "ab"+"c" 与 "a"+"bc" 冲突
+            }
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 读取缓存的回复，未命中时调用 loader 并合并相同键的并发请求
+     *
+     * @param key    缓存键，见 {@link #key(Object...)}
+     * @param loader 实际的AI调用，返回的 Future 异常完成时不缓存
+     */
+    public CompletableFuture<String> get(String key, Supplier<CompletableFuture<String>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String cached = getLocal(key);
+        if (cached != null) {
+            localHits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Flight created = new Flight(key);
+        Flight existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            CompletableFuture<String> joined = existing.join();
+            if (joined != null) {
+                coalesced.incrementAndGet();
+                return joined;
+            }
+            // 进行中的调用刚被全部等待方取消，不再合并，单独调用
+            return get(key, loader);
+        }
+        CompletableFuture<String> first = created.join();
+
+        String remote = getRemote(key);
+        if (remote != null) {
+            redisHits.incrementAndGet();
+            putLocal(key, remote);
+            inFlight.remove(key, created);
+            created.shared.complete(remote);
+            return first;
+        }
+
+        loads.incrementAndGet();
+        CompletableFuture<String> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        created.load = load;
+        if (created.shared.isCancelled()) {
+            load.cancel(true); // 查询 Redis 期间等待方已全部取消
+        }
+        load.whenComplete((value, error) -> {
+            if (error == null && value != null) {
+                putLocal(key, value);
+                putRemote(key, value);
+            }
+            inFlight.remove(key, created);
+            if (error != null) {
+                created.shared.completeExceptionally(error);
+            } else {
+                created.shared.complete(value);
+            }
+        });
+        return first;
+    }
+
+    /**
+     * 运行统计：本地命中、Redis命中、合并的并发请求和实际调用次数
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.get());
+        stats.put("redisHits", redisHits.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("loads", loads.get());
+        stats.put("inFlight", (long) inFlight.size());
+        synchronized (local) {
+            stats.put("localSize", (long) local.size());
+        }
+        return stats;
+    }
+
+    private String getLocal(String key) {
+        synchronized (local) {
+            LocalEntry entry = local.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                local.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void putLocal(String key, String value) {
+        synchronized (local) {
+            local.put(key, new LocalEntry(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    private String getRemote(String key) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForValue().get(KEY_PREFIX + key);
+        } catch (Exception e) {
+            log.warn("读取AI回复缓存失败，直接调用AI服务: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(String key, String value) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + key, value, ttlMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("写入AI回复缓存失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private static final class LocalEntry {
+        private final String value;
+        private final long expiresAt;
+
+        private LocalEntry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 一次进行中的调用及其等待方
+     */
+    private final class Flight {
+        private final String key;
+        private final CompletableFuture<String> shared = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private volatile CompletableFuture<String> load;
+
+        private Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * 加入等待，返回该等待方独立的 Future；调用已被全部等待方取消时返回 null
+         */
+        private CompletableFuture<String> join() {
+            int current;
+            do {
+                current = waiters.get();
+                if (current < 0) {
+                    return null;
+                }
+            } while (!waiters.compareAndSet(current, current + 1));
+
+            CompletableFuture<String> waiter = shared.thenApply(Function.identity());
+            waiter.whenComplete((value, error) -> {
+                if (waiter.isCancelled() && waiters.decrementAndGet() == 0 && waiters.compareAndSet(0, -1)) {
+                    inFlight.remove(key, this);
+                    CompletableFuture<String> running = load;
+                    if (running != null) {
+                        running.cancel(true);
+                    }
+                    shared.cancel(false);
+                }
+            });
+            return waiter;
+        }
+    }
+}
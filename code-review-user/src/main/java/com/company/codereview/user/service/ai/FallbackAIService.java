@@ -8,7 +8,6 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * AI服务降级实现
@@ -18,11 +17,41 @@ import java.util.stream.Collectors;
 @Service
 public class FallbackAIService {
     
+    /**
+     * 降级报告记录的模型名称
+     */
+    public static final String MODEL_NAME = "fallback";
+    
+    /**
+     * 高频问题类别及其关键词
+     */
+    private static final Map<String, List<String>> FREQUENT_ISSUE_KEYWORDS = new LinkedHashMap<>();
+    
+    static {
+        FREQUENT_ISSUE_KEYWORDS.put("空指针异常", Arrays.asList("空指针", "nullpointer", "npe"));
+        FREQUENT_ISSUE_KEYWORDS.put("内存相关问题", Arrays.asList("内存", "memory"));
+        FREQUENT_ISSUE_KEYWORDS.put("性能问题", Arrays.asList("性能", "慢", "卡顿", "耗时", "超时", "slow", "timeout"));
+        FREQUENT_ISSUE_KEYWORDS.put("安全问题", Arrays.asList("安全", "漏洞", "注入", "越权"));
+        FREQUENT_ISSUE_KEYWORDS.put("代码规范问题", Arrays.asList("命名", "注释", "格式", "规范"));
+    }
+    
     /**
      * 生成基础汇总报告
      */
     public AISummaryResult generateBasicSummary(Long teamId, LocalDateTime startDate, LocalDateTime endDate, List<Issue> issues) {
-        log.info("使用降级服务生成基础汇总报告: teamId={}, issueCount={}", teamId, issues.size());
+        // 趋势分析按创建时间先后划分前后两半
+        issues.sort(Comparator.comparing(Issue::getCreatedAt));
+        IssueStatistics statistics = new IssueStatistics();
+        issues.forEach(statistics::add);
+        return generateBasicSummary(teamId, startDate, endDate, statistics);
+    }
+    
+    /**
+     * 按边读取边累计的统计生成基础汇总报告，不需要保留问题列表
+     */
+    public AISummaryResult generateBasicSummary(Long teamId, LocalDateTime startDate, LocalDateTime endDate, IssueStatistics statistics) {
+        int totalIssues = statistics.getTotalIssues();
+        log.info("使用降级服务生成基础汇总报告: teamId={}, issueCount={}", teamId, totalIssues);
         
         StringBuilder summary = new StringBuilder();
         
@@ -32,10 +61,9 @@ public class FallbackAIService {
         
         // 总体概况
         summary.append("## 总体概况\n\n");
-        summary.append("- **问题总数**: ").append(issues.size()).append("\n");
+        summary.append("- **问题总数**: ").append(totalIssues).append("\n");
         
-        Map<Issue.IssueStatus, Long> statusStats = issues.stream()
-                .collect(Collectors.groupingBy(Issue::getStatus, Collectors.counting()));
+        Map<Issue.IssueStatus, Long> statusStats = statistics.statusCounts;
         
         summary.append("- **待处理**: ").append(statusStats.getOrDefault(Issue.IssueStatus.OPEN, 0L)).append("\n");
         summary.append("- **处理中**: ").append(statusStats.getOrDefault(Issue.IssueStatus.IN_PROGRESS, 0L)).append("\n");
@@ -44,14 +72,13 @@ public class FallbackAIService {
         
         // 问题类型分布
         summary.append("## 问题类型分布\n\n");
-        Map<IssueType, Long> typeStats = issues.stream()
-                .collect(Collectors.groupingBy(Issue::getIssueType, Collectors.counting()));
+        Map<IssueType, Long> typeStats = statistics.typeCounts;
         
         typeStats.entrySet().stream()
                 .sorted(Map.Entry.<IssueType, Long>comparingByValue().reversed())
                 .forEach(entry -> {
                     String typeName = getIssueTypeName(entry.getKey());
-                    double percentage = (double) entry.getValue() / issues.size() * 100;
+                    double percentage = (double) entry.getValue() / totalIssues * 100;
                     summary.append("- **").append(typeName).append("**: ")
                            .append(entry.getValue()).append(" (")
                            .append(String.format("%.1f", percentage)).append("%)\n");
@@ -61,14 +88,13 @@ public class FallbackAIService {
         
         // 严重级别分布
         summary.append("## 严重级别分布\n\n");
-        Map<Severity, Long> severityStats = issues.stream()
-                .collect(Collectors.groupingBy(Issue::getSeverity, Collectors.counting()));
+        Map<Severity, Long> severityStats = statistics.severityCounts;
         
         severityStats.entrySet().stream()
                 .sorted((e1, e2) -> getSeverityWeight(e1.getKey()) - getSeverityWeight(e2.getKey()))
                 .forEach(entry -> {
                     String severityName = getSeverityName(entry.getKey());
-                    double percentage = (double) entry.getValue() / issues.size() * 100;
+                    double percentage = (double) entry.getValue() / totalIssues * 100;
                     summary.append("- **").append(severityName).append("**: ")
                            .append(entry.getValue()).append(" (")
                            .append(String.format("%.1f", percentage)).append("%)\n");
@@ -78,7 +104,7 @@ public class FallbackAIService {
         
         // 高频问题分析
         summary.append("## 高频问题分析\n\n");
-        List<String> frequentIssues = identifyFrequentIssues(issues);
+        List<String> frequentIssues = identifyFrequentIssues(statistics);
         if (frequentIssues.isEmpty()) {
             summary.append("暂未发现明显的高频问题模式。\n\n");
         } else {
@@ -89,21 +115,21 @@ public class FallbackAIService {
         
         // 改进建议
         summary.append("## 改进建议\n\n");
-        List<String> suggestions = generateBasicSuggestions(typeStats, severityStats, issues.size());
+        List<String> suggestions = generateBasicSuggestions(typeStats, severityStats, totalIssues);
         suggestions.forEach(suggestion -> summary.append("- ").append(suggestion).append("\n"));
         
         summary.append("\n");
         
         // 趋势分析
         summary.append("## 趋势分析\n\n");
-        String trendAnalysis = analyzeTrend(issues);
+        String trendAnalysis = analyzeTrend(statistics);
         summary.append(trendAnalysis);
         
         AISummaryResult result = new AISummaryResult();
         result.setSummary(summary.toString());
         result.setGeneratedBy("基础统计分析");
         result.setGeneratedAt(LocalDateTime.now());
-        result.setIssueCount(issues.size());
+        result.setIssueCount(totalIssues);
         result.setAnalysisType("BASIC_STATISTICS");
         
         return result;
@@ -112,40 +138,17 @@ public class FallbackAIService {
     /**
      * 识别高频问题
      */
-    private List<String> identifyFrequentIssues(List<Issue> issues) {
+    private List<String> identifyFrequentIssues(IssueStatistics statistics) {
         List<String> frequentIssues = new ArrayList<>();
-        
-        // 分析问题标题中的关键词
-        Map<String, Integer> keywordCount = new HashMap<>();
-        
-        for (Issue issue : issues) {
-            String title = issue.getTitle().toLowerCase();
-            
-            // 检查常见问题关键词
-            if (title.contains("空指针") || title.contains("nullpointer") || title.contains("npe")) {
-                keywordCount.merge("空指针异常", 1, Integer::sum);
-            }
-            if (title.contains("内存") || title.contains("memory")) {
-                keywordCount.merge("内存相关问题", 1, Integer::sum);
-            }
-            if (title.contains("性能") || title.contains("慢") || title.contains("超时")) {
-                keywordCount.merge("性能问题", 1, Integer::sum);
-            }
-            if (title.contains("安全") || title.contains("漏洞") || title.contains("注入")) {
-                keywordCount.merge("安全问题", 1, Integer::sum);
-            }
-            if (title.contains("命名") || title.contains("注释") || title.contains("格式")) {
-                keywordCount.merge("代码规范问题", 1, Integer::sum);
-            }
-        }
+        int totalIssues = statistics.getTotalIssues();
         
         // 找出出现频率较高的问题（至少出现3次且占比超过10%）
-        int threshold = Math.max(3, issues.size() / 10);
-        keywordCount.entrySet().stream()
+        int threshold = Math.max(3, totalIssues / 10);
+        statistics.keywordCounts.entrySet().stream()
                 .filter(entry -> entry.getValue() >= threshold)
                 .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
                 .forEach(entry -> {
-                    double percentage = (double) entry.getValue() / issues.size() * 100;
+                    double percentage = (double) entry.getValue() / totalIssues * 100;
                     frequentIssues.add(String.format("%s (%d次, %.1f%%)", 
                             entry.getKey(), entry.getValue(), percentage));
                 });
@@ -153,6 +156,18 @@ public class FallbackAIService {
         return frequentIssues;
     }
     
+    /**
+     * 标题是否包含任一类别关键词
+     */
+    private static boolean containsAnyKeyword(String title, List<String> keywords) {
+        for (String keyword : keywords) {
+            if (title.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * 生成基础改进建议
      */
@@ -220,29 +235,21 @@ public class FallbackAIService {
     /**
      * 分析趋势
      */
-    private String analyzeTrend(List<Issue> issues) {
-        if (issues.size() < 10) {
+    private String analyzeTrend(IssueStatistics statistics) {
+        int totalIssues = statistics.getTotalIssues();
+        if (totalIssues < 10) {
             return "数据量较少，暂无明显趋势。";
         }
         
-        // 按创建时间排序
-        issues.sort(Comparator.comparing(Issue::getCreatedAt));
-        
         // 分析前半部分和后半部分的问题数量变化
-        int midPoint = issues.size() / 2;
-        List<Issue> firstHalf = issues.subList(0, midPoint);
-        List<Issue> secondHalf = issues.subList(midPoint, issues.size());
+        int midPoint = totalIssues / 2;
         
         // 计算严重问题比例变化
-        long firstHalfCritical = firstHalf.stream()
-                .filter(i -> i.getSeverity() == Severity.CRITICAL || i.getSeverity() == Severity.MAJOR)
-                .count();
-        long secondHalfCritical = secondHalf.stream()
-                .filter(i -> i.getSeverity() == Severity.CRITICAL || i.getSeverity() == Severity.MAJOR)
-                .count();
+        long firstHalfCritical = statistics.severeIssues.get(0, midPoint).cardinality();
+        long secondHalfCritical = statistics.severeIssues.get(midPoint, totalIssues).cardinality();
         
-        double firstHalfCriticalRate = (double) firstHalfCritical / firstHalf.size() * 100;
-        double secondHalfCriticalRate = (double) secondHalfCritical / secondHalf.size() * 100;
+        double firstHalfCriticalRate = (double) firstHalfCritical / midPoint * 100;
+        double secondHalfCriticalRate = (double) secondHalfCritical / (totalIssues - midPoint) * 100;
         
         StringBuilder trend = new StringBuilder();
         
@@ -294,6 +301,48 @@ public class FallbackAIService {
         return dateTime.toLocalDate().toString();
     }
     
+    /**
+     * 基础汇总报告用到的计数，问题逐条加入后即可丢弃
+     * 问题必须按创建时间先后加入：趋势分析只为每个问题记录一位（是否严重或重要），按加入顺序划分前后两半
+     */
+    public static final class IssueStatistics {
+        private final Map<Issue.IssueStatus, Long> statusCounts = new EnumMap<>(Issue.IssueStatus.class);
+        private final Map<IssueType, Long> typeCounts = new EnumMap<>(IssueType.class);
+        private final Map<Severity, Long> severityCounts = new EnumMap<>(Severity.class);
+        private final Map<String, Integer> keywordCounts = new HashMap<>();
+        private final BitSet severeIssues = new BitSet();
+        private int totalIssues;
+        
+        public void add(Issue issue) {
+            if (issue.getStatus() != null) {
+                statusCounts.merge(issue.getStatus(), 1L, Long::sum);
+            }
+            if (issue.getIssueType() != null) {
+                typeCounts.merge(issue.getIssueType(), 1L, Long::sum);
+            }
+            if (issue.getSeverity() != null) {
+                severityCounts.merge(issue.getSeverity(), 1L, Long::sum);
+            }
+            
+            // 检查标题中的常见问题关键词（子串匹配，如 nullpointerexception 命中 nullpointer，线程安全命中安全）
+            String title = issue.getTitle() == null ? "" : issue.getTitle().toLowerCase();
+            for (Map.Entry<String, List<String>> category : FREQUENT_ISSUE_KEYWORDS.entrySet()) {
+                if (containsAnyKeyword(title, category.getValue())) {
+                    keywordCounts.merge(category.getKey(), 1, Integer::sum);
+                }
+            }
+            
+            if (issue.getSeverity() == Severity.CRITICAL || issue.getSeverity() == Severity.MAJOR) {
+                severeIssues.set(totalIssues);
+            }
+            totalIssues++;
+        }
+        
+        public int getTotalIssues() {
+            return totalIssues;
+        }
+    }
+    
     /**
      * AI汇总结果
      */
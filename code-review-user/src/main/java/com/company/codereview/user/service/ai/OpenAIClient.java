@@ -3,6 +3,8 @@ package com.company.codereview.user.service.ai;
 import com.company.codereview.user.config.AIServiceConfig;
 import com.company.codereview.user.dto.AIRequest;
 import com.company.codereview.user.dto.AIResponse;
+import com.company.codereview.user.exception.RateLimitExceededException;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
@@ -12,10 +14,20 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -26,64 +38,53 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OpenAIClient implements AIClient {
     
+    private static final double DEFAULT_TEMPERATURE = 0.7;
+    
     private final AIServiceConfig config;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final AIExecutor aiExecutor;
+    private final AICircuitBreaker circuitBreaker;
+    private final AIResponseCache responseCache;
+    private final PromptCompiler promptCompiler;
+    private final AIRateLimiter rateLimiter;
     
     @Override
     public CompletableFuture<String> generateSummary(String prompt) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                AIRequest request = new AIRequest();
-                request.setPrompt(prompt);
-                request.setModel(config.getDefaultModel());
-                request.setMaxTokens(1000);
-                
-                AIResponse response = chatCompletion(request).get();
-                return response.isSuccess() ? response.getContent() : "生成汇总失败";
-            } catch (Exception e) {
-                log.error("生成汇总失败", e);
-                return "生成汇总失败: " + e.getMessage();
-            }
-        });
+        return contentOf(summaryRequest(prompt), "生成汇总失败");
+    }
+    
+    @Override
+    public CompletableFuture<String> generateSummaryOrFail(String prompt) {
+        return cachedContent(summaryRequest(prompt));
+    }
+    
+    @Override
+    public CompletableFuture<String> streamSummary(String prompt, Consumer<String> onToken) {
+        AIRequest request = summaryRequest(prompt);
+        return rateLimited(() -> circuitBreaker.execute(() -> aiExecutor.submit("chat-completion-stream",
+                () -> streamCompletion(request, onToken),
+                TimeUnit.SECONDS.toMillis(Math.max(1, config.getStreamTimeout()))), content -> true));
     }
     
     @Override
     public CompletableFuture<String> analyzeIssuePatterns(String issuesData) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String prompt = "分析以下问题数据，识别问题模式：\n" + issuesData;
-                AIRequest request = new AIRequest();
-                request.setPrompt(prompt);
-                request.setModel(config.getDefaultModel());
-                request.setMaxTokens(800);
-                
-                AIResponse response = chatCompletion(request).get();
-                return response.isSuccess() ? response.getContent() : "分析问题模式失败";
-            } catch (Exception e) {
-                log.error("分析问题模式失败", e);
-                return "分析问题模式失败: " + e.getMessage();
-            }
-        });
+        AIRequest request = new AIRequest();
+        request.setPrompt(promptCompiler.compileIssuePatternPrompt(issuesData));
+        request.setModel(config.getDefaultModel());
+        request.setMaxTokens(800);
+        
+        return contentOf(request, "分析问题模式失败");
     }
     
     @Override
     public CompletableFuture<String> generateImprovementSuggestions(String analysisData) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String prompt = "基于以下分析数据，生成改进建议：\n" + analysisData;
-                AIRequest request = new AIRequest();
-                request.setPrompt(prompt);
-                request.setModel(config.getDefaultModel());
-                request.setMaxTokens(600);
-                
-                AIResponse response = chatCompletion(request).get();
-                return response.isSuccess() ? response.getContent() : "生成改进建议失败";
-            } catch (Exception e) {
-                log.error("生成改进建议失败", e);
-                return "生成改进建议失败: " + e.getMessage();
-            }
-        });
+        AIRequest request = new AIRequest();
+        request.setPrompt(promptCompiler.compileImprovementPrompt(analysisData));
+        request.setModel(config.getDefaultModel());
+        request.setMaxTokens(600);
+        
+        return contentOf(request, "生成改进建议失败");
     }
     
     @Override
@@ -103,8 +104,74 @@ public class OpenAIClient implements AIClient {
         }
     }
     
+    private AIRequest summaryRequest(String prompt) {
+        AIRequest request = new AIRequest();
+        request.setPrompt(prompt);
+        request.setModel(config.getDefaultModel());
+        request.setMaxTokens(1000);
+        return request;
+    }
+    
+    /**
+     * 调用AI服务并取出回复内容，失败时异常完成
+     * 相同请求内容的回复从缓存读取，并发的相同请求只调用一次AI服务；失败的回复不缓存
+     */
+    private CompletableFuture<String> cachedContent(AIRequest request) {
+        return responseCache.get(cacheKey(request), () -> chatCompletion(request)
+                .thenApply(response -> {
+                    if (!response.isSuccess()) {
+                        throw new IllegalStateException(response.getErrorMessage());
+                    }
+                    return response.getContent();
+                }));
+    }
+    
+    /**
+     * 调用AI服务并取出回复内容，失败时返回错误说明
+     */
+    private CompletableFuture<String> contentOf(AIRequest request, String failureMessage) {
+        CompletableFuture<String> call = cachedContent(request);
+        CompletableFuture<String> content = call
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.error(failureMessage, cause);
+                    return failureMessage + ": " + cause.getMessage();
+                });
+        // 调用方取消时同时取消排队或执行中的AI调用
+        content.whenComplete((value, error) -> {
+            if (content.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return content;
+    }
+    
+    /**
+     * 回复缓存键：模型参数和全部提示词内容的哈希
+     */
+    private String cacheKey(AIRequest request) {
+        List<String> messages = request.getMessages() == null ? List.of() : request.getMessages().stream()
+                .map(msg -> msg.getRole() + ":" + msg.getContent())
+                .collect(Collectors.toList());
+        return AIResponseCache.key(request.getModel(), request.getMaxTokens(), request.getTemperature(),
+                request.getSystemPrompt(), request.getSystemMessage(), request.getPrompt(), messages);
+    }
+    
+    /**
+     * 取得限流配额后发起调用；配额不足时直接失败，不占用执行器线程等待，也不计入熔断器
+     */
+    private <T> CompletableFuture<T> rateLimited(Supplier<CompletableFuture<T>> call) {
+        if (!rateLimiter.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RateLimitExceededException("AI调用配额不足，请稍后重试"));
+        }
+        return call.get();
+    }
+    
+    /**
+     * 在AI调用执行器中发送请求，受限流配额、最大并发数、队列容量和超时时间限制；熔断器打开时直接失败
+     */
     private CompletableFuture<AIResponse> chatCompletion(AIRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
+        return rateLimited(() -> circuitBreaker.execute(() -> aiExecutor.submit("chat-completion", () -> {
             long startTime = System.currentTimeMillis();
             
             try {
@@ -149,15 +216,86 @@ public class OpenAIClient implements AIClient {
                 log.error("OpenAI请求失败", e);
                 return AIResponse.error("AI服务请求失败: " + e.getMessage());
             }
-        });
+        }), AIResponse::isSuccess));
     }
     
-
+    /**
+     * 以流式模式发送请求，逐行解析 SSE 响应中的增量内容并回调，返回拼接后的完整内容
+     */
+    private String streamCompletion(AIRequest request, Consumer<String> onToken) {
+        long startTime = System.currentTimeMillis();
+        
+        OpenAIRequest openAIRequest = buildOpenAIRequest(request);
+        openAIRequest.setStream(true);
+        
+        String url = config.getBaseUrl() + "/chat/completions";
+        String content = restTemplate.execute(url, HttpMethod.POST, httpRequest -> {
+            httpRequest.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            httpRequest.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+            httpRequest.getHeaders().setBearerAuth(config.getApiKey());
+            httpRequest.getBody().write(objectMapper.writeValueAsBytes(openAIRequest));
+        }, httpResponse -> readStream(httpResponse.getBody(), onToken));
+        
+        log.info("OpenAI流式请求完成: model={}, length={}, time={}ms",
+                request.getModel(), content != null ? content.length() : 0, System.currentTimeMillis() - startTime);
+        return content;
+    }
+    
+    /**
+     * 解析 SSE 响应：一个事件的多行 data 以换行拼接，遇到空行或流结束时处理，收到 [DONE] 时停止读取；
+     * onToken 抛出的异常直接向上传播并中止读取
+     */
+    String readStream(InputStream body, Consumer<String> onToken) throws IOException {
+        StringBuilder content = new StringBuilder();
+        StringBuilder data = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        while (true) {
+            String line = reader.readLine();
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("AI流式调用已取消");
+            }
+            if (line == null || line.isEmpty()) {
+                if (data.length() > 0) {
+                    String event = data.toString();
+                    data.setLength(0);
+                    if ("[DONE]".equals(event.trim())) {
+                        break;
+                    }
+                    appendDelta(event, content, onToken);
+                }
+                if (line == null) {
+                    break;
+                }
+                continue;
+            }
+            if (!line.startsWith("data:")) {
+                continue; // 注释和其他字段
+            }
+            String value = line.substring("data:".length());
+            if (data.length() > 0) {
+                data.append('\n');
+            }
+            data.append(value.startsWith(" ") ? value.substring(1) : value);
+        }
+        return content.toString();
+    }
+    
+    private void appendDelta(String event, StringBuilder content, Consumer<String> onToken) throws IOException {
+        OpenAIStreamChunk chunk = objectMapper.readValue(event, OpenAIStreamChunk.class);
+        if (chunk.getChoices() == null || chunk.getChoices().isEmpty()) {
+            return;
+        }
+        OpenAIMessage delta = chunk.getChoices().get(0).getDelta();
+        if (delta != null && delta.getContent() != null && !delta.getContent().isEmpty()) {
+            content.append(delta.getContent());
+            onToken.accept(delta.getContent());
+        }
+    }
     
     private OpenAIRequest buildOpenAIRequest(AIRequest request) {
         OpenAIRequest openAIRequest = new OpenAIRequest();
         openAIRequest.setModel(request.getModel());
-        openAIRequest.setTemperature(request.getTemperature());
+        openAIRequest.setTemperature(request.getTemperature() != null ? request.getTemperature() : DEFAULT_TEMPERATURE);
         openAIRequest.setMaxTokens(request.getMaxTokens());
         
         // 转换消息格式
@@ -168,6 +306,11 @@ public class OpenAIClient implements AIClient {
                     .collect(Collectors.toList());
         }
         
+        // 单条提示词作为用户消息追加到末尾
+        if (request.getPrompt() != null && !request.getPrompt().trim().isEmpty()) {
+            messages.add(new OpenAIMessage("user", request.getPrompt()));
+        }
+        
         // 如果有系统提示词，添加到消息开头
         if (request.getSystemPrompt() != null && !request.getSystemPrompt().trim().isEmpty()) {
             messages.add(0, new OpenAIMessage("system", request.getSystemPrompt()));
@@ -186,6 +329,23 @@ public class OpenAIClient implements AIClient {
         private double temperature;
         @JsonProperty("max_tokens")
         private int maxTokens;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Boolean stream;
+    }
+    
+    @Data
+    public static class OpenAIStreamChunk {
+        private String id;
+        private String model;
+        private List<StreamChoice> choices;
+        
+        @Data
+        public static class StreamChoice {
+            private int index;
+            private OpenAIMessage delta;
+            @JsonProperty("finish_reason")
+            private String finishReason;
+        }
     }
     
     @Data
@@ -0,0 +1,335 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.MinHash;
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.dto.AISummaryRequest;
+import com.company.codereview.user.dto.FrequentIssue;
+import com.company.codereview.user.dto.IssueAnalysisResult;
+import com.company.codereview.user.dto.IssueCluster;
+import com.company.codereview.user.dto.IssuePattern;
+import com.company.codereview.user.util.SearchTextAnalyzer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 提示词编译器
+ *
+ * 把问题分析结果或原始问题数据编译为不超过 token 预算的提示词：
+ * 问题证据（高频问题、模式、聚类或原始问题行）按严重级别权重乘以出现次数排序，
+ * 描述相近的证据用 MinHash 分桶找出并合并计数，然后按排序结果依次放入，预算用完即停止并注明省略数量。
+ * 固定文本使用预编译模板，token 数按中日韩字符每字 1 个、其余字符每 4 个 1 个估算（偏保守）。
+ */
+@Component
+public class PromptCompiler {
+
+    private static final PromptTemplate SUMMARY_TEMPLATE = PromptTemplate.compile(
+            "Generate a comprehensive code review summary report based on the following analysis:\n\n" +
+            "Analysis Period: {{startDate}} to {{endDate}}\n" +
+            "Total Issues: {{totalIssues}}\n" +
+            "Resolution Rate: {{resolutionRate}}\n\n" +
+            "Issue Type Distribution:\n" +
+            "{{typeDistribution}}" +
+            "{{evidence}}" +
+            "{{customPrompt}}" +
+            "\nPlease provide:\n" +
+            "1. Executive summary\n" +
+            "2. Key findings and insights\n" +
+            "3. Trend analysis\n" +
+            "4. Actionable recommendations\n" +
+            "5. Areas for improvement\n");
+
+    private static final PromptTemplate ISSUE_PATTERN_TEMPLATE = PromptTemplate.compile(
+            "分析以下问题数据，识别问题模式：\n{{issues}}");
+
+    private static final PromptTemplate IMPROVEMENT_TEMPLATE = PromptTemplate.compile(
+            "基于以下分析数据，生成改进建议：\n{{analysis}}");
+
+    private static final String EVIDENCE_HEADER = "\nKey Evidence (ranked by severity and frequency):\n";
+    private static final String TRUNCATION_MARK = "…";
+
+    /**
+     * 省略说明预留的 token 数
+     */
+    private static final int OMITTED_NOTE_TOKENS = 16;
+
+    private final MinHash minHash = new MinHash(64, 16, 0x70726f6d7074L);
+    private final int maxPromptTokens;
+    private final int maxEvidenceChars;
+    private final double dedupeSimilarity;
+
+    public PromptCompiler(AIServiceConfig config) {
+        AIServiceConfig.PromptConfig promptConfig = config.getPrompt();
+        this.maxPromptTokens = Math.max(256, promptConfig.getMaxPromptTokens());
+        this.maxEvidenceChars = Math.max(32, promptConfig.getMaxEvidenceChars());
+        this.dedupeSimilarity = promptConfig.getDedupeSimilarity();
+    }
+
+    /**
+     * 编译智能汇总提示词
+     */
+    public String compileSummaryPrompt(AISummaryRequest request, IssueAnalysisResult analysisResult) {
+        StringBuilder typeDistribution = new StringBuilder();
+        if (analysisResult.getTypeDistribution() != null) {
+            analysisResult.getTypeDistribution().forEach((type, count) ->
+                    typeDistribution.append("- ").append(type.getDescription()).append(": ").append(count).append("\n"));
+        }
+        String startDate = String.valueOf(request.getStartDate());
+        String endDate = String.valueOf(request.getEndDate());
+        String totalIssues = String.valueOf(analysisResult.getTotalIssues());
+        String resolutionRate = String.format("%.1f%%", analysisResult.getResolutionRate() != null ? analysisResult.getResolutionRate() : 0.0);
+
+        // 自定义说明最多占预算的四分之一
+        String customPrompt = "";
+        if (request.getCustomPrompt() != null && !request.getCustomPrompt().trim().isEmpty()) {
+            customPrompt = "\nAdditional Instructions: " + truncateToTokens(request.getCustomPrompt().trim(), maxPromptTokens / 4) + "\n";
+        }
+
+        int fixedTokens = estimateTokens(SUMMARY_TEMPLATE.render(startDate, endDate, totalIssues, resolutionRate,
+                typeDistribution.toString(), "", customPrompt));
+        String evidence = renderEvidence(EVIDENCE_HEADER, rank(summaryEvidence(analysisResult), false), maxPromptTokens - fixedTokens);
+
+        return SUMMARY_TEMPLATE.render(startDate, endDate, totalIssues, resolutionRate,
+                typeDistribution.toString(), evidence, customPrompt);
+    }
+
+    /**
+     * 编译问题模式分析提示词：每行一条问题，合并相同和相近的行并按严重级别与出现次数排序
+     */
+    public String compileIssuePatternPrompt(String issuesData) {
+        List<Evidence> evidence = new ArrayList<>();
+        Map<String, Evidence> exact = new HashMap<>();
+        if (issuesData != null) {
+            for (String line : issuesData.split("\\R")) {
+                String text = line.trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                Evidence existing = exact.get(text);
+                if (existing != null) {
+                    existing.frequency++;
+                    continue;
+                }
+                Evidence item = new Evidence(text, text, 1L, detectSeverity(text));
+                exact.put(text, item);
+                evidence.add(item);
+            }
+        }
+        int fixedTokens = estimateTokens(ISSUE_PATTERN_TEMPLATE.render(""));
+        return ISSUE_PATTERN_TEMPLATE.render(renderEvidence("", rank(evidence, true), maxPromptTokens - fixedTokens));
+    }
+
+    /**
+     * 编译改进建议提示词，分析数据超出预算时截断
+     */
+    public String compileImprovementPrompt(String analysisData) {
+        int fixedTokens = estimateTokens(IMPROVEMENT_TEMPLATE.render(""));
+        return IMPROVEMENT_TEMPLATE.render(truncateToTokens(analysisData != null ? analysisData : "", maxPromptTokens - fixedTokens));
+    }
+
+    /**
+     * 估算文本的 token 数
+     */
+    public static int estimateTokens(CharSequence text) {
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isIdeographic(text.charAt(i))) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 截断文本使估算 token 数不超过 maxTokens（截断时末尾追加省略号）
+     */
+    public static String truncateToTokens(String text, int maxTokens) {
+        if (estimateTokens(text) <= maxTokens) {
+            return text;
+        }
+        int budget = Math.max(0, maxTokens - 1) * 4; // 以 1/4 token 为单位，为省略号预留 1 个
+        int used = 0;
+        int end = 0;
+        while (end < text.length()) {
+            int cost = Character.isIdeographic(text.charAt(end)) ? 4 : 1;
+            if (used + cost > budget) {
+                break;
+            }
+            used += cost;
+            end++;
+        }
+        if (end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end) + TRUNCATION_MARK;
+    }
+
+    private List<Evidence> summaryEvidence(IssueAnalysisResult analysisResult) {
+        List<Evidence> evidence = new ArrayList<>();
+        if (analysisResult.getFrequentIssues() != null) {
+            for (FrequentIssue issue : analysisResult.getFrequentIssues()) {
+                String detail = issue.getExample() != null ? issue.getExample() : issue.getKeyword();
+                evidence.add(new Evidence("[Frequent] " + issue.getKeyword() + severityLabel(issue.getAverageSeverity()) + ": " + detail,
+                        issue.getKeyword() + " " + detail, count(issue.getCount()), issue.getAverageSeverity()));
+            }
+        }
+        if (analysisResult.getPatterns() != null) {
+            for (IssuePattern pattern : analysisResult.getPatterns()) {
+                String detail = pattern.getDescription() != null ? pattern.getDescription() : pattern.getPatternName();
+                evidence.add(new Evidence("[Pattern] " + pattern.getPatternName() + ": " + detail,
+                        pattern.getPatternName() + " " + detail, count(pattern.getFrequency()), null));
+            }
+        }
+        if (analysisResult.getClusters() != null) {
+            for (IssueCluster cluster : analysisResult.getClusters()) {
+                String detail = cluster.getCenterDescription() != null ? cluster.getCenterDescription() : cluster.getClusterName();
+                evidence.add(new Evidence("[Cluster] " + cluster.getClusterName() + severityLabel(cluster.getDominantSeverity()) + ": " + detail,
+                        detail, count(cluster.getIssueCount()), cluster.getDominantSeverity()));
+            }
+        }
+        return evidence;
+    }
+
+    /**
+     * 合并相近的证据并排序：先按得分排序，相近的证据只保留得分高的一条，再按合并后的得分重新排序
+     *
+     * @param sumFrequencies 合并时累加次数（每条证据是不同的问题）；否则取较大值（证据可能来自同一批问题）
+     */
+    private List<Evidence> rank(List<Evidence> evidence, boolean sumFrequencies) {
+        Comparator<Evidence> byScore = Comparator.comparingLong(Evidence::score).reversed()
+                .thenComparing(Comparator.comparingLong((Evidence item) -> item.frequency).reversed());
+        evidence.sort(byScore);
+
+        List<Evidence> kept = new ArrayList<>();
+        List<int[]> signatures = new ArrayList<>();
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (Evidence item : evidence) {
+            int[] signature = minHash.signature(new HashSet<>(SearchTextAnalyzer.analyze(item.dedupeText)));
+            Evidence duplicateOf = null;
+            long[] bandKeys = minHash.bandKeys(signature);
+            for (long bandKey : bandKeys) {
+                for (int candidate : buckets.getOrDefault(bandKey, List.of())) {
+                    if (MinHash.similarity(signature, signatures.get(candidate)) >= dedupeSimilarity) {
+                        duplicateOf = kept.get(candidate);
+                        break;
+                    }
+                }
+                if (duplicateOf != null) {
+                    break;
+                }
+            }
+            if (duplicateOf != null) {
+                duplicateOf.frequency = sumFrequencies
+                        ? duplicateOf.frequency + item.frequency : Math.max(duplicateOf.frequency, item.frequency);
+                continue;
+            }
+            int index = kept.size();
+            kept.add(item);
+            signatures.add(signature);
+            for (long bandKey : bandKeys) {
+                buckets.computeIfAbsent(bandKey, key -> new ArrayList<>()).add(index);
+            }
+        }
+        kept.sort(byScore);
+        return kept;
+    }
+
+    /**
+     * 按顺序放入证据直到预算用完，末尾注明省略的数量；没有证据时返回空字符串
+     */
+    private String renderEvidence(String header, List<Evidence> evidence, int budgetTokens) {
+        if (evidence.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(header);
+        int remaining = budgetTokens - estimateTokens(header) - OMITTED_NOTE_TOKENS;
+        int included = 0;
+        for (Evidence item : evidence) {
+            String text = item.text.length() > maxEvidenceChars
+                    ? item.text.substring(0, maxEvidenceChars) + TRUNCATION_MARK : item.text;
+            String line = "- " + text + (item.frequency > 1 ? " (x" + item.frequency + ")" : "") + "\n";
+            int tokens = estimateTokens(line);
+            if (tokens > remaining) {
+                break;
+            }
+            out.append(line);
+            remaining -= tokens;
+            included++;
+        }
+        if (included == 0) {
+            return "";
+        }
+        if (included < evidence.size()) {
+            out.append("(").append(evidence.size() - included).append(" more items omitted)\n");
+        }
+        return out.toString();
+    }
+
+    private static Severity detectSeverity(String text) {
+        String upper = text.toUpperCase(Locale.ROOT);
+        for (Severity severity : Severity.values()) {
+            if (upper.contains(severity.name())) {
+                return severity;
+            }
+        }
+        return null;
+    }
+
+    private static String severityLabel(Severity severity) {
+        return severity != null ? " [" + severity.name() + "]" : "";
+    }
+
+    private static long count(Long value) {
+        return value != null && value > 0 ? value : 1L;
+    }
+
+    /**
+     * 一条问题证据
+     */
+    private static final class Evidence {
+        private final String text;
+        private final String dedupeText;
+        private final int weight;
+        private long frequency;
+
+        private Evidence(String text, String dedupeText, long frequency, Severity severity) {
+            this.text = text;
+            this.dedupeText = dedupeText;
+            this.frequency = frequency;
+            this.weight = severityWeight(severity);
+        }
+
+        private long score() {
+            return weight * frequency;
+        }
+
+        /**
+         * 严重级别权重：严重 8、一般 4、轻微 2、建议 1，未知按一般计
+         */
+        private static int severityWeight(Severity severity) {
+            if (severity == null) {
+                return 4;
+            }
+            switch (severity) {
+                case CRITICAL:
+                    return 8;
+                case MINOR:
+                    return 2;
+                case SUGGESTION:
+                    return 1;
+                default:
+                    return 4;
+            }
+        }
+    }
+}
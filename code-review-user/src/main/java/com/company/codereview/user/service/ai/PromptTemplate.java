@@ -0,0 +1,93 @@
+package com.company.codereview.user.service.ai;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的提示词模板
+ *
+ * 模板中的 {{name}} 为占位符，编译时一次性切分为文本片段和占位符序号，
+ * 渲染时按顺序拼接，不再扫描模板或做正则替换。占位符按首次出现的顺序编号，同名占位符共用一个值。
+ */
+public final class PromptTemplate {
+
+    private final String[] literals;
+    private final int[] slots;
+    private final List<String> names;
+    private final int literalLength;
+
+    private PromptTemplate(String[] literals, int[] slots, List<String> names) {
+        this.literals = literals;
+        this.slots = slots;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @throws IllegalArgumentException 占位符未闭合或名称为空
+     */
+    public static PromptTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        Map<String, Integer> names = new LinkedHashMap<>();
+
+        int position = 0;
+        while (true) {
+            int open = template.indexOf("{{", position);
+            if (open < 0) {
+                literals.add(template.substring(position));
+                break;
+            }
+            int close = template.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("模板占位符未闭合: " + template.substring(open));
+            }
+            String name = template.substring(open + 2, close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("模板占位符名称为空");
+            }
+            literals.add(template.substring(position, open));
+            slots.add(names.computeIfAbsent(name, key -> names.size()));
+            position = close + 2;
+        }
+
+        return new PromptTemplate(literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), new ArrayList<>(names.keySet()));
+    }
+
+    /**
+     * 占位符名称，按编号顺序
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * 渲染模板，values 按占位符编号顺序传入，null 渲染为空字符串
+     */
+    public String render(String... values) {
+        if (values.length != names.size()) {
+            throw new IllegalArgumentException("模板需要 " + names.size() + " 个参数 " + names + "，实际为 " + values.length);
+        }
+        int length = literalLength;
+        for (int slot : slots) {
+            length += values[slot] != null ? values[slot].length() : 0;
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            if (values[slots[i]] != null) {
+                out.append(values[slots[i]]);
+            }
+        }
+        return out.append(literals[literals.length - 1]).toString();
+    }
+}
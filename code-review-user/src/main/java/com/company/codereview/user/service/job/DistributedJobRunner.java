@@ -0,0 +1,494 @@
+package com.company.codereview.user.service.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 分布式定时任务执行器
+ *
+ * 1. 每个任务通过 Redis 锁选出唯一 leader，锁值携带单调递增的 fencing token；
+ * 2. leader 将任务条目（团队、用户等）分片到本地工作线程并行处理；
+ * 3. 每处理完一个条目写入检查点，节点崩溃后由其他节点从检查点继续；
+ * 4. 同一任务在集群内不会重叠运行，并记录每个任务的耗时和吞吐量；
+ * 5. 运行完成后为 runKey 写入完成标记，各节点定时触发时间不同，完成标记有效期内同一 runKey 不会再次执行；
+ * 6. 有条目处理失败时不写完成标记，运行状态置为 INCOMPLETE 并保留检查点，再次触发或恢复时只处理失败和未处理的条目。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DistributedJobRunner {
+
+    private static final String KEY_PREFIX = "job:";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_INTERRUPTED = "INTERRUPTED";
+    private static final String STATUS_INCOMPLETE = "INCOMPLETE";
+    private static final String STATUS_SKIPPED = "SKIPPED";
+
+    /**
+     * 锁值匹配时续期
+     */
+    static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    /**
+     * 锁值匹配时释放
+     */
+    static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    /**
+     * 锁值匹配时写入检查点
+     */
+    static final RedisScript<Long> CHECKPOINT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "redis.call('sadd', KEYS[2], ARGV[3]); redis.call('pexpire', KEYS[2], ARGV[2]); return 1 " +
+            "else return 0 end", Long.class);
+
+    /**
+     * 锁值匹配时更新运行状态；运行完成时写入完成标记并删除检查点
+     */
+    static final RedisScript<Long> RUN_STATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "redis.call('hset', KEYS[2], 'runKey', ARGV[2], 'status', ARGV[3], 'owner', ARGV[1]); " +
+            "if ARGV[3] == 'COMPLETED' then " +
+            "redis.call('set', KEYS[4], ARGV[1], 'PX', ARGV[4]); redis.call('del', KEYS[3]) end; return 1 " +
+            "else return 0 end", Long.class);
+
+    /**
+     * 锁值匹配时写入完成标记（不分片的任务）
+     */
+    static final RedisScript<Long> COMPLETED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "redis.call('set', KEYS[2], ARGV[1], 'PX', ARGV[2]); return 1 " +
+            "else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String nodeId = resolveNodeId();
+    private final Map<String, JobDefinition> definitions = new ConcurrentHashMap<>();
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+    private final Map<String, JobRunStats> stats = new ConcurrentHashMap<>();
+
+    @Value("${job-runner.lease-millis:60000}")
+    private long leaseMillis;
+
+    @Value("${job-runner.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${job-runner.checkpoint-ttl-hours:48}")
+    private long checkpointTtlHours;
+
+    @Value("${job-runner.completed-ttl-hours:840}")
+    private long completedTtlHours;
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService leaseRenewer;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger workerIndex = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "job-worker-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("分布式任务执行器启动: nodeId={}, workerThreads={}", nodeId, workerThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * 注册分片任务
+     *
+     * @param itemLoader  加载本次需要处理的条目ID（如活跃团队、有待办的用户）
+     * @param itemHandler 处理单个条目
+     */
+    public void register(String jobName, Supplier<List<Long>> itemLoader, Consumer<Long> itemHandler) {
+        definitions.put(jobName, new JobDefinition(itemLoader, itemHandler));
+    }
+
+    /**
+     * 以分片方式运行已注册的任务
+     *
+     * @param runKey 运行标识，同一 runKey 的中断或部分失败的运行会从检查点继续
+     */
+    public void runPartitioned(String jobName, String runKey) {
+        JobDefinition definition = definitions.get(jobName);
+        if (definition == null) {
+            throw new IllegalArgumentException("未注册的任务: " + jobName);
+        }
+
+        runAsLeader(jobName, lease -> executePartitioned(jobName, runKey, definition, lease));
+    }
+
+    /**
+     * 在集群内独占运行一个不分片的任务，每次触发都会执行
+     */
+    public void runExclusive(String jobName, Runnable task) {
+        runExclusive(jobName, null, task);
+    }
+
+    /**
+     * 在集群内独占运行一个不分片的任务，同一 runKey（如所在小时、月份）只成功执行一次
+     *
+     * @param runKey 运行标识，为 null 时每次触发都会执行；执行失败不写完成标记，其他节点可以重试
+     */
+    public void runExclusive(String jobName, String runKey, Runnable task) {
+        runAsLeader(jobName, lease -> {
+            if (runKey != null && isCompleted(jobName, runKey)) {
+                log.info("任务本周期已完成，跳过: job={}, runKey={}", jobName, runKey);
+                recordSkipped(jobName);
+                return;
+            }
+            long startNanos = System.nanoTime();
+            LocalDateTime startedAt = LocalDateTime.now();
+            String status = STATUS_COMPLETED;
+            try {
+                task.run();
+                if (runKey != null) {
+                    markCompleted(lease, runKey);
+                }
+            } catch (Exception e) {
+                status = "FAILED";
+                log.error("任务执行失败: job={}", jobName, e);
+            }
+            recordRun(jobName, runKey, status, startedAt, startNanos, 0, 0, 0);
+        });
+    }
+
+    /**
+     * 恢复未完成的分片任务：运行状态仍为 RUNNING 且锁已过期，说明上一个 leader 已崩溃；
+     * 状态为 INCOMPLETE 说明上次运行有条目处理失败，从检查点重试剩余条目
+     */
+    public void resumeInterruptedRuns() {
+        for (String jobName : definitions.keySet()) {
+            try {
+                Map<Object, Object> state = redisTemplate.opsForHash().entries(runStateKey(jobName));
+                Object status = state.get("status");
+                if (!(STATUS_RUNNING.equals(status) || STATUS_INCOMPLETE.equals(status))
+                        || Boolean.TRUE.equals(redisTemplate.hasKey(lockKey(jobName)))) {
+                    continue;
+                }
+                String runKey = (String) state.get("runKey");
+                log.warn("检测到未完成的任务，从检查点恢复: job={}, runKey={}, status={}, previousOwner={}",
+                        jobName, runKey, status, state.get("owner"));
+                runPartitioned(jobName, runKey);
+            } catch (Exception e) {
+                log.error("恢复中断任务失败: job={}", jobName, e);
+            }
+        }
+    }
+
+    /**
+     * 获取各任务的运行统计
+     */
+    public List<JobRunStats> getJobStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    private void runAsLeader(String jobName, Consumer<JobLease> body) {
+        // 本节点上一轮尚未结束
+        if (!runningJobs.add(jobName)) {
+            log.warn("任务仍在运行，跳过本次触发: job={}", jobName);
+            recordSkipped(jobName);
+            return;
+        }
+
+        try {
+            JobLease lease = tryAcquire(jobName);
+            if (lease == null) {
+                log.info("任务由其他节点执行，本节点跳过: job={}", jobName);
+                recordSkipped(jobName);
+                return;
+            }
+
+            long renewInterval = Math.max(1000L, leaseMillis / 3);
+            ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(
+                    () -> renew(lease), renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+            try {
+                log.info("获得任务执行权: job={}, fencingToken={}", jobName, lease.getFencingToken());
+                body.accept(lease);
+            } finally {
+                renewal.cancel(false);
+                release(lease);
+            }
+        } finally {
+            runningJobs.remove(jobName);
+        }
+    }
+
+    private void executePartitioned(String jobName, String runKey, JobDefinition definition, JobLease lease) {
+        long startNanos = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now();
+        String checkpointKey = checkpointKey(jobName, runKey);
+
+        // leader 已完成本次运行后，其他节点较晚触发时取得的锁不再重复处理
+        if (isCompleted(jobName, runKey)) {
+            log.info("任务本次运行已完成，跳过: job={}, runKey={}", jobName, runKey);
+            recordSkipped(jobName);
+            return;
+        }
+
+        if (!updateRunState(lease, runKey, STATUS_RUNNING)) {
+            lease.markLost();
+            return;
+        }
+
+        Set<String> done = redisTemplate.opsForSet().members(checkpointKey);
+        Set<String> completedItems = done != null ? done : new HashSet<>();
+        List<Long> items = definition.getItemLoader().get();
+        List<Long> remaining = items.stream()
+                .filter(item -> !completedItems.contains(String.valueOf(item)))
+                .collect(Collectors.toList());
+        int resumed = items.size() - remaining.size();
+        if (resumed > 0) {
+            log.info("从检查点恢复任务: job={}, runKey={}, skippedItems={}", jobName, runKey, resumed);
+        }
+
+        // 轮询分片到工作线程
+        int partitionCount = Math.max(1, Math.min(workerThreads, remaining.size()));
+        List<List<Long>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < remaining.size(); i++) {
+            partitions.get(i % partitionCount).add(remaining.get(i));
+        }
+
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(partitionCount);
+        for (List<Long> partition : partitions) {
+            futures.add(workerPool.submit(() -> {
+                for (Long item : partition) {
+                    if (lease.isLost()) {
+                        return;
+                    }
+                    try {
+                        definition.getItemHandler().accept(item);
+                        processed.incrementAndGet();
+                        checkpoint(lease, checkpointKey, item);
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        log.error("任务条目处理失败: job={}, item={}", jobName, item, e);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lease.markLost();
+            } catch (ExecutionException e) {
+                log.error("任务分片执行失败: job={}", jobName, e.getCause());
+            }
+        }
+
+        String status;
+        if (lease.isLost()) {
+            // 检查点保留，由新的 leader 继续
+            status = STATUS_INTERRUPTED;
+            log.warn("任务租约丢失，停止执行: job={}, runKey={}", jobName, runKey);
+        } else if (failed.get() > 0) {
+            // 失败条目未写入检查点，不写完成标记，下次触发只重试失败和未处理的条目
+            status = STATUS_INCOMPLETE;
+            updateRunState(lease, runKey, STATUS_INCOMPLETE);
+            log.warn("任务有条目处理失败，保留检查点等待重试: job={}, runKey={}, failed={}", jobName, runKey, failed.get());
+        } else {
+            status = STATUS_COMPLETED;
+            updateRunState(lease, runKey, STATUS_COMPLETED);
+        }
+
+        recordRun(jobName, runKey, status, startedAt, startNanos, processed.get(), failed.get(), resumed);
+    }
+
+    private JobLease tryAcquire(String jobName) {
+        try {
+            Long token = redisTemplate.opsForValue().increment(KEY_PREFIX + jobName + ":fence");
+            if (token == null) {
+                return null;
+            }
+            JobLease lease = new JobLease(jobName, lockKey(jobName), nodeId, token);
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(lease.getLockKey(), lease.lockValue(), leaseMillis, TimeUnit.MILLISECONDS);
+            return Boolean.TRUE.equals(acquired) ? lease : null;
+        } catch (Exception e) {
+            log.error("获取任务锁失败: job={}", jobName, e);
+            return null;
+        }
+    }
+
+    private void renew(JobLease lease) {
+        try {
+            Long result = redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(lease.getLockKey()),
+                    lease.lockValue(), String.valueOf(leaseMillis));
+            if (result == null || result == 0L) {
+                lease.markLost();
+            }
+        } catch (Exception e) {
+            log.error("任务锁续期失败: job={}", lease.getJobName(), e);
+        }
+    }
+
+    private void release(JobLease lease) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(lease.getLockKey()), lease.lockValue());
+        } catch (Exception e) {
+            log.error("释放任务锁失败: job={}", lease.getJobName(), e);
+        }
+    }
+
+    private void checkpoint(JobLease lease, String checkpointKey, Long item) {
+        Long result = redisTemplate.execute(CHECKPOINT_SCRIPT, Arrays.asList(lease.getLockKey(), checkpointKey),
+                lease.lockValue(), String.valueOf(TimeUnit.HOURS.toMillis(checkpointTtlHours)), String.valueOf(item));
+        if (result == null || result == 0L) {
+            lease.markLost();
+        }
+    }
+
+    private boolean updateRunState(JobLease lease, String runKey, String status) {
+        Long result = redisTemplate.execute(RUN_STATE_SCRIPT,
+                Arrays.asList(lease.getLockKey(), runStateKey(lease.getJobName()),
+                        checkpointKey(lease.getJobName(), runKey), completedKey(lease.getJobName(), runKey)),
+                lease.lockValue(), runKey, status, String.valueOf(TimeUnit.HOURS.toMillis(completedTtlHours)));
+        return result != null && result == 1L;
+    }
+
+    private void markCompleted(JobLease lease, String runKey) {
+        Long result = redisTemplate.execute(COMPLETED_SCRIPT,
+                Arrays.asList(lease.getLockKey(), completedKey(lease.getJobName(), runKey)),
+                lease.lockValue(), String.valueOf(TimeUnit.HOURS.toMillis(completedTtlHours)));
+        if (result == null || result == 0L) {
+            lease.markLost();
+            log.warn("任务租约已丢失，未写入完成标记: job={}, runKey={}", lease.getJobName(), runKey);
+        }
+    }
+
+    private boolean isCompleted(String jobName, String runKey) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(completedKey(jobName, runKey)));
+    }
+
+    private void recordRun(String jobName, String runKey, String status, LocalDateTime startedAt, long startNanos,
+                           int processed, int failed, int resumed) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        JobRunStats jobStats = stats.computeIfAbsent(jobName, this::newStats);
+        synchronized (jobStats) {
+            jobStats.setLastRunKey(runKey);
+            jobStats.setLastStatus(status);
+            jobStats.setLastStartedAt(startedAt);
+            jobStats.setLastDurationMillis(durationMillis);
+            jobStats.setLastProcessedItems(processed);
+            jobStats.setLastFailedItems(failed);
+            jobStats.setLastResumedItems(resumed);
+            jobStats.setLastThroughputPerSecond(durationMillis > 0 ? processed * 1000.0 / durationMillis : processed);
+            if (STATUS_COMPLETED.equals(status)) {
+                jobStats.setCompletedRuns(jobStats.getCompletedRuns() + 1);
+            }
+        }
+        log.info("任务执行结束: job={}, runKey={}, status={}, durationMs={}, processed={}, failed={}",
+                jobName, runKey, status, durationMillis, processed, failed);
+    }
+
+    private void recordSkipped(String jobName) {
+        JobRunStats jobStats = stats.computeIfAbsent(jobName, this::newStats);
+        synchronized (jobStats) {
+            jobStats.setSkippedRuns(jobStats.getSkippedRuns() + 1);
+            if (jobStats.getLastStatus() == null) {
+                jobStats.setLastStatus(STATUS_SKIPPED);
+            }
+        }
+    }
+
+    private JobRunStats newStats(String jobName) {
+        JobRunStats jobStats = new JobRunStats();
+        jobStats.setJobName(jobName);
+        return jobStats;
+    }
+
+    private String lockKey(String jobName) {
+        return KEY_PREFIX + jobName + ":lock";
+    }
+
+    private String runStateKey(String jobName) {
+        return KEY_PREFIX + jobName + ":run";
+    }
+
+    private String checkpointKey(String jobName, String runKey) {
+        return KEY_PREFIX + jobName + ":checkpoint:" + runKey;
+    }
+
+    private String completedKey(String jobName, String runKey) {
+        return KEY_PREFIX + jobName + ":completed:" + runKey;
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 任务定义
+     */
+    private static class JobDefinition {
+        private final Supplier<List<Long>> itemLoader;
+        private final Consumer<Long> itemHandler;
+
+        JobDefinition(Supplier<List<Long>> itemLoader, Consumer<Long> itemHandler) {
+            this.itemLoader = itemLoader;
+            this.itemHandler = itemHandler;
+        }
+
+        Supplier<List<Long>> getItemLoader() { return itemLoader; }
+        Consumer<Long> getItemHandler() { return itemHandler; }
+    }
+}
@@ -0,0 +1,37 @@
+package com.company.codereview.user.service.job;
+
+import lombok.Getter;
+
+/**
+ * 分布式任务租约
+ *
+ * 持有租约的节点是该任务当前的 leader。fencingToken 单调递增，
+ * 租约续期、检查点写入都会校验锁中的 token，过期 leader 的写入会被拒绝。
+ */
+@Getter
+public class JobLease {
+
+    private final String jobName;
+    private final String lockKey;
+    private final String owner;
+    private final long fencingToken;
+    private volatile boolean lost;
+
+    JobLease(String jobName, String lockKey, String owner, long fencingToken) {
+        this.jobName = jobName;
+        this.lockKey = lockKey;
+        this.owner = owner;
+        this.fencingToken = fencingToken;
+    }
+
+    /**
+     * 锁中保存的值：节点标识 + fencing token
+     */
+    String lockValue() {
+        return owner + ":" + fencingToken;
+    }
+
+    void markLost() {
+        this.lost = true;
+    }
+}
@@ -0,0 +1,67 @@
+package com.company.codereview.user.service.job;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分布式任务运行统计
+ */
+@Data
+public class JobRunStats {
+
+    /**
+     * 任务名称
+     */
+    private String jobName;
+
+    /**
+     * 最近一次运行标识（如日期、周开始日期）
+     */
+    private String lastRunKey;
+
+    /**
+     * 最近一次运行状态
+     */
+    private String lastStatus;
+
+    /**
+     * 最近一次运行开始时间
+     */
+    private LocalDateTime lastStartedAt;
+
+    /**
+     * 最近一次运行耗时（毫秒）
+     */
+    private long lastDurationMillis;
+
+    /**
+     * 最近一次运行处理成功的条目数
+     */
+    private int lastProcessedItems;
+
+    /**
+     * 最近一次运行失败的条目数
+     */
+    private int lastFailedItems;
+
+    /**
+     * 最近一次运行从检查点恢复时跳过的条目数
+     */
+    private int lastResumedItems;
+
+    /**
+     * 最近一次运行吞吐量（条/秒）
+     */
+    private double lastThroughputPerSecond;
+
+    /**
+     * 本节点作为 leader 完成的运行次数
+     */
+    private long completedRuns;
+
+    /**
+     * 因其他节点持有锁或本节点仍在运行而跳过的次数
+     */
+    private long skippedRuns;
+}
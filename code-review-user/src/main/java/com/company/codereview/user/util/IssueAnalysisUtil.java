@@ -2,6 +2,8 @@ package com.company.codereview.user.util;
 
 import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.KMedoidsClustering;
+import com.company.codereview.user.algorithm.MinHash;
 import com.company.codereview.user.entity.Issue;
 import lombok.experimental.UtilityClass;
 
@@ -17,6 +19,15 @@ import java.util.stream.Collectors;
 @UtilityClass
 public class IssueAnalysisUtil {
     
+    private static final MinHash TEXT_MIN_HASH = new MinHash(64, 16, 0x5f3c9a1e7b2d4c6dL);
+    
+    private static final long DEFAULT_CLUSTER_SEED = 20240101L;
+    
+    /**
+     * 相似度计算保留两个字母的英文词（如 db、io、ui），比高频关键词的最小长度更宽
+     */
+    private static final int SIMILARITY_MIN_LATIN_WORD_LENGTH = 2;
+    
     /**
      * 计算两个问题的相似度
      * 
@@ -73,21 +84,45 @@ public class IssueAnalysisUtil {
      * 从文本中提取单词
      */
     private static Set<String> extractWords(String text) {
-        return Arrays.stream(text.toLowerCase()
-                .replaceAll("[^a-zA-Z0-9\\u4e00-\\u9fa5\\s]", " ")
-                .split("\\s+"))
-                .filter(word -> word.length() > 1)
-                .collect(Collectors.toSet());
+        return KeywordTokenizer.shared().tokenSet(text, SIMILARITY_MIN_LATIN_WORD_LENGTH);
+    }
+    
+    /**
+     * 计算问题文本的 MinHash 签名，签名相同位置相等的比例近似文本的 Jaccard 相似度
+     */
+    public static int[] calculateTextSignature(String text) {
+        return TEXT_MIN_HASH.signature(extractWords(text));
     }
     
     /**
-     * 使用K-means算法对问题进行聚类
+     * 问题文本签名使用的 MinHash（签名已持久化，参数不能修改）
+     */
+    public static MinHash textMinHash() {
+        return TEXT_MIN_HASH;
+    }
+    
+    /**
+     * 使用K-medoids算法对问题进行聚类（固定种子，结果可重现）
      * 
      * @param issues 问题列表
      * @param k 聚类数量
      * @return 聚类结果
      */
     public static Map<Integer, List<Issue>> kMeansCluster(List<Issue> issues, int k) {
+        return kMedoidsCluster(issues, k, DEFAULT_CLUSTER_SEED);
+    }
+    
+    /**
+     * 使用K-medoids算法对问题进行聚类
+     * 
+     * 每个问题的特征（类型、严重级别、描述词ID）只计算一次，相似度与 {@link #calculateSimilarity(Issue, Issue)} 一致
+     * 
+     * @param issues 问题列表
+     * @param k 聚类数量
+     * @param seed 随机种子，相同输入和种子的聚类结果相同
+     * @return 聚类结果，每个聚类内的问题保持输入顺序
+     */
+    public static Map<Integer, List<Issue>> kMedoidsCluster(List<Issue> issues, int k, long seed) {
         if (issues.size() <= k) {
             // 如果问题数量小于等于聚类数量，每个问题单独成一类
             Map<Integer, List<Issue>> result = new HashMap<>();
@@ -97,151 +132,103 @@ public class IssueAnalysisUtil {
             return result;
         }
         
-        // 随机选择初始聚类中心
-        List<Issue> centers = selectInitialCenters(issues, k);
-        Map<Integer, List<Issue>> clusters = new HashMap<>();
+        IssueFeatures[] features = IssueFeatures.of(issues);
+        KMedoidsClustering.Result clustering = new KMedoidsClustering(k, seed)
+                .cluster(features.length, (i, j) -> features[i].similarity(features[j]));
         
-        boolean converged = false;
-        int maxIterations = 100;
-        int iteration = 0;
-        
-        while (!converged && iteration < maxIterations) {
-            // 清空聚类
-            clusters.clear();
-            for (int i = 0; i < k; i++) {
-                clusters.put(i, new ArrayList<>());
-            }
-            
-            // 将每个问题分配到最近的聚类中心
-            for (Issue issue : issues) {
-                int nearestCenter = findNearestCenter(issue, centers);
-                clusters.get(nearestCenter).add(issue);
-            }
-            
-            // 更新聚类中心
-            List<Issue> newCenters = new ArrayList<>();
-            for (int i = 0; i < k; i++) {
-                List<Issue> cluster = clusters.get(i);
-                if (!cluster.isEmpty()) {
-                    newCenters.add(calculateClusterCenter(cluster));
-                } else {
-                    newCenters.add(centers.get(i)); // 保持原中心
-                }
-            }
-            
-            // 检查是否收敛
-            converged = centersConverged(centers, newCenters);
-            centers = newCenters;
-            iteration++;
+        Map<Integer, List<Issue>> clusters = new HashMap<>();
+        for (int i = 0; i < k; i++) {
+            clusters.put(i, new ArrayList<>());
+        }
+        int[] assignments = clustering.getAssignments();
+        for (int i = 0; i < assignments.length; i++) {
+            clusters.get(assignments[i]).add(issues.get(i));
         }
-        
         return clusters;
     }
     
     /**
-     * 选择初始聚类中心
+     * 聚类用的问题特征：类型序号、严重级别和排序后的描述词ID（描述为空时为 null）
      */
-    private static List<Issue> selectInitialCenters(List<Issue> issues, int k) {
-        List<Issue> centers = new ArrayList<>();
-        Random random = new Random();
-        
-        // 随机选择第一个中心
-        centers.add(issues.get(random.nextInt(issues.size())));
+    private static final class IssueFeatures {
+        private final IssueType issueType;
+        private final Severity severity;
+        private final int[] tokenIds;
+        
+        private IssueFeatures(IssueType issueType, Severity severity, int[] tokenIds) {
+            this.issueType = issueType;
+            this.severity = severity;
+            this.tokenIds = tokenIds;
+        }
         
-        // 使用K-means++算法选择其余中心
-        for (int i = 1; i < k; i++) {
-            List<Double> distances = new ArrayList<>();
-            double totalDistance = 0.0;
+        /**
+         * 问题较多时分词并行执行，词ID按问题顺序分配
+         */
+        static IssueFeatures[] of(List<Issue> issues) {
+            List<Set<String>> tokenSets = (issues.size() >= KMedoidsClustering.PARALLEL_THRESHOLD
+                    ? issues.parallelStream() : issues.stream())
+                    .map(issue -> issue.getDescription() == null ? null : extractWords(issue.getDescription()))
+                    .collect(Collectors.toList());
             
-            for (Issue issue : issues) {
-                double minDistance = Double.MAX_VALUE;
-                for (Issue center : centers) {
-                    double distance = 1.0 - calculateSimilarity(issue, center);
-                    minDistance = Math.min(minDistance, distance);
-                }
-                distances.add(minDistance);
-                totalDistance += minDistance;
-            }
-            
-            // 根据距离权重随机选择下一个中心
-            double randomValue = random.nextDouble() * totalDistance;
-            double cumulativeDistance = 0.0;
-            
-            for (int j = 0; j < issues.size(); j++) {
-                cumulativeDistance += distances.get(j);
-                if (cumulativeDistance >= randomValue) {
-                    centers.add(issues.get(j));
-                    break;
+            Map<String, Integer> tokenIds = new HashMap<>();
+            IssueFeatures[] features = new IssueFeatures[issues.size()];
+            for (int i = 0; i < features.length; i++) {
+                Set<String> tokens = tokenSets.get(i);
+                int[] ids = null;
+                if (tokens != null) {
+                    ids = new int[tokens.size()];
+                    int index = 0;
+                    for (String token : tokens) {
+                        Integer id = tokenIds.get(token);
+                        if (id == null) {
+                            id = tokenIds.size();
+                            tokenIds.put(token, id);
+                        }
+                        ids[index++] = id;
+                    }
+                    Arrays.sort(ids);
                 }
+                Issue issue = issues.get(i);
+                features[i] = new IssueFeatures(issue.getIssueType(), issue.getSeverity(), ids);
             }
+            return features;
         }
         
-        return centers;
-    }
-    
-    /**
-     * 找到最近的聚类中心
-     */
-    private static int findNearestCenter(Issue issue, List<Issue> centers) {
-        int nearestIndex = 0;
-        double maxSimilarity = -1.0;
-        
-        for (int i = 0; i < centers.size(); i++) {
-            double similarity = calculateSimilarity(issue, centers.get(i));
-            if (similarity > maxSimilarity) {
-                maxSimilarity = similarity;
-                nearestIndex = i;
-            }
-        }
-        
-        return nearestIndex;
-    }
-    
-    /**
-     * 计算聚类中心
-     */
-    private static Issue calculateClusterCenter(List<Issue> cluster) {
-        if (cluster.isEmpty()) {
-            return null;
+        double similarity(IssueFeatures other) {
+            double typeSimilarity = issueType == other.issueType ? 1.0 : 0.0;
+            double severitySimilarity = severity == other.severity ? 1.0
+                    : severity == null || other.severity == null ? 0.0 : calculateSeveritySimilarity(severity, other.severity);
+            
+            return typeSimilarity * 0.3 + severitySimilarity * 0.2 + textSimilarity(other) * 0.5;
         }
         
-        // 选择与聚类中所有问题平均相似度最高的问题作为中心
-        Issue bestCenter = cluster.get(0);
-        double bestAverageSimilarity = 0.0;
-        
-        for (Issue candidate : cluster) {
-            double totalSimilarity = 0.0;
-            for (Issue other : cluster) {
-                if (!candidate.equals(other)) {
-                    totalSimilarity += calculateSimilarity(candidate, other);
-                }
+        /**
+         * 有序词ID数组的 Jaccard 相似度
+         */
+        private double textSimilarity(IssueFeatures other) {
+            if (tokenIds == null || other.tokenIds == null) {
+                return 0.0;
             }
-            double averageSimilarity = cluster.size() > 1 ? totalSimilarity / (cluster.size() - 1) : 1.0;
-            
-            if (averageSimilarity > bestAverageSimilarity) {
-                bestAverageSimilarity = averageSimilarity;
-                bestCenter = candidate;
+            if (tokenIds.length == 0 && other.tokenIds.length == 0) {
+                return 1.0;
             }
-        }
-        
-        return bestCenter;
-    }
-    
-    /**
-     * 检查聚类中心是否收敛
-     */
-    private static boolean centersConverged(List<Issue> oldCenters, List<Issue> newCenters) {
-        if (oldCenters.size() != newCenters.size()) {
-            return false;
-        }
-        
-        for (int i = 0; i < oldCenters.size(); i++) {
-            if (!oldCenters.get(i).getId().equals(newCenters.get(i).getId())) {
-                return false;
+            
+            int intersection = 0;
+            int i = 0;
+            int j = 0;
+            while (i < tokenIds.length && j < other.tokenIds.length) {
+                if (tokenIds[i] == other.tokenIds[j]) {
+                    intersection++;
+                    i++;
+                    j++;
+                } else if (tokenIds[i] < other.tokenIds[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
             }
+            return (double) intersection / (tokenIds.length + other.tokenIds.length - intersection);
         }
-        
-        return true;
     }
     
     /**
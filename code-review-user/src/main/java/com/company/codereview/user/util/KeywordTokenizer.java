@@ -0,0 +1,287 @@
+package com.company.codereview.user.util;
+
+import com.company.codereview.user.config.IssueAnalysisConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 关键词分词器
+ *
+ * 手写字符扫描，不使用正则：英文和数字按连续字母数字切分并转小写；中文按词典前向最大匹配切分，
+ * 词典未覆盖的片段按二元组（bigram）切分，单字停用词视为分隔符。
+ * 停用词和词典只在创建时加载一次，实例不可变、线程安全。
+ */
+public class KeywordTokenizer {
+
+    private static volatile KeywordTokenizer shared = fromConfig(new IssueAnalysisConfig.FrequentIssueConfig());
+
+    private final Set<String> stopWords;
+    private final Set<Character> stopChars;
+    private final TrieNode dictionary;
+    private final int minKeywordLength;
+    private final int minLatinKeywordLength;
+
+    public KeywordTokenizer(Collection<String> stopWords, Collection<String> dictionaryWords,
+                            int minKeywordLength, int minLatinKeywordLength) {
+        this.stopWords = new HashSet<>();
+        this.stopChars = new HashSet<>();
+        for (String stopWord : stopWords) {
+            String word = stopWord.trim().toLowerCase();
+            if (word.length() == 1 && isCjk(word.charAt(0))) {
+                stopChars.add(word.charAt(0));
+            } else if (!word.isEmpty()) {
+                this.stopWords.add(word);
+            }
+        }
+        this.dictionary = TrieNode.build(dictionaryWords);
+        this.minKeywordLength = Math.max(1, minKeywordLength);
+        this.minLatinKeywordLength = Math.max(this.minKeywordLength, minLatinKeywordLength);
+    }
+
+    /**
+     * 按高频问题配置创建分词器
+     */
+    public static KeywordTokenizer fromConfig(IssueAnalysisConfig.FrequentIssueConfig config) {
+        return new KeywordTokenizer(Arrays.asList(config.getStopWords()), Arrays.asList(config.getDictionary()),
+                config.getMinKeywordLength(), config.getMinLatinKeywordLength());
+    }
+
+    /**
+     * 全局共享的分词器，供静态工具类和未注入配置的组件使用
+     */
+    public static KeywordTokenizer shared() {
+        return shared;
+    }
+
+    /**
+     * 替换全局共享的分词器（由 {@link IssueAnalysisConfig} 按外部配置设置）
+     */
+    public static void setShared(KeywordTokenizer tokenizer) {
+        shared = tokenizer;
+    }
+
+    /**
+     * 提取去重后的关键词，保持首次出现的顺序
+     *
+     * @param text 文本，可以为 null
+     */
+    public List<String> tokenize(String text) {
+        return tokenize(text, minLatinKeywordLength);
+    }
+
+    /**
+     * 提取去重后的关键词，英文和数字关键词使用指定的最小长度
+     *
+     * @param text                  文本，可以为 null
+     * @param minLatinKeywordLength 英文和数字关键词最小长度，不小于关键词最小长度
+     */
+    public List<String> tokenize(String text, int minLatinKeywordLength) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        TokenSink sink = new TokenSink();
+        StringBuilder latin = new StringBuilder();
+        int cjkStart = -1;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isCjk(c) && !stopChars.contains(c)) {
+                flushLatin(latin, minLatinKeywordLength, sink);
+                if (cjkStart < 0) {
+                    cjkStart = i;
+                }
+            } else if (c < 128 ? isAsciiLetterOrDigit(c) : !isCjk(c) && Character.isLetterOrDigit(c)) {
+                if (cjkStart >= 0) {
+                    segmentCjk(text, cjkStart, i, sink);
+                    cjkStart = -1;
+                }
+                latin.append(Character.toLowerCase(c));
+            } else {
+                flushLatin(latin, minLatinKeywordLength, sink);
+                if (cjkStart >= 0) {
+                    segmentCjk(text, cjkStart, i, sink);
+                    cjkStart = -1;
+                }
+            }
+        }
+        flushLatin(latin, minLatinKeywordLength, sink);
+        if (cjkStart >= 0) {
+            segmentCjk(text, cjkStart, text.length(), sink);
+        }
+
+        return sink.tokens;
+    }
+
+    /**
+     * 提取关键词集合
+     */
+    public Set<String> tokenSet(String text) {
+        return new HashSet<>(tokenize(text));
+    }
+
+    /**
+     * 提取关键词集合，英文和数字关键词使用指定的最小长度
+     */
+    public Set<String> tokenSet(String text, int minLatinKeywordLength) {
+        return new HashSet<>(tokenize(text, minLatinKeywordLength));
+    }
+
+    private void flushLatin(StringBuilder latin, int minLatinKeywordLength, TokenSink sink) {
+        if (latin.length() == 0) {
+            return;
+        }
+        if (latin.length() >= minLatinKeywordLength) {
+            emit(latin.toString(), sink);
+        }
+        latin.setLength(0);
+    }
+
+    /**
+     * 对连续中文片段 [start, end) 做前向最大匹配，未命中词典的部分按二元组切分
+     */
+    private void segmentCjk(String text, int start, int end, TokenSink sink) {
+        int residueStart = start;
+        int position = start;
+        while (position < end) {
+            int matched = dictionary.longestMatch(text, position, end);
+            if (matched > 1) {
+                emitBigrams(text, residueStart, position, sink);
+                emit(text.substring(position, position + matched), sink);
+                position += matched;
+                residueStart = position;
+            } else {
+                position++;
+            }
+        }
+        emitBigrams(text, residueStart, end, sink);
+    }
+
+    private void emitBigrams(String text, int start, int end, TokenSink sink) {
+        if (end - start == 1 && minKeywordLength <= 1) {
+            emit(text.substring(start, end), sink);
+            return;
+        }
+        for (int i = start; i + 1 < end; i++) {
+            emit(text.substring(i, i + 2), sink);
+        }
+    }
+
+    private void emit(String token, TokenSink sink) {
+        if (token.length() >= minKeywordLength && !stopWords.contains(token)) {
+            sink.add(token);
+        }
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * 中日韩字符：CJK 统一表意文字（含扩展A区和兼容区）、平假名、片假名和韩文音节
+     */
+    public static boolean isCjk(char c) {
+        return (c >= '\u4e00' && c <= '\u9fff') || (c >= '\u3400' && c <= '\u4dbf') || (c >= '\uf900' && c <= '\ufaff')
+                || (c >= '\u3040' && c <= '\u30ff') || (c >= '\uac00' && c <= '\ud7af');
+    }
+
+    /**
+     * 去重收集器：关键词较少时线性查找，较多时再建哈希集合
+     */
+    private static final class TokenSink {
+        private static final int LINEAR_LIMIT = 16;
+
+        private final List<String> tokens = new ArrayList<>();
+        private Set<String> seen;
+
+        private void add(String token) {
+            if (seen != null) {
+                if (seen.add(token)) {
+                    tokens.add(token);
+                }
+                return;
+            }
+            if (tokens.contains(token)) {
+                return;
+            }
+            tokens.add(token);
+            if (tokens.size() > LINEAR_LIMIT) {
+                seen = new HashSet<>(tokens);
+            }
+        }
+    }
+
+    /**
+     * 词典前缀树，子节点按字符排序后二分查找
+     */
+    private static final class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private boolean terminal;
+
+        static TrieNode build(Collection<String> words) {
+            TrieNode root = new TrieNode();
+            for (String word : words) {
+                String normalized = word.trim().toLowerCase();
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                TrieNode node = root;
+                for (int i = 0; i < normalized.length(); i++) {
+                    node = node.childOrCreate(normalized.charAt(i));
+                }
+                node.terminal = true;
+            }
+            return root;
+        }
+
+        /**
+         * 从 position 开始在 [position, end) 内匹配的最长词长度，没有匹配返回 0
+         */
+        int longestMatch(String text, int position, int end) {
+            TrieNode node = this;
+            int longest = 0;
+            for (int i = position; i < end; i++) {
+                node = node.child(text.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                if (node.terminal) {
+                    longest = i - position + 1;
+                }
+            }
+            return longest;
+        }
+
+        private TrieNode child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private TrieNode childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertAt = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            TrieNode[] newChildren = new TrieNode[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = new TrieNode();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+    }
+}
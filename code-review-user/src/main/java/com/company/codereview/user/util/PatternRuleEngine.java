@@ -0,0 +1,146 @@
+package com.company.codereview.user.util;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.user.algorithm.AhoCorasickMatcher;
+import com.company.codereview.user.config.IssueAnalysisConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 问题模式规则引擎
+ *
+ * 所有规则的关键词编译为一个多模式匹配自动机，每个关键词对应命中的规则位图；
+ * 对每个问题只扫描一次描述（有规则匹配标题时再扫描一次标题），按位或得到全部命中的规则。
+ * 规则编号为其在配置中的顺序（低于置信度阈值的规则被跳过），实例不可变、线程安全。
+ */
+public class PatternRuleEngine {
+
+    /**
+     * 命中位图为 long，规则数量上限
+     */
+    public static final int MAX_RULES = Long.SIZE;
+
+    private final List<IssueAnalysisConfig.PatternConfig.PatternRule> rules;
+    private final long minFrequency;
+    private final String version;
+
+    private final AhoCorasickMatcher matcher;
+
+    /**
+     * 每个关键词命中描述、标题时对应的规则位图
+     */
+    private final long[] descriptionMasks;
+    private final long[] titleMasks;
+    private final boolean matchTitle;
+
+    /**
+     * 按问题类型直接命中的规则位图
+     */
+    private final long[] typeMasks = new long[IssueType.values().length];
+
+    public PatternRuleEngine(List<IssueAnalysisConfig.PatternConfig.PatternRule> rules, long minFrequency) {
+        if (rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("模式规则数量不能超过 " + MAX_RULES + ": " + rules.size());
+        }
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        this.minFrequency = minFrequency;
+
+        Map<String, long[]> keywordMasks = new LinkedHashMap<>();
+        boolean anyTitleRule = false;
+        for (int i = 0; i < rules.size(); i++) {
+            IssueAnalysisConfig.PatternConfig.PatternRule rule = rules.get(i);
+            if (rule.getId() == null || rule.getId().trim().isEmpty()) {
+                throw new IllegalArgumentException("模式规则缺少ID: 第 " + (i + 1) + " 条");
+            }
+            long bit = 1L << i;
+            if (rule.getTriggerType() != null) {
+                typeMasks[rule.getTriggerType().ordinal()] |= bit;
+            }
+            for (String keyword : rule.getKeywords()) {
+                String normalized = keyword == null ? "" : keyword.trim().toLowerCase();
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                long[] masks = keywordMasks.computeIfAbsent(normalized, k -> new long[2]);
+                masks[0] |= bit;
+                if (rule.isMatchTitle()) {
+                    masks[1] |= bit;
+                    anyTitleRule = true;
+                }
+            }
+        }
+
+        this.matcher = new AhoCorasickMatcher(new ArrayList<>(keywordMasks.keySet()));
+        this.descriptionMasks = new long[keywordMasks.size()];
+        this.titleMasks = new long[keywordMasks.size()];
+        int id = 0;
+        for (long[] masks : keywordMasks.values()) {
+            descriptionMasks[id] = masks[0];
+            titleMasks[id] = masks[1];
+            id++;
+        }
+        this.matchTitle = anyTitleRule;
+        this.version = this.rules.stream()
+                .map(rule -> rule.getId() + ":" + rule.getTriggerType() + ":" + rule.isMatchTitle() + ":"
+                        + String.join("|", rule.getKeywords()))
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * 按模式识别配置编译，低于置信度阈值的规则不参与匹配
+     */
+    public static PatternRuleEngine fromConfig(IssueAnalysisConfig.PatternConfig config) {
+        List<IssueAnalysisConfig.PatternConfig.PatternRule> rules = config.getRules().stream()
+                .filter(rule -> rule.getConfidence() >= config.getConfidenceThreshold())
+                .collect(Collectors.toList());
+        return new PatternRuleEngine(rules, config.getMinFrequency());
+    }
+
+    /**
+     * 规则数量
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * 按编号获取规则
+     */
+    public IssueAnalysisConfig.PatternConfig.PatternRule getRule(int index) {
+        return rules.get(index);
+    }
+
+    /**
+     * 模式最少出现次数
+     */
+    public long getMinFrequency() {
+        return minFrequency;
+    }
+
+    /**
+     * 规则版本标识，只包含影响匹配结果的字段（ID、触发类型、是否匹配标题、关键词）
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * 匹配问题，第 i 位为 1 表示命中第 i 条规则
+     *
+     * @param title       标题，可以为 null
+     * @param description 描述，可以为 null
+     */
+    public long match(IssueType issueType, String title, String description) {
+        long[] mask = {issueType != null ? typeMasks[issueType.ordinal()] : 0L};
+        matcher.forEachDistinctMatch(description, id -> mask[0] |= descriptionMasks[id]);
+        if (matchTitle) {
+            matcher.forEachDistinctMatch(title, id -> mask[0] |= titleMasks[id]);
+        }
+        return mask[0];
+    }
+}
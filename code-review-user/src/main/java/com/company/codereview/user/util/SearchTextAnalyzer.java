@@ -0,0 +1,90 @@
+package com.company.codereview.user.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 全文检索分词器
+ *
+ * 英文和数字按连续字母数字切分并转小写；连续的中日韩字符按重叠二元组（bigram）切分，不依赖词典，
+ * 因此任意中文查询词只要在原文中连续出现就能命中。其余字符视为分隔符。
+ * 索引时每个中日韩字符还会单独计为一个词，查询时只有单字的片段才使用单字，
+ * 所以“慢”“锁”这样的单字查询也能命中。返回结果保留重复词，用于计算词频。
+ */
+public final class SearchTextAnalyzer {
+
+    /**
+     * 切分规则版本，规则变化后旧的索引快照不再加载
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * 单个英文或数字词的最大长度，超出部分截断
+     */
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private SearchTextAnalyzer() {
+    }
+
+    /**
+     * 切分待索引的文本并追加到结果列表
+     *
+     * @param text   文本，可以为 null
+     * @param tokens 结果列表
+     */
+    public static void analyze(String text, List<String> tokens) {
+        analyze(text, true, tokens);
+    }
+
+    /**
+     * 切分待索引的文本
+     */
+    public static List<String> analyze(String text) {
+        List<String> tokens = new ArrayList<>();
+        analyze(text, tokens);
+        return tokens;
+    }
+
+    /**
+     * 切分查询文本：中文片段只按二元组匹配，单字片段按单字匹配
+     */
+    public static List<String> analyzeQuery(String text) {
+        List<String> tokens = new ArrayList<>();
+        analyze(text, false, tokens);
+        return tokens;
+    }
+
+    private static void analyze(String text, boolean unigrams, List<String> tokens) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (KeywordTokenizer.isCjk(c)) {
+                int start = i;
+                while (i < length && KeywordTokenizer.isCjk(text.charAt(i))) {
+                    i++;
+                }
+                if (unigrams || i - start == 1) {
+                    for (int j = start; j < i; j++) {
+                        tokens.add(String.valueOf(text.charAt(j)));
+                    }
+                }
+                for (int j = start; j + 1 < i; j++) {
+                    tokens.add(text.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i)) && !KeywordTokenizer.isCjk(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase());
+            } else {
+                i++;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.company.codereview.user.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Aho–Corasick 多模式匹配自动机测试类
+ */
+class AhoCorasickMatcherTest {
+
+    @Test
+    void testOverlappingPatternsReportedOnceInOrder() {
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(Arrays.asList("he", "she", "his", "hers"));
+
+        assertArrayEquals(new int[]{1, 0, 3}, matcher.findDistinct("ushers"));
+        assertArrayEquals(new int[]{1, 0}, matcher.findDistinct("SHE said she"));
+        assertEquals(0, matcher.findDistinct("xyz").length);
+        assertEquals(0, new AhoCorasickMatcher(Collections.emptyList()).findDistinct("ushers").length);
+    }
+
+    @Test
+    void testMatchesAgreeWithContains() {
+        AhoCorasickMatcher matcher = new AhoCorasickMatcher(Arrays.asList("sql注入", "注入", "空指针", "null", "nullpointer", "超时"));
+        String alphabet = "sqlnuptr注入空指针超时";
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            int[] found = matcher.findDistinct(text);
+            Arrays.sort(found);
+            int[] expected = new int[matcher.size()];
+            int count = 0;
+            for (int id = 0; id < matcher.size(); id++) {
+                if (text.toString().contains(matcher.getPattern(id))) {
+                    expected[count++] = id;
+                }
+            }
+            assertArrayEquals(Arrays.copyOf(expected, count), found, text.toString());
+        }
+    }
+
+    @Test
+    void testRejectsDuplicatePatterns() {
+        assertThrows(IllegalArgumentException.class, () -> new AhoCorasickMatcher(Arrays.asList("Cache", "cache")));
+    }
+}
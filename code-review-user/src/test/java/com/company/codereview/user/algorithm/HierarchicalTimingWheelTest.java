@@ -0,0 +1,79 @@
+package com.company.codereview.user.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮测试类
+ */
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void testFiresAtDeadline() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+
+        assertFalse(wheel.schedule(1L, 2500));
+
+        assertTrue(wheel.advanceClock(2000).isEmpty());
+        assertEquals(List.of(1L), wheel.advanceClock(3000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineIsDueImmediately() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 10_000);
+
+        assertTrue(wheel.schedule(1L, 5_000));
+        assertFalse(wheel.contains(1L));
+    }
+
+    @Test
+    void testCancelAndReschedule() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        wheel.schedule(1L, 5_000);
+        wheel.schedule(2L, 5_000);
+
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.cancel(1L));
+
+        // 重新登记会覆盖原截止时间
+        wheel.schedule(2L, 200_000);
+
+        assertTrue(wheel.advanceClock(100_000).isEmpty());
+        assertEquals(List.of(2L), wheel.advanceClock(200_000));
+    }
+
+    @Test
+    void testCascadingAcrossLevels() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+
+        // 截止时间跨越多层时间轮
+        for (int i = 0; i < 1000; i++) {
+            long deadline = 1000 + (long) (random.nextDouble() * 5_000_000);
+            wheel.schedule(i, deadline);
+            deadlines.put(i, deadline);
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        for (long now = 0; now <= 5_100_000; now += 7_000) {
+            for (Integer key : wheel.advanceClock(now)) {
+                long deadline = deadlines.get(key);
+                assertTrue(deadline <= now, "不应提前触发");
+                assertTrue(now - deadline < 7_000 + 1000, "触发延迟不应超过一个推进间隔");
+                fired.add(key);
+            }
+        }
+
+        assertEquals(1000, fired.size());
+        assertEquals(0, wheel.size());
+    }
+}
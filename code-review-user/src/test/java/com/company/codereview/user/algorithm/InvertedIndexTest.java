@@ -0,0 +1,122 @@
+package com.company.codereview.user.algorithm;
+
+import com.company.codereview.user.util.SearchTextAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 倒排索引测试类
+ */
+class InvertedIndexTest {
+
+    @Test
+    void testCjkBigramSearchWithFacets() {
+        InvertedIndex index = new InvertedIndex(2);
+        index.put(1L, SearchTextAnalyzer.analyze("用户服务空指针异常 NullPointerException"), new long[]{0L, 10L});
+        index.put(2L, SearchTextAnalyzer.analyze("订单查询存在SQL注入风险"), new long[]{1L, 10L});
+        index.put(3L, SearchTextAnalyzer.analyze("空指针检查缺失，空指针"), new long[]{0L, 20L});
+
+        InvertedIndex.Hits hits = index.search(SearchTextAnalyzer.analyze("空指针"), null, 0, 10);
+        assertEquals(2, hits.getTotal());
+        assertArrayEquals(new long[]{3L, 1L}, hits.getDocIds());
+        assertEquals(Long.valueOf(1L), hits.getFacetCounts().get(1).get(10L));
+        assertEquals(Long.valueOf(1L), hits.getFacetCounts().get(1).get(20L));
+
+        InvertedIndex.Hits filtered = index.search(SearchTextAnalyzer.analyze("空指针"),
+                new long[]{InvertedIndex.ANY, 10L}, 0, 10);
+        assertArrayEquals(new long[]{1L}, filtered.getDocIds());
+
+        assertArrayEquals(new long[]{2L}, index.search(SearchTextAnalyzer.analyze("sql 注入"), null, 0, 10).getDocIds());
+        assertEquals(0, index.search(SearchTextAnalyzer.analyze("空指针 注入"), null, 0, 10).getTotal());
+
+        // 空查询按文档ID倒序浏览，支持分页
+        InvertedIndex.Hits browse = index.search(Collections.emptyList(), null, 1, 1);
+        assertEquals(3, browse.getTotal());
+        assertArrayEquals(new long[]{2L}, browse.getDocIds());
+    }
+
+    @Test
+    void testSingleCharacterQueryMatchesInsideWords() {
+        InvertedIndex index = new InvertedIndex(1);
+        index.put(1L, SearchTextAnalyzer.analyze("接口响应缓慢"), new long[]{0L});
+        index.put(2L, SearchTextAnalyzer.analyze("死锁导致超时"), new long[]{0L});
+        index.put(3L, SearchTextAnalyzer.analyze("慢"), new long[]{0L});
+
+        assertArrayEquals(new long[]{3L, 1L}, index.search(SearchTextAnalyzer.analyzeQuery("慢"), null, 0, 10).getDocIds());
+        assertArrayEquals(new long[]{2L}, index.search(SearchTextAnalyzer.analyzeQuery("锁"), null, 0, 10).getDocIds());
+        assertEquals(Arrays.asList("缓慢", "慢查"), SearchTextAnalyzer.analyzeQuery("缓慢，慢查"));
+        assertEquals(Arrays.asList("ロッ", "ック"), SearchTextAnalyzer.analyzeQuery("ロック"));
+    }
+
+    @Test
+    void testUpdateRemoveAndSnapshotAgreeWithBruteForce() throws IOException {
+        InvertedIndex index = new InvertedIndex(1);
+        Map<Long, Set<String>> documents = new HashMap<>();
+        Map<Long, Long> teams = new HashMap<>();
+        String[] vocabulary = {"a", "b", "c", "d", "e", "f", "g", "h"};
+        Random random = new Random(7);
+
+        for (int round = 0; round < 5000; round++) {
+            long docId = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                assertEquals(documents.remove(docId) != null, index.remove(docId));
+                teams.remove(docId);
+                continue;
+            }
+            List<String> tokens = new ArrayList<>();
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                tokens.add(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            long team = random.nextInt(3);
+            index.put(docId, tokens, new long[]{team});
+            documents.put(docId, new HashSet<>(tokens));
+            teams.put(docId, team);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        InvertedIndex restored = InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 1);
+        assertEquals(documents.size(), restored.size());
+
+        for (int round = 0; round < 200; round++) {
+            List<String> query = Arrays.asList(vocabulary[random.nextInt(vocabulary.length)],
+                    vocabulary[random.nextInt(vocabulary.length)]);
+            long team = random.nextInt(3);
+            Set<Long> expected = new HashSet<>();
+            documents.forEach((docId, terms) -> {
+                if (terms.containsAll(query) && teams.get(docId) == team) {
+                    expected.add(docId);
+                }
+            });
+
+            for (InvertedIndex candidate : Arrays.asList(index, restored)) {
+                InvertedIndex.Hits hits = candidate.search(query, new long[]{team}, 0, 1000);
+                assertEquals(expected.size(), hits.getTotal());
+                Set<Long> actual = new HashSet<>();
+                for (long docId : hits.getDocIds()) {
+                    actual.add(docId);
+                }
+                assertEquals(expected, actual);
+                for (int i = 1; i < hits.getScores().length; i++) {
+                    assertTrue(hits.getScores()[i - 1] >= hits.getScores()[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.company.codereview.user.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * K-medoids 聚类测试类
+ */
+class KMedoidsClusteringTest {
+
+    @Test
+    void testSeparatesWellSeparatedGroups() {
+        // 三组点分别分布在 0、100、200 附近
+        double[] points = points(3000, 3);
+        KMedoidsClustering.Similarity similarity = (i, j) -> 1.0 / (1.0 + Math.abs(points[i] - points[j]));
+
+        KMedoidsClustering.Result result = new KMedoidsClustering(3, 7L).cluster(points.length, similarity);
+
+        int[] assignments = result.getAssignments();
+        for (int i = 0; i < points.length; i++) {
+            int group = i % 3;
+            for (int j = i + 1; j < Math.min(points.length, i + 30); j++) {
+                assertEquals(group == j % 3, assignments[i] == assignments[j], "点 " + i + " 与点 " + j);
+            }
+        }
+        for (int medoid : result.getMedoids()) {
+            assertEquals(medoid % 3, (int) Math.round(points[medoid] / 100));
+        }
+    }
+
+    @Test
+    void testSameSeedGivesSameResult() {
+        double[] points = points(2000, 5);
+        KMedoidsClustering.Similarity similarity = (i, j) -> 1.0 / (1.0 + Math.abs(points[i] - points[j]));
+
+        KMedoidsClustering.Result first = new KMedoidsClustering(4, 11L).cluster(points.length, similarity);
+        KMedoidsClustering.Result second = new KMedoidsClustering(4, 11L).cluster(points.length, similarity);
+
+        assertArrayEquals(first.getMedoids(), second.getMedoids());
+        assertArrayEquals(first.getAssignments(), second.getAssignments());
+    }
+
+    @Test
+    void testSampledClustersConvergeBeforeIterationLimit() {
+        // 每簇约1000个点，远大于采样数，中心只在样本内更新
+        double[] points = points(4000, 4);
+        KMedoidsClustering.Similarity similarity = (i, j) -> 1.0 / (1.0 + Math.abs(points[i] - points[j]));
+
+        KMedoidsClustering.Result result = new KMedoidsClustering(4, 3L, 100, 20).cluster(points.length, similarity);
+
+        assertTrue(result.getIterations() < 10, "迭代次数: " + result.getIterations());
+        for (int i = 0; i < points.length; i++) {
+            assertEquals(result.getMedoids()[result.getAssignments()[i]] % 4, i % 4, "点 " + i);
+        }
+    }
+
+    private static double[] points(int count, int groups) {
+        Random random = new Random(42);
+        double[] points = new double[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = (i % groups) * 100 + random.nextGaussian() * 5;
+        }
+        return points;
+    }
+}
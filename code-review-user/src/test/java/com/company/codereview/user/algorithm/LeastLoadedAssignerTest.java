@@ -0,0 +1,36 @@
+package com.company.codereview.user.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 最小堆分配器测试类
+ */
+class LeastLoadedAssignerTest {
+
+    @Test
+    void testFillsLeastLoadedMembersFirst() {
+        Map<Long, Integer> loads = new LinkedHashMap<>();
+        loads.put(1L, 3);
+        loads.put(2L, 0);
+        loads.put(3L, 1);
+
+        Map<Long, List<Long>> plan = LeastLoadedAssigner.assign(List.of(10L, 11L, 12L, 13L, 14L), loads);
+
+        // 最终负载: 1 -> 3, 2 -> 3, 3 -> 3
+        assertEquals(List.of(10L, 11L, 13L), plan.get(2L));
+        assertEquals(List.of(12L, 14L), plan.get(3L));
+        assertNull(plan.get(1L));
+    }
+
+    @Test
+    void testNoMembersOrItems() {
+        assertTrue(LeastLoadedAssigner.assign(List.of(1L), Map.of()).isEmpty());
+        assertTrue(LeastLoadedAssigner.assign(List.of(), Map.of(1L, 0)).isEmpty());
+    }
+}
@@ -0,0 +1,67 @@
+package com.company.codereview.user.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对数-线性直方图测试类
+ */
+class LogLinearHistogramTest {
+
+    @Test
+    void testQuantilesWithinRelativeError() {
+        Random random = new Random(7);
+        long[] values = new long[10_000];
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // 长尾分布，覆盖几分钟到数十天
+            values[i] = (long) Math.exp(random.nextDouble() * 11);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long estimated = histogram.quantile(quantile);
+            assertTrue(Math.abs(estimated - exact) <= Math.max(1, exact / 64),
+                    "p" + (int) (quantile * 100) + " exact=" + exact + " estimated=" + estimated);
+        }
+        assertEquals(values[0], histogram.getMin());
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    void testMergeEqualsRecordingAll() {
+        LogLinearHistogram all = new LogLinearHistogram();
+        LogLinearHistogram first = new LogLinearHistogram();
+        LogLinearHistogram second = new LogLinearHistogram();
+        for (long value = 0; value < 5_000; value += 3) {
+            all.record(value * value);
+            (value % 2 == 0 ? first : second).record(value * value);
+        }
+
+        first.merge(second);
+
+        assertEquals(all.encode(), first.encode());
+        assertEquals(all.quantile(0.9), first.quantile(0.9));
+    }
+
+    @Test
+    void testEncodeRoundTrip() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(3);
+        histogram.record(150);
+        histogram.record(1_000_000);
+
+        LogLinearHistogram decoded = LogLinearHistogram.decode(histogram.encode());
+
+        assertEquals(histogram.encode(), decoded.encode());
+        assertEquals(3, decoded.getTotalCount());
+        assertEquals(150, decoded.quantile(0.5));
+        assertEquals(0, LogLinearHistogram.decode("").getTotalCount());
+    }
+}
@@ -0,0 +1,65 @@
+package com.company.codereview.user.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MinHash 签名与 LSH 分桶测试类
+ */
+class MinHashTest {
+
+    private final MinHash minHash = new MinHash(64, 16, 42L);
+
+    @Test
+    void testSimilarityApproximatesJaccard() {
+        // 两个集合共享 60 个词，各自独有 20 个词，Jaccard = 60 / 100
+        List<String> shared = words("shared", 60);
+        Set<String> set1 = new HashSet<>(shared);
+        set1.addAll(words("left", 20));
+        Set<String> set2 = new HashSet<>(shared);
+        set2.addAll(words("right", 20));
+
+        double estimated = MinHash.similarity(minHash.signature(set1), minHash.signature(set2));
+        assertEquals(0.6, estimated, 0.2);
+        assertEquals(1.0, MinHash.similarity(minHash.signature(set1), minHash.signature(new HashSet<>(set1))));
+        assertTrue(MinHash.similarity(minHash.signature(words("a", 30)), minHash.signature(words("b", 30))) < 0.15);
+    }
+
+    @Test
+    void testBandKeysAndEncoding() {
+        int[] signature = minHash.signature(words("token", 10));
+        int[] nearDuplicate = minHash.signature(words("token", 11));
+
+        long[] keys = minHash.bandKeys(signature);
+        assertEquals(16, keys.length);
+        Set<Long> sharedKeys = new HashSet<>();
+        for (long key : keys) {
+            sharedKeys.add(key);
+        }
+        int collisions = 0;
+        for (long key : minHash.bandKeys(nearDuplicate)) {
+            if (sharedKeys.contains(key)) {
+                collisions++;
+            }
+        }
+        assertTrue(collisions > 0, "近似重复的集合应至少共享一个桶");
+
+        assertEquals(0, minHash.bandKeys(minHash.signature(Collections.emptySet())).length);
+        assertArrayEquals(signature, MinHash.decode(MinHash.encode(signature)));
+    }
+
+    private static List<String> words(String prefix, int count) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            words.add(prefix + i);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,52 @@
+package com.company.codereview.user.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌桶测试类
+ */
+class TokenBucketTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void testBurstUpToCapacityThenRefillAtRate() {
+        TokenBucket bucket = new TokenBucket(60, MINUTE, 0L);
+        for (int i = 0; i < 60; i++) {
+            assertTrue(bucket.tryAcquire(1, 0L));
+        }
+        assertFalse(bucket.tryAcquire(1, 0L));
+
+        // 每分钟 60 个，即每秒补充 1 个
+        long oneSecond = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(oneSecond, bucket.nanosUntilAvailable(1, 0L));
+        assertFalse(bucket.tryAcquire(1, oneSecond - 1));
+        assertTrue(bucket.tryAcquire(1, oneSecond));
+        assertFalse(bucket.tryAcquire(1, oneSecond));
+    }
+
+    @Test
+    void testRefillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(10, MINUTE, 0L);
+        assertTrue(bucket.tryAcquire(10, 0L));
+
+        assertEquals(10, bucket.available(MINUTE * 5));
+        assertEquals(0L, bucket.nanosUntilAvailable(10, MINUTE * 5));
+        assertFalse(bucket.tryAcquire(11, MINUTE * 5));
+        assertThrows(IllegalArgumentException.class, () -> bucket.nanosUntilAvailable(11, MINUTE * 5));
+    }
+
+    @Test
+    void testClockGoingBackwardsDoesNotAddTokens() {
+        TokenBucket bucket = new TokenBucket(2, MINUTE, MINUTE);
+        assertTrue(bucket.tryAcquire(2, MINUTE));
+
+        assertEquals(0, bucket.available(0L));
+        assertEquals(0, bucket.available(MINUTE));
+        assertEquals(1, bucket.available(MINUTE + MINUTE / 2));
+    }
+}
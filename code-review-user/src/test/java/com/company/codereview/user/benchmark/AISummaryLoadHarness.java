@@ -0,0 +1,216 @@
+package com.company.codereview.user.benchmark;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.algorithm.LogLinearHistogram;
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.dto.AISummaryRequest;
+import com.company.codereview.user.dto.AISummaryResponse;
+import com.company.codereview.user.entity.AISummary;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.AISummaryRepository;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.service.AISummaryService;
+import com.company.codereview.user.service.IssueAnalysisService;
+import com.company.codereview.user.service.IssueAnalyzer;
+import com.company.codereview.user.service.ai.AICircuitBreaker;
+import com.company.codereview.user.service.ai.AIExecutor;
+import com.company.codereview.user.service.ai.AIExecutorStats;
+import com.company.codereview.user.service.ai.AIRateLimiter;
+import com.company.codereview.user.service.ai.AIResponseCache;
+import com.company.codereview.user.service.ai.FallbackAIService;
+import com.company.codereview.user.service.ai.MockOpenAIServer;
+import com.company.codereview.user.service.ai.OpenAIClient;
+import com.company.codereview.user.service.ai.PromptCompiler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI汇总生成压测
+ *
+ * 以 concurrency 个线程并发生成 requests 份团队汇总，AI服务由本地 {@link MockOpenAIServer} 模拟，
+ * 走真实的 AISummaryService、OpenAIClient、AI调用执行器和熔断器，数据库访问替换为内存桩，完全离线运行。
+ * 输出吞吐量、端到端延迟 P50/P99、降级比例、执行器排队耗时和熔断器状态。
+ *
+ * 运行方式：在 IDE 中执行 main 方法，或 mvn test-compile 后以 test classpath 启动本类，参数依次为
+ * 并发数 请求数 模拟延迟中位数(ms) 模拟延迟P99(ms) 错误率 汇总SLO(ms)，例如 {@code 32 500 800 6000 0.05 8000}
+ */
+public class AISummaryLoadHarness {
+
+    private static final String[] WORDS = {
+        "null", "pointer", "query", "slow", "timeout", "injection", "naming", "format", "style", "cache",
+        "memory", "user", "service", "order", "payment", "login", "auth", "comment", "transaction", "lock"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = intArg(args, 0, 16);
+        int requests = intArg(args, 1, 200);
+        long medianMillis = intArg(args, 2, 500);
+        long p99Millis = intArg(args, 3, 4000);
+        double errorRate = args.length > 4 ? Double.parseDouble(args[4]) : 0.02;
+        long sloMillis = intArg(args, 5, 8000);
+
+        try (MockOpenAIServer server = MockOpenAIServer.start()) {
+            server.latency(medianMillis, p99Millis).errors(errorRate, 500);
+
+            AIServiceConfig config = new AIServiceConfig();
+            config.setBaseUrl(server.getBaseUrl());
+            config.setApiKey("load-test");
+            config.setSummarySloMillis(sloMillis);
+            config.getResponseCache().setEnabled(false);
+            // 压测的是延迟和降级，不受服务商配额限制
+            config.getRateLimit().setRequestsPerMinute(0);
+            config.getRateLimit().setRequestsPerHour(0);
+            config.getRateLimit().setRequestsPerDay(0);
+
+            AIExecutor aiExecutor = new AIExecutor(config);
+            AICircuitBreaker circuitBreaker = new AICircuitBreaker(config);
+            PromptCompiler promptCompiler = new PromptCompiler(config);
+            OpenAIClient aiClient = new OpenAIClient(config, new RestTemplate(), new ObjectMapper(), aiExecutor,
+                    circuitBreaker, new AIResponseCache(config, null), promptCompiler, new AIRateLimiter(config));
+
+            LocalDate endDate = LocalDate.now();
+            LocalDate startDate = endDate.minusDays(7);
+            List<Issue> issues = randomIssues(new Random(42), 500, endDate.atStartOfDay());
+            IssueAnalyzer issueAnalyzer = new IssueAnalyzer();
+
+            AtomicLong lateSwaps = new AtomicLong();
+            AISummaryService summaryService = new AISummaryService(
+                    summaryRepository(lateSwaps),
+                    issueAnalysisService(issueAnalyzer, issues, startDate, endDate),
+                    issueRepository(issues),
+                    issueAnalyzer, aiClient, promptCompiler, new FallbackAIService(), config, new ObjectMapper());
+
+            LogLinearHistogram latency = new LogLinearHistogram();
+            AtomicLong fallbacks = new AtomicLong();
+            AtomicLong failures = new AtomicLong();
+            ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+            List<Future<?>> pending = new ArrayList<>(requests);
+
+            long started = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                AISummaryRequest request = new AISummaryRequest();
+                request.setTeamId((long) i); // 各请求互不合并
+                request.setSummaryType(AISummaryRequest.SummaryType.TEAM_WEEKLY);
+                request.setStartDate(startDate);
+                request.setEndDate(endDate);
+                pending.add(callers.submit(() -> {
+                    long begin = System.nanoTime();
+                    try {
+                        AISummaryResponse response = summaryService.generateSummary(request, 1L).get();
+                        if (FallbackAIService.MODEL_NAME.equals(response.getMetadata().getAiModel())) {
+                            fallbacks.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+                    synchronized (latency) {
+                        latency.record(elapsed);
+                    }
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+            callers.shutdown();
+
+            AIExecutorStats executorStats = aiExecutor.getStats();
+            System.out.printf("concurrency=%d requests=%d latency(median=%dms, p99=%dms) errorRate=%.2f slo=%dms%n",
+                    concurrency, requests, medianMillis, p99Millis, errorRate, sloMillis);
+            System.out.printf("throughput: %.1f summaries/s over %.1fs%n", requests / elapsedSeconds, elapsedSeconds);
+            System.out.printf("end-to-end latency: p50=%dms p99=%dms max=%dms%n",
+                    latency.quantile(0.5), latency.quantile(0.99), latency.getMax());
+            System.out.printf("fallback: %d (%.1f%%), late AI swaps: %d, failed: %d%n",
+                    fallbacks.get(), fallbacks.get() * 100.0 / requests, lateSwaps.get(), failures.get());
+            System.out.printf("ai executor: queue wait p50=%dms p99=%dms, call p50=%dms p99=%dms, rejected=%d, timed out=%d%n",
+                    executorStats.getQueueWaitP50Millis(), executorStats.getQueueWaitP99Millis(),
+                    executorStats.getLatencyP50Millis(), executorStats.getLatencyP99Millis(),
+                    executorStats.getRejectedCalls(), executorStats.getTimedOutCalls());
+            System.out.println("circuit breaker: " + circuitBreaker.getStats());
+            System.out.printf("mock server: requests=%d errors=%d promptTokens=%d completionTokens=%d%n",
+                    server.getRequests(), server.getErrors(), server.getPromptTokens(), server.getCompletionTokens());
+
+            aiExecutor.shutdown();
+        }
+    }
+
+    private static AISummaryRepository summaryRepository(AtomicLong lateSwaps) {
+        AISummaryRepository repository = mock(AISummaryRepository.class);
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            ((AISummary) invocation.getArgument(0)).setId(ids.incrementAndGet());
+            return 1;
+        }).when(repository).insert(any(AISummary.class));
+        when(repository.replaceFallbackContent(anyLong(), anyString(), anyString(), anyDouble()))
+                .thenAnswer(invocation -> {
+                    lateSwaps.incrementAndGet();
+                    return 1;
+                });
+        return repository;
+    }
+
+    private static IssueAnalysisService issueAnalysisService(IssueAnalyzer issueAnalyzer, List<Issue> issues,
+                                                             LocalDate startDate, LocalDate endDate) {
+        IssueAnalysisService service = mock(IssueAnalysisService.class);
+        when(service.analyzeTeamIssues(anyLong(), eq(startDate), eq(endDate)))
+                .thenAnswer(invocation -> issueAnalyzer.analyzeTeamIssues(issues, startDate, endDate));
+        return service;
+    }
+
+    private static IssueRepository issueRepository(List<Issue> issues) {
+        IssueRepository repository = mock(IssueRepository.class);
+        when(repository.findTeamIssuesCreatedBetween(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> new ArrayList<>(issues)); // 与数据库查询一致，每次返回新列表
+        return repository;
+    }
+
+    private static List<Issue> randomIssues(Random random, int count, LocalDateTime end) {
+        List<Issue> issues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Issue issue = new Issue();
+            issue.setId((long) i);
+            issue.setIssueType(IssueType.values()[random.nextInt(IssueType.values().length)]);
+            issue.setSeverity(Severity.values()[random.nextInt(Severity.values().length)]);
+            issue.setStatus(Issue.IssueStatus.values()[random.nextInt(Issue.IssueStatus.values().length)]);
+            issue.setTitle("Issue " + WORDS[random.nextInt(WORDS.length)]);
+            StringBuilder description = new StringBuilder();
+            int wordCount = 3 + random.nextInt(6);
+            for (int w = 0; w < wordCount; w++) {
+                if (w > 0) {
+                    description.append(' ');
+                }
+                description.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            issue.setDescription(description.toString());
+            issue.setCreatedAt(end.minusMinutes(random.nextInt(7 * 24 * 60)));
+            issues.add(issue);
+        }
+        return issues;
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
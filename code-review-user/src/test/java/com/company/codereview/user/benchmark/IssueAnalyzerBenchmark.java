@@ -0,0 +1,101 @@
+package com.company.codereview.user.benchmark;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.dto.IssueAnalysisResult;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.service.IssueAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 问题分析器基准测试
+ *
+ * 运行方式：在 IDE 中执行 main 方法，或 mvn test-compile 后以 test classpath 启动本类
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IssueAnalyzerBenchmark {
+
+    private static final String[] WORDS = {
+        "null", "pointer", "query", "slow", "timeout", "injection", "naming", "format", "style", "cache",
+        "memory", "user", "service", "order", "payment", "login", "auth", "comment", "transaction", "lock"
+    };
+
+    @Param({"100000"})
+    private int issueCount;
+
+    private IssueAnalyzer issueAnalyzer;
+    private List<Issue> issues;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        issueAnalyzer = new IssueAnalyzer();
+        endDate = LocalDate.now();
+        startDate = endDate.minusDays(90);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        issues = new ArrayList<>(issueCount);
+        for (int i = 0; i < issueCount; i++) {
+            Issue issue = new Issue();
+            issue.setId((long) i);
+            issue.setIssueType(IssueType.values()[random.nextInt(IssueType.values().length)]);
+            issue.setSeverity(Severity.values()[random.nextInt(Severity.values().length)]);
+            issue.setStatus(Issue.IssueStatus.values()[random.nextInt(Issue.IssueStatus.values().length)]);
+            issue.setTitle("Issue " + WORDS[random.nextInt(WORDS.length)]);
+            issue.setDescription(randomDescription(random));
+            issue.setCreatedAt(now.minusMinutes(random.nextInt(90 * 24 * 60)));
+            issues.add(issue);
+        }
+    }
+
+    @Benchmark
+    public IssueAnalysisResult analyzeTeamIssues() {
+        return issueAnalyzer.analyzeTeamIssues(issues, startDate, endDate);
+    }
+
+    private String randomDescription(Random random) {
+        StringBuilder description = new StringBuilder();
+        int wordCount = 3 + random.nextInt(6);
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                description.append(' ');
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return description.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IssueAnalyzerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
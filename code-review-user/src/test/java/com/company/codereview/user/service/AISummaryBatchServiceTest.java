@@ -0,0 +1,181 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.dto.AISummaryBatchStats;
+import com.company.codereview.user.entity.AISummary;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.entity.Team;
+import com.company.codereview.user.repository.AISummaryRepository;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.repository.TeamRepository;
+import com.company.codereview.user.service.ai.AIClient;
+import com.company.codereview.user.service.ai.AIRateLimiter;
+import com.company.codereview.user.service.ai.FallbackAIService;
+import com.company.codereview.user.service.ai.PromptCompiler;
+import com.company.codereview.user.service.job.DistributedJobRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI汇总批量生成服务测试类
+ */
+class AISummaryBatchServiceTest {
+
+    private static final Long TEAM_ID = 5L;
+    private static final LocalDate WEEK_START = LocalDate.of(2024, 1, 1);
+
+    private final List<AISummary> inserted = new ArrayList<>();
+    private AISummaryRepository summaryRepository;
+    private AIClient aiClient;
+    private AISummaryBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        summaryRepository = mock(AISummaryRepository.class);
+        when(summaryRepository.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<AISummary> batch = invocation.getArgument(0);
+            inserted.addAll(batch);
+            return batch.size();
+        });
+        when(summaryRepository.replaceFallbackContent(anyLong(), anyString(), anyString(), anyDouble())).thenReturn(1);
+
+        List<Issue> issues = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Issue issue = new Issue();
+            issue.setId(id);
+            issue.setTitle("接口响应慢 " + id);
+            issue.setIssueType(IssueType.PERFORMANCE_ISSUE);
+            issue.setSeverity(Severity.MAJOR);
+            issue.setStatus(Issue.IssueStatus.OPEN);
+            issue.setCreatedAt(WEEK_START.atTime(9, 0).plusHours(id));
+            issues.add(issue);
+        }
+        IssueAnalyzer issueAnalyzer = new IssueAnalyzer();
+        IssueAnalysisService issueAnalysisService = mock(IssueAnalysisService.class);
+        when(issueAnalysisService.analyzeTeamIssues(TEAM_ID, WEEK_START, WEEK_START.plusDays(6)))
+                .thenReturn(issueAnalyzer.analyzeTeamIssues(issues, WEEK_START, WEEK_START.plusDays(6)));
+        IssueRepository issueRepository = mock(IssueRepository.class);
+        when(issueRepository.findTeamIssuesCreatedBetween(eq(TEAM_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(issues);
+
+        Team team = new Team();
+        team.setId(TEAM_ID);
+        TeamRepository teamRepository = mock(TeamRepository.class);
+        when(teamRepository.findAllActive()).thenReturn(List.of(team));
+
+        PromptCompiler promptCompiler = mock(PromptCompiler.class);
+        when(promptCompiler.compileSummaryPrompt(any(), any())).thenReturn("prompt");
+        aiClient = mock(AIClient.class);
+
+        AIServiceConfig config = new AIServiceConfig();
+        config.setMaxRetries(2);
+        FallbackAIService fallbackAIService = new FallbackAIService();
+        AISummaryService summaryService = new AISummaryService(summaryRepository, issueAnalysisService,
+                issueRepository, issueAnalyzer, aiClient, promptCompiler, fallbackAIService, config, new ObjectMapper());
+        batchService = new AISummaryBatchService(summaryService, summaryRepository, issueAnalysisService,
+                issueRepository, teamRepository, aiClient, new AIRateLimiter(config), promptCompiler,
+                fallbackAIService, mock(DistributedJobRunner.class), config);
+        ReflectionTestUtils.setField(batchService, "prepareThreads", 2);
+        ReflectionTestUtils.setField(batchService, "maxConcurrentCalls", 2);
+        ReflectionTestUtils.setField(batchService, "initialBackoffMillis", 1L);
+        ReflectionTestUtils.setField(batchService, "maxBackoffMillis", 5L);
+        ReflectionTestUtils.setField(batchService, "rateLimitWaitSeconds", 1L);
+        ReflectionTestUtils.setField(batchService, "writeBatchSize", 20);
+        batchService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchService.shutdown();
+    }
+
+    @Test
+    void testRetriesThenFallsBackAndWritesBatch() {
+        when(aiClient.generateSummaryOrFail("prompt"))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("model unavailable")));
+
+        AISummaryBatchStats stats = batchService.runWeeklyBatch(WEEK_START);
+
+        // 首次调用加两次重试
+        verify(aiClient, times(3)).generateSummaryOrFail("prompt");
+        assertEquals(2, stats.getRetries());
+        assertEquals(1, stats.getFallback());
+        assertEquals(1, stats.getPersisted());
+        assertEquals(1, inserted.size());
+        AISummary summary = inserted.get(0);
+        assertEquals(FallbackAIService.MODEL_NAME, summary.getAiModel());
+        assertNotNull(summary.getSourceFingerprint());
+        assertTrue(summary.getContent().contains("性能问题 (3次, 100.0%)"));
+    }
+
+    @Test
+    void testTransientFailureIsRetried() {
+        when(aiClient.generateSummaryOrFail("prompt"))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("timeout")))
+                .thenReturn(CompletableFuture.completedFuture("AI summary"));
+
+        AISummaryBatchStats stats = batchService.runWeeklyBatch(WEEK_START);
+
+        assertEquals(1, stats.getRetries());
+        assertEquals(1, stats.getGenerated());
+        assertEquals(0, stats.getFallback());
+        assertEquals("AI summary", inserted.get(0).getContent());
+        assertEquals("gpt-3.5-turbo", inserted.get(0).getAiModel());
+    }
+
+    @Test
+    void testRerunReplacesExistingFallbackSummary() {
+        AISummary existing = new AISummary();
+        existing.setId(9L);
+        when(summaryRepository.findFallbackSummary(eq(TEAM_ID), any(), eq(WEEK_START), eq(WEEK_START.plusDays(6)), any()))
+                .thenReturn(existing);
+        when(aiClient.generateSummaryOrFail("prompt")).thenReturn(CompletableFuture.completedFuture("AI summary"));
+
+        AISummaryBatchStats stats = batchService.runWeeklyBatch(WEEK_START);
+
+        verify(summaryRepository).replaceFallbackContent(eq(9L), eq("AI summary"), eq("gpt-3.5-turbo"), anyDouble());
+        verify(summaryRepository, never()).insertBatch(anyList());
+        assertEquals(1, stats.getPersisted());
+    }
+
+    @Test
+    void testRerunKeepsExistingFallbackSummaryWhenAIStillFails() {
+        AISummary existing = new AISummary();
+        existing.setId(9L);
+        when(summaryRepository.findFallbackSummary(eq(TEAM_ID), any(), eq(WEEK_START), eq(WEEK_START.plusDays(6)), any()))
+                .thenReturn(existing);
+        when(aiClient.generateSummaryOrFail("prompt"))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("model unavailable")));
+
+        AISummaryBatchStats stats = batchService.runWeeklyBatch(WEEK_START);
+
+        verify(summaryRepository, never()).insertBatch(anyList());
+        verify(summaryRepository, never()).replaceFallbackContent(anyLong(), anyString(), anyString(), anyDouble());
+        assertEquals(1, stats.getFallback());
+        assertEquals(0, stats.getPersisted());
+    }
+}
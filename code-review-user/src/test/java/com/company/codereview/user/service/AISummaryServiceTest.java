@@ -0,0 +1,146 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.dto.AISummaryRequest;
+import com.company.codereview.user.dto.AISummaryResponse;
+import com.company.codereview.user.entity.AISummary;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.AISummaryRepository;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.service.ai.AIClient;
+import com.company.codereview.user.service.ai.FallbackAIService;
+import com.company.codereview.user.service.ai.PromptCompiler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI汇总服务测试类
+ */
+class AISummaryServiceTest {
+
+    private static final Long TEAM_ID = 5L;
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 7);
+
+    private final List<AISummary> updates = new ArrayList<>();
+    private AISummaryRepository summaryRepository;
+    private AIClient aiClient;
+    private AISummaryService summaryService;
+
+    @BeforeEach
+    void setUp() {
+        summaryRepository = mock(AISummaryRepository.class);
+        when(summaryRepository.insert(any(AISummary.class))).thenAnswer(invocation -> {
+            invocation.<AISummary>getArgument(0).setId(42L);
+            return 1;
+        });
+        when(summaryRepository.updateById(any(AISummary.class))).thenAnswer(invocation -> {
+            updates.add(invocation.getArgument(0));
+            return 1;
+        });
+        when(summaryRepository.replaceFallbackContent(anyLong(), anyString(), anyString(), anyDouble())).thenReturn(1);
+
+        IssueAnalyzer issueAnalyzer = new IssueAnalyzer();
+        IssueAnalysisService issueAnalysisService = mock(IssueAnalysisService.class);
+        when(issueAnalysisService.analyzeTeamIssues(TEAM_ID, START, END))
+                .thenReturn(issueAnalyzer.analyzeTeamIssues(Collections.emptyList(), START, END));
+
+        IssueRepository issueRepository = mock(IssueRepository.class);
+        List<Issue> issues = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Issue issue = new Issue();
+            issue.setId(id);
+            issue.setTitle("接口响应慢 " + id);
+            issue.setIssueType(IssueType.PERFORMANCE_ISSUE);
+            issue.setSeverity(Severity.MAJOR);
+            issue.setStatus(Issue.IssueStatus.OPEN);
+            issue.setCreatedAt(START.atTime(9, 0).plusHours(id));
+            issues.add(issue);
+        }
+        when(issueRepository.findTeamIssuesCreatedBetween(eq(TEAM_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(issues);
+
+        PromptCompiler promptCompiler = mock(PromptCompiler.class);
+        when(promptCompiler.compileSummaryPrompt(any(), any())).thenReturn("prompt");
+        aiClient = mock(AIClient.class);
+
+        AIServiceConfig config = new AIServiceConfig();
+        config.setSummarySloMillis(50);
+        summaryService = new AISummaryService(summaryRepository, issueAnalysisService, issueRepository, issueAnalyzer,
+                aiClient, promptCompiler, new FallbackAIService(), config, new ObjectMapper());
+    }
+
+    @Test
+    void testAnswerWithinSloIsStoredDirectly() throws Exception {
+        when(aiClient.generateSummaryOrFail("prompt")).thenReturn(CompletableFuture.completedFuture("AI summary"));
+
+        AISummaryResponse response = summaryService.generateSummary(request(), 1L).get(5, TimeUnit.SECONDS);
+
+        assertEquals("AI summary", response.getContent());
+        assertEquals("gpt-3.5-turbo", updates.get(0).getAiModel());
+        verify(summaryRepository, never()).replaceFallbackContent(anyLong(), anyString(), anyString(), anyDouble());
+    }
+
+    @Test
+    void testLateAnswerIsSwappedIntoFallbackSummary() throws Exception {
+        CompletableFuture<String> aiContent = new CompletableFuture<>();
+        when(aiClient.generateSummaryOrFail("prompt")).thenReturn(aiContent);
+
+        AISummaryResponse response = summaryService.generateSummary(request(), 1L).get(5, TimeUnit.SECONDS);
+
+        // 超过SLO先返回降级报告，AI调用继续执行
+        assertTrue(response.getContent().contains("代码评审问题汇总报告"));
+        assertTrue(response.getContent().contains("性能问题 (3次, 100.0%)"));
+        assertEquals(FallbackAIService.MODEL_NAME, updates.get(0).getAiModel());
+        assertEquals(AISummary.SummaryStatus.COMPLETED, updates.get(0).getStatus());
+        assertFalse(aiContent.isCancelled());
+        verify(summaryRepository, never()).replaceFallbackContent(anyLong(), anyString(), anyString(), anyDouble());
+
+        aiContent.complete("late AI summary");
+
+        verify(summaryRepository).replaceFallbackContent(42L, "late AI summary", "gpt-3.5-turbo", 0.85);
+    }
+
+    @Test
+    void testFailedAnswerKeepsFallbackSummary() throws Exception {
+        CompletableFuture<String> aiContent = new CompletableFuture<>();
+        when(aiClient.generateSummaryOrFail("prompt")).thenReturn(aiContent);
+
+        summaryService.generateSummary(request(), 1L).get(5, TimeUnit.SECONDS);
+        aiContent.completeExceptionally(new IllegalStateException("model unavailable"));
+
+        assertEquals(FallbackAIService.MODEL_NAME, updates.get(0).getAiModel());
+        verify(summaryRepository, never()).replaceFallbackContent(anyLong(), anyString(), anyString(), anyDouble());
+    }
+
+    private AISummaryRequest request() {
+        AISummaryRequest request = new AISummaryRequest();
+        request.setTeamId(TEAM_ID);
+        request.setSummaryType(AISummaryRequest.SummaryType.TEAM_WEEKLY);
+        request.setStartDate(START);
+        request.setEndDate(END);
+        return request;
+    }
+}
@@ -0,0 +1,212 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.IssueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 整改期限调度服务测试类
+ */
+class FixDeadlineSchedulerTest {
+
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+    private final Map<Long, Issue> storedIssues = new ConcurrentHashMap<>();
+    private final List<Long> dispatched = Collections.synchronizedList(new ArrayList<>());
+    private final List<FixDeadlineScheduler> schedulers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        schedulers.forEach(FixDeadlineScheduler::stop);
+    }
+
+    @Test
+    void testOverdueIssuesAreDispatchedByOneNodeOnly() throws Exception {
+        IssueRepository repository = repository(
+                issue(1L, Severity.CRITICAL, LocalDateTime.now().minusDays(2)),
+                issue(2L, Severity.MINOR, LocalDateTime.now().minusDays(1)));
+
+        newScheduler(repository).start();
+        newScheduler(repository).start();
+        awaitDispatched(1);
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(Collections.singletonList(1L), dispatched);
+    }
+
+    @Test
+    void testRestartDoesNotDispatchAgain() throws Exception {
+        IssueRepository repository = repository(issue(1L, Severity.MAJOR, LocalDateTime.now().minusDays(4)));
+
+        FixDeadlineScheduler first = newScheduler(repository);
+        first.start();
+        awaitDispatched(1);
+        first.stop();
+
+        newScheduler(repository).start();
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(1, dispatched.size());
+    }
+
+    @Test
+    void testEscalationReschedulesDeadline() throws Exception {
+        IssueRepository repository = repository(issue(1L, Severity.MAJOR, LocalDateTime.now().minusDays(2)));
+        FixDeadlineScheduler scheduler = newScheduler(repository);
+        scheduler.start();
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertTrue(dispatched.isEmpty());
+
+        // 升级为严重后截止时间提前为创建后1天，已经到期
+        Issue escalated = issue(1L, Severity.CRITICAL, LocalDateTime.now().minusDays(2));
+        storedIssues.put(1L, escalated);
+        scheduler.onIssueChanged(escalated);
+        awaitDispatched(1);
+
+        assertEquals(Collections.singletonList(1L), dispatched);
+    }
+
+    @Test
+    void testFilteredIssueIsNotClaimed() throws Exception {
+        Issue unassigned = issue(1L, Severity.CRITICAL, LocalDateTime.now().minusDays(2));
+        unassigned.setAssignedTo(null);
+        IssueRepository repository = repository(unassigned);
+        FixDeadlineScheduler scheduler = newScheduler(repository);
+        scheduler.start();
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertTrue(dispatched.isEmpty());
+        assertTrue(redisValues.isEmpty());
+
+        // 分配处理人后已到期，立即通知
+        Issue assigned = issue(1L, Severity.CRITICAL, LocalDateTime.now().minusDays(2));
+        storedIssues.put(1L, assigned);
+        scheduler.onIssueChanged(assigned);
+        awaitDispatched(1);
+
+        assertEquals(Collections.singletonList(1L), dispatched);
+    }
+
+    @Test
+    void testFailedHandlerReleasesClaimAndRetries() throws Exception {
+        IssueRepository repository = repository(issue(1L, Severity.CRITICAL, LocalDateTime.now().minusDays(2)));
+        FixDeadlineScheduler scheduler = newScheduler(repository);
+        AtomicInteger attempts = new AtomicInteger();
+        scheduler.registerExpiryHandler(issue -> issue.getAssignedTo() != null, issues -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("通知服务不可用");
+            }
+            issues.forEach(issue -> dispatched.add(issue.getId()));
+        });
+
+        scheduler.start();
+        awaitDispatched(1);
+
+        assertEquals(2, attempts.get());
+        assertEquals(Collections.singletonList(1L), dispatched);
+        assertEquals(1, redisValues.size());
+    }
+
+    @Test
+    void testReopenedIssueIsNotifiedAgain() throws Exception {
+        LocalDateTime createdAt = LocalDateTime.now().minusDays(2);
+        IssueRepository repository = repository(issue(1L, Severity.CRITICAL, createdAt));
+        FixDeadlineScheduler scheduler = newScheduler(repository);
+        scheduler.start();
+        awaitDispatched(1);
+
+        Issue resolved = issue(1L, Severity.CRITICAL, createdAt);
+        resolved.setStatus(Issue.IssueStatus.RESOLVED);
+        storedIssues.put(1L, resolved);
+        scheduler.onIssueChanged(resolved);
+        assertTrue(redisValues.isEmpty());
+
+        Issue reopened = issue(1L, Severity.CRITICAL, createdAt);
+        storedIssues.put(1L, reopened);
+        scheduler.onIssueChanged(reopened);
+        awaitDispatched(2);
+
+        assertEquals(Arrays.asList(1L, 1L), dispatched);
+    }
+
+    private FixDeadlineScheduler newScheduler(IssueRepository repository) {
+        FixDeadlineScheduler scheduler = new FixDeadlineScheduler(repository, fakeRedis());
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "tickMillis", 50L);
+        ReflectionTestUtils.setField(scheduler, "wheelSize", 60);
+        ReflectionTestUtils.setField(scheduler, "notifiedTtlDays", 30L);
+        ReflectionTestUtils.setField(scheduler, "retryDelayMillis", 100L);
+        scheduler.registerExpiryHandler(issue -> issue.getAssignedTo() != null,
+                issues -> issues.forEach(issue -> dispatched.add(issue.getId())));
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private void awaitDispatched(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (dispatched.size() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate fakeRedis() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(valueOps.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenAnswer(invocation ->
+                redisValues.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        when(redis.delete(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            return keys.stream().filter(key -> redisValues.remove(key) != null).count();
+        });
+        return redis;
+    }
+
+    private IssueRepository repository(Issue... issues) {
+        for (Issue issue : issues) {
+            storedIssues.put(issue.getId(), issue);
+        }
+        IssueRepository repository = mock(IssueRepository.class);
+        when(repository.findActiveForDeadlineTracking()).thenReturn(Arrays.asList(issues));
+        when(repository.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(storedIssues::get).filter(Objects::nonNull).collect(Collectors.toList());
+        });
+        return repository;
+    }
+
+    private Issue issue(Long id, Severity severity, LocalDateTime createdAt) {
+        Issue issue = new Issue();
+        issue.setId(id);
+        issue.setSeverity(severity);
+        issue.setStatus(Issue.IssueStatus.IN_PROGRESS);
+        issue.setAssignedTo(7L);
+        issue.setCreatedAt(createdAt);
+        return issue;
+    }
+}
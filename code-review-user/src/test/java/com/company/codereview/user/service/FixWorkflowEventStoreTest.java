@@ -0,0 +1,162 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.entity.FixWorkflowEvent;
+import com.company.codereview.user.entity.FixWorkflowSnapshot;
+import com.company.codereview.user.repository.FixWorkflowEventRepository;
+import com.company.codereview.user.repository.FixWorkflowSnapshotRepository;
+import com.company.codereview.user.service.FixTrackingWorkflowService.FixTrackingWorkflow;
+import com.company.codereview.user.service.FixTrackingWorkflowService.WorkflowAction;
+import com.company.codereview.user.service.FixTrackingWorkflowService.WorkflowStage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 整改工作流事件存储测试类
+ */
+class FixWorkflowEventStoreTest {
+
+    private static final Long ISSUE_ID = 1L;
+
+    private final List<FixWorkflowEvent> events = new ArrayList<>();
+    private final Map<Long, FixWorkflowSnapshot> snapshots = new HashMap<>();
+    private final List<FixWorkflowEvent> replayed = new ArrayList<>();
+    private FixWorkflowEventStore eventStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        FixWorkflowEventRepository eventRepository = mock(FixWorkflowEventRepository.class);
+        FixWorkflowSnapshotRepository snapshotRepository = mock(FixWorkflowSnapshotRepository.class);
+        when(eventRepository.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<FixWorkflowEvent> batch = invocation.getArgument(0);
+            events.addAll(batch);
+            return batch.size();
+        });
+        when(eventRepository.findEventsAfterSnapshot(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> issueIds = invocation.getArgument(0);
+            List<FixWorkflowEvent> result = events.stream()
+                    .filter(event -> issueIds.contains(event.getIssueId()))
+                    .filter(event -> !snapshots.containsKey(event.getIssueId())
+                            || event.getSequenceNo() > snapshots.get(event.getIssueId()).getLastSequenceNo())
+                    .collect(Collectors.toList());
+            replayed.addAll(result);
+            return result;
+        });
+        when(snapshotRepository.upsertBatch(anyList())).thenAnswer(invocation -> {
+            List<FixWorkflowSnapshot> batch = invocation.getArgument(0);
+            batch.forEach(snapshot -> snapshots.put(snapshot.getIssueId(), snapshot));
+            return batch.size();
+        });
+        when(snapshotRepository.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> issueIds = invocation.getArgument(0);
+            return issueIds.stream().map(snapshots::get).filter(snapshot -> snapshot != null)
+                    .collect(Collectors.toList());
+        });
+
+        eventStore = new FixWorkflowEventStore(eventRepository, snapshotRepository);
+        ReflectionTestUtils.setField(eventStore, "snapshotInterval", 5);
+        ReflectionTestUtils.setField(eventStore, "writeBatchSize", 500);
+    }
+
+    @Test
+    void testLoadReplaysEventStream() {
+        FixTrackingWorkflow workflow = FixWorkflowEventStore.newWorkflow(ISSUE_ID);
+        LocalDateTime deadline = LocalDateTime.now().plusDays(3);
+        start(workflow, 10L, deadline);
+        transition(workflow, WorkflowStage.IN_PROGRESS);
+        transition(workflow, WorkflowStage.UNDER_REVIEW);
+
+        FixTrackingWorkflow loaded = eventStore.load(ISSUE_ID);
+
+        assertTrue(snapshots.isEmpty());
+        assertEquals(3, replayed.size());
+        assertEquals(3, loaded.getVersion());
+        assertEquals(WorkflowStage.UNDER_REVIEW, loaded.getCurrentStage());
+        assertEquals(10L, loaded.getAssigneeId());
+        assertEquals(deadline, loaded.getDeadline());
+        assertEquals(events.get(0).getOccurredAt(), loaded.getStartTime());
+        assertFalse(loaded.isCompleted());
+    }
+
+    @Test
+    void testSnapshotLimitsReplay() {
+        FixTrackingWorkflow workflow = FixWorkflowEventStore.newWorkflow(ISSUE_ID);
+        start(workflow, 10L, LocalDateTime.now().plusDays(3));
+        for (int i = 0; i < 2; i++) {
+            transition(workflow, WorkflowStage.UNDER_REVIEW);
+            transition(workflow, WorkflowStage.REVISION_REQUIRED);
+        }
+        transition(workflow, WorkflowStage.UNDER_REVIEW);
+
+        // 第5个事件写入快照，之后只回放第6个事件
+        assertEquals(5L, snapshots.get(ISSUE_ID).getLastSequenceNo());
+        FixTrackingWorkflow loaded = eventStore.load(ISSUE_ID);
+        assertEquals(1, replayed.size());
+        assertEquals(6, loaded.getVersion());
+        assertEquals(WorkflowStage.UNDER_REVIEW, loaded.getCurrentStage());
+        assertEquals(workflow.getStartTime(), loaded.getStartTime());
+    }
+
+    @Test
+    void testCompletedWorkflowIsLoadedFromSnapshot() {
+        FixTrackingWorkflow workflow = FixWorkflowEventStore.newWorkflow(ISSUE_ID);
+        start(workflow, 10L, LocalDateTime.now().plusDays(3));
+        transition(workflow, WorkflowStage.UNDER_REVIEW);
+        FixWorkflowEvent completed = transition(workflow, WorkflowStage.COMPLETED);
+
+        FixTrackingWorkflow loaded = eventStore.load(ISSUE_ID);
+
+        assertEquals(3L, snapshots.get(ISSUE_ID).getLastSequenceNo());
+        assertTrue(replayed.isEmpty());
+        assertTrue(loaded.isCompleted());
+        assertEquals(completed.getOccurredAt(), loaded.getEndTime());
+    }
+
+    @Test
+    void testRestartResetsStartTime() throws Exception {
+        FixTrackingWorkflow workflow = FixWorkflowEventStore.newWorkflow(ISSUE_ID);
+        FixWorkflowEvent firstStart = start(workflow, 10L, LocalDateTime.now().plusDays(3));
+        transition(workflow, WorkflowStage.COMPLETED);
+        eventStore.record(workflow, FixWorkflowEvent.TYPE_OVERDUE, null, workflow.getCurrentStage(), null, null);
+
+        TimeUnit.MILLISECONDS.sleep(5);
+        FixWorkflowEvent restart = start(workflow, 20L, LocalDateTime.now().plusDays(7));
+        FixTrackingWorkflow loaded = eventStore.load(ISSUE_ID);
+
+        for (FixTrackingWorkflow state : List.of(workflow, loaded)) {
+            assertEquals(restart.getOccurredAt(), state.getStartTime());
+            assertNotEquals(firstStart.getOccurredAt(), state.getStartTime());
+            assertFalse(state.isCompleted());
+            assertFalse(state.isOverdue());
+            assertNull(state.getEndTime());
+            assertEquals(20L, state.getAssigneeId());
+            assertEquals(WorkflowStage.ASSIGNED, state.getCurrentStage());
+        }
+    }
+
+    private FixWorkflowEvent start(FixTrackingWorkflow workflow, Long assigneeId, LocalDateTime deadline) {
+        return eventStore.record(workflow, FixWorkflowEvent.TYPE_STARTED, null, WorkflowStage.ASSIGNED,
+                assigneeId, deadline);
+    }
+
+    private FixWorkflowEvent transition(FixTrackingWorkflow workflow, WorkflowStage toStage) {
+        return eventStore.record(workflow, FixWorkflowEvent.TYPE_TRANSITIONED, WorkflowAction.values()[0], toStage,
+                null, null);
+    }
+}
@@ -0,0 +1,189 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.IssueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 热点问题索引服务测试类
+ */
+class HotIssueIndexServiceTest {
+
+    private static final Long TEAM_ID = 7L;
+    private static final String TEAM_KEY = "hot-issues:team:" + TEAM_ID;
+
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+    private final Map<Long, Issue> issues = new HashMap<>();
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOps;
+    private IssueRepository issueRepository;
+    private HotIssueIndexService hotIssueIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        ZSetOperations<String, String> zsetOps = mock(ZSetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(redisTemplate.opsForZSet()).thenReturn(zsetOps);
+
+        when(zsetOps.add(anyString(), anySet())).thenAnswer(invocation -> {
+            Set<ZSetOperations.TypedTuple<String>> tuples = invocation.getArgument(1);
+            Map<String, Double> zset = zsets.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>());
+            tuples.forEach(tuple -> zset.put(tuple.getValue(), tuple.getScore()));
+            return (long) tuples.size();
+        });
+        when(zsetOps.add(anyString(), anyString(), anyDouble())).thenAnswer(invocation -> {
+            zsets.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                    .put(invocation.getArgument(1), invocation.getArgument(2));
+            return true;
+        });
+        when(zsetOps.remove(anyString(), any())).thenAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            Map<String, Double> zset = zsets.getOrDefault((String) arguments[0], new HashMap<>());
+            long removed = 0;
+            for (int i = 1; i < arguments.length; i++) {
+                removed += zset.remove(String.valueOf(arguments[i])) != null ? 1 : 0;
+            }
+            return removed;
+        });
+        when(redisTemplate.delete(anyString())).thenAnswer(invocation -> zsets.remove(invocation.<String>getArgument(0)) != null);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            List<String> keys = invocation.getArgument(1);
+            return pruneAndRange(keys.get(0), Arrays.copyOfRange(arguments, 2, arguments.length));
+        });
+        doAnswer(invocation -> {
+            zsets.put(invocation.getArgument(1), zsets.remove(invocation.<String>getArgument(0)));
+            return null;
+        }).when(redisTemplate).rename(anyString(), anyString());
+
+        issueRepository = mock(IssueRepository.class);
+        when(issueRepository.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<?> ids = invocation.getArgument(0);
+            return ids.stream().map(issues::get).filter(issue -> issue != null).collect(Collectors.toList());
+        });
+
+        hotIssueIndex = new HotIssueIndexService(redisTemplate, issueRepository);
+        ReflectionTestUtils.setField(hotIssueIndex, "windowDays", 30);
+        ReflectionTestUtils.setField(hotIssueIndex, "rebuildIntervalHours", 24L);
+    }
+
+    @Test
+    void testReturnsLimitWhenTopMembersAreStale() {
+        indexBuilt();
+        LocalDateTime now = LocalDateTime.now();
+        // 分值最高的四个问题已经解决，但尚未从索引中移除
+        for (long id = 1; id <= 6; id++) {
+            Issue issue = issue(id, Severity.MAJOR, now.minusDays(10).plusHours(id),
+                    id <= 4 ? Issue.IssueStatus.RESOLVED : Issue.IssueStatus.OPEN);
+            zsets.computeIfAbsent(TEAM_KEY, key -> new HashMap<>())
+                    .put(String.valueOf(id), (double) HotIssueIndexService.score(issue.getSeverity(), issue.getCreatedAt()));
+        }
+
+        List<Issue> hotIssues = hotIssueIndex.getHotIssues(TEAM_ID, 2);
+
+        assertEquals(Arrays.asList(5L, 6L), hotIssues.stream().map(Issue::getId).collect(Collectors.toList()));
+        assertEquals(2, zsets.get(TEAM_KEY).size());
+    }
+
+    @Test
+    void testRanksBySeverityThenAge() {
+        indexBuilt();
+        LocalDateTime now = LocalDateTime.now();
+        Issue older = issue(1L, Severity.MINOR, now.minusDays(5), Issue.IssueStatus.OPEN);
+        Issue critical = issue(2L, Severity.CRITICAL, now.minusDays(1), Issue.IssueStatus.IN_PROGRESS);
+        Issue newer = issue(3L, Severity.MINOR, now.minusDays(2), Issue.IssueStatus.OPEN);
+        for (Issue issue : Arrays.asList(older, critical, newer)) {
+            zsets.computeIfAbsent(TEAM_KEY, key -> new HashMap<>())
+                    .put(String.valueOf(issue.getId()), (double) HotIssueIndexService.score(issue.getSeverity(), issue.getCreatedAt()));
+        }
+
+        List<Issue> hotIssues = hotIssueIndex.getHotIssues(TEAM_ID, 10);
+
+        assertEquals(Arrays.asList(2L, 1L, 3L), hotIssues.stream().map(Issue::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testRebuildReplacesIndexAtomically() {
+        when(valueOps.setIfAbsent(eq(TEAM_KEY + ":built"), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        zsets.computeIfAbsent(TEAM_KEY, key -> new HashMap<>()).put("99", 1.0);
+        LocalDateTime now = LocalDateTime.now();
+        List<Issue> candidates = Arrays.asList(
+                issue(1L, Severity.MAJOR, now.minusDays(3), Issue.IssueStatus.OPEN),
+                issue(2L, Severity.CRITICAL, now.minusDays(2), Issue.IssueStatus.OPEN));
+        when(issueRepository.findHotIssueCandidates(eq(TEAM_ID), any(LocalDateTime.class))).thenReturn(candidates);
+
+        List<Issue> hotIssues = hotIssueIndex.getHotIssues(TEAM_ID, 10);
+
+        assertEquals(Arrays.asList(2L, 1L), hotIssues.stream().map(Issue::getId).collect(Collectors.toList()));
+        assertEquals(Set.of("1", "2"), zsets.get(TEAM_KEY).keySet());
+        verify(redisTemplate, never()).delete(TEAM_KEY);
+        assertEquals(1, zsets.size());
+    }
+
+    private void indexBuilt() {
+        when(valueOps.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(false);
+    }
+
+    /**
+     * 与 PRUNE_AND_RANGE_SCRIPT 语义一致：清理给定分值区间后按分值从高到低返回前 N 个成员
+     */
+    private List<String> pruneAndRange(String key, Object[] args) {
+        Map<String, Double> zset = zsets.getOrDefault(key, new HashMap<>());
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            double min = Double.parseDouble(args[i].toString());
+            double max = Double.parseDouble(args[i + 1].toString());
+            zset.values().removeIf(score -> score >= min && score <= max);
+        }
+        return zset.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(Long.parseLong(args[0].toString()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private Issue issue(Long id, Severity severity, LocalDateTime createdAt, Issue.IssueStatus status) {
+        Issue issue = new Issue();
+        issue.setId(id);
+        issue.setSeverity(severity);
+        issue.setCreatedAt(createdAt);
+        issue.setStatus(status);
+        issues.put(id, issue);
+        return issue;
+    }
+}
@@ -2,8 +2,15 @@ package com.company.codereview.user.service;
 
 import com.company.codereview.common.enums.IssueType;
 import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.config.IssueAnalysisConfig;
+import com.company.codereview.user.dto.FrequentIssue;
 import com.company.codereview.user.dto.IssueAnalysisResult;
+import com.company.codereview.user.dto.IssueCluster;
+import com.company.codereview.user.dto.IssuePattern;
+import com.company.codereview.user.dto.TrendAnalysis;
 import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.util.KeywordTokenizer;
+import com.company.codereview.user.util.PatternRuleEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,9 +18,19 @@ import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -204,6 +221,362 @@ class IssueAnalyzerTest {
         assertNotNull(result.getTrendAnalysis().getQualityTrend());
     }
     
+    @Test
+    void testWeeklyTrendBuckets() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        Issue first = createTestIssue(1L, IssueType.FUNCTIONAL_DEFECT, Severity.CRITICAL,
+            "null check missing", Issue.IssueStatus.RESOLVED);
+        first.setCreatedAt(monday.atTime(10, 0));
+        Issue second = createTestIssue(2L, IssueType.FUNCTIONAL_DEFECT, Severity.MAJOR,
+            "null value returned", Issue.IssueStatus.OPEN);
+        second.setCreatedAt(monday.plusDays(6).atTime(23, 0));
+        Issue third = createTestIssue(3L, IssueType.CODE_STANDARD, Severity.MINOR,
+            "naming style", Issue.IssueStatus.OPEN);
+        third.setCreatedAt(monday.plusWeeks(2).atTime(9, 0));
+        Issue outOfRange = createTestIssue(4L, IssueType.CODE_STANDARD, Severity.MINOR,
+            "naming style", Issue.IssueStatus.OPEN);
+        outOfRange.setCreatedAt(monday.minusDays(1).atTime(9, 0));
+
+        IssueAnalysisResult result = issueAnalyzer.analyzeTeamIssues(
+            Arrays.asList(first, second, third, outOfRange), monday.plusDays(2), monday.plusWeeks(2));
+
+        var trend = result.getTrendAnalysis();
+        assertEquals(3, trend.getIssueTrend().size());
+        assertEquals(monday, trend.getIssueTrend().get(0).getDate());
+        assertEquals(2.0, trend.getIssueTrend().get(0).getValue());
+        assertEquals(0.0, trend.getIssueTrend().get(1).getValue());
+        assertEquals(1.0, trend.getIssueTrend().get(2).getValue());
+        assertEquals(50.0, trend.getResolutionTrend().get(0).getValue(), 0.01);
+        assertEquals(85.0, trend.getQualityTrend().get(0).getValue(), 0.01);
+        assertEquals(100.0, trend.getQualityTrend().get(1).getValue(), 0.01);
+        assertEquals(4L, result.getTotalIssues());
+    }
+
+    @Test
+    void testWeeklyPartialsMergeToSingleScanResult() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        LocalDate end = monday.plusWeeks(3).minusDays(1);
+        String[] descriptions = {"空指针异常导致系统崩溃", "数据库查询性能慢", "变量命名不规范",
+            "SQL注入安全漏洞", "空指针检查缺失", "代码结构设计不合理"};
+        IssueType[] types = IssueType.values();
+        Severity[] severities = Severity.values();
+        Issue.IssueStatus[] statuses = Issue.IssueStatus.values();
+
+        List<Issue> issues = new java.util.ArrayList<>();
+        for (int i = 0; i < 42; i++) {
+            Issue issue = createTestIssue((long) i + 1, types[i % types.length], severities[i % severities.length],
+                descriptions[i % descriptions.length], statuses[i % statuses.length]);
+            issue.setCreatedAt(monday.plusDays(i / 2).atTime(9, 0));
+            issues.add(issue);
+        }
+
+        IssueAnalysisResult expected = issueAnalyzer.analyzeTeamIssues(issues, monday, end);
+
+        // 每周单独累计并经过快照往返，再按时间顺序合并
+        IssueAnalysisAccumulator merged = issueAnalyzer.newAccumulator(monday, end);
+        for (int week = 0; week < 3; week++) {
+            LocalDate weekStart = monday.plusWeeks(week);
+            List<Issue> weekIssues = issues.subList(week * 14, week * 14 + 14);
+            merged.merge(IssueAnalysisAccumulator.fromSnapshot(
+                issueAnalyzer.accumulate(weekIssues, weekStart, weekStart.plusDays(6)).toSnapshot()));
+        }
+        IssueAnalysisResult actual = issueAnalyzer.buildResult(merged, monday, end);
+
+        assertEquals(expected.getTotalIssues(), actual.getTotalIssues());
+        assertEquals(expected.getResolvedIssues(), actual.getResolvedIssues());
+        assertEquals(expected.getTypeDistribution(), actual.getTypeDistribution());
+        assertEquals(expected.getSeverityDistribution(), actual.getSeverityDistribution());
+        assertEquals(expected.getFrequentIssues(), actual.getFrequentIssues());
+        assertEquals(expected.getPatterns(), actual.getPatterns());
+        assertEquals(expected.getClusters().size(), actual.getClusters().size());
+        assertEquals(expected.getTrendAnalysis().getIssueTrend(), actual.getTrendAnalysis().getIssueTrend());
+        assertEquals(expected.getTrendAnalysis().getQualityTrend(), actual.getTrendAnalysis().getQualityTrend());
+    }
+
+    @Test
+    void testWeeklySnapshotsKeepRareKeywordsAndCapClusterIds() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        IssueAnalysisAccumulator merged = issueAnalyzer.newAccumulator(monday, monday.plusWeeks(2).minusDays(1));
+        merged.setClusterIssueIdLimit(2);
+        long id = 0;
+        for (int week = 0; week < 2; week++) {
+            LocalDate weekStart = monday.plusWeeks(week);
+            IssueAnalysisAccumulator weekAccumulator = issueAnalyzer.newAccumulator(weekStart, weekStart.plusDays(6));
+            weekAccumulator.setClusterIssueIdLimit(2);
+            // 每周 550 个关键词各出现两次，"rare" 只出现一次，排在出现次数的前 500 之外
+            for (int i = 0; i <= 1100; i++) {
+                Issue issue = createTestIssue(++id, IssueType.values()[0], Severity.MAJOR, "desc", Issue.IssueStatus.OPEN);
+                issue.setCreatedAt(weekStart.atTime(9, 0));
+                weekAccumulator.add(issue, List.of(i == 1100 ? "rare" : "keyword" + (i % 550)), 0L);
+            }
+            IssueAnalysisAccumulator.Snapshot snapshot = weekAccumulator.toSnapshot();
+            assertEquals(2, snapshot.getClusterBuckets().values().iterator().next().getIssueIds().size());
+            merged.merge(IssueAnalysisAccumulator.fromSnapshot(snapshot));
+        }
+
+        assertEquals(2L, merged.getKeywordStats().get("rare").getCount());
+        assertEquals(4L, merged.getKeywordStats().get("keyword0").getCount());
+        IssueAnalysisAccumulator.ClusterBucket bucket = merged.getClusterBucket(IssueType.values()[0], Severity.MAJOR);
+        assertEquals(2202L, bucket.getSize());
+        assertEquals(List.of(1L, 2L), bucket.getIssueIds());
+    }
+
+    @Test
+    void testClusterKeywordSetsAreSampledAndMergeable() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        LocalDate end = monday.plusWeeks(2).minusDays(1);
+        IssueAnalysisAccumulator exact = issueAnalyzer.newAccumulator(monday, end);
+        IssueAnalysisAccumulator single = issueAnalyzer.newAccumulator(monday, end);
+        single.setClusterKeywordSetLimit(50);
+        IssueAnalysisAccumulator merged = issueAnalyzer.newAccumulator(monday, end);
+        merged.setClusterKeywordSetLimit(50);
+        Random random = new Random(7);
+        long id = 0;
+        for (int week = 0; week < 2; week++) {
+            LocalDate weekStart = monday.plusWeeks(week);
+            IssueAnalysisAccumulator weekAccumulator = issueAnalyzer.newAccumulator(weekStart, weekStart.plusDays(6));
+            weekAccumulator.setClusterKeywordSetLimit(50);
+            for (int i = 0; i < 500; i++) {
+                Issue issue = createTestIssue(++id, IssueType.values()[0], Severity.MAJOR, "desc", Issue.IssueStatus.OPEN);
+                issue.setCreatedAt(weekStart.atTime(9, 0));
+                // 12 个词中随机取 3 个，约 220 种不同的关键词集合
+                Set<String> keywords = new HashSet<>();
+                while (keywords.size() < 3) {
+                    keywords.add("keyword" + random.nextInt(12));
+                }
+                List<String> keywordList = new ArrayList<>(keywords);
+                exact.add(issue, keywordList, 0L);
+                single.add(issue, keywordList, 0L);
+                weekAccumulator.add(issue, keywordList, 0L);
+            }
+            IssueAnalysisAccumulator.Snapshot snapshot = weekAccumulator.toSnapshot();
+            assertEquals(50, snapshot.getClusterBuckets().values().iterator().next().getKeywordSets().size());
+            merged.merge(IssueAnalysisAccumulator.fromSnapshot(snapshot));
+        }
+
+        IssueAnalysisAccumulator.ClusterBucket exactBucket = exact.getClusterBucket(IssueType.values()[0], Severity.MAJOR);
+        IssueAnalysisAccumulator.ClusterBucket singleBucket = single.getClusterBucket(IssueType.values()[0], Severity.MAJOR);
+        IssueAnalysisAccumulator.ClusterBucket mergedBucket = merged.getClusterBucket(IssueType.values()[0], Severity.MAJOR);
+        assertEquals(1000L, mergedBucket.getSize());
+        // 合并各周样本与单次遍历得到相同的样本
+        assertEquals(singleBucket.getAverageSimilarity(), mergedBucket.getAverageSimilarity(), 1e-9);
+        assertEquals(exactBucket.getAverageSimilarity(), singleBucket.getAverageSimilarity(), 0.05);
+    }
+
+    @Test
+    void testClusterKeywordSetLimitKeepsSimilarityExactBelowLimit() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        IssueAnalysisAccumulator exact = issueAnalyzer.newAccumulator(monday, monday.plusDays(6));
+        IssueAnalysisAccumulator capped = issueAnalyzer.newAccumulator(monday, monday.plusDays(6));
+        capped.setClusterKeywordSetLimit(3);
+        List<List<String>> keywordSets = List.of(List.of("sql", "query"), List.of("sql", "index"), List.of("cache"));
+        for (int i = 0; i < 9; i++) {
+            Issue issue = createTestIssue((long) i + 1, IssueType.values()[0], Severity.MAJOR, "desc", Issue.IssueStatus.OPEN);
+            issue.setCreatedAt(monday.atTime(9, 0));
+            exact.add(issue, keywordSets.get(i % 3), 0L);
+            capped.add(issue, keywordSets.get(i % 3), 0L);
+        }
+
+        assertEquals(exact.getClusterBucket(IssueType.values()[0], Severity.MAJOR).getAverageSimilarity(),
+                capped.getClusterBucket(IssueType.values()[0], Severity.MAJOR).getAverageSimilarity());
+    }
+
+    @Test
+    void testSinglePassMatchesPerMetricScansOnRandomInputs() {
+        String[] words = {"null", "pointer", "npe", "slow", "query", "timeout", "cache", "sql", "injection",
+            "xss", "naming", "format", "style", "空指针", "性能", "安全", "注入", "命名", "数据库", "缓存",
+            "the", "is", "to", "db", "异常", "重复", "loop", "memory"};
+        IssueType[] types = IssueType.values();
+        Severity[] severities = Severity.values();
+        Issue.IssueStatus[] statuses = Issue.IssueStatus.values();
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+
+        for (long seed = 1; seed <= 30; seed++) {
+            Random random = new Random(seed);
+            LocalDate start = monday.plusDays(random.nextInt(7));
+            LocalDate end = start.plusDays(7 + random.nextInt(60));
+            int size = random.nextInt(300);
+
+            List<Issue> issues = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                StringBuilder description = new StringBuilder();
+                int wordCount = 1 + random.nextInt(6);
+                for (int w = 0; w < wordCount; w++) {
+                    description.append(words[random.nextInt(words.length)]).append(random.nextBoolean() ? " " : "，");
+                }
+                Issue issue = createTestIssue((long) i + 1, types[random.nextInt(types.length)],
+                    severities[random.nextInt(severities.length)], description.toString().trim(),
+                    statuses[random.nextInt(statuses.length)]);
+                issue.setTitle(words[random.nextInt(words.length)] + " issue");
+                // 部分问题落在统计区间之外
+                issue.setCreatedAt(start.minusDays(7).plusDays(random.nextInt(80)).atTime(random.nextInt(24), 0));
+                issues.add(issue);
+            }
+
+            IssueAnalysisResult actual = issueAnalyzer.analyzeTeamIssues(issues, start, end);
+            assertMatchesPerMetricScans(issues, start, end, actual, "seed " + seed);
+        }
+    }
+
+    /**
+     * 按重构前的逐项扫描方式重新计算各项指标并与单次遍历的结果比较
+     * 关键词提取与模式规则使用同一套实现，比较的是累计方式；并列名次的先后不作要求
+     */
+    private void assertMatchesPerMetricScans(List<Issue> issues, LocalDate start, LocalDate end,
+                                             IssueAnalysisResult actual, String message) {
+        KeywordTokenizer tokenizer = KeywordTokenizer.shared();
+        PatternRuleEngine rules = PatternRuleEngine.fromConfig(new IssueAnalysisConfig.PatternConfig());
+        Map<Long, List<String>> keywords = new HashMap<>();
+        issues.forEach(issue -> keywords.put(issue.getId(), tokenizer.tokenize(issue.getDescription())));
+
+        // 基本统计与分布
+        long resolved = issues.stream().filter(this::isResolved).count();
+        assertEquals(issues.size(), actual.getTotalIssues(), message);
+        assertEquals(resolved, actual.getResolvedIssues(), message);
+        assertEquals(issues.isEmpty() ? 0.0 : (double) resolved / issues.size() * 100, actual.getResolutionRate(), 1e-9, message);
+        assertEquals(issues.stream().collect(Collectors.groupingBy(Issue::getIssueType, Collectors.counting())),
+            actual.getTypeDistribution(), message);
+        assertEquals(issues.stream().collect(Collectors.groupingBy(Issue::getSeverity, Collectors.counting())),
+            actual.getSeverityDistribution(), message);
+
+        // 周趋势
+        Map<LocalDate, List<Issue>> weekly = issues.stream()
+            .collect(Collectors.groupingBy(issue -> issue.getCreatedAt().toLocalDate().with(DayOfWeek.MONDAY)));
+        TrendAnalysis trend = actual.getTrendAnalysis();
+        int week = 0;
+        for (LocalDate current = start.with(DayOfWeek.MONDAY); !current.isAfter(end); current = current.plusWeeks(1), week++) {
+            List<Issue> weekIssues = weekly.getOrDefault(current, Collections.emptyList());
+            long weekResolved = weekIssues.stream().filter(this::isResolved).count();
+            double deduction = weekIssues.stream().mapToDouble(issue -> qualityDeduction(issue.getSeverity())).sum();
+            assertEquals(current, trend.getIssueTrend().get(week).getDate(), message);
+            assertEquals(weekIssues.size(), trend.getIssueTrend().get(week).getValue(), 1e-9, message);
+            assertEquals(weekIssues.isEmpty() ? 0.0 : (double) weekResolved / weekIssues.size() * 100,
+                trend.getResolutionTrend().get(week).getValue(), 1e-9, message);
+            assertEquals(weekIssues.isEmpty() ? 100.0 : Math.round(Math.max(0, 100 - deduction) * 100.0) / 100.0,
+                trend.getQualityTrend().get(week).getValue(), 1e-9, message);
+        }
+        assertEquals(week, trend.getIssueTrend().size(), message);
+
+        // 高频问题
+        Map<String, List<Issue>> keywordGroups = new HashMap<>();
+        for (Issue issue : issues) {
+            keywords.get(issue.getId()).forEach(keyword -> keywordGroups.computeIfAbsent(keyword, k -> new ArrayList<>()).add(issue));
+        }
+        List<Long> expectedCounts = keywordGroups.values().stream()
+            .map(group -> (long) group.size())
+            .filter(count -> count >= 2)
+            .sorted(Collections.reverseOrder())
+            .limit(10)
+            .collect(Collectors.toList());
+        assertEquals(expectedCounts, actual.getFrequentIssues().stream().map(FrequentIssue::getCount).collect(Collectors.toList()), message);
+        for (FrequentIssue frequentIssue : actual.getFrequentIssues()) {
+            List<Issue> group = keywordGroups.get(frequentIssue.getKeyword());
+            assertEquals(group.size(), frequentIssue.getCount(), message);
+            assertEquals(group.get(0).getDescription(), frequentIssue.getExample(), message);
+            assertEquals((double) group.size() / issues.size() * 100, frequentIssue.getImpactPercentage(), 1e-9, message);
+            double averageLevel = group.stream().mapToInt(issue -> issue.getSeverity().getLevel()).average().orElse(3.0);
+            assertEquals(severityForLevel(averageLevel), frequentIssue.getAverageSeverity(), message);
+            Map<IssueType, Long> typeCounts = group.stream().collect(Collectors.groupingBy(Issue::getIssueType, Collectors.counting()));
+            assertEquals(Collections.max(typeCounts.values()), typeCounts.get(frequentIssue.getIssueType()), message);
+        }
+
+        // 模式识别
+        Map<String, List<Issue>> patternMatches = new LinkedHashMap<>();
+        for (Issue issue : issues) {
+            long mask = rules.match(issue.getIssueType(), issue.getTitle(), issue.getDescription());
+            for (int i = 0; i < rules.size(); i++) {
+                if ((mask & (1L << i)) != 0) {
+                    patternMatches.computeIfAbsent(rules.getRule(i).getId(), id -> new ArrayList<>()).add(issue);
+                }
+            }
+        }
+        patternMatches.values().removeIf(matched -> matched.size() < rules.getMinFrequency());
+        assertEquals(patternMatches.keySet(), actual.getPatterns().stream().map(IssuePattern::getPatternId).collect(Collectors.toSet()), message);
+        long previousFrequency = Long.MAX_VALUE;
+        for (IssuePattern pattern : actual.getPatterns()) {
+            List<Issue> matched = patternMatches.get(pattern.getPatternId());
+            assertEquals(matched.size(), pattern.getFrequency(), message);
+            assertEquals(matched.stream().limit(3).map(Issue::getDescription).collect(Collectors.toList()), pattern.getExamples(), message);
+            assertTrue(pattern.getFrequency() <= previousFrequency, message);
+            previousFrequency = pattern.getFrequency();
+        }
+
+        // 聚类
+        Map<String, List<Issue>> clusterGroups = issues.stream()
+            .collect(Collectors.groupingBy(issue -> issue.getIssueType().name() + "_" + issue.getSeverity().name()));
+        clusterGroups.values().removeIf(group -> group.size() < 2);
+        assertEquals(clusterGroups.keySet(), actual.getClusters().stream().map(IssueCluster::getClusterId).collect(Collectors.toSet()), message);
+        double previousWeight = Double.MAX_VALUE;
+        for (IssueCluster cluster : actual.getClusters()) {
+            List<Issue> group = clusterGroups.get(cluster.getClusterId());
+            assertEquals(group.size(), cluster.getIssueCount(), message);
+            assertEquals(group.stream().map(Issue::getId).collect(Collectors.toList()), cluster.getIssueIds(), message);
+            assertEquals(pairwiseJaccard(group, keywords), cluster.getSimilarity(), 1e-9, message);
+            double severityWeight = clusterSeverityWeight(group.get(0).getSeverity());
+            assertEquals(((double) group.size() / issues.size() * 0.6 + severityWeight * 0.4) * 100, cluster.getWeight(), 1e-9, message);
+            assertTrue(cluster.getWeight() <= previousWeight, message);
+            previousWeight = cluster.getWeight();
+
+            Map<String, Integer> keywordCount = new HashMap<>();
+            group.forEach(issue -> keywords.get(issue.getId()).forEach(keyword -> keywordCount.merge(keyword, 1, Integer::sum)));
+            List<Integer> expectedKeywordCounts = keywordCount.values().stream()
+                .filter(count -> count >= 2)
+                .sorted(Collections.reverseOrder())
+                .limit(5)
+                .collect(Collectors.toList());
+            assertEquals(expectedKeywordCounts, cluster.getCharacteristicKeywords().stream()
+                .map(keywordCount::get).collect(Collectors.toList()), message);
+        }
+    }
+
+    private boolean isResolved(Issue issue) {
+        return Issue.IssueStatus.RESOLVED.equals(issue.getStatus()) || Issue.IssueStatus.CLOSED.equals(issue.getStatus());
+    }
+
+    private double pairwiseJaccard(List<Issue> group, Map<Long, List<String>> keywords) {
+        double total = 0.0;
+        int comparisons = 0;
+        for (int i = 0; i < group.size(); i++) {
+            for (int j = i + 1; j < group.size(); j++) {
+                Set<String> first = new HashSet<>(keywords.get(group.get(i).getId()));
+                Set<String> second = new HashSet<>(keywords.get(group.get(j).getId()));
+                Set<String> union = new HashSet<>(first);
+                union.addAll(second);
+                first.retainAll(second);
+                total += union.isEmpty() ? 0.0 : (double) first.size() / union.size();
+                comparisons++;
+            }
+        }
+        return comparisons > 0 ? total / comparisons : 0.0;
+    }
+
+    private double qualityDeduction(Severity severity) {
+        switch (severity) {
+            case CRITICAL: return 10.0;
+            case MAJOR: return 5.0;
+            case MINOR: return 2.0;
+            case SUGGESTION: return 0.5;
+            default: return 1.0;
+        }
+    }
+
+    private double clusterSeverityWeight(Severity severity) {
+        switch (severity) {
+            case CRITICAL: return 1.0;
+            case MAJOR: return 0.7;
+            case MINOR: return 0.4;
+            case SUGGESTION: return 0.1;
+            default: return 0.5;
+        }
+    }
+
+    private Severity severityForLevel(double averageLevel) {
+        if (averageLevel <= 1.5) return Severity.CRITICAL;
+        if (averageLevel <= 2.5) return Severity.MAJOR;
+        if (averageLevel <= 3.5) return Severity.MINOR;
+        return Severity.SUGGESTION;
+    }
+
     /**
      * 创建测试问题对象
      */
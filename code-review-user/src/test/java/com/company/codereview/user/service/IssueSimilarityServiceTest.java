@@ -0,0 +1,92 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.entity.IssueSimilaritySignature;
+import com.company.codereview.user.repository.IssueRepository;
+import com.company.codereview.user.repository.IssueSimilarityRepository;
+import com.company.codereview.user.service.job.DistributedJobRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 问题相似度索引服务测试类
+ */
+class IssueSimilarityServiceTest {
+
+    private static final Long ISSUE_ID = 11L;
+    private static final Long TEAM_ID = 3L;
+
+    private IssueSimilarityRepository similarityRepository;
+    private DistributedJobRunner jobRunner;
+    private IssueSimilarityService similarityService;
+
+    @BeforeEach
+    void setUp() {
+        similarityRepository = mock(IssueSimilarityRepository.class);
+        jobRunner = mock(DistributedJobRunner.class);
+        similarityService = new IssueSimilarityService(similarityRepository, mock(IssueRepository.class), jobRunner);
+        ReflectionTestUtils.setField(similarityService, "backfillBatchSize", 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testIndexRunsAfterCommit() {
+        when(similarityRepository.findTeamIdByIssueId(ISSUE_ID)).thenReturn(TEAM_ID);
+        TransactionSynchronizationManager.initSynchronization();
+
+        similarityService.index(issue());
+
+        // 事务提交前不访问索引表
+        verify(similarityRepository, never()).findTeamIdByIssueId(anyLong());
+        verify(similarityRepository, never()).upsertSignature(any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(similarityRepository).upsertSignature(any(IssueSimilaritySignature.class));
+        verify(similarityRepository).deleteBands(ISSUE_ID);
+    }
+
+    @Test
+    void testIndexFailureIsNotPropagated() {
+        when(similarityRepository.findTeamIdByIssueId(ISSUE_ID)).thenReturn(TEAM_ID);
+        when(similarityRepository.upsertSignature(any())).thenThrow(new IllegalStateException("deadlock"));
+
+        assertDoesNotThrow(() -> similarityService.index(issue()));
+    }
+
+    @Test
+    void testBackfillRunsExclusively() {
+        similarityService.backfill();
+
+        verify(jobRunner).runExclusive(anyString(), any(Runnable.class));
+        verify(similarityRepository, never()).findUnindexedIssues(anyLong(), anyInt());
+    }
+
+    private Issue issue() {
+        Issue issue = new Issue();
+        issue.setId(ISSUE_ID);
+        issue.setTitle("接口响应慢");
+        issue.setDescription("查询订单列表时没有使用索引");
+        return issue;
+    }
+}
@@ -0,0 +1,183 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.algorithm.LogLinearHistogram;
+import com.company.codereview.user.dto.IssueTimeSample;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.entity.IssueTimeSketch;
+import com.company.codereview.user.repository.IssueTimeSketchRepository;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 耗时分位数草图服务测试类
+ */
+class IssueTimeSketchServiceTest {
+
+    private static final Long TEAM_ID = 3L;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final List<IssueTimeSample> samples = new ArrayList<>();
+    private IssueTimeSketchRepository repository;
+    private IssueTimeSketchService sketchService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(IssueTimeSketchRepository.class);
+        doAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(1);
+            LocalDateTime to = invocation.getArgument(2);
+            ResultHandler<IssueTimeSample> handler = invocation.getArgument(3);
+            for (IssueTimeSample sample : samples) {
+                LocalDateTime day = sample.getStatDate().atStartOfDay();
+                if (!day.isBefore(from) && day.isBefore(to)) {
+                    ResultContext<IssueTimeSample> context = mock(ResultContext.class);
+                    when(context.getResultObject()).thenReturn(sample);
+                    handler.handleResult(context);
+                }
+            }
+            return null;
+        }).when(repository).streamResolutionSamples(anyLong(), any(), any(), any());
+        sketchService = new IssueTimeSketchService(repository);
+        ReflectionTestUtils.setField(sketchService, "backfillWindowDays", 3);
+    }
+
+    @Test
+    void testMissingDaysAreReadWithOneQueryAndNotPersisted() {
+        LocalDate start = TODAY.minusDays(9);
+        // 第3天已有草图（60分钟），其余日期没有
+        LogLinearHistogram stored = new LogLinearHistogram();
+        stored.record(60);
+        when(repository.findRange(TEAM_ID, IssueTimeSketch.METRIC_RESOLUTION, start, TODAY))
+                .thenReturn(List.of(sketch(start.plusDays(2), stored)));
+        sample(start, 10);
+        sample(start.plusDays(2), 999); // 已有草图的日期不重复计入
+        sample(start.plusDays(5), 20);
+        sample(TODAY, 30);
+
+        LogLinearHistogram merged = sketchService.getMergedSketch(TEAM_ID, IssueTimeSketch.METRIC_RESOLUTION, start, TODAY);
+
+        assertEquals(4, merged.getTotalCount());
+        assertTrue(merged.getMax() < 999);
+        verify(repository, times(1)).streamResolutionSamples(eq(TEAM_ID), any(), any(), any());
+        verify(repository, never()).upsert(any());
+    }
+
+    @Test
+    void testFullyStoredRangeDoesNotQueryIssues() {
+        LocalDate day = TODAY.minusDays(1);
+        LogLinearHistogram stored = new LogLinearHistogram();
+        stored.record(120);
+        when(repository.findRange(TEAM_ID, IssueTimeSketch.METRIC_RESOLUTION, day, day))
+                .thenReturn(List.of(sketch(day, stored)));
+
+        LogLinearHistogram merged = sketchService.getMergedSketch(TEAM_ID, IssueTimeSketch.METRIC_RESOLUTION, day, day);
+
+        assertEquals(1, merged.getTotalCount());
+        verify(repository, never()).streamResolutionSamples(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void testRebuildDayPersistsSketch() {
+        LocalDate day = TODAY.minusDays(1);
+        sample(day, 15);
+        sample(day.minusDays(1), 40);
+
+        sketchService.rebuildDay(TEAM_ID, day);
+
+        ArgumentCaptor<IssueTimeSketch> saved = ArgumentCaptor.forClass(IssueTimeSketch.class);
+        verify(repository, times(2)).upsert(saved.capture());
+        IssueTimeSketch resolution = saved.getAllValues().get(0);
+        assertEquals(IssueTimeSketch.METRIC_RESOLUTION, resolution.getMetric());
+        assertEquals(1L, resolution.getSampleCount());
+    }
+
+    @Test
+    void testBackfillBuildsEveryMissingDaySinceEarliestSample() {
+        LocalDate first = TODAY.minusDays(8);
+        LocalDate yesterday = TODAY.minusDays(1);
+        when(repository.findEarliestResolutionDate(TEAM_ID)).thenReturn(first);
+        when(repository.findEarliestFixDate(TEAM_ID)).thenReturn(null);
+        when(repository.findStoredDates(TEAM_ID, IssueTimeSketch.METRIC_FIRST_FIX, first, yesterday))
+                .thenReturn(List.of(first.plusDays(1), first.plusDays(4)));
+        sample(first, 10);
+        sample(first.plusDays(1), 999); // 已有草图的日期不重新计算
+        sample(first.plusDays(6), 20);
+        sample(first.plusDays(6), 30);
+        sample(TODAY, 40); // 当天不补建
+
+        int built = sketchService.backfillMissingDays(TEAM_ID, yesterday);
+
+        // 8 天中 2 天已有草图；按 3 天一个窗口，每个窗口每个指标只查询一次
+        assertEquals(6, built);
+        verify(repository, times(3)).streamResolutionSamples(eq(TEAM_ID), any(), any(), any());
+        ArgumentCaptor<IssueTimeSketch> saved = ArgumentCaptor.forClass(IssueTimeSketch.class);
+        verify(repository, times(12)).upsert(saved.capture());
+        Map<LocalDate, Long> resolutionCounts = saved.getAllValues().stream()
+                .filter(sketch -> IssueTimeSketch.METRIC_RESOLUTION.equals(sketch.getMetric()))
+                .collect(Collectors.toMap(IssueTimeSketch::getStatDate, IssueTimeSketch::getSampleCount));
+        assertEquals(6, resolutionCounts.size());
+        assertEquals(1L, resolutionCounts.get(first));
+        assertEquals(2L, resolutionCounts.get(first.plusDays(6)));
+        assertEquals(0L, resolutionCounts.get(yesterday));
+        assertFalse(resolutionCounts.containsKey(first.plusDays(1)));
+    }
+
+    @Test
+    void testBackfillWithoutSamplesDoesNothing() {
+        assertEquals(0, sketchService.backfillMissingDays(TEAM_ID, TODAY.minusDays(1)));
+        verify(repository, never()).upsert(any());
+    }
+
+    @Test
+    void testResolutionTimeIsKeptWhenResolvedIssueIsClosed() {
+        Issue issue = new Issue();
+        issue.setStatus(Issue.IssueStatus.RESOLVED);
+        IssueService.recordResolution(issue, Issue.IssueStatus.IN_PROGRESS);
+        LocalDateTime resolvedAt = issue.getResolvedAt();
+        assertNotNull(resolvedAt);
+
+        issue.setStatus(Issue.IssueStatus.CLOSED);
+        IssueService.recordResolution(issue, Issue.IssueStatus.RESOLVED);
+        assertSame(resolvedAt, issue.getResolvedAt());
+    }
+
+    private void sample(LocalDate day, long minutes) {
+        IssueTimeSample sample = new IssueTimeSample();
+        sample.setStatDate(day);
+        sample.setMinutes(minutes);
+        samples.add(sample);
+    }
+
+    private IssueTimeSketch sketch(LocalDate day, LogLinearHistogram histogram) {
+        IssueTimeSketch sketch = new IssueTimeSketch();
+        sketch.setTeamId(TEAM_ID);
+        sketch.setMetric(IssueTimeSketch.METRIC_RESOLUTION);
+        sketch.setStatDate(day);
+        sketch.setSampleCount(histogram.getTotalCount());
+        sketch.setSketch(histogram.encode());
+        return sketch;
+    }
+}
@@ -0,0 +1,162 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.dto.IssueFact;
+import com.company.codereview.user.dto.VerificationRequest;
+import com.company.codereview.user.entity.FixRecord;
+import com.company.codereview.user.entity.Issue;
+import com.company.codereview.user.repository.FixRecordRepository;
+import com.company.codereview.user.repository.IssueRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 问题跟踪服务测试类
+ */
+@ExtendWith(MockitoExtension.class)
+class IssueTrackingServiceTest {
+
+    @Mock
+    private IssueRepository issueRepository;
+
+    @Mock
+    private FixRecordRepository fixRecordRepository;
+
+    @Mock
+    private IssueNotificationService notificationService;
+
+    @Mock
+    private FixDeadlineScheduler deadlineScheduler;
+
+    @Mock
+    private HotIssueIndexService hotIssueIndex;
+
+    @InjectMocks
+    private IssueTrackingService issueTrackingService;
+
+    @Test
+    void testPassedVerificationResolvesIssueAndRefreshesIndexes() {
+        Issue issue = issue();
+        when(fixRecordRepository.selectById(10L)).thenReturn(fixRecord());
+        when(issueRepository.selectById(1L)).thenReturn(issue);
+
+        FixRecord verified = issueTrackingService.verifyFixRecord(10L, request(FixRecord.VerificationResult.PASS));
+
+        assertEquals(FixRecord.FixStatus.APPROVED, verified.getStatus());
+        assertEquals(Issue.IssueStatus.RESOLVED, issue.getStatus());
+        verify(deadlineScheduler).onIssueChanged(issue);
+        verify(hotIssueIndex).onIssueChanged(issue);
+    }
+
+    @Test
+    void testFailedVerificationKeepsIssueOpen() {
+        Issue issue = issue();
+        when(fixRecordRepository.selectById(10L)).thenReturn(fixRecord());
+        when(issueRepository.selectById(1L)).thenReturn(issue);
+
+        FixRecord verified = issueTrackingService.verifyFixRecord(10L, request(FixRecord.VerificationResult.FAIL));
+
+        assertEquals(FixRecord.FixStatus.REJECTED, verified.getStatus());
+        assertEquals(Issue.IssueStatus.IN_PROGRESS, issue.getStatus());
+        verify(issueRepository, never()).updateById(any(Issue.class));
+        verify(hotIssueIndex, never()).onIssueChanged(any());
+    }
+
+    @Test
+    void testUserAssignmentsAreGroupedByCreator() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 4, 10, 0);
+        when(issueRepository.findFactsByTeamId(eq(3L), isNull(), isNull())).thenReturn(Arrays.asList(
+                fact(1L, 200L, Issue.IssueStatus.OPEN, Severity.CRITICAL, createdAt),
+                fact(2L, 100L, Issue.IssueStatus.RESOLVED, Severity.MINOR, createdAt),
+                fact(3L, 200L, Issue.IssueStatus.IN_PROGRESS, Severity.MAJOR, createdAt),
+                fact(4L, null, Issue.IssueStatus.OPEN, Severity.CRITICAL, createdAt)));
+
+        List<IssueTrackingService.UserIssueAssignment> assignments = issueTrackingService.getUserIssueAssignments(3L);
+
+        // 没有创建人的问题不参与统计
+        assertEquals(2, assignments.size());
+        IssueTrackingService.UserIssueAssignment first = assignments.get(0);
+        assertEquals(100L, first.getUserId());
+        assertEquals(1, first.getTotalIssues());
+        assertEquals(1, first.getResolvedIssues());
+        IssueTrackingService.UserIssueAssignment second = assignments.get(1);
+        assertEquals(200L, second.getUserId());
+        assertEquals(2, second.getTotalIssues());
+        assertEquals(1, second.getOpenIssues());
+        assertEquals(1, second.getInProgressIssues());
+        assertEquals(1, second.getCriticalIssues());
+    }
+
+    @Test
+    void testTrendDataCountsIssuesPerDay() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 4, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 6, 0, 0);
+        when(issueRepository.findFactsByTeamId(eq(3L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Arrays.asList(
+                        fact(1L, 100L, Issue.IssueStatus.RESOLVED, Severity.MAJOR, LocalDateTime.of(2024, 3, 4, 9, 30)),
+                        fact(2L, 100L, Issue.IssueStatus.OPEN, Severity.MAJOR, LocalDateTime.of(2024, 3, 4, 0, 0)),
+                        fact(3L, 100L, Issue.IssueStatus.OPEN, Severity.MAJOR, LocalDateTime.of(2024, 3, 6, 23, 59, 59)),
+                        fact(4L, 100L, Issue.IssueStatus.OPEN, Severity.MAJOR, null)));
+
+        List<IssueTrackingService.IssueTrendData> trend = issueTrackingService.getIssueTrendData(3L, start, end);
+
+        assertEquals(3, trend.size());
+        assertEquals(LocalDate.of(2024, 3, 4), trend.get(0).getDate());
+        assertEquals(2, trend.get(0).getTotalIssues());
+        // 零点创建的问题不计入新增
+        assertEquals(1, trend.get(0).getNewIssues());
+        assertEquals(1, trend.get(0).getResolvedIssues());
+        assertEquals(0, trend.get(1).getTotalIssues());
+        assertEquals(1, trend.get(2).getTotalIssues());
+        assertEquals(0, trend.get(2).getNewIssues());
+    }
+
+    private IssueFact fact(Long id, Long createdBy, Issue.IssueStatus status, Severity severity, LocalDateTime createdAt) {
+        IssueFact fact = new IssueFact();
+        fact.setId(id);
+        fact.setCreatedBy(createdBy);
+        fact.setStatus(status);
+        fact.setSeverity(severity);
+        fact.setCreatedAt(createdAt);
+        return fact;
+    }
+
+    private FixRecord fixRecord() {
+        FixRecord fixRecord = new FixRecord();
+        fixRecord.setId(10L);
+        fixRecord.setIssueId(1L);
+        fixRecord.setStatus(FixRecord.FixStatus.SUBMITTED);
+        return fixRecord;
+    }
+
+    private Issue issue() {
+        Issue issue = new Issue();
+        issue.setId(1L);
+        issue.setSeverity(Severity.MAJOR);
+        issue.setStatus(Issue.IssueStatus.IN_PROGRESS);
+        return issue;
+    }
+
+    private VerificationRequest request(FixRecord.VerificationResult result) {
+        VerificationRequest request = new VerificationRequest();
+        request.setVerifierId(2L);
+        request.setResult(result);
+        return request;
+    }
+}
@@ -0,0 +1,65 @@
+package com.company.codereview.user.service;
+
+import com.company.codereview.user.entity.Notification;
+import com.company.codereview.user.entity.NotificationPreference;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 通知偏好快照测试类
+ */
+class NotificationPreferenceSnapshotTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 4, 10, 0);
+
+    @Test
+    void testUsersWithoutPreferenceGetInAppDefaults() {
+        NotificationPreferenceSnapshot snapshot = NotificationPreferenceSnapshot.of(List.of());
+
+        assertTrue(snapshot.isEnabled(1L));
+        assertEquals(List.of("IN_APP"), snapshot.channels(1L, null));
+        assertEquals(NotificationPreferenceSnapshot.DEFAULT_FREQUENCY_LIMIT_MINUTES, snapshot.frequencyLimitMinutes(1L));
+    }
+
+    @Test
+    void testEvaluatesEnablementAndChannelsPerUser() {
+        NotificationPreferenceSnapshot snapshot = NotificationPreferenceSnapshot.of(List.of(
+                preference(1L, true, true, false, null),
+                preference(2L, false, false, false, null)));
+
+        assertTrue(snapshot.isEnabled(1L));
+        assertEquals(List.of("IN_APP", "EMAIL"), snapshot.channels(1L, null));
+        assertFalse(snapshot.isEnabled(2L));
+        assertTrue(snapshot.channels(2L, List.of()).isEmpty());
+        // 请求中指定的渠道优先于用户偏好
+        assertEquals(List.of("SMS"), snapshot.channels(2L, List.of("SMS")));
+    }
+
+    @Test
+    void testFrequencyLimitUsesPreferenceOrDefault() {
+        NotificationPreferenceSnapshot snapshot = NotificationPreferenceSnapshot.of(List.of(
+                preference(1L, true, false, false, 30)));
+        String sentTenMinutesAgo = NOW.minusMinutes(10).toString();
+
+        assertTrue(snapshot.isFrequencyLimited(1L, sentTenMinutesAgo, NOW));
+        assertFalse(snapshot.isFrequencyLimited(2L, sentTenMinutesAgo, NOW));
+        assertTrue(snapshot.isFrequencyLimited(2L, NOW.minusMinutes(1).toString(), NOW));
+        assertFalse(snapshot.isFrequencyLimited(1L, null, NOW));
+    }
+
+    private NotificationPreference preference(Long userId, boolean inApp, boolean email, boolean sms, Integer frequencyLimit) {
+        NotificationPreference preference = new NotificationPreference();
+        preference.setUserId(userId);
+        preference.setNotificationType(Notification.NotificationType.REVIEW_ASSIGNED);
+        preference.setInAppEnabled(inApp);
+        preference.setEmailEnabled(email);
+        preference.setWechatWorkEnabled(false);
+        preference.setSmsEnabled(sms);
+        preference.setFrequencyLimit(frequencyLimit);
+        return preference;
+    }
+}
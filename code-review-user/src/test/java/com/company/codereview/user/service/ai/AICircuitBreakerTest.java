@@ -0,0 +1,120 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.exception.CircuitBreakerOpenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI服务熔断器测试类
+ */
+class AICircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private AICircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        AIServiceConfig.CircuitBreakerConfig config = new AIServiceConfig.CircuitBreakerConfig();
+        config.setSlidingWindowSize(10);
+        config.setMinimumNumberOfCalls(4);
+        config.setFailureRateThreshold(50.0);
+        config.setSlowCallP95ThresholdMillis(1000);
+        config.setWaitDurationInOpenState(60);
+        config.setPermittedNumberOfCallsInHalfOpenState(2);
+        breaker = new AICircuitBreaker(config, clock::get);
+    }
+
+    @Test
+    void testOpensOnFailureRateAndRejectsWithoutCalling() {
+        call(true);
+        call(false);
+        call(true);
+        assertEquals(AICircuitBreaker.State.CLOSED, breaker.getState());
+
+        call(false);
+
+        assertEquals(AICircuitBreaker.State.OPEN, breaker.getState());
+        AtomicInteger invocations = new AtomicInteger();
+        CompletableFuture<Boolean> rejected = breaker.execute(() -> {
+            invocations.incrementAndGet();
+            return CompletableFuture.completedFuture(true);
+        }, ok -> ok);
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(error.getCause() instanceof CircuitBreakerOpenException);
+        assertEquals(0, invocations.get());
+    }
+
+    @Test
+    void testOpensOnP95Latency() {
+        for (int i = 0; i < 3; i++) {
+            call(true);
+        }
+        CompletableFuture<Boolean> slow = new CompletableFuture<>();
+        breaker.execute(() -> slow, ok -> ok);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        slow.complete(true);
+
+        assertEquals(AICircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpenProbesCloseOrReopen() {
+        openBreaker();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertEquals(AICircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // 两个探测名额，第三个调用被拒绝
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        CompletableFuture<Boolean> second = new CompletableFuture<>();
+        breaker.execute(() -> first, ok -> ok);
+        breaker.execute(() -> second, ok -> ok);
+        assertTrue(breaker.execute(() -> CompletableFuture.completedFuture(true), ok -> ok).isCompletedExceptionally());
+
+        first.complete(true);
+        second.completeExceptionally(new IllegalStateException("still down"));
+        assertEquals(AICircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        call(true);
+        call(true);
+        assertEquals(AICircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getStats().get("windowCalls"));
+    }
+
+    @Test
+    void testCancelledProbeReleasesItsSlotAndStaleResultsAreIgnored() {
+        CompletableFuture<Boolean> stale = new CompletableFuture<>();
+        breaker.execute(() -> stale, ok -> ok);
+        openBreaker();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        CompletableFuture<Boolean> probe = new CompletableFuture<>();
+        breaker.execute(() -> probe, ok -> ok).cancel(true);
+        // 打开之前发起的调用完成时不计入探测结果
+        stale.completeExceptionally(new IllegalStateException("late failure"));
+
+        call(true);
+        call(true);
+        assertEquals(AICircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 4; i++) {
+            call(false);
+        }
+        assertEquals(AICircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void call(boolean success) {
+        breaker.execute(() -> CompletableFuture.completedFuture(success), ok -> ok);
+    }
+}
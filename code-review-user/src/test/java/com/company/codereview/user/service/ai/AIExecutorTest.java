@@ -0,0 +1,88 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI调用执行器测试类
+ */
+class AIExecutorTest {
+
+    private AIExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        AIServiceConfig config = new AIServiceConfig();
+        config.setTimeout(5);
+        config.getExecutor().setMaxConcurrentCalls(1);
+        config.getExecutor().setQueueCapacity(1);
+        executor = new AIExecutor(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testRejectsWhenBulkheadAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit("running", () -> {
+            release.await();
+            return "running";
+        });
+        CompletableFuture<String> queued = executor.submit("queued", () -> "queued");
+        CompletableFuture<String> rejected = executor.submit("rejected", () -> "rejected");
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+        assertEquals(1, executor.getStats().getQueuedCalls());
+
+        release.countDown();
+        assertEquals("running", running.get(1, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(1, TimeUnit.SECONDS));
+
+        AIExecutorStats stats = executor.getStats();
+        assertEquals(3L, stats.getSubmittedCalls());
+        assertEquals(2L, stats.getCompletedCalls());
+        assertEquals(1L, stats.getRejectedCalls());
+    }
+
+    @Test
+    void testTimeoutAndCancellationInterruptTheCall() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(2);
+        CompletableFuture<String> timedOut = executor.submit("slow", () -> sleepUntilInterrupted(interrupted), 50L);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> timedOut.get(1, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException);
+
+        CompletableFuture<String> cancelled = executor.submit("slow", () -> sleepUntilInterrupted(interrupted));
+        Thread.sleep(50L);
+        cancelled.cancel(true);
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertEquals(1L, executor.getStats().getTimedOutCalls());
+        assertEquals(1L, executor.getStats().getCancelledCalls());
+    }
+
+    private static String sleepUntilInterrupted(CountDownLatch interrupted) throws InterruptedException {
+        try {
+            Thread.sleep(10_000L);
+            return "late";
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI回复缓存测试类
+ */
+class AIResponseCacheTest {
+
+    private AIResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        AIServiceConfig config = new AIServiceConfig();
+        config.getResponseCache().setRedisEnabled(false);
+        cache = new AIResponseCache(config, null);
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        String key = AIResponseCache.key("gpt-3.5-turbo", 1000, "prompt");
+
+        CompletableFuture<String> first = cache.get(key, () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = cache.get(key, () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        pending.complete("summary");
+        assertEquals("summary", first.get(1, TimeUnit.SECONDS));
+        assertEquals("summary", second.get(1, TimeUnit.SECONDS));
+
+        CompletableFuture<String> cached = cache.get(key, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertEquals("summary", cached.get(1, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(1L, cache.getStats().get("coalesced"));
+        assertEquals(1L, cache.getStats().get("localHits"));
+    }
+
+    @Test
+    void testFailuresAreNotCached() throws Exception {
+        String key = AIResponseCache.key("prompt");
+        CompletableFuture<String> failed = cache.get(key,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("AI服务请求失败")));
+        assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+
+        CompletableFuture<String> retried = cache.get(key, () -> CompletableFuture.completedFuture("summary"));
+        assertEquals("summary", retried.get(1, TimeUnit.SECONDS));
+        assertEquals(2L, cache.getStats().get("loads"));
+    }
+
+    @Test
+    void testCallIsCancelledOnlyWhenAllWaitersCancel() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        String key = AIResponseCache.key("prompt");
+        CompletableFuture<String> first = cache.get(key, () -> pending);
+        CompletableFuture<String> second = cache.get(key, CompletableFuture::new);
+
+        first.cancel(true);
+        assertFalse(pending.isCancelled());
+        second.cancel(true);
+        assertTrue(pending.isCancelled());
+        assertEquals(0L, cache.getStats().get("inFlight"));
+    }
+
+    @Test
+    void testKeyDependsOnEveryPart() {
+        assertEquals(AIResponseCache.key("a", 1), AIResponseCache.key("a", 1));
+        assertNotEquals(AIResponseCache.key("ab", "c"), AIResponseCache.key("a", "bc"));
+        assertEquals(64, AIResponseCache.key("prompt").length());
+    }
+}
@@ -0,0 +1,264 @@
+package com.company.codereview.user.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地模拟的 OpenAI 兼容服务（测试用）
+ *
+ * 基于 JDK 自带的 HttpServer 监听本机随机端口，实现 POST /v1/chat/completions：
+ * 响应延迟按对数正态分布采样（由中位数和 P99 确定），按错误率返回错误状态码，
+ * 请求带 stream=true 时以 SSE 逐段输出内容，非流式响应带 usage 用量。完全离线运行，不消耗真实配额。
+ */
+public class MockOpenAIServer implements AutoCloseable {
+
+    private static final double Z_99 = 2.326;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile long medianLatencyMillis = 50;
+    private volatile long p99LatencyMillis = 50;
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private volatile long tokenDelayMillis = 5;
+    private volatile String reply = "# Code Review Summary\n\nThe team resolved most critical issues this week. "
+            + "Null handling and SQL parameterisation remain the most frequent findings.";
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong streamedRequests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong completionTokens = new AtomicLong();
+
+    private MockOpenAIServer(HttpServer server, ExecutorService handlers) {
+        this.server = server;
+        this.handlers = handlers;
+    }
+
+    /**
+     * 在本机随机端口启动服务
+     */
+    public static MockOpenAIServer start() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService handlers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mock-openai");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MockOpenAIServer mock = new MockOpenAIServer(httpServer, handlers);
+        httpServer.createContext("/v1/chat/completions", mock::handle);
+        httpServer.setExecutor(handlers);
+        httpServer.start();
+        return mock;
+    }
+
+    /**
+     * 作为 ai.service.base-url 使用的地址
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1";
+    }
+
+    /**
+     * 响应延迟（流式调用为首段内容的延迟）的中位数和 P99，两者相等时为固定延迟
+     */
+    public MockOpenAIServer latency(long medianMillis, long p99Millis) {
+        this.medianLatencyMillis = medianMillis;
+        this.p99LatencyMillis = Math.max(medianMillis, p99Millis);
+        return this;
+    }
+
+    /**
+     * 返回错误的请求比例及错误状态码（如 500、429）
+     */
+    public MockOpenAIServer errors(double rate, int status) {
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * 回复内容，流式调用按词逐段输出，每段间隔 tokenDelayMillis
+     */
+    public MockOpenAIServer reply(String content, long tokenDelayMillis) {
+        this.reply = content;
+        this.tokenDelayMillis = tokenDelayMillis;
+        return this;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getStreamedRequests() {
+        return streamedRequests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getPromptTokens() {
+        return promptTokens.get();
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "application/json", error("method not allowed", "invalid_request_error"));
+                return;
+            }
+            requests.incrementAndGet();
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+            int prompt = countPromptTokens(request);
+            String model = request.path("model").asText("mock-model");
+            boolean stream = request.path("stream").asBoolean(false);
+
+            TimeUnit.MILLISECONDS.sleep(sampleLatencyMillis());
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                send(exchange, errorStatus, "application/json", error("mock server error",
+                        errorStatus == 429 ? "rate_limit_exceeded" : "server_error"));
+                return;
+            }
+
+            String content = reply;
+            int completion = PromptCompiler.estimateTokens(content);
+            promptTokens.addAndGet(prompt);
+            completionTokens.addAndGet(completion);
+            if (stream) {
+                streamedRequests.incrementAndGet();
+                stream(exchange, model, content);
+            } else {
+                send(exchange, 200, "application/json", completion(model, content, prompt, completion));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private long sampleLatencyMillis() {
+        if (p99LatencyMillis <= medianLatencyMillis) {
+            return medianLatencyMillis;
+        }
+        double sigma = Math.log((double) p99LatencyMillis / medianLatencyMillis) / Z_99;
+        return Math.round(medianLatencyMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    private int countPromptTokens(JsonNode request) {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode message : request.path("messages")) {
+            text.append(message.path("content").asText(""));
+        }
+        return PromptCompiler.estimateTokens(text.toString());
+    }
+
+    private String completion(String model, String content, int prompt, int completion) throws IOException {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-mock-" + requests.get());
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", model);
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        ObjectNode usage = response.putObject("usage");
+        usage.put("prompt_tokens", prompt);
+        usage.put("completion_tokens", completion);
+        usage.put("total_tokens", prompt + completion);
+        return objectMapper.writeValueAsString(response);
+    }
+
+    private void stream(HttpExchange exchange, String model, String content) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            List<String> pieces = split(content);
+            for (int i = 0; i < pieces.size(); i++) {
+                if (i > 0 && tokenDelayMillis > 0) {
+                    TimeUnit.MILLISECONDS.sleep(tokenDelayMillis);
+                }
+                ObjectNode chunk = objectMapper.createObjectNode();
+                chunk.put("id", "chatcmpl-mock-" + requests.get());
+                chunk.put("model", model);
+                ObjectNode choice = chunk.putArray("choices").addObject();
+                choice.put("index", 0);
+                choice.putObject("delta").put("content", pieces.get(i));
+                writeEvent(out, objectMapper.writeValueAsString(chunk));
+            }
+            writeEvent(out, "[DONE]");
+        }
+    }
+
+    private static void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * 按词切分，保留空白，拼接后与原文一致
+     */
+    private static List<String> split(String content) {
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= content.length(); i++) {
+            if (i == content.length() || Character.isWhitespace(content.charAt(i - 1))) {
+                if (i > start) {
+                    pieces.add(content.substring(start, i));
+                }
+                start = i;
+            }
+        }
+        return pieces;
+    }
+
+    private String error(String message, String type) throws IOException {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.putObject("error").put("message", message).put("type", type);
+        return objectMapper.writeValueAsString(response);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.exception.CircuitBreakerOpenException;
+import com.company.codereview.user.exception.RateLimitExceededException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OpenAI客户端对接本地模拟服务测试类
+ */
+class OpenAIClientMockServerTest {
+
+    private MockOpenAIServer server;
+    private AIServiceConfig config;
+    private AIExecutor executor;
+    private AICircuitBreaker breaker;
+    private OpenAIClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = MockOpenAIServer.start().latency(5, 5);
+
+        config = new AIServiceConfig();
+        config.setBaseUrl(server.getBaseUrl());
+        config.setApiKey("test-key");
+        config.setTimeout(5);
+        config.getResponseCache().setEnabled(false);
+        config.getCircuitBreaker().setSlidingWindowSize(4);
+        config.getCircuitBreaker().setMinimumNumberOfCalls(4);
+
+        executor = new AIExecutor(config);
+        breaker = new AICircuitBreaker(config);
+        client = new OpenAIClient(config, new RestTemplate(), new ObjectMapper(), executor, breaker,
+                new AIResponseCache(config, null), new PromptCompiler(config), new AIRateLimiter(config));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        server.close();
+    }
+
+    @Test
+    void testCompletionReportsContentAndUsage() throws Exception {
+        server.reply("Weekly summary: 3 critical issues resolved.", 0);
+
+        String content = client.generateSummaryOrFail("Summarise this week").get(5, TimeUnit.SECONDS);
+
+        assertEquals("Weekly summary: 3 critical issues resolved.", content);
+        assertEquals(1, server.getRequests());
+        assertTrue(server.getPromptTokens() > 0);
+        assertTrue(server.getCompletionTokens() > 0);
+    }
+
+    @Test
+    void testStreamingDeliversTokensInOrder() throws Exception {
+        server.reply("one two three four", 1);
+        List<String> tokens = new ArrayList<>();
+
+        String content = client.streamSummary("Summarise this week", tokens::add).get(5, TimeUnit.SECONDS);
+
+        assertEquals("one two three four", content);
+        assertEquals(List.of("one ", "two ", "three ", "four"), tokens);
+        assertEquals(1, server.getStreamedRequests());
+    }
+
+    @Test
+    void testServerErrorsOpenTheCircuitAndFailFast() throws Exception {
+        server.errors(1.0, 500);
+        for (int i = 0; i < 4; i++) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> client.generateSummaryOrFail("Summarise this week").get(5, TimeUnit.SECONDS));
+            assertFalse(error.getCause() instanceof CircuitBreakerOpenException);
+        }
+        // 熔断器在调用方收到结果后才记录最后一次失败
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (breaker.getState() != AICircuitBreaker.State.OPEN && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> client.generateSummaryOrFail("Summarise this week").get(5, TimeUnit.SECONDS));
+
+        assertTrue(rejected.getCause() instanceof CircuitBreakerOpenException);
+        assertEquals(4, server.getRequests());
+        assertEquals(4, server.getErrors());
+    }
+
+    @Test
+    void testInteractiveAndStreamingCallsShareTheRateLimit() throws Exception {
+        server.reply("one two", 1);
+        config.getRateLimit().setRequestsPerMinute(1);
+        OpenAIClient limited = new OpenAIClient(config, new RestTemplate(), new ObjectMapper(), executor, breaker,
+                new AIResponseCache(config, null), new PromptCompiler(config), new AIRateLimiter(config));
+
+        assertEquals("one two", limited.generateSummaryOrFail("Summarise this week").get(5, TimeUnit.SECONDS));
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> limited.streamSummary("Summarise last week", token -> { }).get(5, TimeUnit.SECONDS));
+
+        assertTrue(rejected.getCause() instanceof RateLimitExceededException);
+        assertEquals(1, server.getRequests());
+        assertEquals(0, server.getStreamedRequests());
+        assertEquals(AICircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
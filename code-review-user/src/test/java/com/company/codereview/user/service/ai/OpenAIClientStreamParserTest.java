@@ -0,0 +1,81 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.user.config.AIServiceConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OpenAI客户端流式响应解析测试类
+ */
+class OpenAIClientStreamParserTest {
+
+    private final OpenAIClient client = new OpenAIClient(new AIServiceConfig(), null, new ObjectMapper(),
+            null, null, null, null, null);
+
+    @Test
+    void testMultiLineEventIsJoinedBeforeParsing() throws Exception {
+        List<String> tokens = new ArrayList<>();
+
+        String content = client.readStream(stream(
+                ": keep-alive\n" +
+                "data: {\"choices\":[{\"index\":0,\n" +
+                "data: \"delta\":{\"content\":\"Hello\"}}]}\n" +
+                "\n" +
+                "event: message\n" +
+                "data:{\"choices\":[{\"delta\":{\"content\":\" world\"}}]}\n" +
+                "\n" +
+                "data: {\"choices\":[]}\n" +
+                "\n"), tokens::add);
+
+        assertEquals("Hello world", content);
+        assertEquals(List.of("Hello", " world"), tokens);
+    }
+
+    @Test
+    void testDoneStopsReading() throws Exception {
+        List<String> tokens = new ArrayList<>();
+
+        String content = client.readStream(stream(
+                "data: {\"choices\":[{\"delta\":{\"content\":\"done\"}}]}\n\n" +
+                "data: [DONE]\n\n" +
+                "data: not json\n\n"), tokens::add);
+
+        assertEquals("done", content);
+        assertEquals(List.of("done"), tokens);
+    }
+
+    @Test
+    void testLastEventWithoutTrailingBlankLineIsDelivered() throws Exception {
+        String content = client.readStream(stream(
+                "data: {\"choices\":[{\"delta\":{\"content\":\"tail\"}}]}"), token -> { });
+
+        assertEquals("tail", content);
+    }
+
+    @Test
+    void testThrowingCallbackAbortsStream() {
+        List<String> tokens = new ArrayList<>();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> client.readStream(stream(
+                "data: {\"choices\":[{\"delta\":{\"content\":\"first\"}}]}\n\n" +
+                "data: {\"choices\":[{\"delta\":{\"content\":\"second\"}}]}\n\n"), token -> {
+                    tokens.add(token);
+                    throw new IllegalStateException("client disconnected");
+                }));
+
+        assertEquals("client disconnected", error.getMessage());
+        assertEquals(List.of("first"), tokens);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,114 @@
+package com.company.codereview.user.service.ai;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.common.enums.Severity;
+import com.company.codereview.user.config.AIServiceConfig;
+import com.company.codereview.user.dto.AISummaryRequest;
+import com.company.codereview.user.dto.FrequentIssue;
+import com.company.codereview.user.dto.IssueAnalysisResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 提示词编译器测试类
+ */
+class PromptCompilerTest {
+
+    private AIServiceConfig config;
+    private PromptCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        config = new AIServiceConfig();
+        config.getPrompt().setMaxPromptTokens(400);
+        compiler = new PromptCompiler(config);
+    }
+
+    @Test
+    void testTemplateRendersPlaceholdersInOrder() {
+        PromptTemplate template = PromptTemplate.compile("{{a}}-{{b}}-{{a}}!");
+        assertEquals(Arrays.asList("a", "b"), template.getNames());
+        assertEquals("x-y-x!", template.render("x", "y"));
+        assertEquals("--!", template.render(null, null));
+        assertThrows(IllegalArgumentException.class, () -> template.render("x"));
+        assertThrows(IllegalArgumentException.class, () -> PromptTemplate.compile("{{open"));
+    }
+
+    @Test
+    void testIssueDataIsDedupedRankedAndFitsBudget() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            lines.add("MINOR 变量命名不规范，建议使用有意义的名称 第" + i + "处");
+        }
+        lines.add("CRITICAL SQL拼接存在注入风险，必须使用参数化查询");
+        lines.add("CRITICAL SQL拼接存在注入风险，必须使用参数化查询");
+        lines.add("MAJOR 未关闭数据库连接导致连接泄漏");
+
+        String prompt = compiler.compileIssuePatternPrompt(String.join("\n", lines));
+
+        assertTrue(PromptCompiler.estimateTokens(prompt) <= 400);
+        String[] promptLines = prompt.split("\n");
+        assertTrue(promptLines[1].startsWith("- MINOR 变量命名不规范"));
+        assertTrue(promptLines[1].endsWith("(x500)"), "相近的问题行应合并计数");
+        assertEquals("- CRITICAL SQL拼接存在注入风险，必须使用参数化查询 (x2)", promptLines[2]);
+        assertTrue(promptLines[3].startsWith("- MAJOR 未关闭数据库连接"));
+        assertEquals(4, promptLines.length);
+    }
+
+    @Test
+    void testSummaryPromptOmitsLowestRankedEvidenceOverBudget() {
+        List<FrequentIssue> frequentIssues = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            frequentIssues.add(FrequentIssue.builder()
+                    .keyword("keyword" + i)
+                    .count(100L - i)
+                    .averageSeverity(Severity.MINOR)
+                    .example("example issue description number " + i + " with distinct wording " + (i * 7919))
+                    .build());
+        }
+        frequentIssues.add(FrequentIssue.builder()
+                .keyword("injection").count(30L).averageSeverity(Severity.CRITICAL)
+                .example("unsanitised input concatenated into SQL").build());
+
+        IssueAnalysisResult result = IssueAnalysisResult.builder()
+                .typeDistribution(Map.of(IssueType.SECURITY_VULNERABILITY, 5L))
+                .severityDistribution(Collections.emptyMap())
+                .frequentIssues(frequentIssues)
+                .patterns(Collections.emptyList())
+                .clusters(Collections.emptyList())
+                .totalIssues(61L)
+                .resolutionRate(50.0)
+                .build();
+        AISummaryRequest request = new AISummaryRequest();
+        request.setStartDate(LocalDate.of(2024, 1, 1));
+        request.setEndDate(LocalDate.of(2024, 1, 7));
+        request.setSummaryType(AISummaryRequest.SummaryType.TEAM_WEEKLY);
+
+        String prompt = compiler.compileSummaryPrompt(request, result);
+
+        assertTrue(PromptCompiler.estimateTokens(prompt) <= 400);
+        assertTrue(prompt.contains("- [Frequent] keyword0 [MINOR]"));
+        assertFalse(prompt.contains("keyword59"));
+        assertTrue(prompt.contains("more items omitted"));
+        assertTrue(prompt.indexOf("injection") < prompt.indexOf("keyword0"), "严重问题权重更高，排在前面");
+        assertTrue(prompt.endsWith("5. Areas for improvement\n"));
+    }
+
+    @Test
+    void testTruncateToTokens() {
+        String text = "代码评审".repeat(100);
+        String truncated = PromptCompiler.truncateToTokens(text, 10);
+        assertTrue(PromptCompiler.estimateTokens(truncated) <= 10);
+        assertTrue(truncated.endsWith("…"));
+        assertEquals("short", PromptCompiler.truncateToTokens("short", 10));
+    }
+}
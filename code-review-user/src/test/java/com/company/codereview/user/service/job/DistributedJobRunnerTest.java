@@ -0,0 +1,265 @@
+package com.company.codereview.user.service.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分布式任务执行器测试类
+ *
+ * Redis 由内存中的键值、集合和哈希模拟，Lua 脚本按相同语义在内存中执行；多个执行器共享同一份数据，模拟多个节点。
+ */
+class DistributedJobRunnerTest {
+
+    private static final String JOB = "test:job";
+    private static final String RUN_KEY = "2024-03-04";
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+    private final List<DistributedJobRunner> runners = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        values.clear();
+        sets.clear();
+        hashes.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        runners.forEach(DistributedJobRunner::shutdown);
+    }
+
+    @Test
+    void testInterruptedRunResumesFromCheckpoint() {
+        DistributedJobRunner runner = newRunner();
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger attempts = new AtomicInteger();
+        runner.register(JOB, () -> Arrays.asList(1L, 2L, 3L), item -> {
+            handled.add(item);
+            // 第二个条目处理时锁过期，模拟 leader 停顿超过租期
+            if (item == 2L && attempts.incrementAndGet() == 1) {
+                values.remove("job:" + JOB + ":lock");
+            }
+        });
+
+        runner.runPartitioned(JOB, RUN_KEY);
+
+        assertEquals(Arrays.asList(1L, 2L), handled);
+        assertEquals(Collections.singleton("1"), sets.get("job:" + JOB + ":checkpoint:" + RUN_KEY));
+        assertEquals("RUNNING", hashes.get("job:" + JOB + ":run").get("status"));
+        assertEquals("INTERRUPTED", runner.getJobStats().get(0).getLastStatus());
+
+        handled.clear();
+        newRunner(runner).resumeInterruptedRuns();
+
+        // 已写入检查点的条目不再处理
+        assertEquals(Arrays.asList(2L, 3L), handled);
+        assertEquals("COMPLETED", hashes.get("job:" + JOB + ":run").get("status"));
+        assertFalse(sets.containsKey("job:" + JOB + ":checkpoint:" + RUN_KEY));
+        assertTrue(values.containsKey("job:" + JOB + ":completed:" + RUN_KEY));
+    }
+
+    @Test
+    void testCompletedRunIsNotRepeatedByLateNode() {
+        AtomicInteger handled = new AtomicInteger();
+        DistributedJobRunner first = newRunner();
+        first.register(JOB, () -> Arrays.asList(1L, 2L), item -> handled.incrementAndGet());
+        DistributedJobRunner late = newRunner(first);
+
+        first.runPartitioned(JOB, RUN_KEY);
+        late.runPartitioned(JOB, RUN_KEY);
+        first.runPartitioned(JOB, RUN_KEY);
+
+        assertEquals(2, handled.get());
+        assertEquals(1, late.getJobStats().get(0).getSkippedRuns());
+        assertFalse(values.containsKey("job:" + JOB + ":lock"));
+
+        // 下一个周期正常执行
+        late.runPartitioned(JOB, "2024-03-05");
+        assertEquals(4, handled.get());
+    }
+
+    @Test
+    void testFailedItemsAreRetriedWithoutRepeatingCompletedOnes() {
+        DistributedJobRunner runner = newRunner();
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger attempts = new AtomicInteger();
+        runner.register(JOB, () -> Arrays.asList(1L, 2L, 3L), item -> {
+            handled.add(item);
+            if (item == 2L && attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("数据库不可用");
+            }
+        });
+
+        runner.runPartitioned(JOB, RUN_KEY);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), handled);
+        assertEquals("INCOMPLETE", hashes.get("job:" + JOB + ":run").get("status"));
+        assertEquals(new HashSet<>(Arrays.asList("1", "3")), sets.get("job:" + JOB + ":checkpoint:" + RUN_KEY));
+        assertFalse(values.containsKey("job:" + JOB + ":completed:" + RUN_KEY));
+        assertEquals(0, runner.getJobStats().get(0).getCompletedRuns());
+
+        handled.clear();
+        newRunner(runner).resumeInterruptedRuns();
+
+        // 只重试失败的条目
+        assertEquals(Collections.singletonList(2L), handled);
+        assertEquals("COMPLETED", hashes.get("job:" + JOB + ":run").get("status"));
+        assertTrue(values.containsKey("job:" + JOB + ":completed:" + RUN_KEY));
+
+        handled.clear();
+        runner.runPartitioned(JOB, RUN_KEY);
+        assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    void testExclusiveRunWithRunKeyRunsOncePerPeriod() {
+        AtomicInteger runs = new AtomicInteger();
+        DistributedJobRunner first = newRunner();
+        DistributedJobRunner second = newRunner();
+
+        first.runExclusive(JOB, "2024-03-04T10:00", runs::incrementAndGet);
+        second.runExclusive(JOB, "2024-03-04T10:00", runs::incrementAndGet);
+        second.runExclusive(JOB, "2024-03-04T11:00", runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testFailedExclusiveRunCanBeRetried() {
+        AtomicInteger runs = new AtomicInteger();
+        DistributedJobRunner runner = newRunner();
+
+        runner.runExclusive(JOB, RUN_KEY, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("数据库不可用");
+        });
+        assertEquals("FAILED", runner.getJobStats().get(0).getLastStatus());
+
+        runner.runExclusive(JOB, RUN_KEY, runs::incrementAndGet);
+        runner.runExclusive(JOB, RUN_KEY, runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+        assertEquals("COMPLETED", runner.getJobStats().get(0).getLastStatus());
+    }
+
+    @Test
+    void testExclusiveRunWithoutRunKeyRunsEveryTime() {
+        AtomicInteger runs = new AtomicInteger();
+        DistributedJobRunner runner = newRunner();
+
+        runner.runExclusive(JOB, runs::incrementAndGet);
+        runner.runExclusive(JOB, runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    /**
+     * 新节点，沿用已有节点注册的任务
+     */
+    private DistributedJobRunner newRunner(DistributedJobRunner registeredFrom) {
+        DistributedJobRunner runner = newRunner();
+        ReflectionTestUtils.setField(runner, "definitions", ReflectionTestUtils.getField(registeredFrom, "definitions"));
+        return runner;
+    }
+
+    private DistributedJobRunner newRunner() {
+        DistributedJobRunner runner = new DistributedJobRunner(fakeRedis());
+        ReflectionTestUtils.setField(runner, "leaseMillis", 60000L);
+        ReflectionTestUtils.setField(runner, "workerThreads", 1);
+        ReflectionTestUtils.setField(runner, "checkpointTtlHours", 48L);
+        ReflectionTestUtils.setField(runner, "completedTtlHours", 840L);
+        runner.init();
+        runners.add(runner);
+        return runner;
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate fakeRedis() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+        SetOperations<String, String> setOps = mock(SetOperations.class);
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(redis.opsForSet()).thenReturn(setOps);
+        when(redis.<Object, Object>opsForHash()).thenReturn(hashOps);
+
+        when(valueOps.increment(anyString())).thenAnswer(invocation ->
+                Long.valueOf(values.merge(invocation.getArgument(0), "1",
+                        (current, one) -> String.valueOf(Long.parseLong(current) + 1))));
+        when(valueOps.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenAnswer(invocation ->
+                values.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        when(setOps.members(anyString())).thenAnswer(invocation -> {
+            Set<String> members = sets.get(invocation.<String>getArgument(0));
+            return members != null ? new HashSet<>(members) : new HashSet<>();
+        });
+        when(hashOps.entries(anyString())).thenAnswer(invocation ->
+                new HashMap<>(hashes.getOrDefault(invocation.<String>getArgument(0), Collections.emptyMap())));
+        when(redis.hasKey(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            return values.containsKey(key) || sets.containsKey(key) || hashes.containsKey(key);
+        });
+        when(redis.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            List<String> keys = invocation.getArgument(1);
+            List<Object> args = Arrays.asList(arguments).subList(2, arguments.length);
+            return evalScript(invocation.getArgument(0), keys, args);
+        });
+        return redis;
+    }
+
+    /**
+     * 按 DistributedJobRunner 中 Lua 脚本的语义执行，忽略过期时间
+     */
+    private synchronized Long evalScript(RedisScript<Long> script, List<String> keys, List<Object> args) {
+        String lockKey = keys.get(0);
+        if (!args.get(0).equals(values.get(lockKey))) {
+            return 0L;
+        }
+        if (script == DistributedJobRunner.RELEASE_SCRIPT) {
+            values.remove(lockKey);
+        } else if (script == DistributedJobRunner.CHECKPOINT_SCRIPT) {
+            sets.computeIfAbsent(keys.get(1), key -> ConcurrentHashMap.newKeySet()).add((String) args.get(2));
+        } else if (script == DistributedJobRunner.RUN_STATE_SCRIPT) {
+            Map<Object, Object> state = hashes.computeIfAbsent(keys.get(1), key -> new ConcurrentHashMap<>());
+            state.put("runKey", args.get(1));
+            state.put("status", args.get(2));
+            state.put("owner", args.get(0));
+            if ("COMPLETED".equals(args.get(2))) {
+                values.put(keys.get(3), (String) args.get(0));
+                sets.remove(keys.get(2));
+            }
+        } else if (script == DistributedJobRunner.COMPLETED_SCRIPT) {
+            values.put(keys.get(1), (String) args.get(0));
+        }
+        return 1L;
+    }
+}
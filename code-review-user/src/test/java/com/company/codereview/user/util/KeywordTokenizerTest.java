@@ -0,0 +1,46 @@
+package com.company.codereview.user.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键词分词器测试类
+ */
+class KeywordTokenizerTest {
+
+    private final KeywordTokenizer tokenizer = new KeywordTokenizer(
+            Arrays.asList("的", "和", "the", "in", "问题"),
+            Arrays.asList("空指针", "数据库", "查询", "性能", "命名", "规范"),
+            2, 3);
+
+    @Test
+    void testDictionaryMatchWithBigramFallback() {
+        assertEquals(Arrays.asList("数据库", "查询", "性能"), tokenizer.tokenize("数据库查询性能慢"));
+        assertEquals(Arrays.asList("空指针", "检查", "查缺", "缺失"), tokenizer.tokenize("空指针检查缺失"));
+    }
+
+    @Test
+    void testStopWordsAndMixedText() {
+        List<String> tokens = tokenizer.tokenize("The NullPointerException in UserService: 命名的规范问题, id=42");
+
+        assertEquals(Arrays.asList("nullpointerexception", "userservice", "命名", "规范"), tokens);
+    }
+
+    @Test
+    void testDistinctTokensAndEmptyInput() {
+        assertEquals(Arrays.asList("timeout", "性能"), tokenizer.tokenize("timeout 性能 TIMEOUT 性能"));
+        assertTrue(tokenizer.tokenize(null).isEmpty());
+        assertTrue(tokenizer.tokenize("a, b; 慢").isEmpty());
+    }
+
+    @Test
+    void testShortLatinWordsWithLowerMinimum() {
+        assertEquals(Arrays.asList("slow", "性能"), tokenizer.tokenize("DB IO slow 性能"));
+        assertEquals(Arrays.asList("db", "io", "slow", "性能"), tokenizer.tokenize("DB IO slow 性能", 2));
+        assertFalse(tokenizer.tokenize("in db", 2).contains("in"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.company.codereview.user.util;
+
+import com.company.codereview.common.enums.IssueType;
+import com.company.codereview.user.config.IssueAnalysisConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模式规则引擎测试类
+ */
+class PatternRuleEngineTest {
+
+    private final PatternRuleEngine engine = PatternRuleEngine.fromConfig(new IssueAnalysisConfig.PatternConfig());
+
+    @Test
+    void testDefaultRulesMatchDescriptionTitleAndType() {
+        assertEquals(4, engine.size());
+        assertEquals("NULL_POINTER_PATTERN", engine.getRule(0).getId());
+
+        assertEquals(0b0001L, engine.match(IssueType.FUNCTIONAL_DEFECT, null, "NullPointerException in user service"));
+        assertEquals(0b0001L, engine.match(IssueType.FUNCTIONAL_DEFECT, "空指针", "返回值未检查"));
+        assertEquals(0b0110L, engine.match(IssueType.PERFORMANCE_ISSUE, "SQL injection", "XSS 攻击防护缺失"));
+        assertEquals(0b1000L, engine.match(IssueType.CODE_STANDARD, null, null));
+        assertEquals(0L, engine.match(null, "slow", "无关描述"));
+    }
+
+    @Test
+    void testRulesFromConfig() {
+        IssueAnalysisConfig.PatternConfig config = new IssueAnalysisConfig.PatternConfig();
+        IssueAnalysisConfig.PatternConfig.PatternRule lowConfidence = config.getRules().get(0);
+        lowConfidence.setConfidence(0.5);
+
+        IssueAnalysisConfig.PatternConfig.PatternRule transaction = new IssueAnalysisConfig.PatternConfig.PatternRule();
+        transaction.setId("TRANSACTION_PATTERN");
+        transaction.setConfidence(0.9);
+        transaction.setKeywords(Arrays.asList("Transaction", "事务"));
+        List<IssueAnalysisConfig.PatternConfig.PatternRule> rules = new ArrayList<>(config.getRules());
+        rules.add(transaction);
+        config.setRules(rules);
+
+        PatternRuleEngine custom = PatternRuleEngine.fromConfig(config);
+
+        assertEquals(4, custom.size());
+        assertEquals("TRANSACTION_PATTERN", custom.getRule(3).getId());
+        assertEquals(1L << 3, custom.match(null, null, "missing @TRANSACTIONAL on null check"));
+        assertNotEquals(engine.getVersion(), custom.getVersion());
+    }
+}